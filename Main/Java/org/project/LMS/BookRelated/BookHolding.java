@@ -0,0 +1,145 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The physical copies a library owns of one title (ISBN).
+ * Copies are numbered from 1. Free copies sit in a lock-free pool guarded by an atomic counter:
+ * a claim first reserves a slot by decrementing the counter and then takes any copy from the pool,
+ * so claiming and releasing are O(1) and never block, however many patrons compete for the title.
+ * A patron holds at most one copy of a title at a time.
+ */
+public class BookHolding {
+    private final String ISBN;
+    private final AtomicInteger copyCount;
+    private final AtomicInteger freeCount; // Copies in freeCopies that no claim has reserved yet
+    private final Queue<Integer> freeCopies;
+    private final ConcurrentHashMap<Integer, String> borrowerByCopy; // Copy table: copy number -> patron ID, for lent copies
+    private final ConcurrentHashMap<String, Integer> copyByPatron;
+
+    /**
+     * Creates a holding with the given number of copies, all of them free.
+     * @param ISBN The ISBN of the title.
+     * @param copies The number of copies owned.
+     */
+    public BookHolding(String ISBN, int copies) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("Book ISBN cannot be null or empty.");
+        }
+        if (copies <= 0) {
+            throw new IllegalArgumentException("Number of copies must be a positive value.");
+        }
+        this.ISBN = ISBN;
+        this.copyCount = new AtomicInteger();
+        this.freeCount = new AtomicInteger();
+        this.freeCopies = new ConcurrentLinkedQueue<>();
+        this.borrowerByCopy = new ConcurrentHashMap<>();
+        this.copyByPatron = new ConcurrentHashMap<>();
+        addCopies(copies);
+    }
+
+    public String getISBN() {
+        return ISBN;
+    }
+
+    /**
+     * Adds newly acquired copies to the holding; they are free immediately.
+     * @param count The number of copies to add.
+     */
+    public synchronized void addCopies(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of copies must be a positive value.");
+        }
+        int first = copyCount.get() + 1;
+        for (int copy = first; copy < first + count; copy++) {
+            freeCopies.offer(copy);
+        }
+        copyCount.addAndGet(count);
+        freeCount.addAndGet(count); // Published after the offers, so a successful reservation always finds a copy
+    }
+
+    /**
+     * Lends any free copy to the given patron.
+     * @param patronId The ID of the borrowing patron.
+     * @return The number of the claimed copy, or -1 if every copy is out.
+     * @throws IllegalArgumentException if the patron already holds a copy of this title.
+     */
+    public int claimCopy(String patronId) {
+        if (patronId == null || patronId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patron ID can not be null or empty.");
+        }
+        if (copyByPatron.containsKey(patronId)) {
+            throw new IllegalArgumentException("Patron " + patronId + " already holds a copy of ISBN " + ISBN + ".");
+        }
+        int free;
+        do {
+            free = freeCount.get();
+            if (free == 0) {
+                return -1;
+            }
+        } while (!freeCount.compareAndSet(free, free - 1));
+        Integer copy = freeCopies.poll(); // Never null: the reservation above guarantees a queued copy
+        if (copyByPatron.putIfAbsent(patronId, copy) != null) {
+            // The same patron raced a second claim; put the copy back.
+            freeCopies.offer(copy);
+            freeCount.incrementAndGet();
+            throw new IllegalArgumentException("Patron " + patronId + " already holds a copy of ISBN " + ISBN + ".");
+        }
+        borrowerByCopy.put(copy, patronId);
+        return copy;
+    }
+
+    /**
+     * Takes back the copy held by the given patron and returns it to the free pool.
+     * @param patronId The ID of the returning patron.
+     * @return The number of the released copy, or -1 if the patron holds no copy of this title.
+     */
+    public int releaseCopy(String patronId) {
+        if (patronId == null) {
+            return -1;
+        }
+        Integer copy = copyByPatron.remove(patronId);
+        if (copy == null) {
+            return -1;
+        }
+        borrowerByCopy.remove(copy);
+        freeCopies.offer(copy);
+        freeCount.incrementAndGet();
+        return copy;
+    }
+
+    /**
+     * Returns the copy held by the given patron.
+     * @param patronId The ID of the patron.
+     * @return The copy number, or -1 if the patron holds no copy of this title.
+     */
+    public int getCopyHeldBy(String patronId) {
+        Integer copy = patronId == null ? null : copyByPatron.get(patronId);
+        return copy == null ? -1 : copy;
+    }
+
+    /**
+     * Returns the patron currently holding the given copy.
+     * @param copyNumber The copy number.
+     * @return The patron ID, or null if the copy is on the shelf.
+     */
+    public String getBorrower(int copyNumber) {
+        return borrowerByCopy.get(copyNumber);
+    }
+
+    public int getCopyCount() {
+        return copyCount.get();
+    }
+
+    public int getAvailableCopies() {
+        return freeCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "BookHolding [ISBN=" + ISBN + ", Copies=" + getCopyCount() + ", Available=" + getAvailableCopies() + "]";
+    }
+}
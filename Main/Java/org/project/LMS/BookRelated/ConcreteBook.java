@@ -9,8 +9,7 @@ public class ConcreteBook implements IBook {
     private String author;
     private String ISBN; // Unique identification Id
     private int publicationYear;
-    private BookStatus isAvailable;
-    private BookStatus status;
+    private volatile BookStatus status;
 
 
     /**
@@ -84,7 +83,7 @@ public class ConcreteBook implements IBook {
     @Override
     public String toString() {
         return "Book [Title=" + title + ", Author=" + author + ", ISBN=" + ISBN +
-                ", PublicationYear=" + publicationYear + ", Available=" + isAvailable + "]";
+                ", PublicationYear=" + publicationYear + ", Status=" + status + "]";
     }
 
     /**
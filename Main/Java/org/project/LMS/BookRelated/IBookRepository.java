@@ -1,6 +1,19 @@
 package Main.Java.org.project.LMS.BookRelated;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface IBookRepository {
 
@@ -37,12 +50,179 @@ public interface IBookRepository {
      * @param query The search term (e.g., title, author name, ISBN).
      * @param searchBy The criteria for searching (e.g., BY_TITLE, BY_AUTHOR, BY_ISBN).
      * @return A List of IBook objects matching the search criteria. Returns an empty list if no matches.
+     *         Fuzzy search types return the best match first.
      */
     List<IBook> searchBooks(String query, SearchType searchBy);
 
+    /**
+     * Searches for books and returns at most the given number of results. For the fuzzy search types
+     * these are the most relevant matches, best first; implementations with an index can find them
+     * without ranking every match. The default searches and then truncates.
+     * @param query The search term.
+     * @param searchBy The criteria for searching.
+     * @param limit The maximum number of results.
+     * @return A List of at most limit IBook objects matching the search criteria.
+     * @throws IllegalArgumentException if limit is not positive.
+     */
+    default List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be a positive value.");
+        }
+        List<IBook> results = searchBooks(query, searchBy);
+        return results.size() <= limit ? results : results.subList(0, limit);
+    }
+
     /**
      * Returns a list of all books in the repository.
      * @return An unmodifiable List of all IBook objects.
      */
     List<IBook> getAllBooks();
+
+    /**
+     * Adds many books at once. Implementations may validate the whole batch first and report it
+     * with a single event instead of one per book; the default simply adds them one by one.
+     * @param books The IBook objects to add.
+     * @throws IllegalArgumentException if any book is null or its ISBN is duplicated or already exists.
+     */
+    default void addBooks(Collection<? extends IBook> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        for (IBook book : books) {
+            addBook(book);
+        }
+    }
+
+    /**
+     * Updates many books at once. Implementations may validate the whole batch first and report it
+     * with a single event instead of one per book; the default simply updates them one by one.
+     * @param updatedBooks The IBook objects with updated details.
+     * @throws IllegalArgumentException if any book is null or no book with its ISBN exists.
+     */
+    default void updateBooks(Collection<? extends IBook> updatedBooks) {
+        if (updatedBooks == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        for (IBook book : updatedBooks) {
+            updateBook(book);
+        }
+    }
+
+    /**
+     * Adds the books of a stream in chunks of {@code chunkSize}, so the stream is never fully materialized.
+     * Each chunk is added with {@link #addBooks(Collection)}; chunks added before a failing one stay added.
+     * @param books The stream of IBook objects to add.
+     * @param chunkSize The number of books per chunk.
+     * @return The number of books added.
+     */
+    default long addBooks(Stream<? extends IBook> books, int chunkSize) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be a positive value.");
+        }
+        long added = 0;
+        List<IBook> chunk = new ArrayList<>(chunkSize);
+        Iterator<? extends IBook> iterator = books.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                addBooks(chunk);
+                added += chunk.size();
+                chunk.clear();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Performs the given action for every book without copying the catalog first.
+     * @param action The action to perform.
+     */
+    default void forEachBook(Consumer<? super IBook> action) {
+        getAllBooks().forEach(action);
+    }
+
+    /**
+     * Returns one page of books in ISBN order, for cursor-based pagination.
+     * Pass null to get the first page and the ISBN of the last book of a page to get the next one.
+     * The default keeps only {@code limit} books in memory while walking the catalog once;
+     * ordered implementations seek directly to the cursor.
+     * @param afterISBN The ISBN the page starts after (exclusive), or null to start at the beginning.
+     * @param limit The maximum number of books to return.
+     * @return An unmodifiable List of at most limit books with ISBNs greater than afterISBN, in ISBN order.
+     */
+    default List<IBook> page(String afterISBN, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be a positive value.");
+        }
+        Comparator<IBook> byISBN = Comparator.comparing(IBook::getISBN);
+        PriorityQueue<IBook> smallest = new PriorityQueue<>(Math.min(limit, 1024) + 1, byISBN.reversed()); // Max-heap of the best candidates
+        forEachBook(book -> {
+            if (afterISBN == null || book.getISBN().compareTo(afterISBN) > 0) {
+                smallest.add(book);
+                if (smallest.size() > limit) {
+                    smallest.poll();
+                }
+            }
+        });
+        List<IBook> page = new ArrayList<>(smallest);
+        page.sort(byISBN);
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * Returns a spliterator over the catalog. The default spliterates {@link #getAllBooks()}; implementations
+     * override it to walk their live storage without a copy, splitting evenly for parallel streams.
+     * Concurrent changes may or may not be seen.
+     * @return A Spliterator of all books.
+     */
+    default Spliterator<IBook> spliterator() {
+        return getAllBooks().spliterator();
+    }
+
+    /**
+     * Returns a lazily evaluated stream over the catalog, backed by {@link #spliterator()}.
+     * Call {@code parallel()} on it to process the catalog on several threads.
+     * @return A Stream of all books.
+     */
+    default Stream<IBook> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a lazily evaluated stream of the books that currently have the given status.
+     * @param status The status to filter on.
+     * @return A Stream of the matching books.
+     */
+    default Stream<IBook> streamByStatus(BookStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Book status can not be null.");
+        }
+        return stream().filter(book -> book.getStatus() == status);
+    }
+
+    /**
+     * Returns the books that currently have the given status.
+     * Indexed implementations only track status changes reported through {@link #updateBook(IBook)}.
+     * @param status The status to look for.
+     * @return An unmodifiable List of the matching books.
+     */
+    default List<IBook> getBooksByStatus(BookStatus status) {
+        return Collections.unmodifiableList(streamByStatus(status).collect(Collectors.toList()));
+    }
+
+    /**
+     * Counts the books per status. Indexed implementations answer from counters without visiting any book.
+     * @return An unmodifiable Map with a count for every BookStatus.
+     */
+    default Map<BookStatus, Long> countByStatus() {
+        Map<BookStatus, Long> counts = new EnumMap<>(BookStatus.class);
+        for (BookStatus status : BookStatus.values()) {
+            counts.put(status, 0L);
+        }
+        forEachBook(book -> counts.merge(book.getStatus(), 1L, Long::sum));
+        return Collections.unmodifiableMap(counts);
+    }
 }
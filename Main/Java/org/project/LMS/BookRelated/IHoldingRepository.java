@@ -0,0 +1,29 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import java.util.List;
+
+public interface IHoldingRepository {
+
+    /**
+     * Registers copies of a title, creating its holding on first use.
+     * The title itself is kept in the book repository under the same ISBN.
+     * @param ISBN The ISBN of the title.
+     * @param count The number of copies to add.
+     * @return The holding of the title after the copies were added.
+     * @throws IllegalArgumentException if the ISBN is null or empty or count is not positive.
+     */
+    BookHolding addCopies(String ISBN, int count);
+
+    /**
+     * Retrieves the holding of a title.
+     * @param ISBN The ISBN of the title.
+     * @return The BookHolding if the title has registered copies, null otherwise.
+     */
+    BookHolding getHolding(String ISBN);
+
+    /**
+     * Returns all holdings in the repository.
+     * @return An unmodifiable List of all BookHolding objects.
+     */
+    List<BookHolding> getAllHoldings();
+}
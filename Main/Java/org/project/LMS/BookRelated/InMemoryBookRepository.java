@@ -1,71 +1,208 @@
 package Main.Java.org.project.LMS.BookRelated;
 
+import Main.Java.org.project.LMS.IndexRelated.FuzzyTokenIndex;
+import Main.Java.org.project.LMS.IndexRelated.NGramIndex;
+import Main.Java.org.project.LMS.MetricsRelated.MetricsRegistry;
+import Main.Java.org.project.LMS.MetricsRelated.OperationMetrics;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
 import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
 import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
 import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.ObserverRelated.SynchronousEventDispatcher;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList; // Thread-safe list for observers
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class InMemoryBookRepository implements IBookRepository, ILibrarySubject {
-    private final Map<String, IBook> books;
+    private static final OperationMetrics ADD_BOOK_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "addBook");
+    private static final OperationMetrics[] SEARCH_METRICS = new OperationMetrics[SearchType.values().length];
+
+    static {
+        for (SearchType type : SearchType.values()) {
+            SEARCH_METRICS[type.ordinal()] = new OperationMetrics(MetricsRegistry.getDefault(), "searchBooks", "search_type", type.name());
+        }
+    }
+
+    private static final long PARALLEL_SCAN_THRESHOLD = 16_384; // Smaller catalogs are scanned on the calling thread
+
+    private final ConcurrentHashMap<String, IBook> books;
     private final List<ILibraryObserver> observers;
+    private volatile IEventDispatcher eventDispatcher;
+    private volatile long interestMask; // One bit per EventType that at least one observer wants
+    private final NGramIndex titleIndex; // Trigram index backing BY_TITLE searches
+    private final NGramIndex authorIndex; // Trigram index backing BY_AUTHOR searches
+    private final FuzzyTokenIndex<String> titleWords; // Word index backing FUZZY_TITLE searches
+    private final FuzzyTokenIndex<String> authorWords; // Word index backing FUZZY_AUTHOR searches
+    private final NavigableSet<String> isbnOrder; // Sorted ISBNs backing cursor pagination
+    private final Map<String, BookStatus> indexedStatuses; // The status each book is filed under in statusIndex
+    private final Map<BookStatus, Set<String>> statusIndex; // ISBNs per status, as of the last add or update
+    private final Map<BookStatus, LongAdder> statusCounts;
 
     public InMemoryBookRepository() {
         this.books = new ConcurrentHashMap<>();
         this.observers = new CopyOnWriteArrayList<>();
+        this.eventDispatcher = SynchronousEventDispatcher.INSTANCE;
+        this.titleIndex = new NGramIndex();
+        this.authorIndex = new NGramIndex();
+        this.titleWords = new FuzzyTokenIndex<>();
+        this.authorWords = new FuzzyTokenIndex<>();
+        this.isbnOrder = new ConcurrentSkipListSet<>();
+        this.indexedStatuses = new ConcurrentHashMap<>();
+        this.statusIndex = new EnumMap<>(BookStatus.class);
+        this.statusCounts = new EnumMap<>(BookStatus.class);
+        for (BookStatus status : BookStatus.values()) {
+            statusIndex.put(status, ConcurrentHashMap.newKeySet());
+            statusCounts.put(status, new LongAdder());
+        }
     }
 
     @Override
-    public void addObserver(ILibraryObserver observer) {
+    public synchronized void addObserver(ILibraryObserver observer) {
         if (observer == null) {
             throw new IllegalArgumentException("Observer can not be null.");
         }
         observers.add(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
     }
 
     @Override
-    public void removeObserver(ILibraryObserver observer) {
+    public synchronized void removeObserver(ILibraryObserver observer) {
         observers.remove(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
     }
 
     @Override
     public void notifyObservers(LibraryEvent event) {
-        for (ILibraryObserver observer : observers) {
-            observer.update(event);
+        eventDispatcher.dispatch(this, observers, event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        if (eventDispatcher == null) {
+            throw new IllegalArgumentException("Event dispatcher can not be null.");
         }
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Checks whether any observer wants events of the given type, so callers can skip building events nobody reads.
+     */
+    private boolean hasSubscribers(LibraryEvent.EventType type) {
+        return (interestMask & type.mask()) != 0;
     }
 
     @Override
     public void addBook(IBook book) {
+        long start = System.nanoTime();
+        boolean added = false;
+        try {
+            insertBook(book);
+            added = true;
+        } finally {
+            ADD_BOOK_METRICS.record(start, added);
+        }
+    }
+
+    private void insertBook(IBook book) {
         if (book == null) {
             throw new IllegalArgumentException("Book can not be null");
         }
-        if (books.containsKey(book.getISBN())) {
-            Map<String, String> details = new HashMap<>();
-            details.put("ISBN", book.getISBN());
-            details.put("Title", book.getTitle());
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Book with ISBN " + book.getISBN() + " already exists.",
-                    details
-            );
-            notifyObservers(errorEvent);
+        if (books.putIfAbsent(book.getISBN(), book) != null) {
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Book with ISBN " + book.getISBN() + " already exists.",
+                        "ISBN", book.getISBN(),
+                        "Title", book.getTitle()
+                ));
+            }
             throw new IllegalArgumentException("Book with ISBN " + book.getISBN() + " already exists.");
         }
-        books.put(book.getISBN(), book);
+        isbnOrder.add(book.getISBN());
+        indexBook(book);
+        indexStatus(book.getISBN(), book.getStatus());
         // Notify observers about the book addition
-        Map<String, String> details = new HashMap<>();
-        details.put("ISBN", book.getISBN());
-        details.put("Title", book.getTitle());
-        details.put("Author", book.getAuthor());
-        LibraryEvent event = new LibraryEvent(
-                LibraryEvent.EventType.BOOK_ADDED,
-                "Book added: " + book.getTitle() + " (ISBN: " + book.getISBN() + ")",
-                details
-        );
-        notifyObservers(event);
+        if (hasSubscribers(LibraryEvent.EventType.BOOK_ADDED)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_ADDED,
+                    () -> "Book added: " + book.getTitle() + " (ISBN: " + book.getISBN() + ")",
+                    "ISBN", book.getISBN(),
+                    "Title", book.getTitle(),
+                    "Author", book.getAuthor()
+            ));
+        }
+    }
+
+    /**
+     * Validates the whole batch before adding anything, then adds it with a single BOOKS_BULK_ADDED event.
+     * If a concurrent writer adds one of the ISBNs in between, the books already added are taken out again
+     * and the batch is rejected as a whole.
+     */
+    @Override
+    public void addBooks(Collection<? extends IBook> newBooks) {
+        if (newBooks == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        Set<String> batchISBNs = new HashSet<>();
+        for (IBook book : newBooks) {
+            if (book == null) {
+                throw new IllegalArgumentException("Book can not be null");
+            }
+            if (!batchISBNs.add(book.getISBN()) || books.containsKey(book.getISBN())) {
+                throw rejectBulkAdd(book);
+            }
+        }
+        List<IBook> inserted = new ArrayList<>(batchISBNs.size());
+        for (IBook book : newBooks) {
+            if (books.putIfAbsent(book.getISBN(), book) != null) {
+                for (IBook added : inserted) {
+                    if (books.remove(added.getISBN(), added)) {
+                        unlinkBook(added);
+                    }
+                }
+                throw rejectBulkAdd(book);
+            }
+            inserted.add(book);
+            isbnOrder.add(book.getISBN());
+            indexBook(book);
+            indexStatus(book.getISBN(), book.getStatus());
+        }
+        if (hasSubscribers(LibraryEvent.EventType.BOOKS_BULK_ADDED)) {
+            int count = batchISBNs.size();
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOKS_BULK_ADDED,
+                    () -> "Bulk added " + count + " books.",
+                    "Count", String.valueOf(count)
+            ));
+        }
+    }
+
+    private IllegalArgumentException rejectBulkAdd(IBook book) {
+        if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.ERROR,
+                    () -> "Bulk add rejected. Book with ISBN " + book.getISBN() + " already exists.",
+                    "ISBN", book.getISBN(),
+                    "Title", book.getTitle()
+            ));
+        }
+        return new IllegalArgumentException("Book with ISBN " + book.getISBN() + " already exists.");
+    }
+
+    /**
+     * Takes a book that was just removed from the map out of the ISBN order, the text indexes and the status index.
+     */
+    private void unlinkBook(IBook book) {
+        isbnOrder.remove(book.getISBN());
+        unindexBook(book);
+        indexStatus(book.getISBN(), null);
     }
 
     @Override
@@ -75,27 +212,26 @@ public class InMemoryBookRepository implements IBookRepository, ILibrarySubject
         }
         IBook removedBook = books.remove(ISBN);
         if (removedBook != null) {
+            unlinkBook(removedBook);
             // Notify observers about the book removal
-            Map<String, String> details = new HashMap<>();
-            details.put("ISBN", ISBN);
-            details.put("Title", removedBook.getTitle());
-            LibraryEvent event = new LibraryEvent(
-                    LibraryEvent.EventType.BOOK_REMOVED,
-                    "Book removed: " + removedBook.getTitle() + " (ISBN: " + ISBN + ")",
-                    details
-            );
-            notifyObservers(event);
+            if (hasSubscribers(LibraryEvent.EventType.BOOK_REMOVED)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.BOOK_REMOVED,
+                        () -> "Book removed: " + removedBook.getTitle() + " (ISBN: " + ISBN + ")",
+                        "ISBN", ISBN,
+                        "Title", removedBook.getTitle()
+                ));
+            }
             return true;
         }
         // Notify observers if removal failed
-        Map<String, String> details = new HashMap<>();
-        details.put("ISBN", ISBN);
-        LibraryEvent warningEvent = new LibraryEvent(
-                LibraryEvent.EventType.WARNING,
-                "Attempted to remove non-existent book with ISBN: " + ISBN,
-                details
-        );
-        notifyObservers(warningEvent);
+        if (hasSubscribers(LibraryEvent.EventType.WARNING)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.WARNING,
+                    () -> "Attempted to remove non-existent book with ISBN: " + ISBN,
+                    "ISBN", ISBN
+            ));
+        }
         return false;
     }
 
@@ -105,28 +241,82 @@ public class InMemoryBookRepository implements IBookRepository, ILibrarySubject
             throw new IllegalArgumentException("Can not update with a null book object.");
         }
         if (!books.containsKey(updatedBook.getISBN())) {
-            Map<String, String> details = new HashMap<>();
-            details.put("ISBN", updatedBook.getISBN());
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Can not update book. No book found with ISBN: " + updatedBook.getISBN(),
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Can not update book. No book found with ISBN: " + updatedBook.getISBN(),
+                        "ISBN", updatedBook.getISBN()
+                ));
+            }
             throw new IllegalArgumentException("Can not update book. No book found with ISBN: " + updatedBook.getISBN());
         }
-        books.put(updatedBook.getISBN(), updatedBook); // Replace the old object with the updated one
+        IBook previousBook = books.put(updatedBook.getISBN(), updatedBook); // Replace the old object with the updated one
+        if (previousBook != null && previousBook != updatedBook) {
+            // A different object may carry a different title or author, so re-index it.
+            unindexBook(previousBook);
+            indexBook(updatedBook);
+        }
+        indexStatus(updatedBook.getISBN(), updatedBook.getStatus()); // Status changes arrive through here, including from the lending manager
         // Notify observers about the book update
-        Map<String, String> details = new HashMap<>();
-        details.put("ISBN", updatedBook.getISBN());
-        details.put("Title", updatedBook.getTitle());
-        details.put("Status", updatedBook.getStatus().name());
-        LibraryEvent event = new LibraryEvent(
-                LibraryEvent.EventType.BOOK_UPDATED,
-                "Book updated: " + updatedBook.getTitle() + " (ISBN: " + updatedBook.getISBN() + "). New status: " + updatedBook.getStatus(),
-                details
-        );
-        notifyObservers(event);
+        if (hasSubscribers(LibraryEvent.EventType.BOOK_UPDATED)) {
+            BookStatus newStatus = updatedBook.getStatus(); // Captured now; the message is formatted later
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_UPDATED,
+                    () -> "Book updated: " + updatedBook.getTitle() + " (ISBN: " + updatedBook.getISBN() + "). New status: " + newStatus,
+                    "ISBN", updatedBook.getISBN(),
+                    "Title", updatedBook.getTitle(),
+                    "Status", newStatus.name()
+            ));
+        }
+    }
+
+    /**
+     * Validates the whole batch before changing anything, then applies it with a single BOOKS_BULK_UPDATED event.
+     */
+    @Override
+    public void updateBooks(Collection<? extends IBook> updatedBooks) {
+        if (updatedBooks == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        for (IBook updatedBook : updatedBooks) {
+            if (updatedBook == null) {
+                throw new IllegalArgumentException("Can not update with a null book object.");
+            }
+            if (!books.containsKey(updatedBook.getISBN())) {
+                if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                    notifyObservers(LibraryEvent.lazy(
+                            LibraryEvent.EventType.ERROR,
+                            () -> "Bulk update rejected. No book found with ISBN: " + updatedBook.getISBN(),
+                            "ISBN", updatedBook.getISBN()
+                    ));
+                }
+                throw new IllegalArgumentException("Can not update book. No book found with ISBN: " + updatedBook.getISBN());
+            }
+        }
+        for (IBook updatedBook : updatedBooks) {
+            IBook previousBook = books.put(updatedBook.getISBN(), updatedBook);
+            if (previousBook != null && previousBook != updatedBook) {
+                unindexBook(previousBook);
+                indexBook(updatedBook);
+            }
+            indexStatus(updatedBook.getISBN(), updatedBook.getStatus());
+        }
+        if (hasSubscribers(LibraryEvent.EventType.BOOKS_BULK_UPDATED)) {
+            int count = updatedBooks.size();
+            StringJoiner isbns = new StringJoiner(",");
+            StringJoiner statuses = new StringJoiner(","); // Captured now, aligned with the ISBNs
+            for (IBook updatedBook : updatedBooks) {
+                isbns.add(updatedBook.getISBN());
+                statuses.add(updatedBook.getStatus().name());
+            }
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOKS_BULK_UPDATED,
+                    () -> "Bulk updated " + count + " books.",
+                    "Count", String.valueOf(count),
+                    "ISBNs", isbns.toString(),
+                    "Statuses", statuses.toString()
+            ));
+        }
     }
 
     @Override
@@ -139,42 +329,78 @@ public class InMemoryBookRepository implements IBookRepository, ILibrarySubject
 
     @Override
     public List<IBook> searchBooks(String query, SearchType searchBy) {
+        return search(query, searchBy, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Fuzzy searches take only the top matches from the word index, so the cost depends on the
+     * matching words rather than the catalog size.
+     */
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be a positive value.");
+        }
+        return search(query, searchBy, limit);
+    }
+
+    private List<IBook> search(String query, SearchType searchBy, int limit) {
         if (query == null || query.trim().isEmpty()) {
             return Collections.emptyList();
         }
+        long start = System.nanoTime();
         List<IBook> results = new ArrayList<>();
         String lowerCaseQuery = query.toLowerCase();
 
-        for (IBook book : books.values()) {
-            switch (searchBy) {
-                case BY_TITLE:
-                    if (book.getTitle().toLowerCase().contains(lowerCaseQuery)) {
-                        results.add(book);
-                    }
-                    break;
-                case BY_AUTHOR:
-                    if (book.getAuthor().toLowerCase().contains(lowerCaseQuery)) {
-                        results.add(book);
-                    }
-                    break;
-                case BY_ISBN:
-                    if (book.getISBN().equalsIgnoreCase(query)) {
-                        results.add(book);
+        Iterable<String> candidates = null;
+        if (searchBy == SearchType.BY_TITLE) {
+            candidates = titleIndex.candidates(lowerCaseQuery);
+        } else if (searchBy == SearchType.BY_AUTHOR) {
+            candidates = authorIndex.candidates(lowerCaseQuery);
+        }
+
+        if (searchBy != null && searchBy.isFuzzy()) {
+            FuzzyTokenIndex<String> words = searchBy == SearchType.FUZZY_TITLE ? titleWords : authorWords;
+            for (String rankedISBN : words.search(query, limit)) {
+                IBook book = books.get(rankedISBN);
+                if (book != null) {
+                    results.add(book);
+                }
+            }
+        } else if (candidates != null) {
+            // Every candidate contains all trigrams of the query; verify the actual substring match.
+            for (String candidateISBN : candidates) {
+                IBook book = books.get(candidateISBN);
+                if (book != null && matches(book, query, lowerCaseQuery, searchBy)) {
+                    results.add(book);
+                    if (results.size() == limit) {
+                        break;
                     }
-                    break;
+                }
             }
+        } else if (searchBy == SearchType.BY_ISBN && !hasCaseVariants(query)) {
+            IBook book = books.get(query); // Only the exact ISBN can match
+            if (book != null) {
+                results.add(book);
+            }
+        } else {
+            // ISBNs with letters (e.g. an ISBN-10 'x' check digit) match ignoring case, and queries shorter than
+            // a trigram can not use the index.
+            scan(query, lowerCaseQuery, searchBy, limit, results);
         }
         // Notify observers about the search operation
-        Map<String, String> details = new HashMap<>();
-        details.put("Query", query);
-        details.put("SearchType", searchBy.name());
-        details.put("ResultsCount", String.valueOf(results.size()));
-        LibraryEvent event = new LibraryEvent(
-                LibraryEvent.EventType.INFO,
-                "Searched for '" + query + "' by " + searchBy + ". Found " + results.size() + " results.",
-                details
-        );
-        notifyObservers(event);
+        if (hasSubscribers(LibraryEvent.EventType.INFO)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.INFO,
+                    () -> "Searched for '" + query + "' by " + searchBy + ". Found " + results.size() + " results.",
+                    "Query", query,
+                    "SearchType", searchBy.name(),
+                    "ResultsCount", String.valueOf(results.size())
+            ));
+        }
+        if (searchBy != null) {
+            SEARCH_METRICS[searchBy.ordinal()].record(start, true);
+        }
         return Collections.unmodifiableList(results);
     }
 
@@ -182,4 +408,217 @@ public class InMemoryBookRepository implements IBookRepository, ILibrarySubject
     public List<IBook> getAllBooks() {
         return Collections.unmodifiableList(new ArrayList<>(books.values()));
     }
+
+    @Override
+    public void forEachBook(Consumer<? super IBook> action) {
+        books.values().forEach(action);
+    }
+
+    /**
+     * Seeks to the cursor in the sorted ISBN set and reads only the requested page.
+     */
+    @Override
+    public List<IBook> page(String afterISBN, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be a positive value.");
+        }
+        List<IBook> page = new ArrayList<>(Math.min(limit, 1024));
+        for (String isbn : afterISBN == null ? isbnOrder : isbnOrder.tailSet(afterISBN, false)) {
+            IBook book = books.get(isbn);
+            if (book != null) { // Skips a book removed between the two lookups
+                page.add(book);
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * Reads the matching ISBNs from the status index instead of checking every book.
+     */
+    @Override
+    public Stream<IBook> streamByStatus(BookStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Book status can not be null.");
+        }
+        return statusIndex.get(status).stream().map(books::get).filter(Objects::nonNull);
+    }
+
+    @Override
+    public List<IBook> getBooksByStatus(BookStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Book status can not be null.");
+        }
+        Set<String> isbns = statusIndex.get(status);
+        List<IBook> results = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            IBook book = books.get(isbn);
+            if (book != null) {
+                results.add(book);
+            }
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Reads the per-status counters; the cost does not depend on the catalog size.
+     */
+    @Override
+    public Map<BookStatus, Long> countByStatus() {
+        Map<BookStatus, Long> counts = new EnumMap<>(BookStatus.class);
+        for (Map.Entry<BookStatus, LongAdder> entry : statusCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Spliterates the live map values; the spliterator is concurrent and splits by hash bins.
+     */
+    @Override
+    public Spliterator<IBook> spliterator() {
+        return books.values().spliterator();
+    }
+
+    /**
+     * Checks every book, splitting the map across the common ForkJoinPool once the catalog reaches
+     * PARALLEL_SCAN_THRESHOLD. The scan stops as soon as limit matches are found; a parallel scan
+     * returns them in no particular order.
+     */
+    private void scan(String query, String lowerCaseQuery, SearchType searchBy, int limit, List<IBook> results) {
+        if (books.mappingCount() < PARALLEL_SCAN_THRESHOLD) {
+            for (IBook book : books.values()) {
+                if (matches(book, query, lowerCaseQuery, searchBy)) {
+                    results.add(book);
+                    if (results.size() == limit) {
+                        return;
+                    }
+                }
+            }
+            return;
+        }
+        AtomicInteger found = new AtomicInteger();
+        Queue<IBook> matched = new ConcurrentLinkedQueue<>();
+        // search() stops every subtask once one returns non-null, which here means the limit was reached.
+        books.search(PARALLEL_SCAN_THRESHOLD, (isbn, book) -> {
+            if (!matches(book, query, lowerCaseQuery, searchBy)) {
+                return null;
+            }
+            int slot = found.getAndIncrement();
+            if (slot >= limit) {
+                return Boolean.TRUE;
+            }
+            matched.add(book);
+            return slot == limit - 1 ? Boolean.TRUE : null;
+        });
+        results.addAll(matched);
+    }
+
+    /**
+     * Whether some other string equals the query ignoring case, i.e. an exact lookup might miss a match.
+     */
+    private static boolean hasCaseVariants(String query) {
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.toUpperCase(c) != c || Character.toLowerCase(c) != c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(IBook book, String query, String lowerCaseQuery, SearchType searchBy) {
+        switch (searchBy) {
+            case BY_TITLE:
+                return containsIgnoreCase(book.getTitle(), lowerCaseQuery);
+            case BY_AUTHOR:
+                return containsIgnoreCase(book.getAuthor(), lowerCaseQuery);
+            case BY_ISBN:
+                return book.getISBN().equalsIgnoreCase(query);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Case-insensitive substring test with the semantics of text.toLowerCase().contains(lowerCaseQuery), which
+     * the trigram index is built on. ASCII text is compared in place instead of allocating a lower-cased copy;
+     * other text is lowered as a whole, because lowering some characters changes the length or depends on the
+     * neighbouring characters (e.g. a final sigma), which a character-by-character comparison would miss.
+     */
+    private static boolean containsIgnoreCase(String text, String lowerCaseQuery) {
+        if (!isAscii(text) || !lowersAsciiPlainly()) {
+            return text.toLowerCase().contains(lowerCaseQuery);
+        }
+        int length = lowerCaseQuery.length();
+        for (int i = 0, last = text.length() - length; i <= last; i++) {
+            int j = 0;
+            while (j < length && toLowerAscii(text.charAt(i + j)) == lowerCaseQuery.charAt(j)) {
+                j++;
+            }
+            if (j == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether String.toLowerCase in the default locale maps A-Z to a-z; Turkish and Azerbaijani lower 'I' to a dotless i.
+     */
+    private static boolean lowersAsciiPlainly() {
+        String language = Locale.getDefault().getLanguage();
+        return !language.equals("tr") && !language.equals("az");
+    }
+
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Moves a book between the per-status sets and counters. The compute call locks the book's entry,
+     * so concurrent transitions of one book are applied one after the other and the counters never drift.
+     * @param newStatus The status to file the book under, or null to drop it from the index.
+     */
+    private void indexStatus(String isbn, BookStatus newStatus) {
+        indexedStatuses.compute(isbn, (key, oldStatus) -> {
+            BookStatus status = books.containsKey(key) ? newStatus : null; // A concurrent remove may have won
+            if (oldStatus != status) {
+                if (oldStatus != null) {
+                    statusIndex.get(oldStatus).remove(key);
+                    statusCounts.get(oldStatus).decrement();
+                }
+                if (status != null) {
+                    statusIndex.get(status).add(key);
+                    statusCounts.get(status).increment();
+                }
+            }
+            return status;
+        });
+    }
+
+    private void indexBook(IBook book) {
+        titleIndex.add(book.getISBN(), book.getTitle());
+        authorIndex.add(book.getISBN(), book.getAuthor());
+        titleWords.add(book.getISBN(), book.getTitle());
+        authorWords.add(book.getISBN(), book.getAuthor());
+    }
+
+    private void unindexBook(IBook book) {
+        titleIndex.remove(book.getISBN(), book.getTitle());
+        authorIndex.remove(book.getISBN(), book.getAuthor());
+        titleWords.remove(book.getISBN(), book.getTitle());
+        authorWords.remove(book.getISBN(), book.getAuthor());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.ObserverRelated.SynchronousEventDispatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class InMemoryHoldingRepository implements IHoldingRepository, ILibrarySubject {
+    private final Map<String, BookHolding> holdings;
+    private final List<ILibraryObserver> observers;
+    private volatile IEventDispatcher eventDispatcher;
+    private volatile long interestMask; // One bit per EventType that at least one observer wants
+
+    public InMemoryHoldingRepository() {
+        this.holdings = new ConcurrentHashMap<>();
+        this.observers = new CopyOnWriteArrayList<>();
+        this.eventDispatcher = SynchronousEventDispatcher.INSTANCE;
+    }
+
+    @Override
+    public synchronized void addObserver(ILibraryObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer can not be null.");
+        }
+        observers.add(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
+    }
+
+    @Override
+    public synchronized void removeObserver(ILibraryObserver observer) {
+        observers.remove(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
+    }
+
+    @Override
+    public void notifyObservers(LibraryEvent event) {
+        eventDispatcher.dispatch(this, observers, event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        if (eventDispatcher == null) {
+            throw new IllegalArgumentException("Event dispatcher can not be null.");
+        }
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    private boolean hasSubscribers(LibraryEvent.EventType type) {
+        return (interestMask & type.mask()) != 0;
+    }
+
+    @Override
+    public BookHolding addCopies(String ISBN, int count) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty.");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of copies must be a positive value.");
+        }
+        boolean[] created = new boolean[1];
+        BookHolding holding = holdings.computeIfAbsent(ISBN, key -> {
+            created[0] = true;
+            return new BookHolding(key, count);
+        });
+        if (!created[0]) {
+            holding.addCopies(count);
+        }
+        if (hasSubscribers(LibraryEvent.EventType.BOOK_UPDATED)) {
+            int copies = holding.getCopyCount();
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_UPDATED,
+                    () -> "Added " + count + " copies of ISBN " + ISBN + ". Copies owned: " + copies,
+                    "ISBN", ISBN,
+                    "CopiesAdded", String.valueOf(count),
+                    "Copies", String.valueOf(copies)
+            ));
+        }
+        return holding;
+    }
+
+    @Override
+    public BookHolding getHolding(String ISBN) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            return null;
+        }
+        return holdings.get(ISBN);
+    }
+
+    @Override
+    public List<BookHolding> getAllHoldings() {
+        return Collections.unmodifiableList(new ArrayList<>(holdings.values()));
+    }
+}
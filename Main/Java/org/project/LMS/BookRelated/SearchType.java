@@ -7,5 +7,14 @@ package Main.Java.org.project.LMS.BookRelated;
 public enum SearchType {
     BY_TITLE,
     BY_AUTHOR,
-    BY_ISBN
+    BY_ISBN,
+    FUZZY_TITLE,  // Typo-tolerant word match on the title, ranked by relevance
+    FUZZY_AUTHOR; // Typo-tolerant word match on the author, ranked by relevance
+
+    /**
+     * @return true if results of this search type are ranked by relevance rather than unordered.
+     */
+    public boolean isFuzzy() {
+        return this == FUZZY_TITLE || this == FUZZY_AUTHOR;
+    }
 }
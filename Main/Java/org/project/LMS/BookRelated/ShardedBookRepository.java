@@ -0,0 +1,431 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import Main.Java.org.project.LMS.IndexRelated.FuzzyTokenIndex;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A book repository that hash-partitions the catalog by ISBN across several {@link InMemoryBookRepository}
+ * shards. Each shard has its own map, indexes, status counters and observer list, so writes to different
+ * shards never contend and each shard reports its events as a separate subject, in its own order.
+ *
+ * Point operations (add, update, remove, lookup by ISBN) go to the one shard owning the ISBN. ISBNs are hashed
+ * ignoring case, so every ISBN that matches an ISBN search lives in the same shard. Other searches and
+ * whole-catalog reads are scattered across the shards on a ForkJoinPool and their results merged, so a
+ * search costs roughly the work of one shard once there is a core per shard. Observers added here are
+ * added to every shard; note that a scattered search therefore reports one INFO event per shard.
+ */
+public class ShardedBookRepository implements IBookRepository, ILibrarySubject {
+    private final InMemoryBookRepository[] shards;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a repository with one shard per available processor, searched on the common pool.
+     */
+    public ShardedBookRepository() {
+        this(Runtime.getRuntime().availableProcessors(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param shardCount The number of shards.
+     * @param pool The pool that scattered searches and catalog reads run on.
+     */
+    public ShardedBookRepository(int shardCount, ForkJoinPool pool) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be a positive value.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Fork/join pool can not be null.");
+        }
+        this.shards = new InMemoryBookRepository[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryBookRepository();
+        }
+        this.pool = pool;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void addObserver(ILibraryObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer cannot be null.");
+        }
+        for (InMemoryBookRepository shard : shards) {
+            shard.addObserver(observer);
+        }
+    }
+
+    @Override
+    public void removeObserver(ILibraryObserver observer) {
+        for (InMemoryBookRepository shard : shards) {
+            shard.removeObserver(observer);
+        }
+    }
+
+    /**
+     * Events raised from outside go through the first shard; every shard has the same observers.
+     */
+    @Override
+    public void notifyObservers(LibraryEvent event) {
+        shards[0].notifyObservers(event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        if (eventDispatcher == null) {
+            throw new IllegalArgumentException("Event dispatcher can not be null.");
+        }
+        for (InMemoryBookRepository shard : shards) {
+            shard.setEventDispatcher(eventDispatcher);
+        }
+    }
+
+    @Override
+    public void addBook(IBook book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book can not be null");
+        }
+        shardFor(book.getISBN()).addBook(book);
+    }
+
+    /**
+     * Validates the whole batch against every shard first, then adds each shard's part with one bulk add,
+     * so each shard reports a single BOOKS_BULK_ADDED event. The shards are filled in parallel.
+     */
+    @Override
+    public void addBooks(Collection<? extends IBook> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        Set<String> batchISBNs = new HashSet<>();
+        for (IBook book : books) {
+            if (book == null) {
+                throw new IllegalArgumentException("Book can not be null");
+            }
+            if (!batchISBNs.add(book.getISBN()) || shardFor(book.getISBN()).getBookByISBN(book.getISBN()) != null) {
+                throw new IllegalArgumentException("Book with ISBN " + book.getISBN() + " already exists.");
+            }
+        }
+        List<List<IBook>> parts = partition(books);
+        scatter(shard -> {
+            List<IBook> part = parts.get(shard);
+            if (!part.isEmpty()) {
+                shards[shard].addBooks(part);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean removeBook(String ISBN) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty.");
+        }
+        return shardFor(ISBN).removeBook(ISBN);
+    }
+
+    @Override
+    public void updateBook(IBook updatedBook) {
+        if (updatedBook == null) {
+            throw new IllegalArgumentException("Can not update with a null book object.");
+        }
+        shardFor(updatedBook.getISBN()).updateBook(updatedBook);
+    }
+
+    /**
+     * Validates the whole batch against every shard first, then updates each shard's part with one bulk update.
+     */
+    @Override
+    public void updateBooks(Collection<? extends IBook> updatedBooks) {
+        if (updatedBooks == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        for (IBook updatedBook : updatedBooks) {
+            if (updatedBook == null) {
+                throw new IllegalArgumentException("Can not update with a null book object.");
+            }
+            if (shardFor(updatedBook.getISBN()).getBookByISBN(updatedBook.getISBN()) == null) {
+                throw new IllegalArgumentException("Can not update book. No book found with ISBN: " + updatedBook.getISBN());
+            }
+        }
+        List<List<IBook>> parts = partition(updatedBooks);
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (!parts.get(shard).isEmpty()) {
+                shards[shard].updateBooks(parts.get(shard)); // Usually a few books from the lending manager; not worth forking
+            }
+        }
+    }
+
+    @Override
+    public IBook getBookByISBN(String ISBN) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            return null;
+        }
+        return shardFor(ISBN).getBookByISBN(ISBN);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy) {
+        return search(query, searchBy, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be a positive value.");
+        }
+        return search(query, searchBy, limit);
+    }
+
+    /**
+     * ISBN searches go to the owning shard. Other searches run on every shard in parallel, each with the full
+     * limit; fuzzy results are re-scored and merged best first, the others are concatenated up to the limit.
+     */
+    private List<IBook> search(String query, SearchType searchBy, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (searchBy == SearchType.BY_ISBN) {
+            return shardFor(query).searchBooks(query, searchBy, limit);
+        }
+        List<List<IBook>> partials = scatter(shard -> shards[shard].searchBooks(query, searchBy, limit));
+        if (searchBy != null && searchBy.isFuzzy()) {
+            return mergeRanked(query, searchBy, partials, limit);
+        }
+        List<IBook> results = new ArrayList<>();
+        for (List<IBook> partial : partials) {
+            for (IBook book : partial) {
+                if (results.size() == limit) {
+                    return Collections.unmodifiableList(results);
+                }
+                results.add(book);
+            }
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    @Override
+    public List<IBook> getAllBooks() {
+        List<List<IBook>> partials = scatter(shard -> shards[shard].getAllBooks());
+        int size = 0;
+        for (List<IBook> partial : partials) {
+            size += partial.size();
+        }
+        List<IBook> all = new ArrayList<>(size);
+        for (List<IBook> partial : partials) {
+            all.addAll(partial);
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    @Override
+    public void forEachBook(Consumer<? super IBook> action) {
+        for (InMemoryBookRepository shard : shards) {
+            shard.forEachBook(action);
+        }
+    }
+
+    /**
+     * Reads one page from every shard and merges them; each shard seeks to the cursor in its own ISBN order.
+     */
+    @Override
+    public List<IBook> page(String afterISBN, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be a positive value.");
+        }
+        List<IBook> candidates = new ArrayList<>();
+        for (InMemoryBookRepository shard : shards) {
+            candidates.addAll(shard.page(afterISBN, limit));
+        }
+        candidates.sort(Comparator.comparing(IBook::getISBN));
+        return Collections.unmodifiableList(new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size()))));
+    }
+
+    @Override
+    public Stream<IBook> streamByStatus(BookStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Book status can not be null.");
+        }
+        return Arrays.stream(shards).flatMap(shard -> shard.streamByStatus(status));
+    }
+
+    @Override
+    public List<IBook> getBooksByStatus(BookStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Book status can not be null.");
+        }
+        List<IBook> results = new ArrayList<>();
+        for (InMemoryBookRepository shard : shards) {
+            results.addAll(shard.getBooksByStatus(status));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Sums the shards' per-status counters.
+     */
+    @Override
+    public Map<BookStatus, Long> countByStatus() {
+        Map<BookStatus, Long> counts = new EnumMap<>(BookStatus.class);
+        for (InMemoryBookRepository shard : shards) {
+            shard.countByStatus().forEach((status, count) -> counts.merge(status, count, Long::sum));
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Splits by shards first, then within the last shard, so parallel streams get one shard per worker.
+     */
+    @Override
+    public Spliterator<IBook> spliterator() {
+        return new ShardSpliterator(0, shards.length);
+    }
+
+    /**
+     * Runs the task for every shard, forking all but the first onto the pool and running the first on the
+     * calling thread. Joining from inside the pool helps with queued work instead of blocking.
+     * @return The results in shard order.
+     */
+    private <T> List<T> scatter(Function<Integer, T> task) {
+        if (shards.length == 1) {
+            return Collections.singletonList(task.apply(0));
+        }
+        List<ForkJoinTask<T>> forked = new ArrayList<>(shards.length - 1);
+        for (int shard = 1; shard < shards.length; shard++) {
+            int index = shard;
+            forked.add(pool.submit(() -> task.apply(index)));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        results.add(task.apply(0));
+        for (ForkJoinTask<T> fork : forked) {
+            results.add(fork.join());
+        }
+        return results;
+    }
+
+    /**
+     * Merges the shards' ranked fuzzy results. Each shard returns at most limit books, so at most
+     * shards * limit books are re-scored here, however large the catalog.
+     */
+    private static List<IBook> mergeRanked(String query, SearchType searchBy, List<List<IBook>> partials, int limit) {
+        List<IBook> merged = new ArrayList<>();
+        Map<IBook, Double> scores = new IdentityHashMap<>();
+        for (List<IBook> partial : partials) {
+            for (IBook book : partial) {
+                merged.add(book);
+                scores.put(book, FuzzyTokenIndex.score(query, searchBy == SearchType.FUZZY_TITLE ? book.getTitle() : book.getAuthor()));
+            }
+        }
+        merged.sort((a, b) -> Double.compare(scores.get(b), scores.get(a))); // Stable, so shard order breaks ties
+        return Collections.unmodifiableList(new ArrayList<>(merged.subList(0, Math.min(limit, merged.size()))));
+    }
+
+    private List<List<IBook>> partition(Collection<? extends IBook> books) {
+        List<List<IBook>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (IBook book : books) {
+            parts.get(indexFor(book.getISBN())).add(book);
+        }
+        return parts;
+    }
+
+    private InMemoryBookRepository shardFor(String ISBN) {
+        return shards[indexFor(ISBN)];
+    }
+
+    /**
+     * Hashes the upper-cased ISBN, so that ISBNs differing only in case (an 'x' check digit) share a shard.
+     */
+    private int indexFor(String ISBN) {
+        int hash = 0;
+        for (int i = 0; i < ISBN.length(); i++) {
+            hash = 31 * hash + Character.toUpperCase(ISBN.charAt(i));
+        }
+        hash ^= hash >>> 16; // Spread the high bits, as HashMap does, so similar ISBNs do not cluster
+        return Math.floorMod(hash, shards.length);
+    }
+
+    /**
+     * Covers the shards in [from, to). While it spans several shards it splits the range in half;
+     * once it is down to one shard it splits that shard's own spliterator.
+     */
+    private final class ShardSpliterator implements Spliterator<IBook> {
+        private int from;
+        private final int to;
+        private Spliterator<IBook> current;
+
+        ShardSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super IBook> action) {
+            while (true) {
+                if (current == null) {
+                    if (from >= to) {
+                        return false;
+                    }
+                    current = shards[from++].spliterator();
+                }
+                if (current.tryAdvance(action)) {
+                    return true;
+                }
+                current = null;
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super IBook> action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+                current = null;
+            }
+            while (from < to) {
+                shards[from++].spliterator().forEachRemaining(action);
+            }
+        }
+
+        @Override
+        public Spliterator<IBook> trySplit() {
+            if (current == null && to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ShardSpliterator prefix = new ShardSpliterator(from, middle);
+                from = middle;
+                return prefix;
+            }
+            if (current == null && to - from == 1) {
+                current = shards[from++].spliterator();
+            }
+            return current == null ? null : current.trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = current == null ? 0 : current.estimateSize();
+            for (int i = from; i < to; i++) {
+                size += shards[i].countByStatus().values().stream().mapToLong(Long::longValue).sum();
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return CONCURRENT | NONNULL;
+        }
+    }
+}
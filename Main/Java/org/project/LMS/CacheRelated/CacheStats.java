@@ -0,0 +1,73 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+/**
+ * An immutable snapshot of a cache's counters.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long loadFailureCount;
+    private final long evictionCount;
+    private final long evictionWeight;
+
+    public CacheStats(long hitCount, long missCount, long loadCount, long loadFailureCount,
+                      long evictionCount, long evictionWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.loadFailureCount = loadFailureCount;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Lookups that did not find a cached value, including those that waited for another thread's load.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Calls made to the backing store. Concurrent misses on one key share a single load, so this can be
+     * lower than the miss count.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * @return The share of lookups served from the cache, or 1.0 if there were none.
+     */
+    public double getHitRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats [Hits=" + hitCount + ", Misses=" + missCount + ", Loads=" + loadCount +
+                ", LoadFailures=" + loadFailureCount + ", Evictions=" + evictionCount +
+                ", EvictedWeight=" + evictionWeight + ", HitRate=" + String.format("%.3f", getHitRate()) + "]";
+    }
+}
@@ -0,0 +1,146 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.BookRelated.SearchType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * A read-through cache in front of a slow book repository, such as a durable or remote store.
+ * Point lookups by ISBN are served from a {@link SegmentedLruCache}. Updates and removals go to the backing
+ * repository and then invalidate the cached entry, so concurrent updates of one book can not reach the
+ * cache in a different order than the backing repository; the next lookup loads whichever update won.
+ * Searches and scans always go to the backing repository. Observers are attached to the backing repository.
+ */
+public class CachingBookRepository implements IBookRepository {
+    private final IBookRepository delegate;
+    private final SegmentedLruCache<String, IBook> cache;
+
+    /**
+     * @param delegate The backing repository.
+     * @param maximumSize The maximum number of cached books.
+     */
+    public CachingBookRepository(IBookRepository delegate, long maximumSize) {
+        this(delegate, maximumSize, book -> 1);
+    }
+
+    /**
+     * @param delegate The backing repository.
+     * @param maximumWeight The maximum total weight of cached books.
+     * @param weigher Computes the weight of a book, e.g. its approximate size in bytes.
+     */
+    public CachingBookRepository(IBookRepository delegate, long maximumWeight, ToIntFunction<? super IBook> weigher) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Book repository can not be null.");
+        }
+        this.delegate = delegate;
+        this.cache = new SegmentedLruCache<>(maximumWeight, weigher);
+    }
+
+    @Override
+    public void addBook(IBook book) {
+        delegate.addBook(book);
+    }
+
+    @Override
+    public void addBooks(Collection<? extends IBook> books) {
+        delegate.addBooks(books);
+    }
+
+    @Override
+    public boolean removeBook(String ISBN) {
+        boolean removed = delegate.removeBook(ISBN);
+        cache.invalidate(ISBN);
+        return removed;
+    }
+
+    @Override
+    public void updateBook(IBook updatedBook) {
+        delegate.updateBook(updatedBook); // Throws before the cache is touched if the update is rejected
+        cache.invalidate(updatedBook.getISBN());
+    }
+
+    @Override
+    public void updateBooks(Collection<? extends IBook> updatedBooks) {
+        delegate.updateBooks(updatedBooks);
+        for (IBook book : updatedBooks) {
+            cache.invalidate(book.getISBN());
+        }
+    }
+
+    @Override
+    public IBook getBookByISBN(String ISBN) {
+        if (ISBN == null) {
+            return delegate.getBookByISBN(null);
+        }
+        return cache.get(ISBN, delegate::getBookByISBN);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy) {
+        return delegate.searchBooks(query, searchBy);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        return delegate.searchBooks(query, searchBy, limit);
+    }
+
+    @Override
+    public List<IBook> getAllBooks() {
+        return delegate.getAllBooks();
+    }
+
+    @Override
+    public void forEachBook(Consumer<? super IBook> action) {
+        delegate.forEachBook(action);
+    }
+
+    @Override
+    public List<IBook> page(String afterISBN, int limit) {
+        return delegate.page(afterISBN, limit);
+    }
+
+    @Override
+    public Spliterator<IBook> spliterator() {
+        return delegate.spliterator();
+    }
+
+    @Override
+    public Stream<IBook> streamByStatus(BookStatus status) {
+        return delegate.streamByStatus(status);
+    }
+
+    @Override
+    public List<IBook> getBooksByStatus(BookStatus status) {
+        return delegate.getBooksByStatus(status);
+    }
+
+    @Override
+    public Map<BookStatus, Long> countByStatus() {
+        return delegate.countByStatus();
+    }
+
+    /**
+     * Drops every cached book, e.g. after the backing store was changed behind this repository's back.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    public long getCachedBookCount() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,101 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import Main.Java.org.project.LMS.PatronRelated.IPatronRepository;
+import Main.Java.org.project.LMS.PatronRelated.PatronSearchType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.ToIntFunction;
+
+/**
+ * A read-through cache in front of a slow patron repository.
+ * Lookups by patron ID are served from a {@link SegmentedLruCache}; updates go to the backing repository and
+ * then invalidate the cached entry, so the next lookup loads whichever of two concurrent updates won.
+ * Listings always go to the backing repository.
+ */
+public class CachingPatronRepository implements IPatronRepository {
+    private final IPatronRepository delegate;
+    private final SegmentedLruCache<String, IPatron> cache;
+
+    /**
+     * @param delegate The backing repository.
+     * @param maximumSize The maximum number of cached patrons.
+     */
+    public CachingPatronRepository(IPatronRepository delegate, long maximumSize) {
+        this(delegate, maximumSize, patron -> 1);
+    }
+
+    /**
+     * @param delegate The backing repository.
+     * @param maximumWeight The maximum total weight of cached patrons.
+     * @param weigher Computes the weight of a patron, e.g. one plus the number of borrowed books.
+     */
+    public CachingPatronRepository(IPatronRepository delegate, long maximumWeight, ToIntFunction<? super IPatron> weigher) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Patron repository can not be null.");
+        }
+        this.delegate = delegate;
+        this.cache = new SegmentedLruCache<>(maximumWeight, weigher);
+    }
+
+    @Override
+    public void addPatron(IPatron patron) {
+        delegate.addPatron(patron);
+    }
+
+    @Override
+    public void addPatrons(Collection<? extends IPatron> patrons) {
+        delegate.addPatrons(patrons);
+    }
+
+    @Override
+    public void updatePatron(IPatron updatedPatron) {
+        delegate.updatePatron(updatedPatron); // Throws before the cache is touched if the update is rejected
+        cache.invalidate(updatedPatron.getPatronId());
+    }
+
+    @Override
+    public IPatron getPatronById(String patronId) {
+        if (patronId == null) {
+            return delegate.getPatronById(null);
+        }
+        return cache.get(patronId, delegate::getPatronById);
+    }
+
+    @Override
+    public List<IPatron> getAllPatrons() {
+        return delegate.getAllPatrons();
+    }
+
+    @Override
+    public List<IPatron> searchPatrons(String query, PatronSearchType searchBy) {
+        return delegate.searchPatrons(query, searchBy);
+    }
+
+    @Override
+    public List<IPatron> page(String afterPatronId, int limit) {
+        return delegate.page(afterPatronId, limit);
+    }
+
+    @Override
+    public Spliterator<IPatron> spliterator() {
+        return delegate.spliterator();
+    }
+
+    /**
+     * Drops every cached patron.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    public long getCachedPatronCount() {
+        return cache.size();
+    }
+}
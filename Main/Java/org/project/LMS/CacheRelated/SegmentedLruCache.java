@@ -0,0 +1,397 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A concurrent read-through cache bounded by total weight, with segmented-LRU eviction.
+ *
+ * New entries start in a probation segment and are promoted to a protected segment on their second hit,
+ * so a one-off scan over many keys only churns probation and can not flush the frequently used entries.
+ * When the protected segment outgrows its share it demotes its least recently used entry back to probation.
+ * Victims are taken from the tail of probation first.
+ *
+ * Lookups read a ConcurrentHashMap and never block. The recency lists are guarded by one lock that hits
+ * only try to take: under contention a hit skips its reordering, which costs a little eviction precision
+ * but keeps reads wait-free. Concurrent misses on the same key are coalesced into a single load.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type. Null values are never cached.
+ */
+public class SegmentedLruCache<K, V> {
+    public static final double DEFAULT_PROTECTED_SHARE = 0.8;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading; // Loads in flight, shared by concurrent misses
+    private final ToIntFunction<? super V> weigher;
+    private final long maximumWeight;
+    private final long maximumProtectedWeight;
+    private final ReentrantLock policyLock;
+    // Guarded by policyLock
+    private final Node<K, V> probation; // Sentinel of a circular list; head.next is the most recently used
+    private final Node<K, V> protectedSegment;
+    private long weight;
+    private long protectedWeight;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder loads;
+    private final LongAdder loadFailures;
+    private final LongAdder evictions;
+    private final LongAdder evictedWeight;
+
+    /**
+     * Creates a cache that holds at most the given number of entries.
+     * @param maximumSize The maximum number of entries.
+     */
+    public SegmentedLruCache(long maximumSize) {
+        this(maximumSize, value -> 1);
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its values.
+     * @param maximumWeight The maximum total weight.
+     * @param weigher Computes the weight of a value; weights must not be negative.
+     */
+    public SegmentedLruCache(long maximumWeight, ToIntFunction<? super V> weigher) {
+        this(maximumWeight, weigher, DEFAULT_PROTECTED_SHARE);
+    }
+
+    /**
+     * @param maximumWeight The maximum total weight.
+     * @param weigher Computes the weight of a value; weights must not be negative.
+     * @param protectedShare The share of the maximum weight that entries hit more than once may occupy.
+     */
+    public SegmentedLruCache(long maximumWeight, ToIntFunction<? super V> weigher, double protectedShare) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum cache weight must be a positive value.");
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("Weigher can not be null.");
+        }
+        if (!(protectedShare >= 0 && protectedShare < 1)) {
+            throw new IllegalArgumentException("Protected share must be at least 0 and less than 1.");
+        }
+        this.data = new ConcurrentHashMap<>();
+        this.loading = new ConcurrentHashMap<>();
+        this.weigher = weigher;
+        this.maximumWeight = maximumWeight;
+        this.maximumProtectedWeight = (long) (maximumWeight * protectedShare);
+        this.policyLock = new ReentrantLock();
+        this.probation = Node.sentinel();
+        this.protectedSegment = Node.sentinel();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.loads = new LongAdder();
+        this.loadFailures = new LongAdder();
+        this.evictions = new LongAdder();
+        this.evictedWeight = new LongAdder();
+    }
+
+    /**
+     * Returns the cached value for a key, loading it on a miss. While a key is being loaded, other threads
+     * that miss on it wait for that load instead of starting their own.
+     * @param key The key to look up.
+     * @param loader Loads the value from the backing store; may return null, which is not cached.
+     * @return The value, or null if the loader found none.
+     * @throws RuntimeException whatever the loader threw; failed loads are not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key can not be null.");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader can not be null.");
+        }
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            hits.increment();
+            recordAccess(node);
+            return node.value;
+        }
+        misses.increment();
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        V value;
+        try {
+            loads.increment();
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            loading.remove(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        if (value != null) {
+            // Only cached if no write or invalidation of the key happened during the load: those drop the pending
+            // load first, and the check below runs under the key's map bin, so a stale value never overwrites a newer one.
+            Node<K, V> loaded = new Node<>(key, value, weightOf(value));
+            Replaced<K, V> replaced = new Replaced<>();
+            Node<K, V> installed = data.compute(key, (k, current) -> {
+                if (!loading.remove(k, load)) {
+                    return current;
+                }
+                replaced.node = current;
+                return loaded;
+            });
+            if (installed == loaded) {
+                if (replaced.node != null) {
+                    onRemove(replaced.node);
+                }
+                onInsert(loaded);
+            }
+        } else {
+            loading.remove(key, load);
+        }
+        load.complete(value);
+        return value;
+    }
+
+    /**
+     * Returns the cached value for a key without loading it.
+     * @param key The key to look up.
+     * @return The cached value, or null if the key is not cached.
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = key == null ? null : data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        recordAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Caches a value, replacing any cached or loading value for the key.
+     * @param key The key.
+     * @param value The value; null invalidates the key.
+     */
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key can not be null.");
+        }
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, weightOf(value));
+        loading.remove(key); // A load that started before this write must not be cached over it
+        Node<K, V> replaced = data.put(key, node);
+        if (replaced != null) {
+            onRemove(replaced);
+        }
+        onInsert(node);
+    }
+
+    /**
+     * Drops a key from the cache. A load of the key that is in flight will not be cached.
+     * @param key The key to drop.
+     */
+    public void invalidate(K key) {
+        if (key == null) {
+            return;
+        }
+        loading.remove(key);
+        Node<K, V> removed = data.remove(key);
+        if (removed != null) {
+            onRemove(removed);
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void invalidateAll() {
+        for (K key : data.keySet()) {
+            invalidate(key);
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @return The total weight of the cached values.
+     */
+    public long weight() {
+        policyLock.lock();
+        try {
+            return weight;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(), evictions.sum(), evictedWeight.sum());
+    }
+
+    private void onInsert(Node<K, V> node) {
+        policyLock.lock();
+        try {
+            if (node.removed) {
+                return; // Replaced or invalidated before it was linked
+            }
+            link(probation, node);
+            node.linked = true;
+            weight += node.weight;
+            evictIfNeeded();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void onRemove(Node<K, V> node) {
+        policyLock.lock();
+        try {
+            node.removed = true;
+            if (node.linked) {
+                detach(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Promotes a probation entry to the protected segment on a hit, or refreshes a protected one.
+     * Skipped if another thread holds the policy lock.
+     */
+    private void recordAccess(Node<K, V> node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!node.linked) {
+                return;
+            }
+            unlink(node);
+            if (!node.inProtected) {
+                node.inProtected = true;
+                protectedWeight += node.weight;
+            }
+            link(protectedSegment, node);
+            while (protectedWeight > maximumProtectedWeight) {
+                Node<K, V> demoted = protectedSegment.prev;
+                unlink(demoted);
+                demoted.inProtected = false;
+                protectedWeight -= demoted.weight;
+                link(probation, demoted);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (weight > maximumWeight) {
+            Node<K, V> victim = probation.prev != probation ? probation.prev : protectedSegment.prev;
+            if (victim == protectedSegment) {
+                return;
+            }
+            detach(victim);
+            victim.removed = true;
+            data.remove(victim.key, victim);
+            evictions.increment();
+            evictedWeight.add(victim.weight);
+        }
+    }
+
+    private void detach(Node<K, V> node) {
+        unlink(node);
+        node.linked = false;
+        weight -= node.weight;
+        if (node.inProtected) {
+            node.inProtected = false;
+            protectedWeight -= node.weight;
+        }
+    }
+
+    /**
+     * Inserts a node right after a segment's sentinel, as its most recently used entry.
+     */
+    private static <K, V> void link(Node<K, V> sentinel, Node<K, V> node) {
+        node.prev = sentinel;
+        node.next = sentinel.next;
+        sentinel.next.prev = node;
+        sentinel.next = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private int weightOf(V value) {
+        int valueWeight = weigher.applyAsInt(value);
+        if (valueWeight < 0) {
+            throw new IllegalArgumentException("Weight of a cached value can not be negative.");
+        }
+        return valueWeight;
+    }
+
+    /**
+     * Carries the node a load replaced out of the compute function.
+     */
+    private static final class Replaced<K, V> {
+        Node<K, V> node;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        // Guarded by policyLock
+        Node<K, V> prev;
+        Node<K, V> next;
+        boolean inProtected;
+        boolean linked;
+        boolean removed;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+    }
+}
@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.CacheRelated;
\ No newline at end of file
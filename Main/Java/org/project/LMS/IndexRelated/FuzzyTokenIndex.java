@@ -0,0 +1,460 @@
+package Main.Java.org.project.LMS.IndexRelated;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A typo-tolerant index over the words of short texts such as titles and author names.
+ *
+ * Texts are split into lower-cased words, and each distinct word keeps the ids of the entries containing it.
+ * A query word is matched against the vocabulary, never against the entries: candidate words are those that
+ * share enough padded bigrams with it and have a length within the allowed distance. Each candidate is then
+ * verified with a bounded edit distance that counts insertions, deletions, substitutions and swaps of adjacent
+ * characters ("Fitzgerlad") as one edit each. An edit changes at most three bigrams, so a word d edits away
+ * keeps at least (its distinct bigrams - 3d) of them and the bigram count filter never drops a real match.
+ *
+ * The allowed distance grows with the word: exact for one or two characters, one edit up to five, two beyond.
+ * An entry matches a query if every query word matches one of its words. Entries are ranked by the average
+ * similarity of their best-matching words, where similarity is 1 - distance / length of the longer word.
+ * The ranking walks matching words from the most similar down and stops once no remaining word can beat
+ * the current top results, so popular exact words do not cost a walk over all their entries.
+ */
+public class FuzzyTokenIndex<K> {
+    private static final char START = '\u0002';
+    private static final char END = '\u0003';
+
+    private final Map<String, Token<K>> vocabulary; // lower-cased word -> ids of entries containing it
+    private final Map<String, Set<Token<K>>> bigramPostings; // word length + bigram -> words of that length containing it
+
+    public FuzzyTokenIndex() {
+        this.vocabulary = new ConcurrentHashMap<>();
+        this.bigramPostings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Indexes the words of the given text under the given id.
+     * @param id The id of the entry (e.g., an ISBN).
+     * @param text The text to index (e.g., a title).
+     */
+    public void add(K id, String text) {
+        if (id == null || text == null) {
+            return;
+        }
+        for (String word : wordsOf(text)) {
+            vocabulary.compute(word, (key, token) -> {
+                if (token == null) {
+                    token = new Token<>(key);
+                    Token<K> added = token;
+                    for (String gram : bigramsOf(key)) {
+                        // Inserted under the posting's bin lock, like removals, so a concurrent remove that empties
+                        // and drops the posting can not swallow the new word.
+                        bigramPostings.compute(postingKey(key.length(), gram), (k, tokens) -> {
+                            if (tokens == null) {
+                                tokens = ConcurrentHashMap.newKeySet();
+                            }
+                            tokens.add(added);
+                            return tokens;
+                        });
+                    }
+                }
+                token.ids.add(id);
+                return token;
+            });
+        }
+    }
+
+    /**
+     * Removes the given id from every word of the given text.
+     * The text must be the same one the id was indexed with.
+     * @param id The id of the entry.
+     * @param text The text the entry was indexed with.
+     */
+    public void remove(K id, String text) {
+        if (id == null || text == null) {
+            return;
+        }
+        for (String word : wordsOf(text)) {
+            // Words no entry uses any more leave the vocabulary, so removed entries do not leak postings.
+            vocabulary.computeIfPresent(word, (key, token) -> {
+                token.ids.remove(id);
+                if (!token.ids.isEmpty()) {
+                    return token;
+                }
+                for (String gram : bigramsOf(key)) {
+                    bigramPostings.computeIfPresent(postingKey(key.length(), gram), (k, tokens) -> {
+                        tokens.remove(token);
+                        return tokens.isEmpty() ? null : tokens;
+                    });
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Returns the ids of the entries that match the query, best first.
+     * Among equally scored entries, which ones make the limit is unspecified.
+     * @param query The query; case is ignored.
+     * @param limit The maximum number of ids to return.
+     * @return The ranked ids; empty if the query has no words or nothing matches.
+     */
+    public List<K> search(String query, int limit) {
+        if (query == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> queryWords = wordsOf(query);
+        if (queryWords.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<Candidate<K>>> matchesPerWord = new ArrayList<>(queryWords.size());
+        int driver = 0;
+        long driverSize = Long.MAX_VALUE;
+        double bestTotal = 0; // Sum of every query word's best similarity
+        for (String word : queryWords) {
+            List<Candidate<K>> matches = matchingWords(word);
+            if (matches.isEmpty()) {
+                return Collections.emptyList(); // Every query word has to match
+            }
+            long size = 0;
+            for (Candidate<K> match : matches) {
+                size += match.token.ids.size();
+            }
+            if (size < driverSize) {
+                driverSize = size;
+                driver = matchesPerWord.size();
+            }
+            bestTotal += matches.get(0).similarity;
+            matchesPerWord.add(matches);
+        }
+        List<Candidate<K>> driverMatches = matchesPerWord.get(driver);
+        double othersBest = bestTotal - driverMatches.get(0).similarity;
+        int wordCount = matchesPerWord.size();
+
+        // Walk the entries of the rarest query word and look each one up in the other words' matches.
+        PriorityQueue<Scored<K>> top = new PriorityQueue<>(Math.min(limit, 1024) + 1, Comparator.comparingDouble(scored -> scored.score));
+        Set<K> seen = driverMatches.size() > 1 ? new HashSet<>() : null; // An entry may contain several matching words
+        for (Candidate<K> driverMatch : driverMatches) { // Best match first, so the first visit of an id is its best
+            double bound = (driverMatch.similarity + othersBest) / wordCount;
+            if (top.size() == limit && bound <= top.peek().score) {
+                break; // Neither this word nor any less similar one can improve the results
+            }
+            for (K id : driverMatch.token.ids) {
+                if (seen != null && !seen.add(id)) {
+                    continue;
+                }
+                double total = driverMatch.similarity;
+                for (int i = 0; i < wordCount && total >= 0; i++) {
+                    if (i != driver) {
+                        double best = bestSimilarity(matchesPerWord.get(i), id);
+                        total = best < 0 ? -1 : total + best;
+                    }
+                }
+                if (total < 0) {
+                    continue;
+                }
+                double score = total / wordCount;
+                if (top.size() < limit) {
+                    top.add(new Scored<>(id, score));
+                } else if (score > top.peek().score) {
+                    top.poll();
+                    top.add(new Scored<>(id, score));
+                    if (bound <= top.peek().score) {
+                        break;
+                    }
+                }
+            }
+        }
+        List<K> ranked = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ranked.add(top.poll().id);
+        }
+        Collections.reverse(ranked);
+        return Collections.unmodifiableList(ranked);
+    }
+
+    /**
+     * Scores a text against a query the same way the index ranks entries, without an index.
+     * Meant for repositories that have to scan.
+     * @param query The query; case is ignored.
+     * @param text The text to score.
+     * @return The score in (0, 1], or 0 if the text does not match.
+     */
+    public static double score(String query, String text) {
+        if (query == null || text == null) {
+            return 0;
+        }
+        Set<String> queryWords = wordsOf(query);
+        Set<String> textWords = wordsOf(text);
+        if (queryWords.isEmpty()) {
+            return 0;
+        }
+        double total = 0;
+        for (String queryWord : queryWords) {
+            int maxDistance = maxDistance(queryWord.length());
+            double best = -1;
+            for (String textWord : textWords) {
+                int distance = boundedDistance(queryWord, textWord, maxDistance);
+                if (distance <= maxDistance) {
+                    best = Math.max(best, similarity(queryWord, textWord, distance));
+                }
+            }
+            if (best < 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total / queryWords.size();
+    }
+
+    /**
+     * Returns the edit distance between two strings if it is at most maxDistance. Insertions, deletions,
+     * substitutions and swaps of two adjacent characters each count as one edit (optimal string alignment).
+     * Only a band of 2 * maxDistance + 1 cells per row is computed, and the computation stops
+     * as soon as every cell in a row exceeds the bound.
+     * @return The distance, or maxDistance + 1 if it is larger.
+     */
+    public static int boundedDistance(String a, String b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int tooFar = maxDistance + 1;
+        int[] beforePrevious = new int[m + 1]; // Row i - 2, for swaps of adjacent characters
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= maxDistance ? j : tooFar;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(m, i + maxDistance);
+            current[0] = i <= maxDistance ? i : tooFar;
+            if (from > 1) {
+                current[from - 1] = tooFar;
+            }
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                char cb = b.charAt(j - 1);
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + (ca == cb ? 0 : 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, tooFar);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = tooFar;
+            }
+            // A swap reaches back two rows, but it never beats the cell to its left, so a row entirely
+            // beyond the bound still means every later row is too.
+            if (rowMin > maxDistance) {
+                return tooFar;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+
+    /**
+     * Returns the number of distinct words currently indexed.
+     * @return The vocabulary size.
+     */
+    public int wordCount() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Finds the vocabulary words within the allowed distance of a query word, most similar first.
+     */
+    private List<Candidate<K>> matchingWords(String word) {
+        int maxDistance = maxDistance(word.length());
+        List<Candidate<K>> matches = new ArrayList<>();
+        if (maxDistance == 0) {
+            Token<K> exact = vocabulary.get(word);
+            if (exact != null) {
+                matches.add(new Candidate<>(exact, 1.0));
+            }
+            return matches;
+        }
+        Set<String> grams = bigramsOf(word);
+        int required = grams.size() - 3 * maxDistance;
+        SharedGramCounter<K> shared = new SharedGramCounter<>();
+        for (int length = Math.max(1, word.length() - maxDistance); length <= word.length() + maxDistance; length++) {
+            for (String gram : grams) {
+                Set<Token<K>> tokens = bigramPostings.get(postingKey(length, gram));
+                if (tokens != null) {
+                    for (Token<K> token : tokens) {
+                        shared.increment(token);
+                    }
+                }
+            }
+        }
+        for (int position = 0; position < shared.tokens.size(); position++) {
+            Token<K> token = shared.tokens.get(position);
+            if (shared.counts[position] < required) {
+                continue;
+            }
+            int distance = boundedDistance(word, token.word, maxDistance);
+            if (distance <= maxDistance && !token.ids.isEmpty()) {
+                matches.add(new Candidate<>(token, similarity(word, token.word, distance)));
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Candidate<K> candidate) -> candidate.similarity).reversed());
+        return matches;
+    }
+
+    private static <K> double bestSimilarity(List<Candidate<K>> matches, K id) {
+        for (Candidate<K> match : matches) {
+            if (match.token.ids.contains(id)) {
+                return match.similarity;
+            }
+        }
+        return -1;
+    }
+
+    private static int maxDistance(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    private static double similarity(String a, String b, int distance) {
+        return 1.0 - (double) distance / Math.max(a.length(), b.length());
+    }
+
+    private static String postingKey(int length, String gram) {
+        return length + gram;
+    }
+
+    /**
+     * Splits text into its distinct lower-cased words: runs of letters and digits.
+     */
+    private static Set<String> wordsOf(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the distinct bigrams of a word padded with start and end markers, so "cat" gives
+     * START-c, ca, at and t-END.
+     */
+    private static Set<String> bigramsOf(String word) {
+        String padded = START + word + END;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static final class Token<K> {
+        private static final AtomicInteger SERIALS = new AtomicInteger();
+
+        final String word;
+        final Set<K> ids;
+        final int serial; // Identifies the word in SharedGramCounter without boxing
+
+        Token(String word) {
+            this.word = word;
+            this.ids = ConcurrentHashMap.newKeySet();
+            this.serial = SERIALS.getAndIncrement();
+        }
+    }
+
+    /**
+     * Counts how many query bigrams each vocabulary word shares, in an open-addressing table keyed by the
+     * word's serial. Candidate generation touches every posting of every query bigram, so this avoids a
+     * boxed map entry per posting. The table holds positions into the list of distinct words seen.
+     */
+    private static final class SharedGramCounter<K> {
+        final List<Token<K>> tokens = new ArrayList<>(); // Distinct words, in the order they were first counted
+        int[] counts = new int[512];                     // Shared bigrams, by position in tokens
+        private int[] slots = new int[1024];             // Position in tokens + 1, or 0 for an empty slot
+
+        void increment(Token<K> token) {
+            int mask = slots.length - 1;
+            int slot = mix(token.serial) & mask;
+            while (slots[slot] != 0) {
+                int position = slots[slot] - 1;
+                if (tokens.get(position) == token) {
+                    counts[position]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (tokens.size() == counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            counts[tokens.size()] = 1;
+            tokens.add(token);
+            slots[slot] = tokens.size();
+            if (tokens.size() * 2 > slots.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int position = 0; position < tokens.size(); position++) {
+                int slot = mix(tokens.get(position).serial) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = position + 1;
+            }
+        }
+
+        private static int mix(int serial) {
+            int h = serial * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private static final class Candidate<K> {
+        final Token<K> token;
+        final double similarity;
+
+        Candidate(Token<K> token, double similarity) {
+            this.token = token;
+            this.similarity = similarity;
+        }
+    }
+
+    private static final class Scored<K> {
+        final K id;
+        final double score;
+
+        Scored(K id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
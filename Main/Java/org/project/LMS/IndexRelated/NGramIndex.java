@@ -0,0 +1,155 @@
+package Main.Java.org.project.LMS.IndexRelated;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An incrementally maintained inverted index from character n-grams to the ids of the entries containing them.
+ * Text is lower-cased before it is split into grams, so lookups are case-insensitive.
+ * The index only narrows down candidates: every id it returns contains all grams of the query,
+ * but callers still have to verify the actual substring match.
+ */
+public class NGramIndex {
+    public static final int DEFAULT_GRAM_LENGTH = 3;
+
+    private final int gramLength;
+    private final Map<String, Set<String>> postings; // gram -> ids of entries containing that gram
+
+    public NGramIndex() {
+        this(DEFAULT_GRAM_LENGTH);
+    }
+
+    public NGramIndex(int gramLength) {
+        if (gramLength <= 0) {
+            throw new IllegalArgumentException("Gram length must be a positive value.");
+        }
+        this.gramLength = gramLength;
+        this.postings = new ConcurrentHashMap<>();
+    }
+
+    public int getGramLength() {
+        return gramLength;
+    }
+
+    /**
+     * Indexes the given text under the given id.
+     * @param id The id of the entry (e.g., an ISBN).
+     * @param text The text to index (e.g., a title).
+     */
+    public void add(String id, String text) {
+        if (id == null || text == null) {
+            return;
+        }
+        for (String gram : gramsOf(text.toLowerCase())) {
+            postings.compute(gram, (key, ids) -> {
+                Set<String> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                target.add(id);
+                return target;
+            });
+        }
+    }
+
+    /**
+     * Removes the given id from the postings of every gram of the given text.
+     * The text must be the same one the id was indexed with.
+     * @param id The id of the entry.
+     * @param text The text the entry was indexed with.
+     */
+    public void remove(String id, String text) {
+        if (id == null || text == null) {
+            return;
+        }
+        for (String gram : gramsOf(text.toLowerCase())) {
+            // Drop the posting list entirely once it is empty so removed entries do not leak grams.
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Returns the ids of all entries that contain every gram of the query. The result is a lazy view:
+     * iterating it walks the smallest posting list and skips ids missing from any other list, so a caller
+     * that stops after a few matches does not pay for the whole intersection.
+     * @param lowerCaseQuery The already lower-cased query.
+     * @return The candidate ids, or null if the query is shorter than the gram length and the index can not be used.
+     */
+    public Iterable<String> candidates(String lowerCaseQuery) {
+        if (lowerCaseQuery == null || lowerCaseQuery.length() < gramLength) {
+            return null;
+        }
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : gramsOf(lowerCaseQuery)) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet(); // No entry contains this gram, so nothing can match.
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<String> smallest = lists.get(0);
+        List<Set<String>> others = lists.subList(1, lists.size());
+        if (others.isEmpty()) {
+            return Collections.unmodifiableSet(smallest);
+        }
+        return () -> new Iterator<>() {
+            private final Iterator<String> ids = smallest.iterator();
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext()) {
+                    String id = ids.next();
+                    if (inAll(id, others)) {
+                        next = id;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String id = next;
+                next = null;
+                return id;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of distinct grams currently indexed.
+     * @return The gram count.
+     */
+    public int gramCount() {
+        return postings.size();
+    }
+
+    private static boolean inAll(String id, List<Set<String>> lists) {
+        for (Set<String> ids : lists) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<String> gramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + gramLength <= text.length(); i++) {
+            grams.add(text.substring(i, i + gramLength));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.IndexRelated;
\ No newline at end of file
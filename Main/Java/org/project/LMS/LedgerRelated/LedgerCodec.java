@@ -0,0 +1,225 @@
+package Main.Java.org.project.LMS.LedgerRelated;
+
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The binary layout of ledger segments.
+ *
+ * A segment is a sequence of records, each framed as {@code [int bodyLength][byte tag][payload]}. A zero length
+ * marks the end of the written data; segment files are preallocated, so the rest of the file reads as zeros.
+ * Every string (event type name, detail key or value) is written once per segment as a STRING record that gives
+ * it the next dictionary id; EVENT records then refer to strings by id:
+ * {@code [long epochNanos][varint typeId][varint detailCount]([varint keyId][varint valueId])*}.
+ * Because the dictionary restarts with every segment, each segment can be decoded on its own.
+ */
+final class LedgerCodec {
+    static final byte TAG_STRING = 1;
+    static final byte TAG_EVENT = 2;
+    static final int FRAME_BYTES = Integer.BYTES;
+
+    private LedgerCodec() {
+    }
+
+    /**
+     * Receives the decoded events of a scan.
+     */
+    interface Visitor {
+        /**
+         * @param type The event type.
+         * @param epochNanos The event's timestamp.
+         * @param pairs Alternating detail keys and values; only valid during the call.
+         * @param pairCount The number of used entries in pairs.
+         * @return true to continue the scan, false to stop it.
+         */
+        boolean event(LibraryEvent.EventType type, long epochNanos, String[] pairs, int pairCount);
+    }
+
+    /**
+     * Decodes the records of one segment, from its start up to limit or the first empty frame.
+     * Events whose type no longer exists are skipped.
+     * @param segment The segment's bytes; its position is not changed.
+     * @param limit The number of bytes that may be read.
+     * @param visitor Receives the events in append order.
+     * @return false if the visitor stopped the scan, true otherwise.
+     */
+    static boolean scan(ByteBuffer segment, int limit, Visitor visitor) {
+        ByteBuffer in = segment.duplicate();
+        List<String> strings = new ArrayList<>();
+        List<LibraryEvent.EventType> types = new ArrayList<>(); // Resolved type per string id, filled lazily
+        String[] pairs = new String[16];
+        int position = 0;
+        while (position + FRAME_BYTES < limit) {
+            int length = in.getInt(position);
+            if (length <= 0 || position + FRAME_BYTES + length > limit) {
+                break;
+            }
+            in.position(position + FRAME_BYTES);
+            byte tag = in.get();
+            if (tag == TAG_STRING) {
+                getVarInt(in); // The id, which is always the next one
+                byte[] bytes = new byte[length - (in.position() - position - FRAME_BYTES)];
+                in.get(bytes);
+                strings.add(new String(bytes, StandardCharsets.UTF_8));
+            } else if (tag == TAG_EVENT) {
+                long epochNanos = in.getLong();
+                LibraryEvent.EventType type = typeOf(getVarInt(in), strings, types);
+                int pairCount = getVarInt(in) * 2;
+                if (pairs.length < pairCount) {
+                    pairs = Arrays.copyOf(pairs, pairCount);
+                }
+                for (int i = 0; i < pairCount; i++) {
+                    pairs[i] = strings.get(getVarInt(in));
+                }
+                if (type != null && !visitor.event(type, epochNanos, pairs, pairCount)) {
+                    return false;
+                }
+            }
+            position += FRAME_BYTES + length;
+        }
+        return true;
+    }
+
+    private static LibraryEvent.EventType typeOf(int id, List<String> strings, List<LibraryEvent.EventType> types) {
+        while (types.size() <= id) {
+            types.add(null);
+        }
+        LibraryEvent.EventType type = types.get(id);
+        if (type == null) {
+            try {
+                type = LibraryEvent.EventType.valueOf(strings.get(id));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            types.set(id, type);
+        }
+        return type;
+    }
+
+    static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Encodes events into a reusable buffer, together with the STRING records for strings that are new to the
+     * current segment. Not thread-safe.
+     */
+    static final class Encoder implements BiConsumer<String, String> {
+        private final Map<String, Integer> dictionary;
+        private ByteBuffer scratch;
+        private String[] pairs;
+        private int[] pairIds;
+        private int pairCount;
+
+        Encoder() {
+            this.dictionary = new HashMap<>();
+            this.scratch = ByteBuffer.allocate(1024);
+            this.pairs = new String[16];
+            this.pairIds = new int[16];
+        }
+
+        /**
+         * Starts a new segment: strings are defined again the next time they are used.
+         */
+        void reset() {
+            dictionary.clear();
+        }
+
+        /**
+         * Encodes an event.
+         * @param epochNanos The timestamp to record, which may be later than the event's own.
+         * @return The encoded records, flipped for reading; valid until the next call.
+         */
+        ByteBuffer encode(LibraryEvent event, long epochNanos) {
+            scratch.clear();
+            pairCount = 0;
+            event.forEachDetail(this);
+            int typeId = intern(event.getType().name());
+            if (pairIds.length < pairCount) {
+                pairIds = new int[pairs.length];
+            }
+            for (int i = 0; i < pairCount; i++) {
+                pairIds[i] = intern(pairs[i]);
+                pairs[i] = null;
+            }
+            int start = beginRecord(TAG_EVENT, Long.BYTES + 10 + pairCount * 5);
+            scratch.putLong(epochNanos);
+            putVarInt(scratch, typeId);
+            putVarInt(scratch, pairCount / 2);
+            for (int i = 0; i < pairCount; i++) {
+                putVarInt(scratch, pairIds[i]);
+            }
+            endRecord(start);
+            scratch.flip();
+            return scratch;
+        }
+
+        @Override
+        public void accept(String key, String value) {
+            if (pairs.length < pairCount + 2) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[pairCount++] = key;
+            pairs[pairCount++] = value == null ? "" : value;
+        }
+
+        private int intern(String value) {
+            Integer id = dictionary.get(value);
+            if (id != null) {
+                return id;
+            }
+            int newId = dictionary.size();
+            dictionary.put(value, newId);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int start = beginRecord(TAG_STRING, 5 + bytes.length);
+            putVarInt(scratch, newId);
+            scratch.put(bytes);
+            endRecord(start);
+            return newId;
+        }
+
+        private int beginRecord(byte tag, int maxPayload) {
+            ensureCapacity(FRAME_BYTES + 1 + maxPayload);
+            int start = scratch.position();
+            scratch.putInt(0);
+            scratch.put(tag);
+            return start;
+        }
+
+        private void endRecord(int start) {
+            scratch.putInt(start, scratch.position() - start - FRAME_BYTES);
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (scratch.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes));
+                scratch.flip();
+                larger.put(scratch);
+                scratch = larger;
+            }
+        }
+    }
+}
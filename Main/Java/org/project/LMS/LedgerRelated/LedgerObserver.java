@@ -0,0 +1,356 @@
+package Main.Java.org.project.LMS.LedgerRelated;
+
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An observer that keeps every library event in an append-only ledger, so that the state of the library
+ * (who held which book, each book's status, patron details) can be rebuilt as of any past moment.
+ *
+ * Events are encoded compactly (see {@link LedgerCodec}): a timestamp plus dictionary ids for the type and the
+ * detail keys and values; the message text is not kept. They are appended to preallocated, memory-mapped segment
+ * files in the ledger directory. When a segment is full it is sealed and handed to a background checkpointer,
+ * which applies it to its own copy of the state and writes that state to a checkpoint file. Replays start from
+ * the newest suitable checkpoint, so they only scan the segments after it.
+ *
+ * Events are stamped in append order: an event raised before the one appended ahead of it is recorded with that
+ * one's timestamp, so replays can stop at the first event later than the requested time.
+ *
+ * Failures never reach the caller. Events that could not be appended count as dropped; failed checkpoints are
+ * counted, and the last failure of either kind is kept for {@link #getLastFailure()}.
+ *
+ * Every run starts a new segment; segments and checkpoints of earlier runs are kept and replayed.
+ */
+public class LedgerObserver implements ILibraryObserver, AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1;
+
+    private final Path directory;
+    private final Set<LibraryEvent.EventType> recordedTypes;
+    private final int segmentBytes;
+    private final int checkpointInterval;
+    private final LedgerReader reader;
+    private final ReentrantLock appendLock;
+    private final LedgerCodec.Encoder encoder; // Guarded by appendLock
+    private long lastStamp; // Guarded by appendLock
+    private final AtomicLong appendedEvents;
+    private final AtomicLong droppedEvents;
+    private final AtomicLong checkpointFailures;
+    private volatile Exception lastFailure;
+    private final ExecutorService checkpointer;
+    private LedgerState checkpointState; // Only touched by the checkpointer thread
+    private volatile Segment active;
+    private volatile boolean closed;
+
+    public LedgerObserver(Path directory) {
+        this(directory, EnumSet.allOf(LibraryEvent.EventType.class), DEFAULT_SEGMENT_BYTES, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Opens the ledger in a directory, starting a new segment after any existing ones.
+     * @param directory The ledger directory; created if missing.
+     * @param recordedTypes The event types to record; subjects do not even build the other events.
+     * @param segmentBytes The size of each segment file.
+     * @param checkpointInterval Write a checkpoint after every this many sealed segments.
+     * @throws UncheckedIOException if the directory or the first segment can not be created.
+     */
+    public LedgerObserver(Path directory, Set<LibraryEvent.EventType> recordedTypes, int segmentBytes, int checkpointInterval) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Ledger directory can not be null.");
+        }
+        if (recordedTypes == null) {
+            throw new IllegalArgumentException("Recorded event types can not be null.");
+        }
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("Segment size must be at least 4096 bytes.");
+        }
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be a positive value.");
+        }
+        this.directory = directory;
+        this.recordedTypes = recordedTypes.isEmpty()
+                ? EnumSet.noneOf(LibraryEvent.EventType.class)
+                : EnumSet.copyOf(recordedTypes);
+        this.segmentBytes = segmentBytes;
+        this.checkpointInterval = checkpointInterval;
+        this.reader = new LedgerReader(directory);
+        this.appendLock = new ReentrantLock();
+        this.encoder = new LedgerCodec.Encoder();
+        this.appendedEvents = new AtomicLong();
+        this.droppedEvents = new AtomicLong();
+        this.checkpointFailures = new AtomicLong();
+        this.checkpointer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "ledger-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Integer> existing;
+        try {
+            Files.createDirectories(directory);
+            existing = LedgerReader.segmentIndexes(directory);
+            int next = existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1;
+            this.active = openSegment(next);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open ledger in " + directory, e);
+        }
+        checkpointer.execute(() -> recover(existing));
+    }
+
+    @Override
+    public boolean isInterestedIn(LibraryEvent.EventType type) {
+        return recordedTypes.contains(type);
+    }
+
+    @Override
+    public void update(LibraryEvent event) {
+        appendLock.lock();
+        try {
+            append(event);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateBatch(List<LibraryEvent> events) {
+        appendLock.lock();
+        try {
+            for (LibraryEvent event : events) {
+                append(event);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the state as of a point in time, including events appended to the current segment so far.
+     * @param epochNanos The point in time, in nanoseconds since the epoch.
+     * @return The state at that time.
+     * @throws UncheckedIOException if the ledger can not be read.
+     */
+    public LedgerState stateAt(long epochNanos) {
+        Segment segment = active;
+        int committed = segment.committed;
+        return reader.replay(epochNanos, segment.index, segment.buffer.duplicate(), committed);
+    }
+
+    public long getAppendedEvents() {
+        return appendedEvents.get();
+    }
+
+    /**
+     * Returns the number of events that could not be recorded, because the ledger was closed or a write failed.
+     * @return The dropped event count.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Returns the number of checkpoints that could not be read or written. Replays still work without them,
+     * but scan more segments.
+     * @return The checkpoint failure count.
+     */
+    public long getCheckpointFailureCount() {
+        return checkpointFailures.get();
+    }
+
+    /**
+     * @return The most recent append or checkpoint failure, or null if there was none.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Forces the events appended so far to disk.
+     */
+    public void flush() {
+        appendLock.lock();
+        try {
+            if (!closed) {
+                active.buffer.force();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Stops recording, forces the current segment to disk and waits for it to be checkpointed.
+     */
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            seal(active, true);
+        } finally {
+            appendLock.unlock();
+        }
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(LibraryEvent event) {
+        if (closed) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        try {
+            Segment segment = active;
+            long stamp = Math.max(event.getEpochNanos(), lastStamp);
+            ByteBuffer records = encoder.encode(event, stamp);
+            if (records.remaining() > segment.buffer.capacity() - segment.position) {
+                seal(segment, false);
+                segment = openSegment(segment.index + 1);
+                active = segment;
+                encoder.reset();
+                records = encoder.encode(event, stamp); // Its strings must be defined again in the new segment
+                if (records.remaining() > segment.buffer.capacity()) {
+                    droppedEvents.incrementAndGet();
+                    return;
+                }
+            }
+            // Everything but the first frame length is written first: until that length is set,
+            // a reader or a recovery after a crash sees the end of the segment here.
+            int length = records.remaining();
+            int position = segment.position;
+            segment.buffer.put(position + LedgerCodec.FRAME_BYTES, records, LedgerCodec.FRAME_BYTES,
+                    length - LedgerCodec.FRAME_BYTES);
+            segment.buffer.putInt(position, records.getInt(0));
+            segment.position = position + length;
+            segment.committed = segment.position;
+            lastStamp = stamp;
+            appendedEvents.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            // A failing write must not fail the operation that raised the event.
+            droppedEvents.incrementAndGet();
+            lastFailure = e;
+        }
+    }
+
+    /**
+     * Forces a full (or final) segment to disk and queues it for checkpointing.
+     */
+    private void seal(Segment segment, boolean finalSegment) {
+        segment.buffer.force();
+        checkpointer.execute(() -> absorb(segment.index, finalSegment));
+    }
+
+    private Segment openSegment(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(LedgerReader.segmentPath(directory, index),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(index, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+
+    /**
+     * Runs first on the checkpointer: loads the newest readable checkpoint and catches up with the segments
+     * written after it by earlier runs.
+     */
+    private void recover(List<Integer> segments) {
+        int checkpointed = -1;
+        try {
+            List<Integer> checkpoints = LedgerReader.checkpointIndexes(directory);
+            for (int i = checkpoints.size() - 1; i >= 0 && checkpointState == null; i--) {
+                try {
+                    checkpointState = LedgerReader.readCheckpoint(LedgerReader.checkpointPath(directory, checkpoints.get(i)));
+                    checkpointed = checkpoints.get(i);
+                } catch (IOException e) {
+                    reportCheckpointFailure(e); // Falls back to an older checkpoint
+                }
+            }
+        } catch (IOException e) {
+            reportCheckpointFailure(e);
+        }
+        if (checkpointState == null) {
+            checkpointState = new LedgerState();
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i) > checkpointed) {
+                absorb(segments.get(i), i == segments.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Applies a sealed segment to the checkpointer's state and writes a checkpoint when one is due.
+     */
+    private void absorb(int index, boolean forceCheckpoint) {
+        try {
+            LedgerReader.scanSegment(LedgerReader.segmentPath(directory, index), (type, epochNanos, pairs, pairCount) -> {
+                checkpointState.apply(type, epochNanos, pairs, pairCount);
+                return true;
+            });
+            if (forceCheckpoint || (index + 1) % checkpointInterval == 0) {
+                writeCheckpoint(index);
+            }
+        } catch (IOException e) {
+            reportCheckpointFailure(e);
+        }
+    }
+
+    private void reportCheckpointFailure(IOException failure) {
+        checkpointFailures.incrementAndGet();
+        lastFailure = failure;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file and moves it into place, so readers never see a partial one.
+     */
+    private void writeCheckpoint(int index) throws IOException {
+        Path target = LedgerReader.checkpointPath(directory, index);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(LedgerReader.CHECKPOINT_MAGIC);
+            out.writeInt(LedgerReader.CHECKPOINT_VERSION);
+            checkpointState.writeTo(out);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class Segment {
+        final int index;
+        final MappedByteBuffer buffer;
+        int position; // Guarded by appendLock
+        volatile int committed; // The bytes readers may scan
+
+        Segment(int index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+}
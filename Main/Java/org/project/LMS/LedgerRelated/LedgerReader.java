@@ -0,0 +1,175 @@
+package Main.Java.org.project.LMS.LedgerRelated;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds library state from a ledger directory written by {@link LedgerObserver}.
+ * A replay starts from the newest checkpoint that lies entirely before the requested time and scans the
+ * segments after it through memory-mapped buffers, so its cost is bounded by one checkpoint interval
+ * rather than by the length of the whole history.
+ */
+public class LedgerReader {
+    static final int CHECKPOINT_MAGIC = 0x4C4D534C; // "LMSL"
+    static final int CHECKPOINT_VERSION = 1;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("ledger-(\\d+)\\.seg");
+    private static final Pattern CHECKPOINT_NAME = Pattern.compile("ledger-(\\d+)\\.ckpt");
+
+    private final Path directory;
+
+    /**
+     * @param directory The ledger directory.
+     */
+    public LedgerReader(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Ledger directory can not be null.");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Rebuilds the state as of a point in time: every event stamped at or before the given time is applied, in the
+     * order the events were appended. Stamps never decrease in append order, so the scan stops at the first later one.
+     * @param epochNanos The point in time, in nanoseconds since the epoch.
+     * @return The state at that time; empty if the ledger has no earlier events.
+     * @throws UncheckedIOException if the ledger can not be read.
+     */
+    public LedgerState stateAt(long epochNanos) {
+        return replay(epochNanos, Integer.MAX_VALUE, null, 0);
+    }
+
+    /**
+     * @return The state after every event in the ledger.
+     */
+    public LedgerState latestState() {
+        return stateAt(Long.MAX_VALUE);
+    }
+
+    /**
+     * Replays the sealed segments below activeIndex, then the first activeLimit bytes of the active segment.
+     */
+    LedgerState replay(long epochNanos, int activeIndex, ByteBuffer active, int activeLimit) {
+        try {
+            LedgerState state = null;
+            int firstSegment = 0;
+            List<Integer> checkpoints = indexes(directory, CHECKPOINT_NAME);
+            for (int i = checkpoints.size() - 1; i >= 0 && state == null; i--) {
+                int index = checkpoints.get(i);
+                if (index < activeIndex && checkpointEndsBy(checkpointPath(directory, index), epochNanos)) {
+                    state = readCheckpoint(checkpointPath(directory, index));
+                    firstSegment = index + 1;
+                }
+            }
+            if (state == null) {
+                state = new LedgerState();
+            }
+            LedgerState target = state;
+            LedgerCodec.Visitor visitor = (type, eventNanos, pairs, pairCount) -> {
+                if (eventNanos > epochNanos) {
+                    return false;
+                }
+                target.apply(type, eventNanos, pairs, pairCount);
+                return true;
+            };
+            for (int index : indexes(directory, SEGMENT_NAME)) {
+                if (index < firstSegment || index >= activeIndex) {
+                    continue;
+                }
+                if (!scanSegment(segmentPath(directory, index), visitor)) {
+                    return state;
+                }
+            }
+            if (active != null) {
+                LedgerCodec.scan(active, activeLimit, visitor);
+            }
+            return state;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not replay ledger in " + directory, e);
+        }
+    }
+
+    /**
+     * Maps a whole segment read-only and scans it.
+     * @return false if the visitor stopped the scan.
+     */
+    static boolean scanSegment(Path segment, LedgerCodec.Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            int size = (int) Math.min(channel.size(), Integer.MAX_VALUE);
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return LedgerCodec.scan(mapped, size, visitor);
+        }
+    }
+
+    static LedgerState readCheckpoint(Path checkpoint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint), 1 << 16))) {
+            readCheckpointHeader(in, checkpoint);
+            return LedgerState.readFrom(in);
+        }
+    }
+
+    /**
+     * @return true if every event in the checkpoint is stamped at or before the given time.
+     */
+    private static boolean checkpointEndsBy(Path checkpoint, long epochNanos) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpoint))) {
+            readCheckpointHeader(in, checkpoint);
+            in.readLong(); // Event count
+            return in.readLong() <= epochNanos;
+        }
+    }
+
+    private static void readCheckpointHeader(DataInputStream in, Path checkpoint) throws IOException {
+        if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+            throw new IOException("Not a ledger checkpoint: " + checkpoint);
+        }
+    }
+
+    static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("ledger-%06d.seg", index));
+    }
+
+    static Path checkpointPath(Path directory, int index) {
+        return directory.resolve(String.format("ledger-%06d.ckpt", index));
+    }
+
+    static List<Integer> segmentIndexes(Path directory) throws IOException {
+        return indexes(directory, SEGMENT_NAME);
+    }
+
+    static List<Integer> checkpointIndexes(Path directory) throws IOException {
+        return indexes(directory, CHECKPOINT_NAME);
+    }
+
+    /**
+     * @return The indexes of the files in the directory whose names match the pattern, in ascending order.
+     */
+    private static List<Integer> indexes(Path directory, Pattern pattern) throws IOException {
+        List<Integer> indexes = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return indexes;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    indexes.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+}
@@ -0,0 +1,326 @@
+package Main.Java.org.project.LMS.LedgerRelated;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state of the library as reconstructed from its event ledger: which books and patrons exist,
+ * each book's status, and who holds which book. Statuses follow the book repository's add and update events;
+ * holders follow the lending manager's checkout and return events, single and batched.
+ * Books and patrons that were only bulk-loaded appear once an event names them.
+ * Instances are not thread-safe; a replay builds one and hands it over.
+ */
+public class LedgerState {
+    private final Map<String, BookEntry> books;
+    private final Map<String, PatronEntry> patrons;
+    private long eventCount;
+    private long asOfEpochNanos;
+
+    public LedgerState() {
+        this.books = new HashMap<>();
+        this.patrons = new HashMap<>();
+    }
+
+    /**
+     * Returns the patrons holding a book (several for a title with multiple copies).
+     * @param ISBN The ISBN of the book.
+     * @return An unmodifiable Set of patron IDs, empty if nobody holds the book.
+     */
+    public Set<String> getHolders(String ISBN) {
+        BookEntry book = ISBN == null ? null : books.get(ISBN);
+        return book == null ? Collections.emptySet() : Collections.unmodifiableSet(book.holders);
+    }
+
+    /**
+     * Returns the books a patron holds.
+     * @param patronId The ID of the patron.
+     * @return An unmodifiable Set of ISBNs, empty if the patron holds none.
+     */
+    public Set<String> getLoans(String patronId) {
+        PatronEntry patron = patronId == null ? null : patrons.get(patronId);
+        return patron == null ? Collections.emptySet() : Collections.unmodifiableSet(patron.loans);
+    }
+
+    /**
+     * @return The book's status, or null if the book is unknown or its status was never recorded.
+     */
+    public BookStatus getBookStatus(String ISBN) {
+        BookEntry book = ISBN == null ? null : books.get(ISBN);
+        return book == null ? null : book.status;
+    }
+
+    public String getBookTitle(String ISBN) {
+        BookEntry book = ISBN == null ? null : books.get(ISBN);
+        return book == null ? null : book.title;
+    }
+
+    public String getPatronName(String patronId) {
+        PatronEntry patron = patronId == null ? null : patrons.get(patronId);
+        return patron == null ? null : patron.name;
+    }
+
+    public String getPatronContact(String patronId) {
+        PatronEntry patron = patronId == null ? null : patrons.get(patronId);
+        return patron == null ? null : patron.contact;
+    }
+
+    public boolean containsBook(String ISBN) {
+        return ISBN != null && books.containsKey(ISBN);
+    }
+
+    public boolean containsPatron(String patronId) {
+        return patronId != null && patrons.containsKey(patronId);
+    }
+
+    public int getBookCount() {
+        return books.size();
+    }
+
+    public int getPatronCount() {
+        return patrons.size();
+    }
+
+    /**
+     * @return The number of events applied to reach this state.
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return The timestamp of the newest applied event, in nanoseconds since the epoch.
+     */
+    public long getAsOfEpochNanos() {
+        return asOfEpochNanos;
+    }
+
+    /**
+     * Applies one event.
+     * @param type The event type.
+     * @param epochNanos The event's timestamp.
+     * @param pairs Alternating detail keys and values.
+     * @param pairCount The number of used entries in pairs (twice the number of details).
+     */
+    void apply(LibraryEvent.EventType type, long epochNanos, String[] pairs, int pairCount) {
+        eventCount++;
+        asOfEpochNanos = Math.max(asOfEpochNanos, epochNanos);
+        switch (type) {
+            case BOOK_ADDED: {
+                BookEntry book = book(detail(pairs, pairCount, "ISBN"));
+                if (book != null) {
+                    book.title = detail(pairs, pairCount, "Title");
+                    book.author = detail(pairs, pairCount, "Author");
+                    book.status = BookStatus.AVAILABLE;
+                }
+                break;
+            }
+            case BOOK_REMOVED: {
+                String isbn = detail(pairs, pairCount, "ISBN");
+                BookEntry removed = isbn == null ? null : books.remove(isbn);
+                if (removed != null) {
+                    for (String patronId : removed.holders) {
+                        PatronEntry patron = patrons.get(patronId);
+                        if (patron != null) {
+                            patron.loans.remove(isbn);
+                        }
+                    }
+                }
+                break;
+            }
+            case BOOK_UPDATED: {
+                BookEntry book = book(detail(pairs, pairCount, "ISBN"));
+                if (book != null) {
+                    String title = detail(pairs, pairCount, "Title");
+                    if (title != null) {
+                        book.title = title;
+                    }
+                    book.status = statusOf(detail(pairs, pairCount, "Status"), book.status);
+                }
+                break;
+            }
+            case BOOKS_BULK_UPDATED: {
+                String[] isbns = split(detail(pairs, pairCount, "ISBNs"));
+                String[] statuses = split(detail(pairs, pairCount, "Statuses"));
+                for (int i = 0; i < isbns.length && i < statuses.length; i++) {
+                    BookEntry book = book(isbns[i]);
+                    book.status = statusOf(statuses[i], book.status);
+                }
+                break;
+            }
+            case BOOK_CHECKED_OUT:
+                lend(detail(pairs, pairCount, "BookISBN"), detail(pairs, pairCount, "PatronID"));
+                break;
+            case BOOK_RETURNED:
+                giveBack(detail(pairs, pairCount, "BookISBN"), detail(pairs, pairCount, "PatronID"));
+                break;
+            case BATCH_CHECKED_OUT: {
+                String patronId = detail(pairs, pairCount, "PatronID");
+                for (String isbn : split(detail(pairs, pairCount, "BookISBNs"))) {
+                    lend(isbn, patronId);
+                }
+                break;
+            }
+            case BATCH_RETURNED: {
+                String[] isbns = split(detail(pairs, pairCount, "BookISBNs"));
+                String[] patronIds = split(detail(pairs, pairCount, "PatronIDs"));
+                for (int i = 0; i < isbns.length && i < patronIds.length; i++) {
+                    giveBack(isbns[i], patronIds[i]);
+                }
+                break;
+            }
+            case PATRON_ADDED:
+            case PATRON_UPDATED: {
+                PatronEntry patron = patron(detail(pairs, pairCount, "PatronID"));
+                if (patron != null) {
+                    String name = detail(pairs, pairCount, "Name");
+                    if (name != null) {
+                        patron.name = name;
+                    }
+                    String contact = detail(pairs, pairCount, "Contact");
+                    if (contact != null) {
+                        patron.contact = contact;
+                    }
+                }
+                break;
+            }
+            default:
+                break; // Holds, errors and informational events do not change who holds what
+        }
+    }
+
+    private void lend(String ISBN, String patronId) {
+        BookEntry book = book(ISBN);
+        PatronEntry patron = patron(patronId);
+        if (book != null && patron != null) {
+            book.holders.add(patronId);
+            patron.loans.add(ISBN);
+        }
+    }
+
+    private void giveBack(String ISBN, String patronId) {
+        BookEntry book = ISBN == null ? null : books.get(ISBN);
+        PatronEntry patron = patronId == null ? null : patrons.get(patronId);
+        if (book != null) {
+            book.holders.remove(patronId);
+        }
+        if (patron != null) {
+            patron.loans.remove(ISBN);
+        }
+    }
+
+    private BookEntry book(String ISBN) {
+        return ISBN == null ? null : books.computeIfAbsent(ISBN, key -> new BookEntry());
+    }
+
+    private PatronEntry patron(String patronId) {
+        return patronId == null ? null : patrons.computeIfAbsent(patronId, key -> new PatronEntry());
+    }
+
+    private static String detail(String[] pairs, int pairCount, String key) {
+        for (int i = 0; i < pairCount; i += 2) {
+            if (key.equals(pairs[i])) {
+                return pairs[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static String[] split(String list) {
+        return list == null || list.isEmpty() ? new String[0] : list.split(",");
+    }
+
+    private static BookStatus statusOf(String name, BookStatus fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return BookStatus.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Writes the state for a checkpoint. Patron loans are not written; they are rebuilt from the holders.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(eventCount);
+        out.writeLong(asOfEpochNanos);
+        out.writeInt(patrons.size());
+        for (Map.Entry<String, PatronEntry> entry : patrons.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeNullable(out, entry.getValue().name);
+            writeNullable(out, entry.getValue().contact);
+        }
+        out.writeInt(books.size());
+        for (Map.Entry<String, BookEntry> entry : books.entrySet()) {
+            BookEntry book = entry.getValue();
+            out.writeUTF(entry.getKey());
+            writeNullable(out, book.title);
+            writeNullable(out, book.author);
+            writeNullable(out, book.status == null ? null : book.status.name());
+            out.writeInt(book.holders.size());
+            for (String holder : book.holders) {
+                out.writeUTF(holder);
+            }
+        }
+    }
+
+    static LedgerState readFrom(DataInputStream in) throws IOException {
+        LedgerState state = new LedgerState();
+        state.eventCount = in.readLong();
+        state.asOfEpochNanos = in.readLong();
+        int patronCount = in.readInt();
+        for (int i = 0; i < patronCount; i++) {
+            PatronEntry patron = state.patron(in.readUTF());
+            patron.name = readNullable(in);
+            patron.contact = readNullable(in);
+        }
+        int bookCount = in.readInt();
+        for (int i = 0; i < bookCount; i++) {
+            String isbn = in.readUTF();
+            BookEntry book = state.book(isbn);
+            book.title = readNullable(in);
+            book.author = readNullable(in);
+            book.status = statusOf(readNullable(in), null);
+            int holderCount = in.readInt();
+            for (int j = 0; j < holderCount; j++) {
+                state.lend(isbn, in.readUTF());
+            }
+        }
+        return state;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class BookEntry {
+        String title;
+        String author;
+        BookStatus status;
+        final Set<String> holders = new LinkedHashSet<>(2);
+    }
+
+    private static final class PatronEntry {
+        String name;
+        String contact;
+        final Set<String> loans = new LinkedHashSet<>(4);
+    }
+}
@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.LedgerRelated;
\ No newline at end of file
@@ -0,0 +1,255 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.BookHolding;
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.BookRelated.IHoldingRepository;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import Main.Java.org.project.LMS.PatronRelated.IPatronRepository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lends the copies of multi-copy titles. Copies are claimed lock-free from the title's {@link BookHolding},
+ * so only the patron stripe is locked and concurrent checkouts of one title by different patrons do not
+ * serialize. The title's own status is kept in line with its copies: AVAILABLE while any copy is free,
+ * BORROWED otherwise.
+ */
+final class CopyLending {
+    private final IBookRepository bookRepository;
+    private final IPatronRepository patronRepository;
+    private final IHoldingRepository holdingRepository; // Null when every ISBN is a single copy
+    private final StripedLock bookLocks;
+    private final StripedLock patronLocks;
+    private final LoanTracker loanTracker;
+    private final LendingEvents events;
+
+    CopyLending(IBookRepository bookRepository, IPatronRepository patronRepository, IHoldingRepository holdingRepository,
+                StripedLock bookLocks, StripedLock patronLocks, LoanTracker loanTracker, LendingEvents events) {
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+        this.holdingRepository = holdingRepository;
+        this.bookLocks = bookLocks;
+        this.patronLocks = patronLocks;
+        this.loanTracker = loanTracker;
+        this.events = events;
+    }
+
+    /**
+     * @return The copies owned of a title, or null if it is lent as a single book.
+     */
+    BookHolding holdingOf(String bookISBN) {
+        return holdingRepository == null ? null : holdingRepository.getHolding(bookISBN);
+    }
+
+    /**
+     * Lends any free copy of a multi-copy title.
+     */
+    boolean checkout(String bookISBN, String patronId, BookHolding holding) {
+        IBook book;
+        ReentrantLock patronLock = patronLocks.lockFor(patronId);
+        patronLock.lock();
+        try {
+            book = checkoutLocked(bookISBN, patronId, holding);
+        } finally {
+            patronLock.unlock();
+        }
+        if (book == null) {
+            return false;
+        }
+        syncTitleStatus(book, holding);
+        return true;
+    }
+
+    /**
+     * @return The title that was lent, or null if the checkout failed.
+     */
+    private IBook checkoutLocked(String bookISBN, String patronId, BookHolding holding) {
+        IBook book = bookRepository.getBookByISBN(bookISBN);
+        IPatron patron = patronRepository.getPatronById(patronId);
+        if (book == null || patron == null) {
+            events.reportLookupFailure("Checkout", bookISBN, patronId, book);
+            return null;
+        }
+
+        int copy;
+        try {
+            copy = holding.claimCopy(patronId);
+        } catch (IllegalArgumentException e) {
+            reportCopyFailure("Checkout", book, patron, e.getMessage());
+            return null;
+        }
+        if (copy < 0) {
+            reportCopyFailure("Checkout", book, patron, "All " + holding.getCopyCount() + " copies are checked out.");
+            return null;
+        }
+
+        try {
+            patron.borrowBook(book);
+            patronRepository.updatePatron(patron);
+        } catch (IllegalArgumentException e) {
+            holding.releaseCopy(patronId); // Put the claimed copy back
+            reportCopyFailure("Checkout", book, patron, e.getMessage());
+            return null;
+        }
+        loanTracker.open(bookISBN, patronId, copy);
+        if (events.hasSubscribers(LibraryEvent.EventType.BOOK_CHECKED_OUT)) {
+            events.publish(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_CHECKED_OUT,
+                    () -> "Copy " + copy + " of '" + book.getTitle() + "' (ISBN: " + bookISBN + ") checked out to Patron '" + patron.getName() + "' (ID: " + patronId + ").",
+                    "BookISBN", bookISBN,
+                    "BookTitle", book.getTitle(),
+                    "CopyNumber", String.valueOf(copy),
+                    "PatronID", patronId,
+                    "PatronName", patron.getName()
+            ));
+        }
+        return book;
+    }
+
+    /**
+     * Takes back the copy a patron holds of a multi-copy title and returns it to the free pool.
+     */
+    boolean returnCopy(String bookISBN, String patronId, BookHolding holding) {
+        IBook book;
+        ReentrantLock patronLock = patronLocks.lockFor(patronId);
+        patronLock.lock();
+        try {
+            book = returnCopyLocked(bookISBN, patronId, holding);
+        } finally {
+            patronLock.unlock();
+        }
+        if (book == null) {
+            return false;
+        }
+        syncTitleStatus(book, holding);
+        return true;
+    }
+
+    /**
+     * @return The title that was returned, or null if the return failed.
+     */
+    private IBook returnCopyLocked(String bookISBN, String patronId, BookHolding holding) {
+        IBook book = bookRepository.getBookByISBN(bookISBN);
+        IPatron patron = patronRepository.getPatronById(patronId);
+        if (book == null || patron == null) {
+            events.reportLookupFailure("Return", bookISBN, patronId, book);
+            return null;
+        }
+        if (holding.getCopyHeldBy(patronId) < 0) {
+            reportCopyFailure("Return", book, patron, "Patron holds no copy of this title.");
+            return null;
+        }
+
+        try {
+            patron.returnBook(book);
+            patronRepository.updatePatron(patron);
+        } catch (IllegalArgumentException e) {
+            reportCopyFailure("Return", book, patron, e.getMessage());
+            return null;
+        }
+        loanTracker.close(bookISBN, patronId);
+        int copy = holding.releaseCopy(patronId);
+        if (events.hasSubscribers(LibraryEvent.EventType.BOOK_RETURNED)) {
+            events.publish(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_RETURNED,
+                    () -> "Copy " + copy + " of '" + book.getTitle() + "' (ISBN: " + bookISBN + ") returned by Patron '" + patron.getName() + "' (ID: " + patronId + ").",
+                    "BookISBN", bookISBN,
+                    "BookTitle", book.getTitle(),
+                    "CopyNumber", String.valueOf(copy),
+                    "PatronID", patronId,
+                    "PatronName", patron.getName()
+            ));
+        }
+        return book;
+    }
+
+    /**
+     * Claims one copy of every multi-copy title of a batch for the patron, or none: copies are claimed by
+     * other patrons without locks too, so they are taken first and given back if one is gone.
+     * @param holdings The holding per batch entry; null entries are single-copy titles and are skipped.
+     * @param copies Receives the claimed copy number per entry, or -1 for single-copy titles.
+     * @return -1 if every copy was claimed, otherwise the index of the title without a free copy.
+     */
+    int claimAllOrNone(BookHolding[] holdings, String patronId, int[] copies) {
+        for (int i = 0; i < holdings.length; i++) {
+            copies[i] = holdings[i] == null ? -1 : holdings[i].claimCopy(patronId);
+            if (holdings[i] != null && copies[i] < 0) {
+                for (int j = 0; j < i; j++) {
+                    if (holdings[j] != null) {
+                        holdings[j].releaseCopy(patronId);
+                    }
+                }
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Brings the status of the multi-copy titles in a finished batch in line with their copies.
+     */
+    void syncTitleStatuses(List<IBook> books) {
+        if (holdingRepository == null) {
+            return;
+        }
+        for (IBook book : books) {
+            BookHolding holding = holdingRepository.getHolding(book.getISBN());
+            if (holding != null) {
+                syncTitleStatus(book, holding);
+            }
+        }
+    }
+
+    /**
+     * Keeps the title's status in line with its copies. The status only changes when the last copy goes out
+     * or the first one comes back, so the book stripe is only locked then. Under the lock the status is
+     * re-checked after every write, which picks up copies claimed or released while an older value was
+     * being written.
+     */
+    private void syncTitleStatus(IBook book, BookHolding holding) {
+        if (book.getStatus() == expectedTitleStatus(holding) || !isCopyManagedStatus(book.getStatus())) {
+            return;
+        }
+        ReentrantLock bookLock = bookLocks.lockFor(book.getISBN());
+        bookLock.lock();
+        try {
+            BookStatus expected = expectedTitleStatus(holding);
+            while (book.getStatus() != expected && isCopyManagedStatus(book.getStatus())) {
+                book.setStatus(expected);
+                bookRepository.updateBook(book);
+                expected = expectedTitleStatus(holding);
+            }
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    private static BookStatus expectedTitleStatus(BookHolding holding) {
+        return holding.getAvailableCopies() > 0 ? BookStatus.AVAILABLE : BookStatus.BORROWED;
+    }
+
+    /**
+     * Statuses set by hand, such as LOST, are left alone.
+     */
+    private static boolean isCopyManagedStatus(BookStatus status) {
+        return status == BookStatus.AVAILABLE || status == BookStatus.BORROWED;
+    }
+
+    private void reportCopyFailure(String operation, IBook book, IPatron patron, String reason) {
+        if (events.hasSubscribers(LibraryEvent.EventType.ERROR)) {
+            events.publish(LibraryEvent.lazy(
+                    LibraryEvent.EventType.ERROR,
+                    () -> operation + " failed for book '" + book.getTitle() + "' and patron '" + patron.getName() + "': " + reason,
+                    "BookISBN", book.getISBN(),
+                    "BookTitle", book.getTitle(),
+                    "PatronID", patron.getPatronId(),
+                    "PatronName", patron.getName(),
+                    "Reason", reason
+            ));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.time.Instant;
+
+/**
+ * A book set aside for the patron at the head of its hold queue. The book stays RESERVED until the
+ * patron checks it out, cancels the hold or the hold expires.
+ */
+public class Hold {
+    private final String ISBN;
+    private final String patronId;
+    private final long expiresAtMillis;
+    volatile TimerWheel.Timeout expiry; // Set right after the hold is granted, under the book stripe lock
+
+    Hold(String ISBN, String patronId, long expiresAtMillis) {
+        this.ISBN = ISBN;
+        this.patronId = patronId;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getISBN() {
+        return ISBN;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    /**
+     * Returns when the hold lapses if the patron has not checked out the book.
+     * @return The expiry as epoch milliseconds.
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Hold [ISBN=" + ISBN + ", PatronID=" + patronId + ", ExpiresAt=" + Instant.ofEpochMilli(expiresAtMillis) + "]";
+    }
+}
@@ -0,0 +1,64 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The patrons waiting for each single-copy title, first come, first served.
+ * The queue of an ISBN is only read or changed under that ISBN's book stripe lock; queues of different
+ * ISBNs are independent. Empty queues are dropped, so only titles somebody waits for take up memory.
+ */
+final class HoldQueue {
+    private final Map<String, LinkedHashSet<String>> queues = new ConcurrentHashMap<>(); // Patron IDs per ISBN, in arrival order
+
+    /**
+     * Appends a patron to the queue of a book.
+     * @return The patron's 1-based position, or -1 if the patron already waits.
+     */
+    int add(String bookISBN, String patronId) {
+        LinkedHashSet<String> queue = queues.computeIfAbsent(bookISBN, key -> new LinkedHashSet<>());
+        if (!queue.add(patronId)) {
+            return -1;
+        }
+        return queue.size();
+    }
+
+    /**
+     * @return true if the patron was waiting.
+     */
+    boolean remove(String bookISBN, String patronId) {
+        LinkedHashSet<String> queue = queues.get(bookISBN);
+        if (queue == null || !queue.remove(patronId)) {
+            return false;
+        }
+        if (queue.isEmpty()) {
+            queues.remove(bookISBN);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the patron at the head of the queue.
+     * @return The patron ID, or null if nobody waits.
+     */
+    String poll(String bookISBN) {
+        LinkedHashSet<String> queue = queues.get(bookISBN);
+        if (queue == null) {
+            return null;
+        }
+        Iterator<String> head = queue.iterator();
+        String patronId = head.next(); // Empty queues are always removed, so there is a head
+        head.remove();
+        if (queue.isEmpty()) {
+            queues.remove(bookISBN);
+        }
+        return patronId;
+    }
+
+    int length(String bookISBN) {
+        LinkedHashSet<String> queue = queues.get(bookISBN);
+        return queue == null ? 0 : queue.size();
+    }
+}
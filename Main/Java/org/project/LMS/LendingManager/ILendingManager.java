@@ -1,5 +1,7 @@
 package Main.Java.org.project.LMS.LendingManager;
 
+import java.util.List;
+
 public interface ILendingManager {
 
     /**
@@ -19,4 +21,57 @@ public interface ILendingManager {
      * @throws IllegalArgumentException if bookISBN or patronId are null or empty.
      */
     boolean returnBook(String bookISBN, String patronId);
-}
\ No newline at end of file
+
+    /**
+     * Processes the return of a book by whoever has borrowed it, as recorded at checkout.
+     * Titles with several copies have more than one borrower and must be returned with {@link #returnBook(String, String)}.
+     * @param bookISBN The ISBN of the book to be returned.
+     * @return true if the return was successful, false if the book is not checked out or has several copies.
+     * @throws IllegalArgumentException if bookISBN is null or empty.
+     */
+    boolean returnBook(String bookISBN);
+
+    /**
+     * Returns the patron who currently has a book, without looking at any patron's borrowed books.
+     * @param bookISBN The ISBN of the book.
+     * @return The ID of the borrowing patron, or null if the book is not checked out or has several copies.
+     */
+    String getCurrentBorrower(String bookISBN);
+
+    /**
+     * Checks out several books to one patron as a single all-or-nothing transaction: either every book
+     * is lent or none is, and the batch is reported with one aggregated event.
+     * @param patronId The ID of the patron checking out the books.
+     * @param bookISBNs The ISBNs of the books to be checked out, each at most once.
+     * @return true if every book was checked out, false if none was.
+     * @throws IllegalArgumentException if patronId is null or empty, bookISBNs is null or empty, or an ISBN is null, empty or repeated.
+     */
+    boolean checkoutBooks(String patronId, List<String> bookISBNs);
+
+    /**
+     * Processes several returns, possibly from different patrons, as a single all-or-nothing transaction.
+     * @param returns The books to be returned and the patrons returning them, each at most once.
+     * @return true if every book was returned, false if none was.
+     * @throws IllegalArgumentException if returns is null or empty, or contains null or repeated requests.
+     */
+    boolean returnBooks(List<ReturnRequest> returns);
+
+    /**
+     * Puts a patron in the hold queue of a book. Queues are first come, first served: when the book becomes
+     * available it is RESERVED for the patron at the head of the queue until the hold expires.
+     * @param bookISBN The ISBN of the book to hold.
+     * @param patronId The ID of the patron placing the hold.
+     * @return true if the hold was placed, false if the book or patron is unknown or the patron already waits.
+     * @throws IllegalArgumentException if bookISBN or patronId are null or empty.
+     */
+    boolean placeHold(String bookISBN, String patronId);
+
+    /**
+     * Withdraws a patron's hold, whether it is still queued or already reserved the book.
+     * @param bookISBN The ISBN of the held book.
+     * @param patronId The ID of the patron.
+     * @return true if a hold was cancelled, false if the patron had none.
+     * @throws IllegalArgumentException if bookISBN or patronId are null or empty.
+     */
+    boolean cancelHold(String bookISBN, String patronId);
+}
@@ -0,0 +1,72 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.ObserverRelated.SynchronousEventDispatcher;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The observers of a {@link LibraryLendingManager}, shared with its collaborators so that they can report
+ * their events on the manager's behalf. Every event is dispatched with the manager as its source.
+ */
+final class LendingEvents {
+    private final ILibrarySubject source;
+    private final List<ILibraryObserver> observers;
+    private volatile IEventDispatcher eventDispatcher;
+    private volatile long interestMask; // One bit per EventType that at least one observer wants
+
+    LendingEvents(ILibrarySubject source) {
+        this.source = source;
+        this.observers = new CopyOnWriteArrayList<>();
+        this.eventDispatcher = SynchronousEventDispatcher.INSTANCE;
+    }
+
+    synchronized void addObserver(ILibraryObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer can not be null.");
+        }
+        observers.add(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
+    }
+
+    synchronized void removeObserver(ILibraryObserver observer) {
+        observers.remove(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
+    }
+
+    void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        if (eventDispatcher == null) {
+            throw new IllegalArgumentException("Event dispatcher can not be null.");
+        }
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Checks whether any observer wants events of the given type, so callers can skip building events nobody reads.
+     */
+    boolean hasSubscribers(LibraryEvent.EventType type) {
+        return (interestMask & type.mask()) != 0;
+    }
+
+    void publish(LibraryEvent event) {
+        eventDispatcher.dispatch(source, observers, event);
+    }
+
+    void reportLookupFailure(String operation, String bookISBN, String patronId, IBook book) {
+        if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+            publish(LibraryEvent.lazy(
+                    LibraryEvent.EventType.ERROR,
+                    () -> book == null
+                            ? operation + " failed. Book with ISBN " + bookISBN + " not found."
+                            : operation + " failed. Patron with ID " + patronId + " not found.",
+                    "BookISBN", bookISBN,
+                    "PatronID", patronId
+            ));
+        }
+    }
+}
@@ -1,26 +1,72 @@
 package Main.Java.org.project.LMS.LendingManager;
 
+import Main.Java.org.project.LMS.BookRelated.BookHolding;
 import Main.Java.org.project.LMS.BookRelated.BookStatus;
 import Main.Java.org.project.LMS.BookRelated.IBook;
 import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.BookRelated.IHoldingRepository;
+import Main.Java.org.project.LMS.MetricsRelated.MetricsRegistry;
+import Main.Java.org.project.LMS.MetricsRelated.OperationMetrics;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
 import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
 import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
 import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
 import Main.Java.org.project.LMS.PatronRelated.IPatron;
 import Main.Java.org.project.LMS.PatronRelated.IPatronRepository;
 
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class LibraryLendingManager implements ILendingManager, ILibrarySubject {
+public class LibraryLendingManager implements ILendingManager, ILibrarySubject, AutoCloseable {
+    private static final int DEFAULT_STRIPES = Runtime.getRuntime().availableProcessors() * 16;
+    public static final long DEFAULT_HOLD_DURATION_MILLIS = TimeUnit.DAYS.toMillis(3);
+    private static final long TIMER_TICK_MILLIS = 100;
+    private static final int TIMER_BUCKETS = 1024;
+    private static final OperationMetrics CHECKOUT_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "checkoutBook");
+    private static final OperationMetrics RETURN_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "returnBook");
+    private static final OperationMetrics RETURN_BY_ISBN_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "returnBookByISBN");
+    private static final OperationMetrics BATCH_CHECKOUT_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "checkoutBooks");
+    private static final OperationMetrics BATCH_RETURN_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "returnBooks");
 
     private final IBookRepository bookRepository;
     private final IPatronRepository patronRepository;
-    private final List<ILibraryObserver> observers;
+    private final LendingEvents events;
+    // Lending paths always lock the book stripe first and the patron stripe second.
+    // The two stripe sets are disjoint and the order never varies, so no lock cycle can form.
+    private final StripedLock bookLocks;
+    private final StripedLock patronLocks;
+    // Borrower of each lent single-copy title; only changed under that ISBN's book stripe lock.
+    // Multi-copy titles keep their borrowers per copy in their BookHolding instead.
+    private final Map<String, String> borrowersByISBN;
+    private final LoanTracker loanTracker;
+    private final Reservations reservations; // Hold queues and the books set aside for them
+    private final CopyLending copies;        // Titles with several copies
+    private volatile TimerWheel timer; // Hold expiries and loan due times; started on first use
 
     public LibraryLendingManager(IBookRepository bookRepository, IPatronRepository patronRepository) {
+        this(bookRepository, patronRepository, null);
+    }
+
+    /**
+     * Creates a lending manager for a library that owns several copies of some titles.
+     * Titles with a holding are lent copy by copy; titles without one are lent as a single book.
+     * @param bookRepository The repository of titles.
+     * @param patronRepository The repository of patrons.
+     * @param holdingRepository The copies owned per ISBN, or null if every title is a single copy.
+     */
+    public LibraryLendingManager(IBookRepository bookRepository, IPatronRepository patronRepository,
+                                 IHoldingRepository holdingRepository) {
         if (bookRepository == null) {
             throw new IllegalArgumentException("Book repository can not be null.");
         }
@@ -29,78 +75,128 @@ public class LibraryLendingManager implements ILendingManager, ILibrarySubject {
         }
         this.bookRepository = bookRepository;
         this.patronRepository = patronRepository;
-        this.observers = new CopyOnWriteArrayList<>();
+        this.events = new LendingEvents(this);
+        this.bookLocks = new StripedLock(DEFAULT_STRIPES);
+        this.patronLocks = new StripedLock(DEFAULT_STRIPES);
+        this.borrowersByISBN = new ConcurrentHashMap<>();
+        this.loanTracker = new LoanTracker(this::timer, this::reportOverdue);
+        this.reservations = new Reservations(bookRepository, patronRepository, bookLocks, this::timer, events);
+        this.copies = new CopyLending(bookRepository, patronRepository, holdingRepository, bookLocks, patronLocks, loanTracker, events);
+        // Patrons recovered from disk may already have books out.
+        patronRepository.stream().forEach(patron -> {
+            for (IBook book : patron.getBorrowedBooks()) {
+                if (copies.holdingOf(book.getISBN()) == null) {
+                    borrowersByISBN.put(book.getISBN(), patron.getPatronId());
+                }
+            }
+        });
     }
 
     @Override
     public void addObserver(ILibraryObserver observer) {
-        if (observer == null) {
-            throw new IllegalArgumentException("Observer can not be null.");
-        }
-        observers.add(observer);
+        events.addObserver(observer);
     }
 
     @Override
     public void removeObserver(ILibraryObserver observer) {
-        observers.remove(observer);
+        events.removeObserver(observer);
     }
 
     @Override
     public void notifyObservers(LibraryEvent event) {
-        for (ILibraryObserver observer : observers) {
-            observer.update(event);
-        }
+        events.publish(event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        events.setEventDispatcher(eventDispatcher);
+    }
+
+    private boolean hasSubscribers(LibraryEvent.EventType type) {
+        return events.hasSubscribers(type);
     }
 
     @Override
     public boolean checkoutBook(String bookISBN, String patronId) {
+        long start = System.nanoTime();
+        boolean checkedOut = false;
+        try {
+            checkedOut = processCheckout(bookISBN, patronId);
+            return checkedOut;
+        } finally {
+            CHECKOUT_METRICS.record(start, checkedOut);
+        }
+    }
+
+    private boolean processCheckout(String bookISBN, String patronId) {
         if (bookISBN == null || bookISBN.trim().isEmpty()) {
             throw new IllegalArgumentException("Book ISBN can not be null or empty for checkout.");
         }
         if (patronId == null || patronId.trim().isEmpty()) {
             throw new IllegalArgumentException("Patron ID can not be null or empty for checkout.");
         }
+        BookHolding holding = copies.holdingOf(bookISBN);
+        if (holding != null) {
+            return copies.checkout(bookISBN, patronId, holding);
+        }
 
+        ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+        ReentrantLock patronLock = patronLocks.lockFor(patronId);
+        bookLock.lock();
+        patronLock.lock();
+        try {
+            return checkoutLocked(bookISBN, patronId);
+        } finally {
+            patronLock.unlock();
+            bookLock.unlock();
+        }
+    }
+
+    /**
+     * Performs the checkout while holding both the book and the patron lock, so the status check
+     * and the subsequent updates form one atomic transition.
+     */
+    private boolean checkoutLocked(String bookISBN, String patronId) {
         IBook book = bookRepository.getBookByISBN(bookISBN);
         IPatron patron = patronRepository.getPatronById(patronId);
 
         if (book == null) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("PatronID", patronId);
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Checkout failed. Book with ISBN " + bookISBN + " not found.",
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Checkout failed. Book with ISBN " + bookISBN + " not found.",
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId
+                ));
+            }
             return false;
         }
         if (patron == null) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("PatronID", patronId);
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Checkout failed. Patron with ID " + patronId + " not found.",
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Checkout failed. Patron with ID " + patronId + " not found.",
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId
+                ));
+            }
             return false;
         }
 
-        if (book.getStatus() != BookStatus.AVAILABLE) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("PatronID", patronId);
-            details.put("BookTitle", book.getTitle());
-            details.put("CurrentStatus", book.getStatus().name());
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Checkout failed. Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") is not AVAILABLE. Current status: " + book.getStatus(),
-                    details
-            );
-            notifyObservers(errorEvent);
+        // A book set aside for this patron can be checked out by them; doing so uses up the hold.
+        boolean heldForPatron = book.getStatus() == BookStatus.RESERVED && reservations.claimLocked(bookISBN, patronId);
+        if (!heldForPatron && book.getStatus() != BookStatus.AVAILABLE) {
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                BookStatus currentStatus = book.getStatus();
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Checkout failed. Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") is not AVAILABLE. Current status: " + currentStatus,
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId,
+                        "BookTitle", book.getTitle(),
+                        "CurrentStatus", currentStatus.name()
+                ));
+            }
             return false;
         }
 
@@ -114,90 +210,133 @@ public class LibraryLendingManager implements ILendingManager, ILibrarySubject {
             patron.borrowBook(book);
             // This will call InMemoryPatronRepository.updatePatron, which itself notifies observers.
             patronRepository.updatePatron(patron);
+            borrowersByISBN.put(bookISBN, patronId);
+            loanTracker.open(bookISBN, patronId, -1);
 
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("BookTitle", book.getTitle());
-            details.put("PatronID", patronId);
-            details.put("PatronName", patron.getName());
-            LibraryEvent successEvent = new LibraryEvent(
-                    LibraryEvent.EventType.BOOK_CHECKED_OUT,
-                    "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") checked out to Patron '" + patron.getName() + "' (ID: " + patronId + ").",
-                    details
-            );
-            notifyObservers(successEvent);
+            if (hasSubscribers(LibraryEvent.EventType.BOOK_CHECKED_OUT)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.BOOK_CHECKED_OUT,
+                        () -> "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") checked out to Patron '" + patron.getName() + "' (ID: " + patronId + ").",
+                        "BookISBN", bookISBN,
+                        "BookTitle", book.getTitle(),
+                        "PatronID", patronId,
+                        "PatronName", patron.getName()
+                ));
+            }
             return true;
         } catch (IllegalArgumentException e) {
             // Revert book status if patron.borrowBook failed after book.setStatus
-            book.setStatus(BookStatus.AVAILABLE);
-            // This will call InMemoryBookRepository.updateBook, which itself notifies observers.
-            bookRepository.updateBook(book);
+            reservations.releaseOrHandOffLocked(book);
 
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("BookTitle", book.getTitle());
-            details.put("PatronID", patronId);
-            details.put("PatronName", patron.getName());
-            details.put("Reason", e.getMessage());
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Checkout failed for book '" + book.getTitle() + "' and patron '" + patron.getName() + "': " + e.getMessage(),
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Checkout failed for book '" + book.getTitle() + "' and patron '" + patron.getName() + "': " + e.getMessage(),
+                        "BookISBN", bookISBN,
+                        "BookTitle", book.getTitle(),
+                        "PatronID", patronId,
+                        "PatronName", patron.getName(),
+                        "Reason", e.getMessage()
+                ));
+            }
             return false;
         }
     }
 
     @Override
     public boolean returnBook(String bookISBN, String patronId) {
+        long start = System.nanoTime();
+        boolean returned = false;
+        try {
+            returned = processReturn(bookISBN, patronId);
+            return returned;
+        } finally {
+            RETURN_METRICS.record(start, returned);
+        }
+    }
+
+    private boolean processReturn(String bookISBN, String patronId) {
         if (bookISBN == null || bookISBN.trim().isEmpty()) {
             throw new IllegalArgumentException("Book ISBN can not be null or empty for return.");
         }
         if (patronId == null || patronId.trim().isEmpty()) {
             throw new IllegalArgumentException("Patron ID can not be null or empty for return.");
         }
+        BookHolding holding = copies.holdingOf(bookISBN);
+        if (holding != null) {
+            return copies.returnCopy(bookISBN, patronId, holding);
+        }
+
+        ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+        ReentrantLock patronLock = patronLocks.lockFor(patronId);
+        bookLock.lock();
+        patronLock.lock();
+        try {
+            return returnLocked(bookISBN, patronId);
+        } finally {
+            patronLock.unlock();
+            bookLock.unlock();
+        }
+    }
 
+    /**
+     * Performs the return while holding both the book and the patron lock, so the status check
+     * and the subsequent updates form one atomic transition.
+     */
+    private boolean returnLocked(String bookISBN, String patronId) {
         IBook book = bookRepository.getBookByISBN(bookISBN);
         IPatron patron = patronRepository.getPatronById(patronId);
 
         if (book == null) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("PatronID", patronId);
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Return failed. Book with ISBN " + bookISBN + " not found.",
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Return failed. Book with ISBN " + bookISBN + " not found.",
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId
+                ));
+            }
             return false;
         }
         if (patron == null) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("PatronID", patronId);
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Return failed. Patron with ID " + patronId + " not found.",
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Return failed. Patron with ID " + patronId + " not found.",
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId
+                ));
+            }
             return false;
         }
 
         if (book.getStatus() != BookStatus.BORROWED && book.getStatus() != BookStatus.RESERVED) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("BookTitle", book.getTitle());
-            details.put("PatronID", patronId);
-            details.put("CurrentStatus", book.getStatus().name());
-            LibraryEvent warningEvent = new LibraryEvent(
-                    LibraryEvent.EventType.WARNING,
-                    "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") is not currently BORROWED or RESERVED. Current status: " + book.getStatus() + ". Attempting return.",
-                    details
-            );
-            notifyObservers(warningEvent);
+            if (hasSubscribers(LibraryEvent.EventType.WARNING)) {
+                BookStatus currentStatus = book.getStatus();
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.WARNING,
+                        () -> "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") is not currently BORROWED or RESERVED. Current status: " + currentStatus + ". Attempting return.",
+                        "BookISBN", bookISBN,
+                        "BookTitle", book.getTitle(),
+                        "PatronID", patronId,
+                        "CurrentStatus", currentStatus.name()
+                ));
+            }
+        }
+
+        String borrowerId = borrowersByISBN.get(bookISBN);
+        if (borrowerId != null && !borrowerId.equals(patronId)) {
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Return failed. Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") is borrowed by Patron " + borrowerId + ", not by Patron " + patronId + ".",
+                        "BookISBN", bookISBN,
+                        "BookTitle", book.getTitle(),
+                        "PatronID", patronId,
+                        "BorrowerID", borrowerId
+                ));
+            }
+            return false;
         }
 
         try {
@@ -206,37 +345,535 @@ public class LibraryLendingManager implements ILendingManager, ILibrarySubject {
             // This will call InMemoryPatronRepository.updatePatron, which itself notifies observers.
             patronRepository.updatePatron(patron);
 
-            // Update book status
-            book.setStatus(BookStatus.AVAILABLE);
-            // This will call InMemoryBookRepository.updateBook, which itself notifies observers.
-            bookRepository.updateBook(book);
+            borrowersByISBN.remove(bookISBN, patronId);
+            loanTracker.close(bookISBN, patronId);
+            // Hand the book to the next waiting patron, or put it back on the shelf
+            reservations.releaseOrHandOffLocked(book);
 
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("BookTitle", book.getTitle());
-            details.put("PatronID", patronId);
-            details.put("PatronName", patron.getName());
-            LibraryEvent successEvent = new LibraryEvent(
-                    LibraryEvent.EventType.BOOK_RETURNED,
-                    "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") returned by Patron '" + patron.getName() + "' (ID: " + patronId + ").",
-                    details
-            );
-            notifyObservers(successEvent);
+            if (hasSubscribers(LibraryEvent.EventType.BOOK_RETURNED)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.BOOK_RETURNED,
+                        () -> "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") returned by Patron '" + patron.getName() + "' (ID: " + patronId + ").",
+                        "BookISBN", bookISBN,
+                        "BookTitle", book.getTitle(),
+                        "PatronID", patronId,
+                        "PatronName", patron.getName()
+                ));
+            }
             return true;
         } catch (IllegalArgumentException e) {
-            Map<String, String> details = new HashMap<>();
-            details.put("BookISBN", bookISBN);
-            details.put("BookTitle", book.getTitle());
-            details.put("PatronID", patronId);
-            details.put("PatronName", patron.getName());
-            details.put("Reason", e.getMessage());
-            LibraryEvent errorEvent = new LibraryEvent(
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Return failed for book '" + book.getTitle() + "' and patron '" + patron.getName() + "': " + e.getMessage(),
+                        "BookISBN", bookISBN,
+                        "BookTitle", book.getTitle(),
+                        "PatronID", patronId,
+                        "PatronName", patron.getName(),
+                        "Reason", e.getMessage()
+                ));
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean returnBook(String bookISBN) {
+        long start = System.nanoTime();
+        boolean returned = false;
+        try {
+            returned = processReturnByISBN(bookISBN);
+            return returned;
+        } finally {
+            RETURN_BY_ISBN_METRICS.record(start, returned);
+        }
+    }
+
+    /**
+     * Looks the borrower up under the book stripe, so it can not change before the patron stripe is taken
+     * in the usual book-then-patron order.
+     */
+    private boolean processReturnByISBN(String bookISBN) {
+        if (bookISBN == null || bookISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("Book ISBN can not be null or empty for return.");
+        }
+        if (copies.holdingOf(bookISBN) != null) {
+            if (hasSubscribers(LibraryEvent.EventType.WARNING)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.WARNING,
+                        () -> "Return not processed. ISBN " + bookISBN + " has several copies; return it with the patron ID instead.",
+                        "BookISBN", bookISBN
+                ));
+            }
+            return false;
+        }
+
+        ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+        bookLock.lock();
+        try {
+            String patronId = borrowersByISBN.get(bookISBN);
+            if (patronId == null) {
+                if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                    notifyObservers(LibraryEvent.lazy(
+                            LibraryEvent.EventType.ERROR,
+                            () -> "Return failed. Book with ISBN " + bookISBN + " is not checked out.",
+                            "BookISBN", bookISBN
+                    ));
+                }
+                return false;
+            }
+            ReentrantLock patronLock = patronLocks.lockFor(patronId);
+            patronLock.lock();
+            try {
+                return returnLocked(bookISBN, patronId);
+            } finally {
+                patronLock.unlock();
+            }
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    @Override
+    public String getCurrentBorrower(String bookISBN) {
+        return bookISBN == null ? null : borrowersByISBN.get(bookISBN);
+    }
+
+    @Override
+    public boolean checkoutBooks(String patronId, List<String> bookISBNs) {
+        long start = System.nanoTime();
+        boolean checkedOut = false;
+        try {
+            checkedOut = processBatchCheckout(patronId, bookISBNs);
+            return checkedOut;
+        } finally {
+            BATCH_CHECKOUT_METRICS.record(start, checkedOut);
+        }
+    }
+
+    private boolean processBatchCheckout(String patronId, List<String> bookISBNs) {
+        if (patronId == null || patronId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patron ID can not be null or empty for checkout.");
+        }
+        if (bookISBNs == null || bookISBNs.isEmpty()) {
+            throw new IllegalArgumentException("Book ISBNs can not be null or empty for checkout.");
+        }
+        Set<String> distinct = new HashSet<>();
+        for (String bookISBN : bookISBNs) {
+            if (bookISBN == null || bookISBN.trim().isEmpty()) {
+                throw new IllegalArgumentException("Book ISBN can not be null or empty for checkout.");
+            }
+            if (!distinct.add(bookISBN)) {
+                throw new IllegalArgumentException("Book ISBN " + bookISBN + " appears more than once in the checkout.");
+            }
+        }
+
+        List<IBook> lent;
+        List<ReentrantLock> locks = lockInOrder(bookISBNs, Collections.singleton(patronId));
+        try {
+            lent = checkoutBatchLocked(patronId, bookISBNs);
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        if (lent == null) {
+            return false;
+        }
+        copies.syncTitleStatuses(lent);
+        return true;
+    }
+
+    /**
+     * Validates the whole batch before changing anything, then applies it with one book repository write,
+     * one patron update and one event.
+     * @return The books that were lent, or null if the batch was rejected.
+     */
+    private List<IBook> checkoutBatchLocked(String patronId, List<String> bookISBNs) {
+        int size = bookISBNs.size();
+        IPatron patron = patronRepository.getPatronById(patronId);
+        if (patron == null) {
+            reportBatchFailure("Checkout", size, "Patron with ID " + patronId + " not found.");
+            return null;
+        }
+        List<IBook> books = new ArrayList<>(size);
+        BookHolding[] holdings = new BookHolding[size];
+        for (int i = 0; i < size; i++) {
+            String bookISBN = bookISBNs.get(i);
+            IBook book = bookRepository.getBookByISBN(bookISBN);
+            if (book == null) {
+                reportBatchFailure("Checkout", size, "Book with ISBN " + bookISBN + " not found.");
+                return null;
+            }
+            if (patron.hasBorrowed(bookISBN)) {
+                reportBatchFailure("Checkout", size, "Patron " + patronId + " has already borrowed book '" + book.getTitle() + "' (ISBN: " + bookISBN + ").");
+                return null;
+            }
+            holdings[i] = copies.holdingOf(bookISBN);
+            if (holdings[i] == null) {
+                BookStatus currentStatus = book.getStatus();
+                boolean heldForPatron = currentStatus == BookStatus.RESERVED && reservations.isHeldForLocked(bookISBN, patronId);
+                if (!heldForPatron && currentStatus != BookStatus.AVAILABLE) {
+                    reportBatchFailure("Checkout", size, "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") is not AVAILABLE. Current status: " + currentStatus);
+                    return null;
+                }
+            }
+            books.add(book);
+        }
+
+        int[] copyNumbers = new int[size];
+        int unavailable = copies.claimAllOrNone(holdings, patronId, copyNumbers);
+        if (unavailable >= 0) {
+            IBook book = books.get(unavailable);
+            reportBatchFailure("Checkout", size, "All copies of '" + book.getTitle() + "' (ISBN: " + book.getISBN() + ") are checked out.");
+            return null;
+        }
+
+        List<IBook> singleCopyBooks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (holdings[i] == null) {
+                IBook book = books.get(i);
+                reservations.claimLocked(book.getISBN(), patronId); // Uses up the patron's hold, if the book was set aside for them
+                book.setStatus(BookStatus.BORROWED);
+                singleCopyBooks.add(book);
+            }
+        }
+        if (!singleCopyBooks.isEmpty()) {
+            bookRepository.updateBooks(singleCopyBooks);
+        }
+        for (IBook book : books) {
+            patron.borrowBook(book);
+        }
+        patronRepository.updatePatron(patron);
+        for (int i = 0; i < size; i++) {
+            if (holdings[i] == null) {
+                borrowersByISBN.put(bookISBNs.get(i), patronId);
+            }
+            loanTracker.open(bookISBNs.get(i), patronId, copyNumbers[i]);
+        }
+
+        if (hasSubscribers(LibraryEvent.EventType.BATCH_CHECKED_OUT)) {
+            String isbns = String.join(",", bookISBNs);
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BATCH_CHECKED_OUT,
+                    () -> size + " books checked out to Patron '" + patron.getName() + "' (ID: " + patronId + "): " + isbns,
+                    "PatronID", patronId,
+                    "PatronName", patron.getName(),
+                    "Count", String.valueOf(size),
+                    "BookISBNs", isbns
+            ));
+        }
+        return books;
+    }
+
+    @Override
+    public boolean returnBooks(List<ReturnRequest> returns) {
+        long start = System.nanoTime();
+        boolean returned = false;
+        try {
+            returned = processBatchReturn(returns);
+            return returned;
+        } finally {
+            BATCH_RETURN_METRICS.record(start, returned);
+        }
+    }
+
+    private boolean processBatchReturn(List<ReturnRequest> returns) {
+        if (returns == null || returns.isEmpty()) {
+            throw new IllegalArgumentException("Returns can not be null or empty.");
+        }
+        Set<ReturnRequest> distinct = new HashSet<>();
+        List<String> bookISBNs = new ArrayList<>(returns.size());
+        Set<String> patronIds = new HashSet<>();
+        for (ReturnRequest request : returns) {
+            if (request == null) {
+                throw new IllegalArgumentException("Return request can not be null.");
+            }
+            if (!distinct.add(request)) {
+                throw new IllegalArgumentException("Book ISBN " + request.getBookISBN() + " is returned more than once by Patron " + request.getPatronId() + ".");
+            }
+            bookISBNs.add(request.getBookISBN());
+            patronIds.add(request.getPatronId());
+        }
+
+        List<IBook> returned;
+        List<ReentrantLock> locks = lockInOrder(bookISBNs, patronIds);
+        try {
+            returned = returnBatchLocked(returns);
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        if (returned == null) {
+            return false;
+        }
+        copies.syncTitleStatuses(returned);
+        return true;
+    }
+
+    /**
+     * Validates the whole batch before changing anything, then applies it with one book repository write,
+     * one update per patron and one event. Books somebody is waiting for are handed off as usual.
+     * @return The books that were returned, or null if the batch was rejected.
+     */
+    private List<IBook> returnBatchLocked(List<ReturnRequest> returns) {
+        int size = returns.size();
+        List<IBook> books = new ArrayList<>(size);
+        List<IPatron> patrons = new ArrayList<>(size);
+        Map<String, IPatron> patronsById = new LinkedHashMap<>();
+        BookHolding[] holdings = new BookHolding[size];
+        for (int i = 0; i < size; i++) {
+            String bookISBN = returns.get(i).getBookISBN();
+            String patronId = returns.get(i).getPatronId();
+            IBook book = bookRepository.getBookByISBN(bookISBN);
+            if (book == null) {
+                reportBatchFailure("Return", size, "Book with ISBN " + bookISBN + " not found.");
+                return null;
+            }
+            IPatron patron = patronsById.computeIfAbsent(patronId, patronRepository::getPatronById);
+            if (patron == null) {
+                patronsById.remove(patronId);
+                reportBatchFailure("Return", size, "Patron with ID " + patronId + " not found.");
+                return null;
+            }
+            holdings[i] = copies.holdingOf(bookISBN);
+            String borrowerId = holdings[i] == null ? borrowersByISBN.get(bookISBN) : null;
+            if (!patron.hasBorrowed(bookISBN) || (holdings[i] != null && holdings[i].getCopyHeldBy(patronId) < 0)
+                    || (borrowerId != null && !borrowerId.equals(patronId))) {
+                reportBatchFailure("Return", size, "Patron " + patronId + " did not borrow book '" + book.getTitle() + "' (ISBN: " + bookISBN + ").");
+                return null;
+            }
+            books.add(book);
+            patrons.add(patron);
+        }
+
+        for (int i = 0; i < size; i++) {
+            patrons.get(i).returnBook(books.get(i));
+        }
+        for (IPatron patron : patronsById.values()) {
+            patronRepository.updatePatron(patron);
+        }
+        List<IBook> shelvedBooks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            IBook book = books.get(i);
+            String patronId = returns.get(i).getPatronId();
+            loanTracker.close(book.getISBN(), patronId);
+            if (holdings[i] != null) {
+                holdings[i].releaseCopy(patronId);
+                continue;
+            }
+            borrowersByISBN.remove(book.getISBN(), patronId);
+            if (!reservations.grantNextLocked(book)) {
+                book.setStatus(BookStatus.AVAILABLE);
+                shelvedBooks.add(book);
+            }
+        }
+        if (!shelvedBooks.isEmpty()) {
+            bookRepository.updateBooks(shelvedBooks);
+        }
+
+        if (hasSubscribers(LibraryEvent.EventType.BATCH_RETURNED)) {
+            String isbns = String.join(",", bookISBNs(books));
+            StringJoiner ids = new StringJoiner(","); // One per returned book, aligned with the ISBNs
+            for (ReturnRequest request : returns) {
+                ids.add(request.getPatronId());
+            }
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BATCH_RETURNED,
+                    () -> size + " books returned by " + patronsById.size() + " patrons: " + isbns,
+                    "Count", String.valueOf(size),
+                    "BookISBNs", isbns,
+                    "PatronIDs", ids.toString()
+            ));
+        }
+        return books;
+    }
+
+    /**
+     * Locks the book stripes and then the patron stripes of a batch, each in ascending stripe order.
+     * Single-item paths take one stripe of each kind in the same book-then-patron order, so batches and
+     * single items can not deadlock.
+     * @return The locks taken, in acquisition order, for {@link StripedLock#unlockAll(List)}.
+     */
+    private List<ReentrantLock> lockInOrder(Collection<String> bookISBNs, Collection<String> patronIds) {
+        List<ReentrantLock> locks = new ArrayList<>(bookLocks.lockAll(bookISBNs));
+        locks.addAll(patronLocks.lockAll(patronIds));
+        return locks;
+    }
+
+    private static List<String> bookISBNs(List<IBook> books) {
+        List<String> isbns = new ArrayList<>(books.size());
+        for (IBook book : books) {
+            isbns.add(book.getISBN());
+        }
+        return isbns;
+    }
+
+    private void reportBatchFailure(String operation, int size, String reason) {
+        if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+            notifyObservers(LibraryEvent.lazy(
                     LibraryEvent.EventType.ERROR,
-                    "Return failed for book '" + book.getTitle() + "' and patron '" + patron.getName() + "': " + e.getMessage(),
-                    details
-            );
-            notifyObservers(errorEvent);
+                    () -> operation + " of " + size + " books failed; nothing was changed. " + reason,
+                    "Count", String.valueOf(size),
+                    "Reason", reason
+            ));
+        }
+    }
+
+    @Override
+    public boolean placeHold(String bookISBN, String patronId) {
+        if (bookISBN == null || bookISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("Book ISBN can not be null or empty for a hold.");
+        }
+        if (patronId == null || patronId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patron ID can not be null or empty for a hold.");
+        }
+        if (copies.holdingOf(bookISBN) != null) {
+            if (hasSubscribers(LibraryEvent.EventType.WARNING)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.WARNING,
+                        () -> "Hold not placed. ISBN " + bookISBN + " has several copies; check out any free copy instead.",
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId
+                ));
+            }
             return false;
         }
+
+        return reservations.placeHold(bookISBN, patronId);
+    }
+
+    @Override
+    public boolean cancelHold(String bookISBN, String patronId) {
+        if (bookISBN == null || bookISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("Book ISBN can not be null or empty for a hold.");
+        }
+        if (patronId == null || patronId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patron ID can not be null or empty for a hold.");
+        }
+        return reservations.cancelHold(bookISBN, patronId);
+    }
+
+    /**
+     * Returns the hold a RESERVED book is currently set aside for.
+     * @param bookISBN The ISBN of the book.
+     * @return The active Hold, or null if the book is not reserved.
+     */
+    public Hold getActiveHold(String bookISBN) {
+        return bookISBN == null ? null : reservations.getActiveHold(bookISBN);
+    }
+
+    /**
+     * Returns the number of patrons waiting for a book, not counting the one it is reserved for.
+     * @param bookISBN The ISBN of the book.
+     * @return The queue length.
+     */
+    public int getHoldQueueLength(String bookISBN) {
+        if (bookISBN == null) {
+            return 0;
+        }
+        return reservations.getQueueLength(bookISBN);
+    }
+
+    /**
+     * Sets how long a returned book stays reserved for the next patron in line. Applies to holds granted afterwards.
+     * @param holdDurationMillis The hold duration in milliseconds.
+     */
+    public void setHoldDuration(long holdDurationMillis) {
+        if (holdDurationMillis <= 0) {
+            throw new IllegalArgumentException("Hold duration must be a positive value.");
+        }
+        reservations.setHoldDuration(holdDurationMillis);
+    }
+
+    /**
+     * Sets the due period and fines for loans. The loan period applies to checkouts made afterwards.
+     * @param loanPeriodMillis The time from checkout to due.
+     * @param fineIntervalMillis The time between two fine steps of an overdue loan.
+     * @param finePerIntervalCents The fine added per step.
+     */
+    public void setLoanPolicy(long loanPeriodMillis, long fineIntervalMillis, long finePerIntervalCents) {
+        loanTracker.setPolicy(loanPeriodMillis, fineIntervalMillis, finePerIntervalCents);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the open loan of a book to a patron.
+     * @param bookISBN The ISBN of the book.
+     * @param patronId The ID of the patron.
+     * @return The Loan, or null if the patron does not have the book.
+     */
+    public Loan getLoan(String bookISBN, String patronId) {
+        return loanTracker.getLoan(bookISBN, patronId);
+    }
+
+    /**
+     * Returns the loans that are past due, tracked incrementally as loans fall due.
+     * @return An unmodifiable List of overdue loans.
+     */
+    public List<Loan> getOverdueLoans() {
+        return loanTracker.getOverdueLoans();
+    }
+
+    /**
+     * Returns the fines a patron has accrued on overdue loans.
+     * @param patronId The ID of the patron.
+     * @return The total fine in cents.
+     */
+    public long getFineCents(String patronId) {
+        return loanTracker.getFineCents(patronId);
+    }
+
+    /**
+     * Stops the timer behind hold expiries and due dates. Holds and loans are kept, but no longer expire.
+     */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.close();
+        }
+    }
+
+    /**
+     * Runs on the timer thread when a loan falls due and at every fine step after that.
+     */
+    private void reportOverdue(Loan loan) {
+        if (hasSubscribers(LibraryEvent.EventType.OVERDUE)) {
+            long fineCents = loan.getFineCents();
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.OVERDUE,
+                    () -> "Book with ISBN " + loan.getISBN() + " borrowed by Patron " + loan.getPatronId() + " is overdue since " +
+                            Instant.ofEpochMilli(loan.getDueMillis()) + ". Fine: " + fineCents + " cents.",
+                    "BookISBN", loan.getISBN(),
+                    "PatronID", loan.getPatronId(),
+                    "DueAt", Instant.ofEpochMilli(loan.getDueMillis()).toString(),
+                    "FineCents", String.valueOf(fineCents)
+            ));
+        }
+    }
+
+    /**
+     * Reports a hold expiry or due-date task that threw on the timer thread.
+     */
+    private void reportTimerFailure(RuntimeException failure) {
+        if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.ERROR,
+                    () -> "Scheduled lending task failed: " + failure,
+                    "Exception", failure.getClass().getName()
+            ));
+        }
+    }
+
+    private TimerWheel timer() {
+        TimerWheel wheel = timer;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = timer;
+                if (wheel == null) {
+                    wheel = new TimerWheel(TIMER_TICK_MILLIS, TIMER_BUCKETS, "lending-timer");
+                    wheel.setFailureHandler(this::reportTimerFailure);
+                    timer = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+
+}
@@ -0,0 +1,73 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.time.Instant;
+
+/**
+ * One checked-out book: who has it, since when and until when. Overdue loans accrue a fine per
+ * fine interval until they are returned.
+ */
+public class Loan {
+    private final String ISBN;
+    private final String patronId;
+    private final int copyNumber;
+    private final long checkoutMillis;
+    private final long dueMillis;
+    // Written by the loan tracker; the timer thread is the only writer of overdue and fineCents.
+    volatile boolean overdue;
+    volatile long fineCents;
+    volatile boolean closed;
+    volatile long nextCheckMillis;
+    volatile TimerWheel.Timeout timeout;
+
+    Loan(String ISBN, String patronId, int copyNumber, long checkoutMillis, long dueMillis) {
+        this.ISBN = ISBN;
+        this.patronId = patronId;
+        this.copyNumber = copyNumber;
+        this.checkoutMillis = checkoutMillis;
+        this.dueMillis = dueMillis;
+        this.nextCheckMillis = dueMillis;
+    }
+
+    public String getISBN() {
+        return ISBN;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    /**
+     * Returns the copy that was lent.
+     * @return The copy number, or -1 for a single-copy title.
+     */
+    public int getCopyNumber() {
+        return copyNumber;
+    }
+
+    public long getCheckoutMillis() {
+        return checkoutMillis;
+    }
+
+    public long getDueMillis() {
+        return dueMillis;
+    }
+
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    /**
+     * Returns the fine accrued so far. It grows by one step per elapsed fine interval after the due time.
+     * @return The fine in cents.
+     */
+    public long getFineCents() {
+        return fineCents;
+    }
+
+    @Override
+    public String toString() {
+        return "Loan [ISBN=" + ISBN + ", PatronID=" + patronId + ", Copy=" + copyNumber +
+                ", CheckedOut=" + Instant.ofEpochMilli(checkoutMillis) + ", Due=" + Instant.ofEpochMilli(dueMillis) +
+                ", Overdue=" + overdue + ", FineCents=" + fineCents + "]";
+    }
+}
@@ -0,0 +1,224 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Tracks open loans by due time so that overdue detection and fine accrual cost O(loans falling due)
+ * instead of a scan over every patron.
+ *
+ * Deadlines are kept in two levels, like a hierarchical timer wheel. The coarse level is a skip list of
+ * one-minute buckets holding loans that are far from due. Once a minute the buckets that are about to come
+ * due are cascaded into the fine level, the shared {@link TimerWheel}, which fires each loan at its exact
+ * time. A loan that is overdue is rescheduled once per fine interval to accrue the next fine step.
+ */
+public class LoanTracker {
+    public static final long DEFAULT_LOAN_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(14);
+    public static final long DEFAULT_FINE_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+    public static final long DEFAULT_FINE_PER_INTERVAL_CENTS = 25;
+    static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Supplier<TimerWheel> timer;
+    private final Consumer<Loan> overdueListener;
+    private final Map<String, Loan> activeLoans; // Keyed by ISBN and patron ID
+    private final Set<Loan> overdueLoans;
+    private final Map<String, LongAdder> finesByPatron;
+    private final ConcurrentSkipListMap<Long, Set<Loan>> buckets; // Coarse level: bucket index -> loans to check in it
+    private final AtomicBoolean cascadeStarted;
+    private volatile long cascadedThrough; // Highest bucket index already moved to the fine level
+    private volatile long loanPeriodMillis;
+    private volatile long fineIntervalMillis;
+    private volatile long finePerIntervalCents;
+
+    /**
+     * @param timer Supplies the fine-level timer wheel.
+     * @param overdueListener Called on the timer thread when a loan becomes overdue and at every fine step after that.
+     */
+    public LoanTracker(Supplier<TimerWheel> timer, Consumer<Loan> overdueListener) {
+        if (timer == null) {
+            throw new IllegalArgumentException("Timer supplier can not be null.");
+        }
+        if (overdueListener == null) {
+            throw new IllegalArgumentException("Overdue listener can not be null.");
+        }
+        this.timer = timer;
+        this.overdueListener = overdueListener;
+        this.activeLoans = new ConcurrentHashMap<>();
+        this.overdueLoans = ConcurrentHashMap.newKeySet();
+        this.finesByPatron = new ConcurrentHashMap<>();
+        this.buckets = new ConcurrentSkipListMap<>();
+        this.cascadeStarted = new AtomicBoolean();
+        this.cascadedThrough = Long.MIN_VALUE;
+        this.loanPeriodMillis = DEFAULT_LOAN_PERIOD_MILLIS;
+        this.fineIntervalMillis = DEFAULT_FINE_INTERVAL_MILLIS;
+        this.finePerIntervalCents = DEFAULT_FINE_PER_INTERVAL_CENTS;
+    }
+
+    /**
+     * Sets the loan policy for loans opened afterwards; fine steps of overdue loans use the new values at once.
+     * @param loanPeriodMillis The time from checkout to due.
+     * @param fineIntervalMillis The time between two fine steps of an overdue loan.
+     * @param finePerIntervalCents The fine added per step.
+     */
+    public void setPolicy(long loanPeriodMillis, long fineIntervalMillis, long finePerIntervalCents) {
+        if (loanPeriodMillis <= 0 || fineIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Loan period and fine interval must be positive values.");
+        }
+        if (finePerIntervalCents < 0) {
+            throw new IllegalArgumentException("Fine can not be negative.");
+        }
+        this.loanPeriodMillis = loanPeriodMillis;
+        this.fineIntervalMillis = fineIntervalMillis;
+        this.finePerIntervalCents = finePerIntervalCents;
+    }
+
+    /**
+     * Records a checkout and schedules its due check.
+     * @param ISBN The ISBN of the lent book.
+     * @param patronId The borrowing patron.
+     * @param copyNumber The lent copy, or -1 for a single-copy title.
+     * @return The new loan.
+     */
+    public Loan open(String ISBN, String patronId, int copyNumber) {
+        long now = System.currentTimeMillis();
+        Loan loan = new Loan(ISBN, patronId, copyNumber, now, now + loanPeriodMillis);
+        activeLoans.put(keyOf(ISBN, patronId), loan);
+        schedule(loan);
+        return loan;
+    }
+
+    /**
+     * Records a return and drops the loan from every schedule.
+     * @param ISBN The ISBN of the returned book.
+     * @param patronId The returning patron.
+     * @return The closed loan, or null if no such loan was open.
+     */
+    public Loan close(String ISBN, String patronId) {
+        Loan loan = activeLoans.remove(keyOf(ISBN, patronId));
+        if (loan == null) {
+            return null;
+        }
+        loan.closed = true;
+        overdueLoans.remove(loan);
+        TimerWheel.Timeout timeout = loan.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        Set<Loan> bucket = buckets.get(bucketOf(loan.nextCheckMillis));
+        if (bucket != null) {
+            bucket.remove(loan);
+        }
+        return loan;
+    }
+
+    public Loan getLoan(String ISBN, String patronId) {
+        return activeLoans.get(keyOf(ISBN, patronId));
+    }
+
+    /**
+     * Returns the loans that are past due and not returned yet, without looking at any other loan.
+     * @return An unmodifiable List of overdue loans.
+     */
+    public List<Loan> getOverdueLoans() {
+        return Collections.unmodifiableList(new ArrayList<>(overdueLoans));
+    }
+
+    public int getActiveLoanCount() {
+        return activeLoans.size();
+    }
+
+    /**
+     * Returns the fines a patron has accrued, including those on books already returned.
+     * @param patronId The patron.
+     * @return The total fine in cents.
+     */
+    public long getFineCents(String patronId) {
+        LongAdder fines = patronId == null ? null : finesByPatron.get(patronId);
+        return fines == null ? 0 : fines.sum();
+    }
+
+    private void schedule(Loan loan) {
+        ensureCascade();
+        long bucketIndex = bucketOf(loan.nextCheckMillis);
+        if (bucketIndex <= cascadedThrough) {
+            scheduleOnWheel(loan);
+            return;
+        }
+        Set<Loan> bucket = buckets.computeIfAbsent(bucketIndex, key -> ConcurrentHashMap.newKeySet());
+        bucket.add(loan);
+        // The cascade may have passed this bucket while the loan was being added. Whoever removes the loan
+        // from the bucket owns scheduling it, so it is put on the wheel exactly once.
+        if (bucketIndex <= cascadedThrough && bucket.remove(loan)) {
+            scheduleOnWheel(loan);
+        }
+    }
+
+    private void scheduleOnWheel(Loan loan) {
+        if (!loan.closed) {
+            loan.timeout = timer.get().schedule(() -> check(loan), loan.nextCheckMillis - System.currentTimeMillis());
+        }
+    }
+
+    private void ensureCascade() {
+        if (cascadeStarted.compareAndSet(false, true)) {
+            cascade();
+        }
+    }
+
+    /**
+     * Moves every bucket that comes due before the end of the next minute to the timer wheel, then
+     * schedules itself again. Each loan is therefore visited once by the cascade and once by the wheel.
+     */
+    private void cascade() {
+        long through = bucketOf(System.currentTimeMillis()) + 1;
+        cascadedThrough = through; // Published first so concurrent adds to these buckets schedule themselves
+        Map.Entry<Long, Set<Loan>> entry;
+        while ((entry = buckets.firstEntry()) != null && entry.getKey() <= through) {
+            buckets.remove(entry.getKey(), entry.getValue());
+            for (Loan loan : entry.getValue()) {
+                if (entry.getValue().remove(loan)) {
+                    scheduleOnWheel(loan);
+                }
+            }
+        }
+        timer.get().schedule(this::cascade, BUCKET_MILLIS);
+    }
+
+    /**
+     * Runs on the timer thread when a loan falls due or reaches its next fine step.
+     */
+    private void check(Loan loan) {
+        if (loan.closed) {
+            return;
+        }
+        if (!loan.overdue) {
+            loan.overdue = true;
+            overdueLoans.add(loan);
+        } else {
+            long fine = finePerIntervalCents;
+            loan.fineCents += fine; // Only the timer thread writes it
+            finesByPatron.computeIfAbsent(loan.getPatronId(), key -> new LongAdder()).add(fine);
+        }
+        overdueListener.accept(loan);
+        loan.nextCheckMillis += fineIntervalMillis;
+        schedule(loan);
+    }
+
+    private static long bucketOf(long millis) {
+        return Math.floorDiv(millis, BUCKET_MILLIS);
+    }
+
+    private static String keyOf(String ISBN, String patronId) {
+        return ISBN + '\u0000' + patronId;
+    }
+}
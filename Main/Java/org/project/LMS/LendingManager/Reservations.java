@@ -0,0 +1,221 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import Main.Java.org.project.LMS.PatronRelated.IPatronRepository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Sets single-copy books aside for the patrons waiting in their {@link HoldQueue}. A book that comes free is
+ * RESERVED for the head of its queue until that patron checks it out, cancels the hold or the hold expires,
+ * and then moves on to the next patron in line.
+ *
+ * Hold state of an ISBN is only read or changed under that ISBN's book stripe lock. Methods ending in
+ * {@code Locked} expect the caller to hold it; the others take it themselves.
+ */
+final class Reservations {
+    private final IBookRepository bookRepository;
+    private final IPatronRepository patronRepository;
+    private final StripedLock bookLocks;
+    private final Supplier<TimerWheel> timer;
+    private final LendingEvents events;
+    private final HoldQueue queue;
+    private final Map<String, Hold> activeHolds; // The hold a RESERVED book is set aside for
+    private volatile long holdDurationMillis;
+
+    /**
+     * @param timer Supplies the timer wheel that expires holds.
+     */
+    Reservations(IBookRepository bookRepository, IPatronRepository patronRepository, StripedLock bookLocks,
+                 Supplier<TimerWheel> timer, LendingEvents events) {
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+        this.bookLocks = bookLocks;
+        this.timer = timer;
+        this.events = events;
+        this.queue = new HoldQueue();
+        this.activeHolds = new ConcurrentHashMap<>();
+        this.holdDurationMillis = LibraryLendingManager.DEFAULT_HOLD_DURATION_MILLIS;
+    }
+
+    boolean placeHold(String bookISBN, String patronId) {
+        ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+        bookLock.lock();
+        try {
+            IBook book = bookRepository.getBookByISBN(bookISBN);
+            IPatron patron = patronRepository.getPatronById(patronId);
+            if (book == null || patron == null) {
+                events.reportLookupFailure("Hold", bookISBN, patronId, book);
+                return false;
+            }
+            int position = isHeldForLocked(bookISBN, patronId) ? -1 : queue.add(bookISBN, patronId);
+            if (position < 0) {
+                if (events.hasSubscribers(LibraryEvent.EventType.WARNING)) {
+                    events.publish(LibraryEvent.lazy(
+                            LibraryEvent.EventType.WARNING,
+                            () -> "Patron " + patronId + " already holds ISBN " + bookISBN + ".",
+                            "BookISBN", bookISBN,
+                            "PatronID", patronId
+                    ));
+                }
+                return false;
+            }
+            if (events.hasSubscribers(LibraryEvent.EventType.INFO)) {
+                events.publish(LibraryEvent.lazy(
+                        LibraryEvent.EventType.INFO,
+                        () -> "Hold placed on '" + book.getTitle() + "' (ISBN: " + bookISBN + ") by Patron " + patronId + ". Queue position: " + position,
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId,
+                        "QueuePosition", String.valueOf(position)
+                ));
+            }
+            if (book.getStatus() == BookStatus.AVAILABLE) {
+                grantNextLocked(book); // Nobody else was waiting, so the book is set aside right away
+            }
+            return true;
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    boolean cancelHold(String bookISBN, String patronId) {
+        ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+        bookLock.lock();
+        try {
+            if (claimLocked(bookISBN, patronId)) {
+                IBook book = bookRepository.getBookByISBN(bookISBN);
+                if (book != null && book.getStatus() == BookStatus.RESERVED) {
+                    releaseOrHandOffLocked(book);
+                }
+            } else if (!queue.remove(bookISBN, patronId)) {
+                return false;
+            }
+            if (events.hasSubscribers(LibraryEvent.EventType.INFO)) {
+                events.publish(LibraryEvent.lazy(
+                        LibraryEvent.EventType.INFO,
+                        () -> "Hold on ISBN " + bookISBN + " cancelled by Patron " + patronId + ".",
+                        "BookISBN", bookISBN,
+                        "PatronID", patronId
+                ));
+            }
+            return true;
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    Hold getActiveHold(String bookISBN) {
+        return activeHolds.get(bookISBN);
+    }
+
+    int getQueueLength(String bookISBN) {
+        ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+        bookLock.lock();
+        try {
+            return queue.length(bookISBN);
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    void setHoldDuration(long holdDurationMillis) {
+        this.holdDurationMillis = holdDurationMillis;
+    }
+
+    boolean isHeldForLocked(String bookISBN, String patronId) {
+        Hold hold = activeHolds.get(bookISBN);
+        return hold != null && hold.getPatronId().equals(patronId);
+    }
+
+    /**
+     * Ends the active hold of a book if it belongs to the given patron.
+     * @return true if the patron's hold was active and is now gone.
+     */
+    boolean claimLocked(String bookISBN, String patronId) {
+        Hold hold = activeHolds.get(bookISBN);
+        if (hold == null || !hold.getPatronId().equals(patronId)) {
+            return false;
+        }
+        activeHolds.remove(bookISBN);
+        if (hold.expiry != null) {
+            hold.expiry.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Called once a book is free again: sets it aside for the next waiting patron, or marks it AVAILABLE
+     * when nobody waits.
+     */
+    void releaseOrHandOffLocked(IBook book) {
+        if (!grantNextLocked(book)) {
+            book.setStatus(BookStatus.AVAILABLE);
+            // This will call InMemoryBookRepository.updateBook, which itself notifies observers.
+            bookRepository.updateBook(book);
+        }
+    }
+
+    /**
+     * Moves the head of the book's queue into an active hold and marks the book RESERVED.
+     * @return true if a patron was waiting.
+     */
+    boolean grantNextLocked(IBook book) {
+        String bookISBN = book.getISBN();
+        String patronId = queue.poll(bookISBN);
+        if (patronId == null) {
+            return false;
+        }
+        long duration = holdDurationMillis;
+        Hold hold = new Hold(bookISBN, patronId, System.currentTimeMillis() + duration);
+        activeHolds.put(bookISBN, hold);
+        hold.expiry = timer.get().schedule(() -> expire(hold), duration);
+        book.setStatus(BookStatus.RESERVED);
+        bookRepository.updateBook(book);
+        if (events.hasSubscribers(LibraryEvent.EventType.BOOK_RESERVED)) {
+            events.publish(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_RESERVED,
+                    () -> "Book '" + book.getTitle() + "' (ISBN: " + bookISBN + ") reserved for Patron " + patronId + " until " + Instant.ofEpochMilli(hold.getExpiresAtMillis()) + ".",
+                    "BookISBN", bookISBN,
+                    "BookTitle", book.getTitle(),
+                    "PatronID", patronId,
+                    "ExpiresAt", Instant.ofEpochMilli(hold.getExpiresAtMillis()).toString()
+            ));
+        }
+        return true;
+    }
+
+    /**
+     * Runs on the timer thread when a hold lapses; the book moves on to the next patron in line.
+     */
+    private void expire(Hold hold) {
+        ReentrantLock bookLock = bookLocks.lockFor(hold.getISBN());
+        bookLock.lock();
+        try {
+            if (!activeHolds.remove(hold.getISBN(), hold)) {
+                return; // Claimed or cancelled meanwhile
+            }
+            if (events.hasSubscribers(LibraryEvent.EventType.HOLD_EXPIRED)) {
+                events.publish(LibraryEvent.lazy(
+                        LibraryEvent.EventType.HOLD_EXPIRED,
+                        () -> "Hold on ISBN " + hold.getISBN() + " for Patron " + hold.getPatronId() + " expired.",
+                        "BookISBN", hold.getISBN(),
+                        "PatronID", hold.getPatronId()
+                ));
+            }
+            IBook book = bookRepository.getBookByISBN(hold.getISBN());
+            if (book != null && book.getStatus() == BookStatus.RESERVED) {
+                releaseOrHandOffLocked(book);
+            }
+        } finally {
+            bookLock.unlock();
+        }
+    }
+}
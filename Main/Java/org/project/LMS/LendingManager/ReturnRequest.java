@@ -0,0 +1,48 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.util.Objects;
+
+/**
+ * One item of a batch return: the book being returned and the patron returning it.
+ */
+public final class ReturnRequest {
+    private final String bookISBN;
+    private final String patronId;
+
+    public ReturnRequest(String bookISBN, String patronId) {
+        if (bookISBN == null || bookISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("Book ISBN can not be null or empty for return.");
+        }
+        if (patronId == null || patronId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patron ID can not be null or empty for return.");
+        }
+        this.bookISBN = bookISBN;
+        this.patronId = patronId;
+    }
+
+    public String getBookISBN() {
+        return bookISBN;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReturnRequest that = (ReturnRequest) o;
+        return bookISBN.equals(that.bookISBN) && patronId.equals(that.patronId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookISBN, patronId);
+    }
+
+    @Override
+    public String toString() {
+        return "ReturnRequest [BookISBN=" + bookISBN + ", PatronID=" + patronId + "]";
+    }
+}
@@ -0,0 +1,98 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks that keys are hashed onto, so that operations on different keys
+ * usually proceed in parallel while operations on the same key are always serialized.
+ * Two keys may share a stripe; callers that need several stripes must acquire them in a
+ * consistent order to stay deadlock-free.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a striped lock with at least the given number of stripes (rounded up to a power of two).
+     * @param minimumStripes The minimum number of stripes.
+     */
+    public StripedLock(int minimumStripes) {
+        if (minimumStripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be a positive value.");
+        }
+        int size = Integer.highestOneBit(minimumStripes);
+        if (size < minimumStripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the index of the stripe guarding the given key.
+     * @param key The key to look up.
+     * @return The stripe index.
+     */
+    public int indexFor(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask; // Spread the high bits like HashMap does
+    }
+
+    /**
+     * Returns the lock guarding the given key.
+     * @param key The key to look up.
+     * @return The lock for the key's stripe.
+     */
+    public ReentrantLock lockFor(String key) {
+        return stripes[indexFor(key)];
+    }
+
+    /**
+     * Returns the lock at the given stripe index.
+     * @param index The stripe index.
+     * @return The lock at that index.
+     */
+    public ReentrantLock lockAt(int index) {
+        return stripes[index];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Locks the stripes of all given keys in ascending stripe order, each stripe once,
+     * so two callers locking overlapping key sets can not deadlock.
+     * @param keys The keys to lock.
+     * @return The locks taken, in acquisition order, for {@link #unlockAll(List)}.
+     */
+    public List<ReentrantLock> lockAll(Collection<String> keys) {
+        BitSet indexes = new BitSet(stripes.length);
+        for (String key : keys) {
+            indexes.set(indexFor(key));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(indexes.cardinality());
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            stripes[i].lock();
+            locks.add(stripes[i]);
+        }
+        return locks;
+    }
+
+    /**
+     * Releases locks taken by {@link #lockAll(Collection)}, in reverse order.
+     * @param locks The locks to release.
+     */
+    public static void unlockAll(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+}
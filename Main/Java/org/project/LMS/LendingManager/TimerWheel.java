@@ -0,0 +1,204 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timer wheel for large numbers of coarse timeouts, such as hold expiries.
+ * Scheduling and cancelling are O(1) and lock-free: a timeout is appended to a shared inbox, and one daemon
+ * thread owns the buckets. On every tick it first files the inbox into the buckets of their deadline ticks,
+ * never earlier than the tick it is about to visit, and then visits that single bucket, firing the timeouts
+ * that are due and keeping the ones that are whole revolutions away. Because only the timer thread files
+ * timeouts, one can never land behind the bucket being visited. Tasks run on that thread, so they must be short.
+ */
+public class TimerWheel implements AutoCloseable {
+    private final long tickNanos;
+    private final Bucket[] buckets;   // Only touched by the timer thread
+    private final Queue<Timeout> inbox;
+    private final int mask;
+    private final long startNanos;
+    private final Thread worker;
+    private final AtomicLong taskFailures;
+    private volatile Consumer<RuntimeException> failureHandler;
+    private volatile boolean closed;
+
+    /**
+     * Creates a wheel and starts its thread.
+     * @param tickMillis The resolution of the wheel; timeouts fire up to one tick late.
+     * @param minimumBuckets The minimum number of buckets (rounded up to a power of two).
+     * @param name The name of the timer thread.
+     */
+    public TimerWheel(long tickMillis, int minimumBuckets, String name) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be a positive value.");
+        }
+        if (minimumBuckets <= 0) {
+            throw new IllegalArgumentException("Number of buckets must be a positive value.");
+        }
+        int size = Integer.highestOneBit(minimumBuckets);
+        if (size < minimumBuckets) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.inbox = new ConcurrentLinkedQueue<>();
+        this.taskFailures = new AtomicLong();
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules a task to run once after the given delay. Once the wheel is closed, tasks are accepted but never run.
+     * @param task The task to run on the timer thread.
+     * @param delayMillis The delay in milliseconds.
+     * @return A handle that can cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task can not be null.");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, deadline);
+        if (!closed) {
+            inbox.add(timeout); // Filed into its bucket by the timer thread on the next tick
+        }
+        return timeout;
+    }
+
+    /**
+     * Sets a callback for tasks that throw. It runs on the timer thread; without one, failures are only counted.
+     * @param failureHandler The callback, or null to only count failures.
+     */
+    public void setFailureHandler(Consumer<RuntimeException> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Returns how many tasks have thrown. A failing task never stops the wheel.
+     * @return The task failure count.
+     */
+    public long getTaskFailureCount() {
+        return taskFailures.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!closed) {
+            long wakeAt = startNanos + (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = wakeAt - System.nanoTime()) > 0 && !closed) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            tick++;
+            fileInbox(tick);
+            long now = System.nanoTime();
+            ArrayDeque<Timeout> bucket = buckets[(int) (tick & mask)].timeouts;
+            for (int i = bucket.size(); i > 0; i--) {
+                Timeout timeout = bucket.poll();
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                if (timeout.deadline - now <= 0) {
+                    fire(timeout);
+                } else {
+                    bucket.add(timeout); // One or more revolutions away; keep it for a later visit
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the newly scheduled timeouts into the buckets of their deadline ticks; overdue ones go into the
+     * bucket about to be visited.
+     */
+    private void fileInbox(long tick) {
+        Timeout timeout;
+        while ((timeout = inbox.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                long deadlineTick = Math.max(tick, ceilDiv(timeout.deadline - startNanos, tickNanos));
+                buckets[(int) (deadlineTick & mask)].timeouts.add(timeout);
+            }
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        try {
+            timeout.fire();
+        } catch (RuntimeException e) {
+            taskFailures.incrementAndGet();
+            Consumer<RuntimeException> handler = failureHandler;
+            if (handler != null) {
+                try {
+                    handler.accept(e);
+                } catch (RuntimeException ignored) {
+                    // The handler is best effort; it must not stop the wheel either.
+                }
+            }
+        }
+    }
+
+    /**
+     * The timeouts filed under one bucket of the wheel.
+     */
+    private static final class Bucket {
+        final ArrayDeque<Timeout> timeouts = new ArrayDeque<>();
+    }
+
+    /**
+     * A scheduled task. Cancelling is a single CAS and leaves the entry to be dropped on the next visit.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int FIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         * @return true if the task will not run, false if it already ran.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED) || state.get() == CANCELLED;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void fire() {
+            if (state.compareAndSet(PENDING, FIRED)) {
+                task.run();
+            }
+        }
+    }
+}
@@ -79,6 +79,12 @@ public class LibraryApplication {
         patronRepository.updatePatron(patron1);
         System.out.println();
 
+        // Front-desk patron lookups
+        System.out.println("Patrons whose name starts with 'gau': " + patronRepository.searchPatrons("gau", PatronSearchType.BY_NAME_PREFIX));
+        System.out.println("Patron with contact ' ViswaR20@Gmail.com ': " + patronRepository.searchPatrons(" ViswaR20@Gmail.com ", PatronSearchType.BY_CONTACT));
+        System.out.println("Patron with the old contact: " + patronRepository.searchPatrons("viswa.raj@gmail.com", PatronSearchType.BY_CONTACT));
+        System.out.println();
+
         // Lending Process
         System.out.println("--- Attempting Checkouts ---");
         // Checkout book1 to patron1
@@ -108,6 +114,11 @@ public class LibraryApplication {
         lendingManager.returnBook(book3.getISBN(), patron2.getPatronId());
         System.out.println();
 
+        // Who has a book, and returns at the drop box where the patron is unknown
+        System.out.println("Current borrower of '" + book1.getTitle() + "': " + lendingManager.getCurrentBorrower(book1.getISBN()));
+        lendingManager.returnBook(book2.getISBN()); // Already returned above, so this fails
+        System.out.println();
+
         // Search Functionality
         System.out.println("--- Performing Searches ---");
         System.out.println("Books by Author 'Orwell':");
@@ -124,6 +135,13 @@ public class LibraryApplication {
         }
         System.out.println();
 
+        System.out.println("Best 5 matches for the misspelled author 'Fitzgerlad':");
+        List<IBook> fuzzyBooks = bookRepository.searchBooks("Fitzgerlad", SearchType.FUZZY_AUTHOR, 5);
+        for (IBook b : fuzzyBooks) {
+            System.out.println("  - " + b.getTitle() + " by " + b.getAuthor());
+        }
+        System.out.println();
+
         // Final Inventory and Patron State
         System.out.println("--- Final Library State ---");
         System.out.println("All Books:");
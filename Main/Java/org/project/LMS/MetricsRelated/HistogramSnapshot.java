@@ -0,0 +1,64 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+/**
+ * An immutable copy of a {@link LatencyHistogram}'s counters. All values are in nanoseconds.
+ */
+public final class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the value below which the given share of the recorded values falls.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The value in nanoseconds, the midpoint of its bucket, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long midpoint = LatencyHistogram.lowerBoundOf(i) + (LatencyHistogram.widthOf(i) - 1) / 2;
+                return Math.min(midpoint, max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot [Count=" + count + ", Mean=" + Math.round(getMean()) + "ns, P50=" + getValueAtPercentile(50) +
+                "ns, P99=" + getValueAtPercentile(99) + "ns, P99.9=" + getValueAtPercentile(99.9) + "ns, Max=" + max + "ns]";
+    }
+}
@@ -0,0 +1,20 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+/**
+ * Publishes the contents of a {@link MetricsRegistry} to a monitoring system.
+ * Exporters read the registry on demand and add no cost to the instrumented operations.
+ */
+public interface IMetricsExporter extends AutoCloseable {
+
+    /**
+     * Starts publishing.
+     * @throws IllegalStateException if the exporter can not be started, e.g. because its port is taken.
+     */
+    void start();
+
+    /**
+     * Stops publishing and releases the exporter's resources.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,147 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Publishes a {@link MetricsRegistry} as a read-only MBean on the platform MBean server, so it can be browsed
+ * with JConsole or scraped by a JMX agent. Each counter is one attribute; each latency histogram contributes
+ * count, mean, p50, p99, p99.9 and max attributes in nanoseconds. Attributes are read from the registry
+ * when they are requested, and metrics registered after start-up appear automatically.
+ */
+public class JmxMetricsExporter implements IMetricsExporter {
+    public static final String DEFAULT_OBJECT_NAME = "org.project.LMS:type=Metrics";
+
+    private final MetricsRegistry registry;
+    private final ObjectName objectName;
+    private boolean registered;
+
+    public JmxMetricsExporter(MetricsRegistry registry) {
+        this(registry, DEFAULT_OBJECT_NAME);
+    }
+
+    /**
+     * @param registry The registry to publish.
+     * @param objectName The JMX object name to register the MBean under.
+     */
+    public JmxMetricsExporter(MetricsRegistry registry, String objectName) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Metrics registry can not be null.");
+        }
+        try {
+            this.objectName = new ObjectName(objectName);
+        } catch (JMException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid JMX object name: " + objectName, e);
+        }
+        this.registry = registry;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Can not register metrics MBean " + objectName + ": " + e.getMessage(), e);
+        }
+        registered = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Already gone; nothing left to release.
+        }
+        registered = false;
+    }
+
+    /**
+     * @return Every attribute the MBean currently exposes, by name, in name order.
+     */
+    private Map<String, Supplier<Object>> attributes() {
+        Map<String, Supplier<Object>> attributes = new TreeMap<>();
+        registry.forEachCounter((id, counter) -> attributes.put(id.toString(), counter::sum));
+        registry.forEachHistogram((id, histogram) -> {
+            String prefix = id + ".";
+            attributes.put(prefix + "count", () -> histogram.snapshot().getCount());
+            attributes.put(prefix + "meanNanos", () -> histogram.snapshot().getMean());
+            attributes.put(prefix + "p50Nanos", () -> histogram.snapshot().getValueAtPercentile(50));
+            attributes.put(prefix + "p99Nanos", () -> histogram.snapshot().getValueAtPercentile(99));
+            attributes.put(prefix + "p999Nanos", () -> histogram.snapshot().getValueAtPercentile(99.9));
+            attributes.put(prefix + "maxNanos", () -> histogram.snapshot().getMax());
+        });
+        return attributes;
+    }
+
+    private final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Supplier<Object> value = attributes().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException("No metric named " + attribute);
+            }
+            return value.get();
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read-only.");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            Map<String, Supplier<Object>> attributes = attributes();
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                Supplier<Object> value = attributes.get(name);
+                if (value != null) {
+                    list.add(new Attribute(name, value.get()));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList(); // Nothing is writable
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("Metrics MBean has no operations.");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> infos = new ArrayList<>();
+            attributes().forEach((name, value) -> {
+                Object current = value.get();
+                infos.add(new MBeanAttributeInfo(name, current.getClass().getName(), name, true, false, false));
+            });
+            return new MBeanInfo(JmxMetricsExporter.class.getName(), "Library metrics",
+                    infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
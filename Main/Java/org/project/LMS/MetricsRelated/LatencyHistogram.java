@@ -0,0 +1,136 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Every power of two is split into 16 linear sub-buckets, so any recorded value is reported within 6.25%
+ * of its true value, from 1 nanosecond up to about 4.9 hours, in a fixed array of 656 counters.
+ *
+ * The counters are striped by thread: each stripe holds its own buckets, sum and maximum, and a thread
+ * always records into the same stripe, so threads on different stripes never write the same cache line.
+ * Threads that hash to the same stripe still share its counters. Stripes are allocated on first use, so a
+ * histogram only ever recorded from one thread holds a single stripe. Recording is a bucket index
+ * computation and two atomic adds, plus a CAS when the stripe sees a new maximum, with no allocation.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 44; // Values are capped just below 2^44 ns
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int MAX_STRIPES = 8;
+    // Each stripe is one array: the buckets, then the sum and the maximum
+    private static final int SUM_SLOT = BUCKET_COUNT;
+    private static final int MAX_SLOT = BUCKET_COUNT + 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        this(Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1)));
+    }
+
+    /**
+     * @param stripeCount The number of stripes; a power of two.
+     */
+    LatencyHistogram(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two.");
+        }
+        this.stripes = new AtomicReferenceArray<>(stripeCount);
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Records one value.
+     * @param nanos The latency in nanoseconds; negative values count as 0, huge values are capped.
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        AtomicLongArray stripe = stripe();
+        stripe.getAndIncrement(bucketOf(value));
+        stripe.getAndAdd(SUM_SLOT, value);
+        long currentMax = stripe.get(MAX_SLOT);
+        while (value > currentMax && !stripe.compareAndSet(MAX_SLOT, currentMax, value)) {
+            currentMax = stripe.get(MAX_SLOT);
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given start.
+     * @param startNanos A value obtained from System.nanoTime() when the operation began.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Takes a consistent-enough copy of the counters. Values recorded while the copy is taken may or may
+     * not be included, but are never lost for later snapshots.
+     * @return A HistogramSnapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long bucketCount = stripe.get(i);
+                copy[i] += bucketCount;
+                count += bucketCount;
+            }
+            sum += stripe.get(SUM_SLOT);
+            max = Math.max(max, stripe.get(MAX_SLOT));
+        }
+        return new HistogramSnapshot(copy, count, sum, max);
+    }
+
+    /**
+     * @return The calling thread's stripe, allocated if it is the first to use it.
+     */
+    private AtomicLongArray stripe() {
+        long threadId = Thread.currentThread().getId();
+        int index = (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask; // Spreads sequential IDs
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKET_COUNT + 2));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The smallest value that falls into the given bucket.
+     */
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @return The number of distinct values that fall into the given bucket.
+     */
+    static long widthOf(int bucket) {
+        return bucket < SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+    }
+}
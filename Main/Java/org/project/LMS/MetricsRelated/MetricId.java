@@ -0,0 +1,84 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies one time series: a metric name plus an ordered set of label values.
+ * Equality ignores the help text, which belongs to the metric name.
+ */
+public final class MetricId {
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final String name;
+    private final String help;
+    private final Map<String, String> labels;
+    private final int hash;
+
+    /**
+     * @param name The metric name, in Prometheus syntax.
+     * @param help A one-line description of the metric.
+     * @param labelPairs Alternating label names and values.
+     */
+    public MetricId(String name, String help, String... labelPairs) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        if (labelPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+        }
+        Map<String, String> labelMap = new LinkedHashMap<>();
+        for (int i = 0; i < labelPairs.length; i += 2) {
+            if (labelPairs[i] == null || !LABEL.matcher(labelPairs[i]).matches()) {
+                throw new IllegalArgumentException("Invalid label name: " + labelPairs[i]);
+            }
+            if (labelPairs[i + 1] == null) {
+                throw new IllegalArgumentException("Label value can not be null.");
+            }
+            labelMap.put(labelPairs[i], labelPairs[i + 1]);
+        }
+        this.name = name;
+        this.help = help == null ? "" : help;
+        this.labels = Collections.unmodifiableMap(labelMap);
+        this.hash = 31 * name.hashCode() + labels.hashCode();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MetricId that = (MetricId) o;
+        return name.equals(that.name) && labels.equals(that.labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (labels.isEmpty()) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name).append('{');
+        labels.forEach((label, value) -> sb.append(label).append("=\"").append(value).append("\","));
+        sb.setCharAt(sb.length() - 1, '}');
+        return sb.toString();
+    }
+}
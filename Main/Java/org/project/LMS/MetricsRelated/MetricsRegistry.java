@@ -0,0 +1,61 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the counters and latency histograms of the process, keyed by {@link MetricId}.
+ * Components look their metrics up once, when they are created, and then update them directly,
+ * so the registry is never on the hot path. Exporters read it on demand.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<MetricId, LongAdder> counters;
+    private final Map<MetricId, LatencyHistogram> histograms;
+
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the registry the library's components report to.
+     * @return The process-wide MetricsRegistry.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the counter for a time series, creating it on first use.
+     * @param name The metric name, in Prometheus syntax; counters conventionally end in _total.
+     * @param help A one-line description of the metric.
+     * @param labelPairs Alternating label names and values.
+     * @return The counter.
+     */
+    public LongAdder counter(String name, String help, String... labelPairs) {
+        return counters.computeIfAbsent(new MetricId(name, help, labelPairs), id -> new LongAdder());
+    }
+
+    /**
+     * Returns the latency histogram for a time series, creating it on first use.
+     * @param name The metric name, in Prometheus syntax; latencies conventionally end in _seconds.
+     * @param help A one-line description of the metric.
+     * @param labelPairs Alternating label names and values.
+     * @return The histogram, which records nanoseconds.
+     */
+    public LatencyHistogram histogram(String name, String help, String... labelPairs) {
+        return histograms.computeIfAbsent(new MetricId(name, help, labelPairs), id -> new LatencyHistogram());
+    }
+
+    public void forEachCounter(BiConsumer<MetricId, LongAdder> action) {
+        counters.forEach(action);
+    }
+
+    public void forEachHistogram(BiConsumer<MetricId, LatencyHistogram> action) {
+        histograms.forEach(action);
+    }
+}
@@ -0,0 +1,55 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency histogram and outcome counters of one named operation, looked up once and kept by the caller.
+ */
+public final class OperationMetrics {
+    public static final String LATENCY_METRIC = "lms_operation_duration_seconds";
+    public static final String OUTCOME_METRIC = "lms_operations_total";
+
+    private final LatencyHistogram latency;
+    private final LongAdder succeeded;
+    private final LongAdder failed;
+
+    /**
+     * @param registry The registry to report to.
+     * @param operation The operation name, used as the "operation" label.
+     * @param labelPairs Further alternating label names and values, e.g. a search type.
+     */
+    public OperationMetrics(MetricsRegistry registry, String operation, String... labelPairs) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Metrics registry can not be null.");
+        }
+        String[] labels = new String[labelPairs.length + 2];
+        labels[0] = "operation";
+        labels[1] = operation;
+        System.arraycopy(labelPairs, 0, labels, 2, labelPairs.length);
+        this.latency = registry.histogram(LATENCY_METRIC, "Latency of library operations.", labels);
+        this.succeeded = registry.counter(OUTCOME_METRIC, "Library operations by outcome.", withResult(labels, "success"));
+        this.failed = registry.counter(OUTCOME_METRIC, "Library operations by outcome.", withResult(labels, "failure"));
+    }
+
+    /**
+     * Records one finished operation.
+     * @param startNanos The System.nanoTime() value taken when the operation began.
+     * @param success Whether the operation succeeded.
+     */
+    public void record(long startNanos, boolean success) {
+        latency.recordSince(startNanos);
+        (success ? succeeded : failed).increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    private static String[] withResult(String[] labels, String result) {
+        String[] withResult = new String[labels.length + 2];
+        System.arraycopy(labels, 0, withResult, 0, labels.length);
+        withResult[labels.length] = "result";
+        withResult[labels.length + 1] = result;
+        return withResult;
+    }
+}
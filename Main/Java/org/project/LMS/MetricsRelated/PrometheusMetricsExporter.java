@@ -0,0 +1,181 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link MetricsRegistry} in the Prometheus text exposition format at /metrics on a local port.
+ * Counters are exported as counters; latency histograms as summaries with 0.5, 0.9, 0.99 and 0.999
+ * quantiles in seconds. The server binds to the loopback address only.
+ */
+public class PrometheusMetricsExporter implements IMetricsExporter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MetricsRegistry registry;
+    private final int requestedPort;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param registry The registry to serve.
+     * @param port The local port to listen on, or 0 for any free port.
+     */
+    public PrometheusMetricsExporter(MetricsRegistry registry, int port) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Metrics registry can not be null.");
+        }
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Port must be between 0 and 65535.");
+        }
+        this.registry = registry;
+        this.requestedPort = port;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not start metrics endpoint on port " + requestedPort + ": " + e.getMessage(), e);
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = scrape(registry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return The port the endpoint listens on, or -1 if it is not started.
+     */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    /**
+     * Renders a registry in the Prometheus text format.
+     * @param registry The registry to render.
+     * @return The exposition text.
+     */
+    public static String scrape(MetricsRegistry registry) {
+        StringBuilder out = new StringBuilder(4096);
+        try {
+            writeTo(registry, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes a registry in the Prometheus text format, one metric family at a time.
+     * @param registry The registry to render.
+     * @param out Where to write.
+     * @throws IOException if writing fails.
+     */
+    public static void writeTo(MetricsRegistry registry, Appendable out) throws IOException {
+        Map<String, List<Map.Entry<MetricId, Long>>> counterFamilies = new TreeMap<>();
+        registry.forEachCounter((id, counter) ->
+                counterFamilies.computeIfAbsent(id.getName(), name -> new ArrayList<>()).add(Map.entry(id, counter.sum())));
+        Map<String, List<Map.Entry<MetricId, HistogramSnapshot>>> summaryFamilies = new TreeMap<>();
+        registry.forEachHistogram((id, histogram) ->
+                summaryFamilies.computeIfAbsent(id.getName(), name -> new ArrayList<>()).add(Map.entry(id, histogram.snapshot())));
+
+        for (List<Map.Entry<MetricId, Long>> family : counterFamilies.values()) {
+            writeHeader(out, family.get(0).getKey(), "counter");
+            for (Map.Entry<MetricId, Long> series : family) {
+                writeSample(out, series.getKey().getName(), series.getKey(), null, null, Long.toString(series.getValue()));
+            }
+        }
+        for (List<Map.Entry<MetricId, HistogramSnapshot>> family : summaryFamilies.values()) {
+            writeHeader(out, family.get(0).getKey(), "summary");
+            for (Map.Entry<MetricId, HistogramSnapshot> series : family) {
+                MetricId id = series.getKey();
+                HistogramSnapshot snapshot = series.getValue();
+                for (double quantile : QUANTILES) {
+                    writeSample(out, id.getName(), id, "quantile", Double.toString(quantile),
+                            seconds(snapshot.getValueAtPercentile(quantile * 100)));
+                }
+                writeSample(out, id.getName() + "_sum", id, null, null, seconds(snapshot.getSum()));
+                writeSample(out, id.getName() + "_count", id, null, null, Long.toString(snapshot.getCount()));
+            }
+        }
+    }
+
+    private static void writeHeader(Appendable out, MetricId id, String type) throws IOException {
+        if (!id.getHelp().isEmpty()) {
+            out.append("# HELP ").append(id.getName()).append(' ').append(id.getHelp().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        }
+        out.append("# TYPE ").append(id.getName()).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(Appendable out, String name, MetricId id, String extraLabel, String extraValue,
+                                    String value) throws IOException {
+        out.append(name);
+        if (!id.getLabels().isEmpty() || extraLabel != null) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> label : id.getLabels().entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                appendLabel(out, label.getKey(), label.getValue());
+                first = false;
+            }
+            if (extraLabel != null) {
+                if (!first) {
+                    out.append(',');
+                }
+                appendLabel(out, extraLabel, extraValue);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void appendLabel(Appendable out, String name, String value) throws IOException {
+        out.append(name).append("=\"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                .append('"');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
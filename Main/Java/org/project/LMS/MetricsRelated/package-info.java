@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.MetricsRelated;
\ No newline at end of file
@@ -0,0 +1,289 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * A dispatcher that moves observer work off the caller's thread.
+ * Events are placed on bounded ring buffers ("lanes"), each drained by its own consumer thread.
+ * Every subject is pinned to one lane, so events from a subject are delivered in order, while
+ * different subjects can be served by different consumers. Consumers drain events in batches
+ * and hand each observer its share of a batch through {@link ILibraryObserver#updateBatch(List)}.
+ *
+ * The observers of an event are fixed when it is dispatched, so an observer added later never sees
+ * earlier events. A lane's consumer only exits once the dispatcher is closed, its queue is empty and no
+ * producer is between its closed check and its enqueue, so every accepted event is delivered.
+ */
+public class AsyncEventDispatcher implements IEventDispatcher, AutoCloseable {
+
+    /**
+     * What a producer does when the lane for its subject is full.
+     */
+    public enum BackpressurePolicy {
+        BLOCK,  // Wait for space; no event is lost
+        DROP,   // Discard the new event
+        SAMPLE  // Keep one in every sampleRate events (waiting for space), discard the rest
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final ILibraryObserver[] NO_OBSERVERS = new ILibraryObserver[0];
+
+    private final Lane[] lanes;
+    private final int maxBatchSize;
+    private final BackpressurePolicy policy;
+    private final int sampleRate;
+    private final AtomicLong droppedEvents;
+    private final AtomicLong sampleCounter;
+    private final AtomicLong observerFailures;
+    private volatile BiConsumer<ILibraryObserver, RuntimeException> failureHandler;
+    private volatile boolean closed;
+
+    public AsyncEventDispatcher() {
+        this(DEFAULT_CAPACITY, 1, DEFAULT_BATCH_SIZE, BackpressurePolicy.BLOCK, 1);
+    }
+
+    /**
+     * Creates and starts an asynchronous dispatcher.
+     * @param capacity The number of events each lane can buffer.
+     * @param consumerThreads The number of lanes, each with one consumer thread.
+     * @param maxBatchSize The maximum number of events delivered in one batch.
+     * @param policy The behaviour when a lane is full.
+     * @param sampleRate For SAMPLE, keep one in this many events while a lane is full.
+     */
+    public AsyncEventDispatcher(int capacity, int consumerThreads, int maxBatchSize,
+                                BackpressurePolicy policy, int sampleRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Dispatcher capacity must be a positive value.");
+        }
+        if (consumerThreads <= 0) {
+            throw new IllegalArgumentException("Number of consumer threads must be a positive value.");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be a positive value.");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Backpressure policy can not be null.");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be a positive value.");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.droppedEvents = new AtomicLong();
+        this.sampleCounter = new AtomicLong();
+        this.observerFailures = new AtomicLong();
+        this.lanes = new Lane[consumerThreads];
+        for (int i = 0; i < consumerThreads; i++) {
+            lanes[i] = new Lane(capacity, "library-event-dispatcher-" + i);
+            lanes[i].thread.start();
+        }
+    }
+
+    @Override
+    public void dispatch(ILibrarySubject subject, List<ILibraryObserver> observers, LibraryEvent event) {
+        ILibraryObserver[] recipients = interestedIn(observers, event); // Snapshot of the current registrations
+        if (recipients.length == 0) {
+            return;
+        }
+        Lane lane = laneFor(subject);
+        lane.producers.incrementAndGet(); // Keeps the consumer alive until this event is enqueued
+        try {
+            if (closed) {
+                // Nobody is left to drain the lanes; deliver inline rather than lose the event.
+                SynchronousEventDispatcher.INSTANCE.dispatch(subject, List.of(recipients), event);
+                return;
+            }
+            Envelope envelope = new Envelope(recipients, event);
+            switch (policy) {
+                case BLOCK:
+                    put(lane, envelope);
+                    break;
+                case DROP:
+                    if (!lane.queue.offer(envelope)) {
+                        droppedEvents.incrementAndGet();
+                    }
+                    break;
+                case SAMPLE:
+                    if (!lane.queue.offer(envelope)) {
+                        if (sampleCounter.incrementAndGet() % sampleRate == 0) {
+                            put(lane, envelope);
+                        } else {
+                            droppedEvents.incrementAndGet();
+                        }
+                    }
+                    break;
+            }
+        } finally {
+            lane.producers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sets a callback for observers that throw while a batch is delivered. It runs on the consumer thread;
+     * without one, failures are only counted.
+     * @param failureHandler The callback, or null to only count failures.
+     */
+    public void setFailureHandler(BiConsumer<ILibraryObserver, RuntimeException> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Returns the number of times an observer threw while a batch was delivered to it.
+     * @return The observer failure count.
+     */
+    public long getObserverFailureCount() {
+        return observerFailures.get();
+    }
+
+    /**
+     * Returns the number of events discarded because of backpressure.
+     * @return The dropped event count.
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Stops accepting new work, delivers everything already buffered, including events whose producers are
+     * still waiting for space, and waits for the consumers to finish. Events dispatched afterwards are delivered inline.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Lane laneFor(ILibrarySubject subject) {
+        // Pinning a subject to one lane is what keeps its events in order.
+        return lanes[(System.identityHashCode(subject) & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    /**
+     * Waits for space in the lane. If the consumer has died there will never be space, so the event is dropped.
+     */
+    private void put(Lane lane, Envelope envelope) {
+        try {
+            while (!lane.queue.offer(envelope, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!lane.thread.isAlive()) {
+                    droppedEvents.incrementAndGet();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private static ILibraryObserver[] interestedIn(List<ILibraryObserver> observers, LibraryEvent event) {
+        ILibraryObserver[] registered = observers.toArray(NO_OBSERVERS); // One consistent view of a copy-on-write list
+        int count = 0;
+        for (ILibraryObserver observer : registered) {
+            if (observer.isInterestedIn(event.getType())) {
+                registered[count++] = observer;
+            }
+        }
+        return count == registered.length ? registered : Arrays.copyOf(registered, count);
+    }
+
+    private void deliver(List<Envelope> batch) {
+        // Group the batch per observer, keeping each observer's events in dispatch order.
+        Map<ILibraryObserver, List<LibraryEvent>> perObserver = new IdentityHashMap<>();
+        List<ILibraryObserver> order = new ArrayList<>();
+        for (Envelope envelope : batch) {
+            for (ILibraryObserver observer : envelope.observers) {
+                List<LibraryEvent> events = perObserver.get(observer);
+                if (events == null) {
+                    events = new ArrayList<>();
+                    perObserver.put(observer, events);
+                    order.add(observer);
+                }
+                events.add(envelope.event);
+            }
+        }
+        for (ILibraryObserver observer : order) {
+            long start = System.nanoTime();
+            try {
+                observer.updateBatch(perObserver.get(observer));
+                DispatchMetrics.latencyOf(observer).recordSince(start);
+            } catch (RuntimeException e) {
+                // A failing observer must not stop delivery to the others or kill the consumer.
+                observerFailures.incrementAndGet();
+                reportFailure(observer, e);
+            }
+        }
+    }
+
+    private void reportFailure(ILibraryObserver observer, RuntimeException failure) {
+        BiConsumer<ILibraryObserver, RuntimeException> handler = failureHandler;
+        if (handler != null) {
+            try {
+                handler.accept(observer, failure);
+            } catch (RuntimeException ignored) {
+                // The handler is best effort; it must not kill the consumer either.
+            }
+        }
+    }
+
+    private static final class Envelope {
+        final ILibraryObserver[] observers; // The interested observers at dispatch time
+        final LibraryEvent event;
+
+        Envelope(ILibraryObserver[] observers, LibraryEvent event) {
+            this.observers = observers;
+            this.event = event;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        final BlockingQueue<Envelope> queue;
+        final AtomicInteger producers; // Producers that passed the closed check but may not have enqueued yet
+        final Thread thread;
+
+        Lane(int capacity, String name) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.producers = new AtomicInteger();
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Envelope> batch = new ArrayList<>(maxBatchSize);
+            // Checked in this order: once closed is seen, any producer that still increments will see it too.
+            while (!closed || producers.get() > 0 || !queue.isEmpty()) {
+                try {
+                    Envelope first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    deliver(batch);
+                    batch.clear();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A logging observer for production use. Unlike {@link LoggerObserver}, it never formats or writes on the
+ * caller's thread: {@code update} only appends the raw event to a lock-free queue. A background thread
+ * drains the queue once per flush interval, formats the events into a reusable buffer and writes them to
+ * a file through a NIO channel. The file is rolled over to numbered backups when it reaches its size limit.
+ * If the queue is full, new events are dropped and counted rather than blocking the caller. Failed writes
+ * are counted and passed to the failure handler; the events they lose count as dropped.
+ */
+public class AsyncFileLoggerObserver implements ILibraryObserver, AutoCloseable {
+    public static final long DEFAULT_MAX_FILE_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_BACKUPS = 5;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final Set<LibraryEvent.EventType> loggedTypes;
+    private final long maxFileBytes;
+    private final int maxBackups;
+    private final long flushIntervalNanos;
+    private final int queueCapacity;
+    private final Queue<LibraryEvent> queue;
+    private final AtomicInteger queued; // Events in the queue; bounds it without a lock
+    private final AtomicInteger producers; // Producers that passed the closed check but may not have enqueued yet
+    private final AtomicLong droppedEvents;
+    private final AtomicLong writtenEvents;
+    private final AtomicLong writeFailures;
+    private final Thread writer;
+    private volatile Consumer<IOException> failureHandler;
+    private volatile boolean closed;
+
+    // Only touched by the writer thread
+    private final StringBuilder line;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    private FileChannel channel;
+    private long fileBytes;
+    private int bufferedEvents; // Encoded into the buffer but not yet written
+    private long cachedSecond;
+    private String cachedSecondText;
+
+    public AsyncFileLoggerObserver(Path file) {
+        this(file, EnumSet.allOf(LibraryEvent.EventType.class), DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_BACKUPS,
+                DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Opens (or appends to) the log file and starts the writer thread.
+     * @param file The log file; backups are written next to it as file.1, file.2, ...
+     * @param loggedTypes The event types to log; subjects do not even build the other events.
+     * @param maxFileBytes The size at which the file is rolled over.
+     * @param maxBackups The number of rolled-over files to keep.
+     * @param flushIntervalMillis How often queued events are written to the file.
+     * @param queueCapacity The number of events that may wait for the writer before new ones are dropped.
+     */
+    public AsyncFileLoggerObserver(Path file, Set<LibraryEvent.EventType> loggedTypes, long maxFileBytes, int maxBackups,
+                                   long flushIntervalMillis, int queueCapacity) {
+        if (file == null) {
+            throw new IllegalArgumentException("Log file can not be null.");
+        }
+        if (loggedTypes == null) {
+            throw new IllegalArgumentException("Logged event types can not be null.");
+        }
+        if (maxFileBytes <= 0) {
+            throw new IllegalArgumentException("Maximum file size must be a positive value.");
+        }
+        if (maxBackups < 0) {
+            throw new IllegalArgumentException("Number of backups can not be negative.");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be a positive value.");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be a positive value.");
+        }
+        this.file = file;
+        this.loggedTypes = loggedTypes.isEmpty()
+                ? EnumSet.noneOf(LibraryEvent.EventType.class)
+                : EnumSet.copyOf(loggedTypes);
+        this.maxFileBytes = maxFileBytes;
+        this.maxBackups = maxBackups;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.queueCapacity = queueCapacity;
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.queued = new AtomicInteger();
+        this.producers = new AtomicInteger();
+        this.droppedEvents = new AtomicLong();
+        this.writtenEvents = new AtomicLong();
+        this.writeFailures = new AtomicLong();
+        this.line = new StringBuilder(256);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.cachedSecond = Long.MIN_VALUE;
+        try {
+            openChannel();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open log file " + file, e);
+        }
+        this.writer = new Thread(this::run, "file-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean isInterestedIn(LibraryEvent.EventType type) {
+        return loggedTypes.contains(type);
+    }
+
+    @Override
+    public void update(LibraryEvent event) {
+        producers.incrementAndGet(); // Keeps the writer from closing the file until this event is enqueued
+        try {
+            if (closed) {
+                droppedEvents.incrementAndGet();
+                return;
+            }
+            if (queued.incrementAndGet() > queueCapacity) {
+                queued.decrementAndGet();
+                droppedEvents.incrementAndGet();
+                return;
+            }
+            queue.offer(event);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void updateBatch(List<LibraryEvent> events) {
+        for (LibraryEvent event : events) {
+            update(event);
+        }
+    }
+
+    /**
+     * Returns the number of events that were dropped because the queue was full, the logger was closed or
+     * their write failed.
+     * @return The dropped event count.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+
+    /**
+     * Returns the number of times writing, rolling over or closing the file failed.
+     * @return The write failure count.
+     */
+    public long getWriteFailureCount() {
+        return writeFailures.get();
+    }
+
+    /**
+     * Sets a callback for failed writes. It runs on the writer thread; without one, failures are only counted.
+     * @param failureHandler The callback, or null to only count failures.
+     */
+    public void setFailureHandler(Consumer<IOException> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Stops accepting events, writes everything already queued, forces the file to disk and closes it.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            drain();
+        }
+        // Once closed is seen, any producer that still increments will see it too and drop its event.
+        do {
+            drain(); // Events queued before close
+        } while (producers.get() > 0 || !queue.isEmpty());
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            reportFailure(e);
+        }
+    }
+
+    private void drain() {
+        LibraryEvent event = null;
+        try {
+            while ((event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                format(event);
+                encodeLine();
+                bufferedEvents++;
+            }
+            writeBuffer();
+        } catch (IOException | RuntimeException e) {
+            // A failing write must not stop the writer; the events still in the buffer are lost.
+            buffer.clear();
+            droppedEvents.addAndGet(bufferedEvents + (event != null ? 1 : 0));
+            bufferedEvents = 0;
+            reportFailure(e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+    }
+
+    private void reportFailure(IOException failure) {
+        writeFailures.incrementAndGet();
+        Consumer<IOException> handler = failureHandler;
+        if (handler != null) {
+            try {
+                handler.accept(failure);
+            } catch (RuntimeException ignored) {
+                // The handler is best effort; it must not kill the writer either.
+            }
+        }
+    }
+
+    /**
+     * Formats an event into the reusable line buffer, in the same layout as LoggerObserver.
+     */
+    private void format(LibraryEvent event) {
+        line.setLength(0);
+        long epochNanos = event.getEpochNanos();
+        appendTimestamp(epochNanos);
+        switch (event.getType()) {
+            case ERROR:
+                line.append(" [ERROR] ");
+                break;
+            case WARNING:
+                line.append(" [WARNING] ");
+                break;
+            default:
+                line.append(" [INFO] ");
+                break;
+        }
+        line.append('[').append(event.getType().name()).append("] ").append(event.getMessage());
+        Map<String, String> details = event.getDetails();
+        if (!details.isEmpty()) {
+            line.append(" Details: {");
+            boolean first = true;
+            for (Map.Entry<String, String> detail : details.entrySet()) {
+                if (!first) {
+                    line.append(", ");
+                }
+                line.append(detail.getKey()).append('=').append(detail.getValue());
+                first = false;
+            }
+            line.append('}');
+        }
+        line.append('\n');
+    }
+
+    /**
+     * Appends an ISO local date-time with milliseconds. The date and time down to the second are only
+     * formatted when the second changes, which under load is once per thousands of events.
+     */
+    private void appendTimestamp(long epochNanos) {
+        long second = Math.floorDiv(epochNanos, 1_000_000_000L);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault()).toString();
+            if (cachedSecondText.length() == 16) {
+                cachedSecondText += ":00"; // LocalDateTime.toString omits zero seconds
+            }
+        }
+        int millis = (int) (Math.floorMod(epochNanos, 1_000_000_000L) / 1_000_000);
+        line.append(cachedSecondText).append('.');
+        if (millis < 100) {
+            line.append('0');
+        }
+        if (millis < 10) {
+            line.append('0');
+        }
+        line.append(millis);
+    }
+
+    private void encodeLine() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                writeBuffer();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        if (!channel.isOpen()) {
+            openChannel(); // A rollover failed to reopen the file
+        }
+        if (buffer.hasRemaining() && fileBytes > 0 && fileBytes + buffer.remaining() > maxFileBytes) {
+            try {
+                rollOver();
+            } catch (IOException e) {
+                reportFailure(e); // The events still go to the current file
+            }
+        }
+        while (buffer.hasRemaining()) {
+            fileBytes += channel.write(buffer);
+        }
+        buffer.clear();
+        writtenEvents.addAndGet(bufferedEvents);
+        bufferedEvents = 0;
+    }
+
+    /**
+     * Shifts file.(n-1) to file.n and so on, moves the current file to file.1 and starts a new one.
+     * If a move fails, the current file is reopened and keeps growing until the next rollover succeeds.
+     */
+    private void rollOver() throws IOException {
+        channel.close();
+        try {
+            if (maxBackups == 0) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.deleteIfExists(backup(maxBackups));
+                for (int i = maxBackups - 1; i >= 1; i--) {
+                    if (Files.exists(backup(i))) {
+                        Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            openChannel();
+        }
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openChannel() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+    }
+}
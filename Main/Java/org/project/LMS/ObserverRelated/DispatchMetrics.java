@@ -0,0 +1,37 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import Main.Java.org.project.LMS.MetricsRelated.LatencyHistogram;
+import Main.Java.org.project.LMS.MetricsRelated.MetricsRegistry;
+
+/**
+ * Per-observer dispatch latency, shared by the dispatchers. The histogram of an observer class is
+ * looked up once and then cached on the class itself, so timing a delivery costs no map lookup.
+ */
+final class DispatchMetrics {
+    private static final ClassValue<LatencyHistogram> LATENCY = new ClassValue<>() {
+        @Override
+        protected LatencyHistogram computeValue(Class<?> type) {
+            return MetricsRegistry.getDefault().histogram("lms_observer_dispatch_duration_seconds",
+                    "Time spent in one observer's update or updateBatch call.", "observer", observerName(type));
+        }
+    };
+
+    private DispatchMetrics() {
+    }
+
+    static LatencyHistogram latencyOf(ILibraryObserver observer) {
+        return LATENCY.get(observer.getClass());
+    }
+
+    /**
+     * Lambdas get a new hidden class name per run; they are reported under their declaring class instead.
+     */
+    private static String observerName(Class<?> type) {
+        String name = type.getName();
+        int lambda = name.indexOf("$$Lambda");
+        if (lambda >= 0) {
+            name = name.substring(0, lambda) + "$$Lambda";
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
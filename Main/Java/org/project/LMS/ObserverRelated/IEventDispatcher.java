@@ -0,0 +1,19 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import java.util.List;
+
+/**
+ * Defines the contract for delivering library events from a subject to its observers.
+ * Subjects hand every event to their dispatcher, which decides on which thread and in which
+ * grouping the observers are invoked. Events from one subject must reach each observer in the
+ * order they were dispatched.
+ */
+public interface IEventDispatcher {
+    /**
+     * Delivers an event to the given observers.
+     * @param subject The subject that produced the event.
+     * @param observers The observers registered with the subject.
+     * @param event The LibraryEvent to deliver.
+     */
+    void dispatch(ILibrarySubject subject, List<ILibraryObserver> observers, LibraryEvent event);
+}
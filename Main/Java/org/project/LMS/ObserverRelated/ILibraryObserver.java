@@ -1,5 +1,7 @@
 package Main.Java.org.project.LMS.ObserverRelated;
 
+import java.util.List;
+
 /**
  * Defines the contract for an observer that reacts to library events.
  * Any class implementing this interface can register to receive notifications
@@ -11,4 +13,26 @@ public interface ILibraryObserver {
      * @param event The LibraryEvent object containing details about the event.
      */
     void update(LibraryEvent event);
+
+    /**
+     * Tells subjects whether this observer wants events of the given type at all.
+     * Subjects skip building events that no observer is interested in.
+     * The answer must not change while the observer is registered.
+     * @param type The event type.
+     * @return true if the observer should receive events of this type.
+     */
+    default boolean isInterestedIn(LibraryEvent.EventType type) {
+        return true;
+    }
+
+    /**
+     * Called by batching dispatchers with several events at once, in the order they occurred.
+     * Observers that can process events more cheaply in bulk may override this.
+     * @param events The LibraryEvent objects to process.
+     */
+    default void updateBatch(List<LibraryEvent> events) {
+        for (LibraryEvent event : events) {
+            update(event);
+        }
+    }
 }
\ No newline at end of file
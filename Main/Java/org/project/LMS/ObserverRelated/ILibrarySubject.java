@@ -22,4 +22,15 @@ public interface ILibrarySubject {
      * @param event The LibraryEvent to send to observers.
      */
     void notifyObservers(LibraryEvent event);
+
+    /**
+     * Replaces the dispatcher used to deliver events to observers.
+     * Subjects start with the {@link SynchronousEventDispatcher}. The default is for subjects that
+     * always notify their observers directly and can not switch dispatchers.
+     * @param dispatcher The IEventDispatcher to use.
+     * @throws UnsupportedOperationException if the subject does not support other dispatchers.
+     */
+    default void setEventDispatcher(IEventDispatcher dispatcher) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " always delivers events synchronously.");
+    }
 }
\ No newline at end of file
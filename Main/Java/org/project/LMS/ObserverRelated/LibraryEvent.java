@@ -1,26 +1,47 @@
 package Main.Java.org.project.LMS.ObserverRelated;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap; // Import HashMap
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Represents a generic event that occurs within the library system.
  * This class serves as a base for more specific event types, providing
  * common attributes like event type, timestamp, and a map for additional details.
+ * Events created through {@link #lazy(EventType, Supplier, String...)} only format their message
+ * and build their details map when an observer actually asks for them.
  */
 public class LibraryEvent {
     public enum EventType {
         BOOK_ADDED, BOOK_REMOVED, BOOK_UPDATED, BOOK_CHECKED_OUT, BOOK_RETURNED,
+        BOOK_RESERVED, HOLD_EXPIRED, OVERDUE,
         PATRON_ADDED, PATRON_UPDATED,
-        ERROR, INFO, WARNING
+        BOOKS_BULK_ADDED, PATRONS_BULK_ADDED, BOOKS_BULK_UPDATED,
+        BATCH_CHECKED_OUT, BATCH_RETURNED,
+        ERROR, INFO, WARNING;
+
+        /**
+         * Returns the bit that represents this type in an interest mask.
+         * @return A long with exactly one bit set.
+         */
+        public long mask() {
+            return 1L << ordinal();
+        }
     }
 
     private final EventType type;
-    private final LocalDateTime timestamp;
-    private final String message;
-    private final Map<String, String> details; // For additional contextual information
+    private final long epochNanos;
+    private final String[] detailPairs; // Alternating keys and values, turned into a map on demand
+    private final Supplier<String> messageSupplier;
+    private volatile String message;
+    private volatile Map<String, String> details; // For additional contextual information
+    private volatile LocalDateTime timestamp;
 
     public LibraryEvent(EventType type, String message, Map<String, String> details) {
         if (type == null) {
@@ -31,9 +52,11 @@ public class LibraryEvent {
         }
 
         this.type = type;
-        this.timestamp = LocalDateTime.now();
+        this.epochNanos = currentEpochNanos();
         // Create a new HashMap if details are provided, otherwise empty map.
         this.details = details != null ? Collections.unmodifiableMap(new HashMap<>(details)) : Collections.emptyMap();
+        this.detailPairs = null;
+        this.messageSupplier = null;
         this.message = message;
     }
 
@@ -41,31 +64,150 @@ public class LibraryEvent {
         this(type, message, null);
     }
 
+    private LibraryEvent(EventType type, Supplier<String> messageSupplier, String[] detailPairs) {
+        this.type = type;
+        this.epochNanos = currentEpochNanos();
+        this.messageSupplier = messageSupplier;
+        this.detailPairs = detailPairs;
+    }
+
+    /**
+     * Creates an event whose message and details map are materialized on first access.
+     * The supplier must only read values that do not change afterwards.
+     * @param type The event type.
+     * @param messageSupplier Produces the human-readable message.
+     * @param detailPairs Alternating detail keys and values, e.g. "ISBN", isbn, "Title", title.
+     * @return The new LibraryEvent.
+     */
+    public static LibraryEvent lazy(EventType type, Supplier<String> messageSupplier, String... detailPairs) {
+        if (type == null) {
+            throw new IllegalArgumentException("Event type can not be null.");
+        }
+        if (messageSupplier == null) {
+            throw new IllegalArgumentException("Event message can not be null or empty.");
+        }
+        if (detailPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Event details must be given as key/value pairs.");
+        }
+        return new LibraryEvent(type, messageSupplier, detailPairs);
+    }
+
+    /**
+     * Computes the interest mask of a set of observers: the union of the bits of every event type
+     * at least one of them is interested in.
+     * @param observers The observers to inspect.
+     * @return The combined interest mask.
+     */
+    public static long interestMaskOf(List<ILibraryObserver> observers) {
+        long mask = 0L;
+        for (ILibraryObserver observer : observers) {
+            for (EventType type : EventType.values()) {
+                if (observer.isInterestedIn(type)) {
+                    mask |= type.mask();
+                }
+            }
+        }
+        return mask;
+    }
+
     public EventType getType() {
         return type;
     }
 
     public LocalDateTime getTimestamp() {
-        return timestamp;
+        LocalDateTime result = timestamp;
+        if (result == null) {
+            Instant instant = Instant.ofEpochSecond(0L, epochNanos);
+            result = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+            timestamp = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the time the event was created, in nanoseconds since the epoch.
+     * @return The timestamp as epoch nanoseconds.
+     */
+    public long getEpochNanos() {
+        return epochNanos;
     }
 
     public String getMessage() {
-        return message;
+        String result = message;
+        if (result == null) {
+            result = messageSupplier.get();
+            message = result; // Concurrent readers may both format it; the results are identical
+        }
+        return result;
     }
 
     public Map<String, String> getDetails() {
-        return details;
+        Map<String, String> result = details;
+        if (result == null) {
+            if (detailPairs.length == 0) {
+                result = Collections.emptyMap();
+            } else {
+                Map<String, String> map = new HashMap<>();
+                for (int i = 0; i < detailPairs.length; i += 2) {
+                    map.put(detailPairs[i], detailPairs[i + 1]);
+                }
+                result = Collections.unmodifiableMap(map);
+            }
+            details = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a single detail value without materializing the whole details map.
+     * @param key The detail key.
+     * @return The value, or null if the event has no such detail.
+     */
+    public String getDetail(String key) {
+        if (detailPairs == null || details != null) {
+            return getDetails().get(key);
+        }
+        for (int i = 0; i < detailPairs.length; i += 2) {
+            if (detailPairs[i].equals(key)) {
+                return detailPairs[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Passes every detail key and value to the given action without materializing the details map.
+     * @param action The action to run for each detail.
+     */
+    public void forEachDetail(BiConsumer<String, String> action) {
+        if (detailPairs == null) {
+            getDetails().forEach(action);
+            return;
+        }
+        for (int i = 0; i < detailPairs.length; i += 2) {
+            action.accept(detailPairs[i], detailPairs[i + 1]);
+        }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("[").append(timestamp.format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("]");
+        sb.append("[").append(getTimestamp().format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("]");
         sb.append(" [").append(type).append("] ");
-        sb.append(message);
+        sb.append(getMessage());
+        Map<String, String> details = getDetails();
         if (!details.isEmpty()) {
             sb.append(" Details: ").append(details);
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the wall clock, so timestamps follow clock adjustments instead of drifting with the monotonic clock.
+     * The Instant does not escape, so the JIT normally removes its allocation.
+     */
+    private static long currentEpochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+}
@@ -4,6 +4,8 @@ import Main.Java.org.project.LMS.BookRelated.*;
 import Main.Java.org.project.LMS.LendingManager.*;
 import Main.Java.org.project.LMS.PatronRelated.*;
 
+import java.util.List;
+
 public class LibraryService {
     private final IBookRepository bookRepository;
     private final IPatronRepository patronRepository;
@@ -31,4 +33,32 @@ public class LibraryService {
         IPatron newPatron = patronFactory.createPatron(patronId, name, contactInfo);
         patronRepository.addPatron(newPatron);
     }
-}
\ No newline at end of file
+
+    public boolean checkoutBook(String ISBN, String patronId) {
+        return lendingManager.checkoutBook(ISBN, patronId);
+    }
+
+    public boolean returnBook(String ISBN, String patronId) {
+        return lendingManager.returnBook(ISBN, patronId);
+    }
+
+    public boolean returnBook(String ISBN) {
+        return lendingManager.returnBook(ISBN);
+    }
+
+    public String getCurrentBorrower(String ISBN) {
+        return lendingManager.getCurrentBorrower(ISBN);
+    }
+
+    public IBook findBook(String ISBN) {
+        return bookRepository.getBookByISBN(ISBN);
+    }
+
+    public IPatron findPatron(String patronId) {
+        return patronRepository.getPatronById(patronId);
+    }
+
+    public List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        return bookRepository.searchBooks(query, searchBy, limit);
+    }
+}
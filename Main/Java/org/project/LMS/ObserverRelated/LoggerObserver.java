@@ -1,10 +1,37 @@
 package Main.Java.org.project.LMS.ObserverRelated;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * A concrete observer that logs library events to the console.
  * This demonstrates a simple logging mechanism using the Observer pattern.
+ * It can be limited to a subset of event types, in which case subjects do not even build the other events.
  */
 public class LoggerObserver implements ILibraryObserver {
+    private final Set<LibraryEvent.EventType> loggedTypes;
+
+    public LoggerObserver() {
+        this(EnumSet.allOf(LibraryEvent.EventType.class));
+    }
+
+    /**
+     * Creates a logger that only logs the given event types.
+     * @param loggedTypes The event types to log.
+     */
+    public LoggerObserver(Set<LibraryEvent.EventType> loggedTypes) {
+        if (loggedTypes == null) {
+            throw new IllegalArgumentException("Logged event types can not be null.");
+        }
+        this.loggedTypes = loggedTypes.isEmpty()
+                ? EnumSet.noneOf(LibraryEvent.EventType.class)
+                : EnumSet.copyOf(loggedTypes);
+    }
+
+    @Override
+    public boolean isInterestedIn(LibraryEvent.EventType type) {
+        return loggedTypes.contains(type);
+    }
 
     @Override
     public void update(LibraryEvent event) {
@@ -20,4 +47,4 @@ public class LoggerObserver implements ILibraryObserver {
                 break;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import java.util.List;
+
+/**
+ * The default dispatcher: invokes every observer directly on the caller's thread.
+ * Exceptions thrown by an observer propagate to the caller, as they always have.
+ */
+public class SynchronousEventDispatcher implements IEventDispatcher {
+    public static final SynchronousEventDispatcher INSTANCE = new SynchronousEventDispatcher();
+
+    @Override
+    public void dispatch(ILibrarySubject subject, List<ILibraryObserver> observers, LibraryEvent event) {
+        for (ILibraryObserver observer : observers) {
+            if (observer.isInterestedIn(event.getType())) {
+                long start = System.nanoTime();
+                observer.update(event);
+                DispatchMetrics.latencyOf(observer).recordSince(start);
+            }
+        }
+    }
+}
@@ -4,7 +4,9 @@ import Main.Java.org.project.LMS.BookRelated.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects; // For Objects.hash()
 
 /**
@@ -14,8 +16,9 @@ import java.util.Objects; // For Objects.hash()
 public class ConcretePatron implements IPatron {
     private String patronId; // Unique identifier for the patron
     private String name;
-    private String contactInfo;
-    private List<IBook> borrowedBooks; // List of books currently borrowed by this patron
+    private volatile String contactInfo;
+    private final Map<String, IBook> borrowedBooks; // Books currently borrowed, keyed by ISBN in borrowing order; guarded by this
+    private volatile List<IBook> borrowedSnapshot; // Cached result of getBorrowedBooks(), or null after a change
 
     /**
      * Constructor to create a new ConcretePatron instance.
@@ -39,7 +42,8 @@ public class ConcretePatron implements IPatron {
         this.patronId = patronId;
         this.name = name;
         this.contactInfo = contactInfo;
-        this.borrowedBooks = new ArrayList<>(); // Initialize an empty list for borrowed books
+        this.borrowedBooks = new LinkedHashMap<>(); // Initialize an empty map for borrowed books
+        this.borrowedSnapshot = Collections.emptyList();
     }
 
     @Override
@@ -65,32 +69,49 @@ public class ConcretePatron implements IPatron {
         this.contactInfo = contactInfo;
     }
 
+    /**
+     * Returns a snapshot of the borrowed books. The snapshot is built once per change and shared between calls,
+     * so repeated reads do not copy the list.
+     */
     @Override
     public List<IBook> getBorrowedBooks() {
-        // Return an unmodifiable list to prevent external modification of the patron's borrowed books list
-        return Collections.unmodifiableList(borrowedBooks);
+        List<IBook> snapshot = borrowedSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (borrowedSnapshot == null) {
+                borrowedSnapshot = Collections.unmodifiableList(new ArrayList<>(borrowedBooks.values()));
+            }
+            return borrowedSnapshot;
+        }
+    }
+
+    @Override
+    public synchronized boolean hasBorrowed(String ISBN) {
+        return ISBN != null && borrowedBooks.containsKey(ISBN);
     }
 
     @Override
-    public void borrowBook(IBook book) {
+    public synchronized void borrowBook(IBook book) {
         if (book == null) {
             throw new IllegalArgumentException("Can not borrow a null book.");
         }
-        if (borrowedBooks.contains(book)) {
+        if (borrowedBooks.putIfAbsent(book.getISBN(), book) != null) {
             throw new IllegalArgumentException("Patron " + name + " (ID: " + patronId + ") has already borrowed book: " + book.getTitle());
         }
-        this.borrowedBooks.add(book);
+        borrowedSnapshot = null;
     }
 
     @Override
-    public void returnBook(IBook book) {
+    public synchronized void returnBook(IBook book) {
         if (book == null) {
             throw new IllegalArgumentException("Can not return a null book.");
         }
-        if (!borrowedBooks.contains(book)) {
+        if (borrowedBooks.remove(book.getISBN()) == null) {
             throw new IllegalArgumentException("Patron " + name + " (ID: " + patronId + ") did not borrow book: " + book.getTitle());
         }
-        this.borrowedBooks.remove(book);
+        borrowedSnapshot = null;
     }
 
     /**
@@ -98,7 +119,7 @@ public class ConcretePatron implements IPatron {
      * @return A string representation of the patron.
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Patron [ID=" + patronId + ", Name=" + name + ", Contact=" + contactInfo +
                 ", BorrowedBooksCount=" + borrowedBooks.size() + "]";
     }
@@ -31,11 +31,25 @@ public interface IPatron {
     void setContactInfo(String contactInfo); // Allowing updates to contact info
 
     /**
-     * Returns an unmodifiable list of books currently borrowed by this patron.
+     * Returns an unmodifiable snapshot of the books currently borrowed by this patron.
      * @return A List of IBook objects currently borrowed.
      */
     List<IBook> getBorrowedBooks();
 
+    /**
+     * Checks whether the patron currently has the book with the given ISBN.
+     * @param ISBN The ISBN to look for.
+     * @return true if the patron has borrowed it and not returned it yet.
+     */
+    default boolean hasBorrowed(String ISBN) {
+        for (IBook book : getBorrowedBooks()) {
+            if (book.getISBN().equals(ISBN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Records that the patron has borrowed a specific book.
      * @param book The IBook object that the patron is borrowing.
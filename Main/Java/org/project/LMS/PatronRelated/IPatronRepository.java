@@ -1,6 +1,15 @@
 package Main.Java.org.project.LMS.PatronRelated;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface IPatronRepository {
 
@@ -30,4 +39,76 @@ public interface IPatronRepository {
      * @return An unmodifiable List of all IPatron objects.
      */
     List<IPatron> getAllPatrons();
-}
\ No newline at end of file
+
+    /**
+     * Searches for patrons by name or contact information. The default scans {@link #stream()};
+     * implementations with indexes override it.
+     * @param query The search term (e.g., a name prefix or an email address).
+     * @param searchBy The criteria for searching (e.g., BY_NAME_PREFIX, BY_NAME, BY_CONTACT).
+     * @return A List of IPatron objects matching the search criteria. Returns an empty list if no matches.
+     */
+    default List<IPatron> searchPatrons(String query, PatronSearchType searchBy) {
+        if (query == null || query.trim().isEmpty() || searchBy == null) {
+            return Collections.emptyList();
+        }
+        return stream().filter(patron -> searchBy.matches(patron, query)).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Adds many patrons at once. Implementations may validate the whole batch first and report it
+     * with a single event instead of one per patron; the default simply adds them one by one.
+     * @param patrons The IPatron objects to add.
+     * @throws IllegalArgumentException if any patron is null or its ID is duplicated or already exists.
+     */
+    default void addPatrons(Collection<? extends IPatron> patrons) {
+        if (patrons == null) {
+            throw new IllegalArgumentException("Patrons can not be null.");
+        }
+        for (IPatron patron : patrons) {
+            addPatron(patron);
+        }
+    }
+
+    /**
+     * Returns one page of patrons in ID order, for cursor-based pagination.
+     * Pass null to get the first page and the ID of the last patron of a page to get the next one.
+     * @param afterPatronId The ID the page starts after (exclusive), or null to start at the beginning.
+     * @param limit The maximum number of patrons to return.
+     * @return An unmodifiable List of at most limit patrons with IDs greater than afterPatronId, in ID order.
+     */
+    default List<IPatron> page(String afterPatronId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be a positive value.");
+        }
+        Comparator<IPatron> byId = Comparator.comparing(IPatron::getPatronId);
+        PriorityQueue<IPatron> smallest = new PriorityQueue<>(Math.min(limit, 1024) + 1, byId.reversed()); // Max-heap of the best candidates
+        stream().forEach(patron -> {
+            if (afterPatronId == null || patron.getPatronId().compareTo(afterPatronId) > 0) {
+                smallest.add(patron);
+                if (smallest.size() > limit) {
+                    smallest.poll();
+                }
+            }
+        });
+        List<IPatron> page = new ArrayList<>(smallest);
+        page.sort(byId);
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * Returns a spliterator over all patrons. The default spliterates {@link #getAllPatrons()};
+     * implementations override it to walk their live storage without a copy.
+     * @return A Spliterator of all patrons.
+     */
+    default Spliterator<IPatron> spliterator() {
+        return getAllPatrons().spliterator();
+    }
+
+    /**
+     * Returns a lazily evaluated stream over all patrons, backed by {@link #spliterator()}.
+     * @return A Stream of all patrons.
+     */
+    default Stream<IPatron> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
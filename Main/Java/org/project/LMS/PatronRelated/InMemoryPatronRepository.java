@@ -1,101 +1,208 @@
 package Main.Java.org.project.LMS.PatronRelated;
 
+import Main.Java.org.project.LMS.IndexRelated.NGramIndex;
+import Main.Java.org.project.LMS.MetricsRelated.MetricsRegistry;
+import Main.Java.org.project.LMS.MetricsRelated.OperationMetrics;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
 import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
 import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
 import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.ObserverRelated.SynchronousEventDispatcher;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class InMemoryPatronRepository implements IPatronRepository, ILibrarySubject { // Implement ILibrarySubject
+    private static final OperationMetrics ADD_PATRON_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "addPatron");
+    private static final OperationMetrics UPDATE_PATRON_METRICS = new OperationMetrics(MetricsRegistry.getDefault(), "updatePatron");
+    private static final OperationMetrics[] SEARCH_METRICS = new OperationMetrics[PatronSearchType.values().length];
+
+    static {
+        for (PatronSearchType type : PatronSearchType.values()) {
+            SEARCH_METRICS[type.ordinal()] = new OperationMetrics(MetricsRegistry.getDefault(), "searchPatrons", "search_type", type.name());
+        }
+    }
+
     private final Map<String, IPatron> patrons;
     private final List<ILibraryObserver> observers; // List to hold observers
+    private volatile IEventDispatcher eventDispatcher;
+    private volatile long interestMask; // One bit per EventType that at least one observer wants
+    private final NavigableSet<String> patronIdOrder; // Sorted IDs backing cursor pagination
+    private final NavigableMap<String, Set<String>> nameKeys; // Lower-cased name from each word on -> IDs, backing BY_NAME_PREFIX searches
+    private final NGramIndex nameIndex; // Trigram index backing BY_NAME searches
+    private final Map<String, Set<String>> contactIndex; // Normalized contact -> IDs, backing BY_CONTACT searches
+    private final Map<String, IndexedFields> indexedFields; // The name and contact each patron is filed under
 
     public InMemoryPatronRepository() {
         this.patrons = new ConcurrentHashMap<>();
         this.observers = new CopyOnWriteArrayList<>(); // Initialize observers list
+        this.eventDispatcher = SynchronousEventDispatcher.INSTANCE;
+        this.patronIdOrder = new ConcurrentSkipListSet<>();
+        this.nameKeys = new ConcurrentSkipListMap<>();
+        this.nameIndex = new NGramIndex();
+        this.contactIndex = new ConcurrentHashMap<>();
+        this.indexedFields = new ConcurrentHashMap<>();
     }
 
     @Override
-    public void addObserver(ILibraryObserver observer) {
+    public synchronized void addObserver(ILibraryObserver observer) {
         if (observer == null) {
             throw new IllegalArgumentException("Observer cannot be null.");
         }
         observers.add(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
     }
 
     @Override
-    public void removeObserver(ILibraryObserver observer) {
+    public synchronized void removeObserver(ILibraryObserver observer) {
         observers.remove(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
     }
 
     @Override
     public void notifyObservers(LibraryEvent event) {
-        for (ILibraryObserver observer : observers) {
-            observer.update(event);
+        eventDispatcher.dispatch(this, observers, event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        if (eventDispatcher == null) {
+            throw new IllegalArgumentException("Event dispatcher can not be null.");
         }
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Checks whether any observer wants events of the given type, so callers can skip building events nobody reads.
+     */
+    private boolean hasSubscribers(LibraryEvent.EventType type) {
+        return (interestMask & type.mask()) != 0;
     }
 
     @Override
     public void addPatron(IPatron patron) {
+        long start = System.nanoTime();
+        boolean added = false;
+        try {
+            insertPatron(patron);
+            added = true;
+        } finally {
+            ADD_PATRON_METRICS.record(start, added);
+        }
+    }
+
+    private void insertPatron(IPatron patron) {
         if (patron == null) {
             throw new IllegalArgumentException("Can not add a null patron.");
         }
         if (patrons.containsKey(patron.getPatronId())) {
-            Map<String, String> details = new HashMap<>();
-            details.put("PatronID", patron.getPatronId());
-            details.put("Name", patron.getName());
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Patron with ID " + patron.getPatronId() + " already exists.",
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Patron with ID " + patron.getPatronId() + " already exists.",
+                        "PatronID", patron.getPatronId(),
+                        "Name", patron.getName()
+                ));
+            }
             throw new IllegalArgumentException("Patron with ID " + patron.getPatronId() + " already exists.");
         }
         patrons.put(patron.getPatronId(), patron);
+        patronIdOrder.add(patron.getPatronId());
+        reindex(patron.getPatronId());
         // Notify observers about the patron addition
-        Map<String, String> details = new HashMap<>();
-        details.put("PatronID", patron.getPatronId());
-        details.put("Name", patron.getName());
-        details.put("Contact", patron.getContactInfo());
-        LibraryEvent event = new LibraryEvent(
-                LibraryEvent.EventType.PATRON_ADDED,
-                "Patron added: " + patron.getName() + " (ID: " + patron.getPatronId() + ")",
-                details
-        );
-        notifyObservers(event);
+        if (hasSubscribers(LibraryEvent.EventType.PATRON_ADDED)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.PATRON_ADDED,
+                    () -> "Patron added: " + patron.getName() + " (ID: " + patron.getPatronId() + ")",
+                    "PatronID", patron.getPatronId(),
+                    "Name", patron.getName(),
+                    "Contact", patron.getContactInfo()
+            ));
+        }
+    }
+
+    /**
+     * Validates the whole batch before adding anything, then adds it with a single PATRONS_BULK_ADDED event.
+     */
+    @Override
+    public void addPatrons(Collection<? extends IPatron> newPatrons) {
+        if (newPatrons == null) {
+            throw new IllegalArgumentException("Patrons can not be null.");
+        }
+        Set<String> batchIds = new HashSet<>();
+        for (IPatron patron : newPatrons) {
+            if (patron == null) {
+                throw new IllegalArgumentException("Can not add a null patron.");
+            }
+            if (!batchIds.add(patron.getPatronId()) || patrons.containsKey(patron.getPatronId())) {
+                if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                    notifyObservers(LibraryEvent.lazy(
+                            LibraryEvent.EventType.ERROR,
+                            () -> "Bulk add rejected. Patron with ID " + patron.getPatronId() + " already exists.",
+                            "PatronID", patron.getPatronId(),
+                            "Name", patron.getName()
+                    ));
+                }
+                throw new IllegalArgumentException("Patron with ID " + patron.getPatronId() + " already exists.");
+            }
+        }
+        for (IPatron patron : newPatrons) {
+            patrons.put(patron.getPatronId(), patron);
+            patronIdOrder.add(patron.getPatronId());
+            reindex(patron.getPatronId());
+        }
+        if (hasSubscribers(LibraryEvent.EventType.PATRONS_BULK_ADDED)) {
+            int count = batchIds.size();
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.PATRONS_BULK_ADDED,
+                    () -> "Bulk added " + count + " patrons.",
+                    "Count", String.valueOf(count)
+            ));
+        }
     }
 
     @Override
     public void updatePatron(IPatron updatedPatron) {
+        long start = System.nanoTime();
+        boolean updated = false;
+        try {
+            replacePatron(updatedPatron);
+            updated = true;
+        } finally {
+            UPDATE_PATRON_METRICS.record(start, updated);
+        }
+    }
+
+    private void replacePatron(IPatron updatedPatron) {
         if (updatedPatron == null) {
             throw new IllegalArgumentException("Can not update with a null patron object.");
         }
         if (!patrons.containsKey(updatedPatron.getPatronId())) {
-            Map<String, String> details = new HashMap<>();
-            details.put("PatronID", updatedPatron.getPatronId());
-            LibraryEvent errorEvent = new LibraryEvent(
-                    LibraryEvent.EventType.ERROR,
-                    "Can not update patron. No patron found with ID: " + updatedPatron.getPatronId(),
-                    details
-            );
-            notifyObservers(errorEvent);
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Can not update patron. No patron found with ID: " + updatedPatron.getPatronId(),
+                        "PatronID", updatedPatron.getPatronId()
+                ));
+            }
             throw new IllegalArgumentException("Can not update patron. No patron found with ID: " + updatedPatron.getPatronId());
         }
         patrons.put(updatedPatron.getPatronId(), updatedPatron); // Replace the old object with the updated one
+        reindex(updatedPatron.getPatronId()); // Also picks up setContactInfo calls on the stored object itself
         // Notify observers about the patron update
-        Map<String, String> details = new HashMap<>();
-        details.put("PatronID", updatedPatron.getPatronId());
-        details.put("Name", updatedPatron.getName());
-        details.put("Contact", updatedPatron.getContactInfo());
-        LibraryEvent event = new LibraryEvent(
-                LibraryEvent.EventType.PATRON_UPDATED,
-                "Patron updated: " + updatedPatron.getName() + " (ID: " + updatedPatron.getPatronId() + "). New contact: " + updatedPatron.getContactInfo(),
-                details
-        );
-        notifyObservers(event);
+        if (hasSubscribers(LibraryEvent.EventType.PATRON_UPDATED)) {
+            String newContact = updatedPatron.getContactInfo(); // Captured now; the message is formatted later
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.PATRON_UPDATED,
+                    () -> "Patron updated: " + updatedPatron.getName() + " (ID: " + updatedPatron.getPatronId() + "). New contact: " + newContact,
+                    "PatronID", updatedPatron.getPatronId(),
+                    "Name", updatedPatron.getName(),
+                    "Contact", newContact
+            ));
+        }
     }
 
     @Override
@@ -110,4 +217,162 @@ public class InMemoryPatronRepository implements IPatronRepository, ILibrarySubj
     public List<IPatron> getAllPatrons() {
         return Collections.unmodifiableList(new ArrayList<>(patrons.values()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Answers prefix searches from the sorted name keys, substring searches from the trigram index and
+     * contact searches from the hash index. Candidates are verified against the patron's current fields,
+     * so a contact changed with setContactInfo stops matching at once but is only found under its new
+     * value after the patron is passed to updatePatron.
+     */
+    @Override
+    public List<IPatron> searchPatrons(String query, PatronSearchType searchBy) {
+        if (query == null || query.trim().isEmpty() || searchBy == null) {
+            return Collections.emptyList();
+        }
+        long start = System.nanoTime();
+        String lowerCaseQuery = query.toLowerCase();
+        Iterable<String> candidates;
+        if (searchBy == PatronSearchType.BY_NAME_PREFIX) {
+            // Every key starting with the prefix sorts between the prefix and the prefix followed by the largest char.
+            Set<String> ids = new LinkedHashSet<>(); // A patron may match through several of its words
+            for (Set<String> keyIds : nameKeys.subMap(lowerCaseQuery, true, lowerCaseQuery + Character.MAX_VALUE, false).values()) {
+                ids.addAll(keyIds);
+            }
+            candidates = ids;
+        } else if (searchBy == PatronSearchType.BY_NAME) {
+            candidates = nameIndex.candidates(lowerCaseQuery); // Null for queries shorter than a trigram
+        } else {
+            candidates = contactIndex.getOrDefault(PatronSearchType.normalizeContact(query), Collections.emptySet());
+        }
+
+        List<IPatron> results = new ArrayList<>();
+        if (candidates != null) {
+            for (String candidateId : candidates) {
+                IPatron patron = patrons.get(candidateId);
+                if (patron != null && searchBy.matches(patron, query)) {
+                    results.add(patron);
+                }
+            }
+        } else {
+            for (IPatron patron : patrons.values()) {
+                if (searchBy.matches(patron, query)) {
+                    results.add(patron);
+                }
+            }
+        }
+        // Notify observers about the search operation
+        if (hasSubscribers(LibraryEvent.EventType.INFO)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.INFO,
+                    () -> "Searched patrons for '" + query + "' by " + searchBy + ". Found " + results.size() + " results.",
+                    "Query", query,
+                    "SearchType", searchBy.name(),
+                    "ResultsCount", String.valueOf(results.size())
+            ));
+        }
+        SEARCH_METRICS[searchBy.ordinal()].record(start, true);
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Seeks to the cursor in the sorted ID set and reads only the requested page.
+     */
+    @Override
+    public List<IPatron> page(String afterPatronId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be a positive value.");
+        }
+        List<IPatron> page = new ArrayList<>(Math.min(limit, 1024));
+        for (String patronId : afterPatronId == null ? patronIdOrder : patronIdOrder.tailSet(afterPatronId, false)) {
+            IPatron patron = patrons.get(patronId);
+            if (patron != null) {
+                page.add(patron);
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * Spliterates the live map values; the spliterator is concurrent and splits by hash bins.
+     */
+    @Override
+    public Spliterator<IPatron> spliterator() {
+        return patrons.values().spliterator();
+    }
+
+    /**
+     * Returns the number of keys in the name, trigram and contact indexes, so tests can check that
+     * renamed patrons and changed contacts leave no keys behind.
+     */
+    int indexKeyCount() {
+        return nameKeys.size() + nameIndex.gramCount() + contactIndex.size();
+    }
+
+    /**
+     * Moves a patron's index entries from the name and contact it was filed under to those of the object
+     * currently stored. The compute call locks the patron's entry, so concurrent updates of one patron
+     * are applied one after the other and never leave it filed under two contacts.
+     */
+    private void reindex(String patronId) {
+        indexedFields.compute(patronId, (key, old) -> {
+            IPatron current = patrons.get(key);
+            IndexedFields next = current != null ? new IndexedFields(current.getName(), PatronSearchType.normalizeContact(current.getContactInfo())) : null;
+            String oldName = old != null ? old.name : null;
+            String newName = next != null ? next.name : null;
+            if (!Objects.equals(oldName, newName)) {
+                if (oldName != null) {
+                    nameIndex.remove(key, oldName);
+                    for (String nameKey : PatronSearchType.nameKeysOf(oldName)) {
+                        removePosting(nameKeys, nameKey, key);
+                    }
+                }
+                if (newName != null) {
+                    nameIndex.add(key, newName);
+                    for (String nameKey : PatronSearchType.nameKeysOf(newName)) {
+                        addPosting(nameKeys, nameKey, key);
+                    }
+                }
+            }
+            String oldContact = old != null ? old.contact : null;
+            String newContact = next != null ? next.contact : null;
+            if (!Objects.equals(oldContact, newContact)) {
+                if (oldContact != null) {
+                    removePosting(contactIndex, oldContact, key);
+                }
+                if (newContact != null) {
+                    addPosting(contactIndex, newContact, key);
+                }
+            }
+            return next;
+        });
+    }
+
+    private static void addPosting(Map<String, Set<String>> index, String indexKey, String patronId) {
+        index.compute(indexKey, (k, ids) -> {
+            Set<String> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            target.add(patronId);
+            return target;
+        });
+    }
+
+    private static void removePosting(Map<String, Set<String>> index, String indexKey, String patronId) {
+        // Drop the posting set entirely once it is empty so old names and contacts do not leak keys.
+        index.computeIfPresent(indexKey, (k, ids) -> {
+            ids.remove(patronId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static final class IndexedFields {
+        final String name;
+        final String contact; // Normalized
+
+        IndexedFields(String name, String contact) {
+            this.name = name;
+            this.contact = contact;
+        }
+    }
+}
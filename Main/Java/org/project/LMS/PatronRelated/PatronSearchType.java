@@ -0,0 +1,79 @@
+package Main.Java.org.project.LMS.PatronRelated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defines the criteria by which patrons can be searched in the library system.
+ */
+public enum PatronSearchType {
+    BY_NAME_PREFIX, // Case-insensitive prefix of the full name or of any word in it (e.g., "smi" finds "John Smith")
+    BY_NAME,        // Case-insensitive substring of the name
+    BY_CONTACT;     // Exact contact information, compared after normalization
+
+    /**
+     * Checks whether a patron matches a query under this search type. Repositories with indexes use this
+     * to verify their candidates; the others use it to scan.
+     * @param patron The patron to check.
+     * @param query The search term.
+     * @return true if the patron matches.
+     */
+    public boolean matches(IPatron patron, String query) {
+        switch (this) {
+            case BY_NAME_PREFIX:
+                String lowerCasePrefix = query.toLowerCase();
+                for (String key : nameKeysOf(patron.getName())) {
+                    if (key.startsWith(lowerCasePrefix)) {
+                        return true;
+                    }
+                }
+                return false;
+            case BY_NAME:
+                return patron.getName().toLowerCase().contains(query.toLowerCase());
+            case BY_CONTACT:
+                return normalizeContact(patron.getContactInfo()).equals(normalizeContact(query));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Normalizes contact information so that equivalent spellings compare equal: surrounding whitespace is
+     * dropped and case is ignored, and phone numbers (anything without an '@') keep only their digits and a leading '+'.
+     * @param contactInfo The contact information, e.g. "Jane@Example.com" or "+1 (555) 010-2030".
+     * @return The normalized form, e.g. "jane@example.com" or "+15550102030"; empty for null.
+     */
+    public static String normalizeContact(String contactInfo) {
+        if (contactInfo == null) {
+            return "";
+        }
+        String trimmed = contactInfo.trim().toLowerCase();
+        if (trimmed.indexOf('@') >= 0) {
+            return trimmed;
+        }
+        StringBuilder digits = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isDigit(c) || (c == '+' && digits.length() == 0)) {
+                digits.append(c);
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : trimmed;
+    }
+
+    /**
+     * Returns the lower-cased name starting at each of its words, so "John Smith" gives "john smith" and "smith".
+     * A query is a name prefix exactly when it is a prefix of one of these keys.
+     */
+    static List<String> nameKeysOf(String name) {
+        List<String> keys = new ArrayList<>();
+        String lowerCaseName = name.toLowerCase();
+        for (int i = 0; i < lowerCaseName.length(); i++) {
+            boolean wordStart = !Character.isWhitespace(lowerCaseName.charAt(i)) && (i == 0 || Character.isWhitespace(lowerCaseName.charAt(i - 1)));
+            if (wordStart) {
+                keys.add(lowerCaseName.substring(i));
+            }
+        }
+        return keys;
+    }
+}
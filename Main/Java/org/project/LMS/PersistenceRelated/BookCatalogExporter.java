@@ -0,0 +1,122 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the books of a repository as CSV or JSON lines, in the format read by {@link BookCatalogImporter}.
+ * Books are streamed with {@link IBookRepository#forEachBook(java.util.function.Consumer)}, so no copy of the
+ * catalog is built. Statuses are not exported.
+ */
+public class BookCatalogExporter {
+    private final IBookRepository repository;
+
+    public BookCatalogExporter(IBookRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Book repository can not be null.");
+        }
+        this.repository = repository;
+    }
+
+    /**
+     * Writes every book to the given writer. The writer is flushed but not closed.
+     * @param target The destination; wrap it in a BufferedWriter for file output.
+     * @param format The format to write; CSV output starts with a header row.
+     * @return The number of books written.
+     */
+    public long exportTo(Writer target, CatalogFormat format) {
+        if (target == null) {
+            throw new IllegalArgumentException("Export target can not be null.");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Catalog format can not be null.");
+        }
+        AtomicLong written = new AtomicLong();
+        StringBuilder line = new StringBuilder(128);
+        try {
+            if (format == CatalogFormat.CSV) {
+                target.write("title,author,isbn,publicationYear\n");
+            }
+            repository.forEachBook(book -> {
+                line.setLength(0);
+                if (format == CatalogFormat.CSV) {
+                    appendCsv(line, book);
+                } else {
+                    appendJson(line, book);
+                }
+                line.append('\n');
+                try {
+                    target.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written.incrementAndGet();
+            });
+            target.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write catalog export", e);
+        }
+        return written.get();
+    }
+
+    private static void appendCsv(StringBuilder line, IBook book) {
+        appendCsvField(line, book.getTitle());
+        line.append(',');
+        appendCsvField(line, book.getAuthor());
+        line.append(',');
+        appendCsvField(line, book.getISBN());
+        line.append(',').append(book.getPublicationYear());
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void appendJson(StringBuilder line, IBook book) {
+        line.append("{\"title\":");
+        appendJsonString(line, book.getTitle());
+        line.append(",\"author\":");
+        appendJsonString(line, book.getAuthor());
+        line.append(",\"isbn\":");
+        appendJsonString(line, book.getISBN());
+        line.append(",\"publicationYear\":").append(book.getPublicationYear()).append('}');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
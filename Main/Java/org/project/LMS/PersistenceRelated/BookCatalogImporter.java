@@ -0,0 +1,347 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookFactory;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Streams a CSV or JSON-lines catalog into a book repository.
+ * Lines are read in chunks; each chunk is parsed and validated in parallel (the book factory enforces the
+ * field rules) and then inserted with one {@link IBookRepository#addBooks(java.util.Collection)} call, so
+ * the repository reports one bulk event per chunk instead of one event per book.
+ * Malformed lines, invalid fields and ISBNs that already exist are rejected and reported in the result.
+ * If another writer adds one of a chunk's ISBNs between the check and the insert, the batch is rejected;
+ * the chunk is then retried book by book and only the books that lost the race are reported.
+ */
+public class BookCatalogImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private final IBookRepository repository;
+    private final IBookFactory bookFactory;
+    private final int chunkSize;
+
+    public BookCatalogImporter(IBookRepository repository, IBookFactory bookFactory) {
+        this(repository, bookFactory, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BookCatalogImporter(IBookRepository repository, IBookFactory bookFactory, int chunkSize) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Book repository can not be null.");
+        }
+        if (bookFactory == null) {
+            throw new IllegalArgumentException("Book factory can not be null.");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be a positive value.");
+        }
+        this.repository = repository;
+        this.bookFactory = bookFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every line of the given reader.
+     * @param source The catalog text; CSV input may start with a "title,author,isbn,publicationYear" header.
+     * @param format The format of the text.
+     * @return The import summary.
+     */
+    public ImportResult importFrom(Reader source, CatalogFormat format) {
+        if (source == null) {
+            throw new IllegalArgumentException("Import source can not be null.");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Catalog format can not be null.");
+        }
+        long imported = 0;
+        long rejected = 0;
+        List<String> rejections = new ArrayList<>();
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        try {
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(chunkSize);
+            long chunkStart = 1;
+            String line;
+            while (true) {
+                line = reader.readLine();
+                if (line != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && format == CatalogFormat.CSV && line.toLowerCase().startsWith("title,")) {
+                        chunkStart = 2;
+                        continue; // Header row
+                    }
+                    lines.add(line);
+                }
+                if (lines.size() == chunkSize || (line == null && !lines.isEmpty())) {
+                    ChunkResult chunk = importChunk(lines, chunkStart, format);
+                    imported += chunk.books.size();
+                    rejected += chunk.rejections.size();
+                    for (String rejection : chunk.rejections) {
+                        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                            rejections.add(rejection);
+                        }
+                    }
+                    chunkStart = lineNumber + 1;
+                    lines.clear();
+                }
+                if (line == null) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not read catalog import", e);
+        }
+        return new ImportResult(imported, rejected, rejections);
+    }
+
+    private ChunkResult importChunk(List<String> lines, long firstLineNumber, CatalogFormat format) {
+        // Parse and validate in parallel; results keep their line order.
+        Object[] parsed = new Object[lines.size()];
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            try {
+                parsed[i] = parse(lines.get(i), format);
+            } catch (IllegalArgumentException e) {
+                parsed[i] = "line " + (firstLineNumber + i) + ": " + e.getMessage();
+            }
+        });
+
+        ChunkResult result = new ChunkResult();
+        List<Long> bookLines = new ArrayList<>();
+        Set<String> chunkISBNs = new HashSet<>();
+        for (int i = 0; i < parsed.length; i++) {
+            if (parsed[i] instanceof String) {
+                result.rejections.add((String) parsed[i]);
+                continue;
+            }
+            IBook book = (IBook) parsed[i];
+            if (!chunkISBNs.add(book.getISBN()) || repository.getBookByISBN(book.getISBN()) != null) {
+                result.rejections.add("line " + (firstLineNumber + i) + ": Book with ISBN " + book.getISBN() + " already exists.");
+                continue;
+            }
+            result.books.add(book);
+            bookLines.add(firstLineNumber + i);
+        }
+        if (!result.books.isEmpty()) {
+            try {
+                repository.addBooks(result.books);
+            } catch (IllegalArgumentException e) {
+                addOneByOne(result, bookLines); // A concurrent writer added one of the ISBNs after the check
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the books of a rejected batch individually, moving the ones that are still rejected to the rejections.
+     * A repository without an atomic addBooks may have added part of the batch already; those books
+     * are found under their ISBN as the very same instance and count as imported.
+     */
+    private void addOneByOne(ChunkResult result, List<Long> bookLines) {
+        List<IBook> added = new ArrayList<>(result.books.size());
+        for (int i = 0; i < result.books.size(); i++) {
+            IBook book = result.books.get(i);
+            try {
+                repository.addBook(book);
+                added.add(book);
+            } catch (IllegalArgumentException e) {
+                if (repository.getBookByISBN(book.getISBN()) == book) {
+                    added.add(book);
+                } else {
+                    result.rejections.add("line " + bookLines.get(i) + ": " + e.getMessage());
+                }
+            }
+        }
+        result.books.clear();
+        result.books.addAll(added);
+    }
+
+    private IBook parse(String line, CatalogFormat format) {
+        String title;
+        String author;
+        String isbn;
+        String year;
+        if (format == CatalogFormat.CSV) {
+            List<String> fields = parseCsv(line);
+            if (fields.size() != 4) {
+                throw new IllegalArgumentException("Expected 4 CSV fields but found " + fields.size() + ".");
+            }
+            title = fields.get(0);
+            author = fields.get(1);
+            isbn = fields.get(2);
+            year = fields.get(3);
+        } else {
+            Map<String, String> fields = parseJsonObject(line);
+            title = fields.get("title");
+            author = fields.get("author");
+            isbn = fields.get("isbn");
+            year = fields.get("publicationYear");
+        }
+        if (year == null) {
+            throw new IllegalArgumentException("Publication year is missing.");
+        }
+        int publicationYear;
+        try {
+            publicationYear = Integer.parseInt(year.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Publication year is not a number: " + year);
+        }
+        return bookFactory.createBook(title, author, isbn, publicationYear);
+    }
+
+    /**
+     * Splits one CSV row; fields may be quoted, with "" standing for a literal quote.
+     */
+    static List<String> parseCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted CSV field.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings or numbers.
+     */
+    static Map<String, String> parseJsonObject(String line) {
+        Map<String, String> fields = new HashMap<>();
+        JsonCursor cursor = new JsonCursor(line);
+        cursor.expect('{');
+        if (cursor.peek() == '}') {
+            cursor.next();
+            return fields;
+        }
+        while (true) {
+            String key = cursor.readString();
+            cursor.expect(':');
+            String value = cursor.peek() == '"' ? cursor.readString() : cursor.readBareValue();
+            fields.put(key, value);
+            char separator = cursor.next();
+            if (separator == '}') {
+                return fields;
+            }
+            if (separator != ',') {
+                throw new IllegalArgumentException("Malformed JSON: expected ',' or '}' but found '" + separator + "'.");
+            }
+        }
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int position;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw new IllegalArgumentException("Malformed JSON: unexpected end of line.");
+            }
+            return text.charAt(position);
+        }
+
+        char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        void expect(char expected) {
+            char c = next();
+            if (c != expected) {
+                throw new IllegalArgumentException("Malformed JSON: expected '" + expected + "' but found '" + c + "'.");
+            }
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\' && position < text.length()) {
+                    char escaped = text.charAt(position++);
+                    switch (escaped) {
+                        case 'n': value.append('\n'); break;
+                        case 't': value.append('\t'); break;
+                        case 'r': value.append('\r'); break;
+                        case 'b': value.append('\b'); break;
+                        case 'f': value.append('\f'); break;
+                        case 'u':
+                            if (position + 4 > text.length()) {
+                                throw new IllegalArgumentException("Malformed JSON: bad unicode escape.");
+                            }
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                            position += 4;
+                            break;
+                        default: value.append(escaped); break; // \" \\ \/
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            throw new IllegalArgumentException("Malformed JSON: unterminated string.");
+        }
+
+        String readBareValue() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String value = text.substring(start, position);
+            return "null".equals(value) ? null : value;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+
+    private static final class ChunkResult {
+        final List<IBook> books = new ArrayList<>();
+        final List<String> rejections = new ArrayList<>();
+    }
+}
@@ -0,0 +1,11 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+/**
+ * Defines the text formats supported by the catalog importer and exporter.
+ * CSV rows are {@code title,author,isbn,publicationYear}; JSON lines hold one object per line with the
+ * keys {@code title}, {@code author}, {@code isbn} and {@code publicationYear}.
+ */
+public enum CatalogFormat {
+    CSV,
+    JSON_LINES
+}
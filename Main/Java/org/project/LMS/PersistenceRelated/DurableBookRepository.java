@@ -0,0 +1,303 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import Main.Java.org.project.LMS.LendingManager.StripedLock;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A book repository that survives restarts.
+ * Reads and events are served by an in-memory repository; every successful write is also appended to a
+ * write-ahead log. Periodic snapshots compact the log, and on start-up the repository is rebuilt from
+ * the latest snapshot plus the log tail, without firing any events.
+ *
+ * Writes to the same ISBN are serialized by a striped lock held across the in-memory write and the append,
+ * so each book's records are logged in the order they were applied; that is all replay of upserts needs.
+ * Writes to different books only meet in the log's own append lock.
+ */
+public class DurableBookRepository implements IBookRepository, ILibrarySubject, AutoCloseable {
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 10;
+    static final int WRITE_STRIPES = 64;
+
+    private final InMemoryBookRepository delegate;
+    private final WriteAheadLog log;
+    private final IBookFactory bookFactory;
+    private final StripedLock writeLocks = new StripedLock(WRITE_STRIPES);
+    private final ScheduledExecutorService snapshotScheduler;
+
+    public DurableBookRepository(Path directory, FsyncPolicy fsyncPolicy) {
+        this(directory, fsyncPolicy, DEFAULT_BATCH_SIZE, DEFAULT_FSYNC_INTERVAL_MILLIS, 0, new ConcreteBookFactory());
+    }
+
+    /**
+     * Opens the repository stored in the given directory, recovering any existing state.
+     * @param directory The directory holding the log and snapshot files.
+     * @param fsyncPolicy When writes are forced to disk.
+     * @param batchSize For PER_BATCH, the number of writes per fsync.
+     * @param fsyncIntervalMillis For INTERVAL, the time between fsyncs.
+     * @param snapshotIntervalMillis The time between automatic snapshots, or 0 to only snapshot on demand.
+     * @param bookFactory Creates the book instances during recovery.
+     */
+    public DurableBookRepository(Path directory, FsyncPolicy fsyncPolicy, int batchSize, long fsyncIntervalMillis,
+                                 long snapshotIntervalMillis, IBookFactory bookFactory) {
+        if (bookFactory == null) {
+            throw new IllegalArgumentException("Book factory can not be null.");
+        }
+        this.delegate = new InMemoryBookRepository();
+        this.bookFactory = bookFactory;
+        this.log = new WriteAheadLog(directory, "books", fsyncPolicy, batchSize, fsyncIntervalMillis);
+        log.recover(this::replay, this::replay);
+
+        if (snapshotIntervalMillis > 0) {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "book-snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshotScheduler = null;
+        }
+    }
+
+    @Override
+    public void addObserver(ILibraryObserver observer) {
+        delegate.addObserver(observer);
+    }
+
+    @Override
+    public void removeObserver(ILibraryObserver observer) {
+        delegate.removeObserver(observer);
+    }
+
+    @Override
+    public void notifyObservers(LibraryEvent event) {
+        delegate.notifyObservers(event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        delegate.setEventDispatcher(eventDispatcher);
+    }
+
+    @Override
+    public void addBook(IBook book) {
+        long seq;
+        ReentrantLock lock = writeLocks.lockFor(keyOf(book));
+        lock.lock();
+        try {
+            delegate.addBook(book); // Validates and notifies; throws before anything is logged
+            seq = log.append(encodePut(book));
+        } finally {
+            lock.unlock();
+        }
+        log.commit(seq);
+    }
+
+    @Override
+    public void addBooks(Collection<? extends IBook> books) {
+        long seq = 0;
+        List<ReentrantLock> locks = writeLocks.lockAll(keysOf(books));
+        try {
+            delegate.addBooks(books);
+            for (IBook book : books) {
+                seq = log.append(encodePut(book));
+            }
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        log.commit(seq); // One commit covers the whole batch
+    }
+
+    @Override
+    public boolean removeBook(String ISBN) {
+        long seq;
+        ReentrantLock lock = writeLocks.lockFor(ISBN == null ? "" : ISBN);
+        lock.lock();
+        try {
+            if (!delegate.removeBook(ISBN)) {
+                return false;
+            }
+            seq = log.append(new RecordCodec.Writer(OP_REMOVE).writeString(ISBN).toByteArray());
+        } finally {
+            lock.unlock();
+        }
+        log.commit(seq);
+        return true;
+    }
+
+    @Override
+    public void updateBook(IBook updatedBook) {
+        long seq;
+        ReentrantLock lock = writeLocks.lockFor(keyOf(updatedBook));
+        lock.lock();
+        try {
+            delegate.updateBook(updatedBook);
+            seq = log.append(encodePut(updatedBook));
+        } finally {
+            lock.unlock();
+        }
+        log.commit(seq);
+    }
+
+    @Override
+    public void updateBooks(Collection<? extends IBook> updatedBooks) {
+        long seq = 0;
+        List<ReentrantLock> locks = writeLocks.lockAll(keysOf(updatedBooks));
+        try {
+            delegate.updateBooks(updatedBooks);
+            for (IBook book : updatedBooks) {
+                seq = log.append(encodePut(book));
+            }
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        log.commit(seq); // One commit covers the whole batch
+    }
+
+    @Override
+    public IBook getBookByISBN(String ISBN) {
+        return delegate.getBookByISBN(ISBN);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy) {
+        return delegate.searchBooks(query, searchBy);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        return delegate.searchBooks(query, searchBy, limit);
+    }
+
+    @Override
+    public List<IBook> getAllBooks() {
+        return delegate.getAllBooks();
+    }
+
+    @Override
+    public void forEachBook(Consumer<? super IBook> action) {
+        delegate.forEachBook(action);
+    }
+
+    @Override
+    public List<IBook> page(String afterISBN, int limit) {
+        return delegate.page(afterISBN, limit);
+    }
+
+    @Override
+    public Spliterator<IBook> spliterator() {
+        return delegate.spliterator();
+    }
+
+    @Override
+    public Stream<IBook> streamByStatus(BookStatus status) {
+        return delegate.streamByStatus(status);
+    }
+
+    @Override
+    public List<IBook> getBooksByStatus(BookStatus status) {
+        return delegate.getBooksByStatus(status);
+    }
+
+    @Override
+    public Map<BookStatus, Long> countByStatus() {
+        return delegate.countByStatus();
+    }
+
+    /**
+     * Writes a compacted snapshot of the current catalog and drops the log generations it replaces.
+     * Writers are not blocked while the snapshot is written.
+     */
+    public synchronized void snapshot() {
+        long coveredGeneration = log.rotate();
+        List<byte[]> records = new ArrayList<>();
+        delegate.forEachBook(book -> records.add(encodePut(book)));
+        log.writeSnapshot(coveredGeneration, records);
+    }
+
+    /**
+     * Forces all logged writes to disk, regardless of the fsync policy.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    @Override
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        log.close();
+    }
+
+    /**
+     * Maps a book to its stripe key; invalid books get a dummy key so the delegate can reject them.
+     */
+    private static String keyOf(IBook book) {
+        return book == null || book.getISBN() == null ? "" : book.getISBN();
+    }
+
+    private static List<String> keysOf(Collection<? extends IBook> books) {
+        List<String> keys = new ArrayList<>();
+        if (books != null) {
+            for (IBook book : books) {
+                keys.add(keyOf(book));
+            }
+        }
+        return keys;
+    }
+
+    private byte[] encodePut(IBook book) {
+        return new RecordCodec.Writer(OP_PUT)
+                .writeString(book.getISBN())
+                .writeString(book.getTitle())
+                .writeString(book.getAuthor())
+                .writeInt(book.getPublicationYear())
+                .writeByte(book.getStatus().ordinal())
+                .toByteArray();
+    }
+
+    private void replay(ByteBuffer record) {
+        byte operation = record.get();
+        String isbn = RecordCodec.readString(record);
+        if (operation == OP_REMOVE) {
+            if (delegate.getBookByISBN(isbn) != null) {
+                delegate.removeBook(isbn);
+            }
+            return;
+        }
+        String title = RecordCodec.readString(record);
+        String author = RecordCodec.readString(record);
+        int publicationYear = record.getInt();
+        BookStatus status = BookStatus.values()[record.get()];
+
+        IBook book = bookFactory.createBook(title, author, isbn, publicationYear);
+        book.setStatus(status);
+        // Records are upserts, so an operation that is both in the snapshot and in the log tail is harmless.
+        if (delegate.getBookByISBN(isbn) != null) {
+            delegate.updateBook(book);
+        } else {
+            delegate.addBook(book);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.LendingManager.StripedLock;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.PatronRelated.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A patron repository that survives restarts, built the same way as {@link DurableBookRepository}.
+ * Each logged patron carries the ISBNs of its borrowed books; they are resolved against the given
+ * book repository during recovery, so the book repository must be opened first.
+ * Writes are serialized per patron ID rather than globally, as in {@link DurableBookRepository}.
+ */
+public class DurablePatronRepository implements IPatronRepository, ILibrarySubject, AutoCloseable {
+    private static final byte OP_PUT = 1;
+
+    private final InMemoryPatronRepository delegate;
+    private final WriteAheadLog log;
+    private final IBookRepository bookRepository;
+    private final IPatronFactory patronFactory;
+    private final StripedLock writeLocks = new StripedLock(DurableBookRepository.WRITE_STRIPES); // Per patron ID
+    private final ScheduledExecutorService snapshotScheduler;
+
+    public DurablePatronRepository(Path directory, FsyncPolicy fsyncPolicy, IBookRepository bookRepository) {
+        this(directory, fsyncPolicy, DurableBookRepository.DEFAULT_BATCH_SIZE,
+                DurableBookRepository.DEFAULT_FSYNC_INTERVAL_MILLIS, 0, bookRepository, new ConcretePatronFactory());
+    }
+
+    /**
+     * Opens the repository stored in the given directory, recovering any existing state.
+     * @param directory The directory holding the log and snapshot files.
+     * @param fsyncPolicy When writes are forced to disk.
+     * @param batchSize For PER_BATCH, the number of writes per fsync.
+     * @param fsyncIntervalMillis For INTERVAL, the time between fsyncs.
+     * @param snapshotIntervalMillis The time between automatic snapshots, or 0 to only snapshot on demand.
+     * @param bookRepository Resolves borrowed ISBNs during recovery.
+     * @param patronFactory Creates the patron instances during recovery.
+     */
+    public DurablePatronRepository(Path directory, FsyncPolicy fsyncPolicy, int batchSize, long fsyncIntervalMillis,
+                                   long snapshotIntervalMillis, IBookRepository bookRepository, IPatronFactory patronFactory) {
+        if (bookRepository == null) {
+            throw new IllegalArgumentException("Book repository can not be null.");
+        }
+        if (patronFactory == null) {
+            throw new IllegalArgumentException("Patron factory can not be null.");
+        }
+        this.delegate = new InMemoryPatronRepository();
+        this.bookRepository = bookRepository;
+        this.patronFactory = patronFactory;
+        this.log = new WriteAheadLog(directory, "patrons", fsyncPolicy, batchSize, fsyncIntervalMillis);
+        log.recover(this::replay, this::replay);
+
+        if (snapshotIntervalMillis > 0) {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "patron-snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshotScheduler = null;
+        }
+    }
+
+    @Override
+    public void addObserver(ILibraryObserver observer) {
+        delegate.addObserver(observer);
+    }
+
+    @Override
+    public void removeObserver(ILibraryObserver observer) {
+        delegate.removeObserver(observer);
+    }
+
+    @Override
+    public void notifyObservers(LibraryEvent event) {
+        delegate.notifyObservers(event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        delegate.setEventDispatcher(eventDispatcher);
+    }
+
+    @Override
+    public void addPatron(IPatron patron) {
+        long seq;
+        ReentrantLock lock = writeLocks.lockFor(keyOf(patron));
+        lock.lock();
+        try {
+            delegate.addPatron(patron); // Validates and notifies; throws before anything is logged
+            seq = log.append(encodePut(patron));
+        } finally {
+            lock.unlock();
+        }
+        log.commit(seq);
+    }
+
+    @Override
+    public void addPatrons(Collection<? extends IPatron> patrons) {
+        long seq = 0;
+        List<ReentrantLock> locks = writeLocks.lockAll(keysOf(patrons));
+        try {
+            delegate.addPatrons(patrons);
+            for (IPatron patron : patrons) {
+                seq = log.append(encodePut(patron));
+            }
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        log.commit(seq); // One commit covers the whole batch
+    }
+
+    @Override
+    public void updatePatron(IPatron updatedPatron) {
+        long seq;
+        ReentrantLock lock = writeLocks.lockFor(keyOf(updatedPatron));
+        lock.lock();
+        try {
+            delegate.updatePatron(updatedPatron);
+            seq = log.append(encodePut(updatedPatron));
+        } finally {
+            lock.unlock();
+        }
+        log.commit(seq);
+    }
+
+    @Override
+    public IPatron getPatronById(String patronId) {
+        return delegate.getPatronById(patronId);
+    }
+
+    @Override
+    public List<IPatron> getAllPatrons() {
+        return delegate.getAllPatrons();
+    }
+
+    @Override
+    public List<IPatron> searchPatrons(String query, PatronSearchType searchBy) {
+        return delegate.searchPatrons(query, searchBy);
+    }
+
+    @Override
+    public List<IPatron> page(String afterPatronId, int limit) {
+        return delegate.page(afterPatronId, limit);
+    }
+
+    @Override
+    public Spliterator<IPatron> spliterator() {
+        return delegate.spliterator();
+    }
+
+    /**
+     * Writes a compacted snapshot of all patrons and drops the log generations it replaces.
+     */
+    public synchronized void snapshot() {
+        long coveredGeneration = log.rotate();
+        List<byte[]> records = new ArrayList<>();
+        delegate.stream().forEach(patron -> records.add(encodePut(patron)));
+        log.writeSnapshot(coveredGeneration, records);
+    }
+
+    /**
+     * Forces all logged writes to disk, regardless of the fsync policy.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    @Override
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        log.close();
+    }
+
+    /**
+     * Maps a patron to its stripe key; invalid patrons get a dummy key so the delegate can reject them.
+     */
+    private static String keyOf(IPatron patron) {
+        return patron == null || patron.getPatronId() == null ? "" : patron.getPatronId();
+    }
+
+    private static List<String> keysOf(Collection<? extends IPatron> patrons) {
+        List<String> keys = new ArrayList<>();
+        if (patrons != null) {
+            for (IPatron patron : patrons) {
+                keys.add(keyOf(patron));
+            }
+        }
+        return keys;
+    }
+
+    private byte[] encodePut(IPatron patron) {
+        List<IBook> borrowedBooks = patron.getBorrowedBooks();
+        RecordCodec.Writer writer = new RecordCodec.Writer(OP_PUT)
+                .writeString(patron.getPatronId())
+                .writeString(patron.getName())
+                .writeString(patron.getContactInfo())
+                .writeInt(borrowedBooks.size());
+        for (IBook book : borrowedBooks) {
+            writer.writeString(book.getISBN());
+        }
+        return writer.toByteArray();
+    }
+
+    private void replay(ByteBuffer record) {
+        record.get(); // Operation; patrons are never removed, so every record is a PUT
+        String patronId = RecordCodec.readString(record);
+        String name = RecordCodec.readString(record);
+        String contactInfo = RecordCodec.readString(record);
+        int borrowedCount = record.getInt();
+
+        IPatron patron = patronFactory.createPatron(patronId, name, contactInfo);
+        for (int i = 0; i < borrowedCount; i++) {
+            IBook book = bookRepository.getBookByISBN(RecordCodec.readString(record));
+            if (book != null) {
+                patron.borrowBook(book);
+            }
+        }
+        if (delegate.getPatronById(patronId) != null) {
+            delegate.updatePatron(patron);
+        } else {
+            delegate.addPatron(patron);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+/**
+ * Defines when the write-ahead log forces appended records to disk.
+ * This enum provides a clear, type-safe way to trade durability for throughput.
+ */
+public enum FsyncPolicy {
+    PER_OPERATION, // Every operation waits until its record is on disk (concurrent waiters share one fsync)
+    PER_BATCH,     // An fsync is issued once a configured number of records has accumulated
+    INTERVAL       // A background thread issues an fsync at a fixed interval
+}
@@ -0,0 +1,40 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summarizes a catalog import: how many books were added and which lines were rejected.
+ */
+public class ImportResult {
+    private final long importedCount;
+    private final long rejectedCount;
+    private final List<String> rejections; // The first rejections, as "line N: reason"
+
+    public ImportResult(long importedCount, long rejectedCount, List<String> rejections) {
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.rejections = Collections.unmodifiableList(rejections);
+    }
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the reasons for the first rejected lines; the total is given by {@link #getRejectedCount()}.
+     * @return An unmodifiable List of "line N: reason" entries.
+     */
+    public List<String> getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult [Imported=" + importedCount + ", Rejected=" + rejectedCount + "]";
+    }
+}
@@ -0,0 +1,822 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import Main.Java.org.project.LMS.IndexRelated.FuzzyTokenIndex;
+import Main.Java.org.project.LMS.ObserverRelated.IEventDispatcher;
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.ObserverRelated.SynchronousEventDispatcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A read-optimized book repository over a memory-mapped catalog file written by {@link MappedCatalogWriter}.
+ * Opening the repository maps the file and allocates one status byte and one tombstone bit per book; nothing
+ * is decoded or loaded. Books are handed out as flyweight views that decode their strings from the mapping on
+ * every access. Statuses live only in memory and start as AVAILABLE.
+ *
+ * Fuzzy searches need word indexes over the titles and authors. These are built on the first fuzzy search,
+ * which decodes every record and keeps the vocabulary on the heap, keyed by record index; that search, and
+ * writes that arrive while it builds, wait for the build. Catalogs that are never searched fuzzily never pay for it.
+ *
+ * The file itself is never rewritten. Books added after opening go to an in-memory overflow map, and
+ * removed catalog records are marked in a tombstone bitset. Updating a catalog record changes only its
+ * status, because its other fields come from the file. Books in the overflow map are replaced whole.
+ * Neither change survives a restart; rebuild the file with {@link MappedCatalogWriter} to keep them.
+ */
+public class MappedBookRepository implements IBookRepository, ILibrarySubject, AutoCloseable {
+    private static final VarHandle STATUS = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final BookStatus[] STATUSES = BookStatus.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer records; // Read-only mapping of the record section
+    private final ByteBuffer heap;    // Read-only mapping of the string heap
+    private final int count;
+    private final byte[] statuses;    // BookStatus ordinal per record, accessed with volatile semantics
+    private final LongAdder[] statusCounts; // Books per BookStatus ordinal
+    private final AtomicLongArray removed;  // Tombstone bit per record
+    private final LongAdder removedCount;
+    private final ConcurrentSkipListMap<String, Added> added; // Books added after opening, by ISBN
+    private final Map<Integer, String> addedIds; // Word index id -> ISBN of each added book
+    private final AtomicInteger nextAddedId;     // Added books get word index ids after the record indexes
+    private final ReadWriteLock wordIndexLock;   // Held shared by writes, exclusively by the word index build
+    private volatile WordIndexes wordIndexes;    // Null until the first fuzzy search
+    private final List<ILibraryObserver> observers;
+    private volatile IEventDispatcher eventDispatcher;
+    private volatile long interestMask; // One bit per EventType that at least one observer wants
+
+    /**
+     * Opens a catalog file.
+     * @param file The catalog file.
+     */
+    public MappedBookRepository(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Catalog file can not be null.");
+        }
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, MappedCatalogWriter.HEADER_BYTES);
+            if (header.getInt() != MappedCatalogWriter.MAGIC || header.getInt() != MappedCatalogWriter.VERSION) {
+                throw new IllegalArgumentException("Not a catalog file: " + file);
+            }
+            this.count = header.getInt();
+            long heapOffset = header.getLong();
+            this.records = channel.map(FileChannel.MapMode.READ_ONLY, MappedCatalogWriter.HEADER_BYTES,
+                    (long) count * MappedCatalogWriter.RECORD_BYTES);
+            this.heap = channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, channel.size() - heapOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open catalog " + file, e);
+        }
+        this.statuses = new byte[count]; // All zero, i.e. AVAILABLE
+        this.statusCounts = new LongAdder[STATUSES.length];
+        for (int i = 0; i < STATUSES.length; i++) {
+            statusCounts[i] = new LongAdder();
+        }
+        statusCounts[BookStatus.AVAILABLE.ordinal()].add(count);
+        this.removed = new AtomicLongArray((count + 63) >>> 6);
+        this.removedCount = new LongAdder();
+        this.added = new ConcurrentSkipListMap<>();
+        this.addedIds = new ConcurrentHashMap<>();
+        this.nextAddedId = new AtomicInteger(count);
+        this.wordIndexLock = new ReentrantReadWriteLock();
+        this.observers = new CopyOnWriteArrayList<>();
+        this.eventDispatcher = SynchronousEventDispatcher.INSTANCE;
+    }
+
+    @Override
+    public synchronized void addObserver(ILibraryObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer can not be null.");
+        }
+        observers.add(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
+    }
+
+    @Override
+    public synchronized void removeObserver(ILibraryObserver observer) {
+        observers.remove(observer);
+        interestMask = LibraryEvent.interestMaskOf(observers);
+    }
+
+    @Override
+    public void notifyObservers(LibraryEvent event) {
+        eventDispatcher.dispatch(this, observers, event);
+    }
+
+    @Override
+    public void setEventDispatcher(IEventDispatcher eventDispatcher) {
+        if (eventDispatcher == null) {
+            throw new IllegalArgumentException("Event dispatcher can not be null.");
+        }
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    private boolean hasSubscribers(LibraryEvent.EventType type) {
+        return (interestMask & type.mask()) != 0;
+    }
+
+    /**
+     * Adds a book to the overflow map; the catalog file is not touched.
+     * @param book The book to add.
+     * @throws IllegalArgumentException if the book is null or a book with its ISBN already exists.
+     */
+    @Override
+    public void addBook(IBook book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book can not be null");
+        }
+        String isbn = book.getISBN();
+        if (!insertAdded(book)) {
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Book with ISBN " + isbn + " already exists.",
+                        "ISBN", isbn,
+                        "Title", book.getTitle()
+                ));
+            }
+            throw new IllegalArgumentException("Book with ISBN " + isbn + " already exists.");
+        }
+        statusCounts[book.getStatus().ordinal()].increment();
+        if (hasSubscribers(LibraryEvent.EventType.BOOK_ADDED)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_ADDED,
+                    () -> "Book added: " + book.getTitle() + " (ISBN: " + isbn + ")",
+                    "ISBN", isbn,
+                    "Title", book.getTitle(),
+                    "Author", book.getAuthor()
+            ));
+        }
+    }
+
+    /**
+     * Removes a book from the overflow map, or tombstones its catalog record.
+     */
+    @Override
+    public boolean removeBook(String ISBN) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty.");
+        }
+        String removedTitle = removeIndexed(ISBN);
+        if (removedTitle != null) {
+            if (hasSubscribers(LibraryEvent.EventType.BOOK_REMOVED)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.BOOK_REMOVED,
+                        () -> "Book removed: " + removedTitle + " (ISBN: " + ISBN + ")",
+                        "ISBN", ISBN,
+                        "Title", removedTitle
+                ));
+            }
+            return true;
+        }
+        if (hasSubscribers(LibraryEvent.EventType.WARNING)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.WARNING,
+                    () -> "Attempted to remove non-existent book with ISBN: " + ISBN,
+                    "ISBN", ISBN
+            ));
+        }
+        return false;
+    }
+
+    /**
+     * Records the new state of the given book. For catalog records only the status can change; the other
+     * fields come from the file. Books added after opening are replaced whole.
+     * @param updatedBook The book carrying the new state.
+     * @throws IllegalArgumentException if the updatedBook is null or no book with its ISBN exists.
+     */
+    @Override
+    public void updateBook(IBook updatedBook) {
+        if (updatedBook == null) {
+            throw new IllegalArgumentException("Can not update with a null book object.");
+        }
+        BookStatus newStatus = updatedBook.getStatus();
+        boolean updated = replaceAdded(updatedBook, newStatus);
+        if (!updated) {
+            int index = indexOf(updatedBook.getISBN());
+            if (isLive(index)) {
+                setStatusAt(index, newStatus);
+                updated = true;
+            }
+        }
+        if (!updated) {
+            if (hasSubscribers(LibraryEvent.EventType.ERROR)) {
+                notifyObservers(LibraryEvent.lazy(
+                        LibraryEvent.EventType.ERROR,
+                        () -> "Can not update book. No book found with ISBN: " + updatedBook.getISBN(),
+                        "ISBN", updatedBook.getISBN()
+                ));
+            }
+            throw new IllegalArgumentException("Can not update book. No book found with ISBN: " + updatedBook.getISBN());
+        }
+        if (hasSubscribers(LibraryEvent.EventType.BOOK_UPDATED)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.BOOK_UPDATED,
+                    () -> "Book updated: " + updatedBook.getTitle() + " (ISBN: " + updatedBook.getISBN() + "). New status: " + newStatus,
+                    "ISBN", updatedBook.getISBN(),
+                    "Title", updatedBook.getTitle(),
+                    "Status", newStatus.name()
+            ));
+        }
+    }
+
+    /**
+     * Puts a book into the overflow map, and into the word indexes if they are built.
+     * A catalog record only blocks the ISBN while it is live; after removal the ISBN can be re-added.
+     * @return False if a book with the ISBN already exists.
+     */
+    private boolean insertAdded(IBook book) {
+        Lock lock = wordIndexLock.readLock();
+        lock.lock();
+        try {
+            String isbn = book.getISBN();
+            if (isLive(indexOf(isbn))) {
+                return false;
+            }
+            Added entry = new Added(book, book.getStatus(), nextAddedId.getAndIncrement());
+            if (added.putIfAbsent(isbn, entry) != null) {
+                return false;
+            }
+            addedIds.put(entry.id, isbn);
+            WordIndexes words = wordIndexes;
+            if (words != null) {
+                words.add(entry.id, book.getTitle(), book.getAuthor());
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the overflow map or tombstones its catalog record, and takes it off the status
+     * counters and the word indexes.
+     * @return The title of the removed book, or null if no book with the ISBN exists.
+     */
+    private String removeIndexed(String isbn) {
+        Lock lock = wordIndexLock.readLock();
+        lock.lock();
+        try {
+            WordIndexes words = wordIndexes;
+            Added overflow = added.remove(isbn);
+            if (overflow != null) {
+                statusCounts[overflow.status.ordinal()].decrement();
+                addedIds.remove(overflow.id);
+                if (words != null) {
+                    words.remove(overflow.id, overflow.book.getTitle(), overflow.book.getAuthor());
+                }
+                return overflow.book.getTitle();
+            }
+            int index = indexOf(isbn);
+            if (index < 0 || !tombstone(index)) {
+                return null;
+            }
+            statusCounts[(byte) STATUS.getVolatile(statuses, index)].decrement();
+            String title = decode(index, 6);
+            if (words != null) {
+                words.remove(index, title, decode(index, 12));
+            }
+            return title;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Swaps an overflow entry for the updated book, moving it between the status counters.
+     * The status is kept in the entry, since callers may have changed the stored book's status in place.
+     * @return False if the ISBN is not in the overflow map.
+     */
+    private boolean replaceAdded(IBook updatedBook, BookStatus newStatus) {
+        Lock lock = wordIndexLock.readLock();
+        lock.lock();
+        try {
+            while (true) {
+                Added current = added.get(updatedBook.getISBN());
+                if (current == null) {
+                    return false;
+                }
+                if (added.replace(updatedBook.getISBN(), current, new Added(updatedBook, newStatus, current.id))) {
+                    if (current.status != newStatus) {
+                        statusCounts[current.status.ordinal()].decrement();
+                        statusCounts[newStatus.ordinal()].increment();
+                    }
+                    WordIndexes words = wordIndexes;
+                    if (words != null) {
+                        words.replace(current.id, current.book, updatedBook);
+                    }
+                    return true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the word indexes, building them on the first call. The build holds the lock exclusively, so
+     * no add or removal can slip between the catalog state it reads and the indexes it publishes.
+     */
+    private WordIndexes wordIndexes() {
+        WordIndexes words = wordIndexes;
+        if (words != null) {
+            return words;
+        }
+        Lock lock = wordIndexLock.writeLock();
+        lock.lock();
+        try {
+            if (wordIndexes == null) {
+                WordIndexes built = new WordIndexes();
+                for (int i = 0; i < count; i++) {
+                    if (isLive(i)) {
+                        built.add(i, decode(i, 6), decode(i, 12));
+                    }
+                }
+                for (Added overflow : added.values()) {
+                    built.add(overflow.id, overflow.book.getTitle(), overflow.book.getAuthor());
+                }
+                wordIndexes = built;
+            }
+            return wordIndexes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resolves a word index id: record indexes come first, added books follow.
+     * @return The book, or null if it was removed after the index was searched.
+     */
+    private IBook bookWithId(int id) {
+        if (id < count) {
+            return isLive(id) ? new MappedBook(id) : null;
+        }
+        String isbn = addedIds.get(id);
+        Added overflow = isbn == null ? null : added.get(isbn);
+        return overflow == null || overflow.id != id ? null : overflow.book;
+    }
+
+    @Override
+    public IBook getBookByISBN(String ISBN) {
+        if (ISBN == null || ISBN.trim().isEmpty()) {
+            return null;
+        }
+        Added overflow = added.get(ISBN);
+        if (overflow != null) {
+            return overflow.book;
+        }
+        int index = indexOf(ISBN);
+        return isLive(index) ? new MappedBook(index) : null;
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy) {
+        return searchCatalog(query, searchBy, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<IBook> searchBooks(String query, SearchType searchBy, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be a positive value.");
+        }
+        return searchCatalog(query, searchBy, limit);
+    }
+
+    private List<IBook> searchCatalog(String query, SearchType searchBy, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<IBook> results = new ArrayList<>();
+        if (searchBy.isFuzzy()) {
+            WordIndexes words = wordIndexes();
+            FuzzyTokenIndex<Integer> index = searchBy == SearchType.FUZZY_TITLE ? words.titles : words.authors;
+            for (int id : index.search(query, limit)) {
+                IBook book = bookWithId(id);
+                if (book != null) {
+                    results.add(book);
+                }
+            }
+        } else if (searchBy == SearchType.BY_ISBN) {
+            if (!hasCaseVariants(query)) {
+                IBook book = getBookByISBN(query); // Only the exact ISBN can match
+                if (book != null) {
+                    results.add(book);
+                }
+            } else {
+                // ISBNs match ignoring case, as in the other repositories; letters (e.g. an ISBN-10 'x'
+                // check digit) can not be binary-searched case-insensitively, so scan.
+                for (int i = 0; i < count && results.size() < limit; i++) {
+                    if (isLive(i) && decode(i, 0).equalsIgnoreCase(query)) {
+                        results.add(new MappedBook(i));
+                    }
+                }
+                for (Added overflow : added.values()) {
+                    if (results.size() < limit && overflow.book.getISBN().equalsIgnoreCase(query)) {
+                        results.add(overflow.book);
+                    }
+                }
+            }
+        } else {
+            String lowerCaseQuery = query.toLowerCase();
+            int offsetField = searchBy == SearchType.BY_TITLE ? 6 : 12;
+            for (int i = 0; i < count && results.size() < limit; i++) {
+                if (isLive(i) && decode(i, offsetField).toLowerCase().contains(lowerCaseQuery)) {
+                    results.add(new MappedBook(i));
+                }
+            }
+            for (Added overflow : added.values()) {
+                IBook book = overflow.book;
+                String field = searchBy == SearchType.BY_TITLE ? book.getTitle() : book.getAuthor();
+                if (results.size() < limit && field.toLowerCase().contains(lowerCaseQuery)) {
+                    results.add(book);
+                }
+            }
+        }
+        if (hasSubscribers(LibraryEvent.EventType.INFO)) {
+            notifyObservers(LibraryEvent.lazy(
+                    LibraryEvent.EventType.INFO,
+                    () -> "Searched for '" + query + "' by " + searchBy + ". Found " + results.size() + " results.",
+                    "Query", query,
+                    "SearchType", searchBy.name(),
+                    "ResultsCount", String.valueOf(results.size())
+            ));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Returns a view over the whole catalog. While no book has been added or removed since opening, creating
+     * it copies nothing and each element is a fresh flyweight; otherwise the merged catalog is copied.
+     * @return An unmodifiable List of all books, in ISBN order.
+     */
+    @Override
+    public List<IBook> getAllBooks() {
+        if (isModified()) {
+            List<IBook> all = new ArrayList<>(size());
+            iteratorAfter(null).forEachRemaining(all::add);
+            return Collections.unmodifiableList(all);
+        }
+        return new AbstractList<IBook>() {
+            @Override
+            public IBook get(int index) {
+                Objects.checkIndex(index, count);
+                return new MappedBook(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Binary-searches the cursor and merges the following records, which are already in ISBN order,
+     * with the books added since opening.
+     */
+    @Override
+    public List<IBook> page(String afterISBN, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be a positive value.");
+        }
+        List<IBook> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<IBook> books = iteratorAfter(afterISBN);
+        while (page.size() < limit && books.hasNext()) {
+            page.add(books.next());
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    @Override
+    public Spliterator<IBook> spliterator() {
+        if (isModified()) {
+            return Spliterators.spliterator(iteratorAfter(null), size(),
+                    Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+        return IntStream.range(0, count).<IBook>mapToObj(MappedBook::new).spliterator(); // Sized; splits by index range
+    }
+
+    /**
+     * Filters on the status side array, so flyweights are only created for matching books.
+     */
+    @Override
+    public Stream<IBook> streamByStatus(BookStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Book status can not be null.");
+        }
+        byte ordinal = (byte) status.ordinal();
+        Stream<IBook> records = IntStream.range(0, count)
+                .filter(i -> (byte) STATUS.getVolatile(statuses, i) == ordinal && isLive(i))
+                .mapToObj(MappedBook::new);
+        if (added.isEmpty()) {
+            return records;
+        }
+        return Stream.concat(records, added.values().stream()
+                .filter(overflow -> overflow.status == status)
+                .map(overflow -> overflow.book));
+    }
+
+    @Override
+    public Map<BookStatus, Long> countByStatus() {
+        Map<BookStatus, Long> counts = new EnumMap<>(BookStatus.class);
+        for (BookStatus status : STATUSES) {
+            counts.put(status, statusCounts[status.ordinal()].sum());
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public int size() {
+        return (int) (count - removedCount.sum() + added.size());
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close(); // The mappings stay valid until they are garbage collected
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not close catalog", e);
+        }
+    }
+
+    /**
+     * Swaps the status byte and moves the book between the counters; getAndSet makes each swap count exactly once.
+     * Removed records were already taken off the counters.
+     */
+    private void setStatusAt(int index, BookStatus status) {
+        byte previous = (byte) STATUS.getAndSet(statuses, index, (byte) status.ordinal());
+        if (previous != status.ordinal() && isLive(index)) {
+            statusCounts[previous].decrement();
+            statusCounts[status.ordinal()].increment();
+        }
+    }
+
+    private boolean isModified() {
+        return !added.isEmpty() || removedCount.sum() > 0;
+    }
+
+    private boolean isLive(int index) {
+        return index >= 0 && (removed.get(index >>> 6) & (1L << index)) == 0;
+    }
+
+    /**
+     * Sets the tombstone bit of a record.
+     * @return False if the record was already removed.
+     */
+    private boolean tombstone(int index) {
+        long bit = 1L << index;
+        long previous = removed.getAndAccumulate(index >>> 6, bit, (word, mask) -> word | mask);
+        if ((previous & bit) != 0) {
+            return false;
+        }
+        removedCount.increment();
+        return true;
+    }
+
+    /**
+     * Whether some other string equals the query ignoring case, i.e. an exact lookup might miss a match.
+     */
+    private static boolean hasCaseVariants(String query) {
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.toUpperCase(c) != c || Character.toLowerCase(c) != c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the live catalog records and the added books after the given ISBN, merged in ISBN order.
+     * @param afterISBN The exclusive lower bound, or null to start at the first book.
+     */
+    private Iterator<IBook> iteratorAfter(String afterISBN) {
+        int start = 0;
+        if (afterISBN != null) {
+            int found = search(afterISBN);
+            start = found >= 0 ? found + 1 : -(found + 1);
+        }
+        int first = start;
+        Iterator<Added> overflow = (afterISBN == null ? added : added.tailMap(afterISBN, false)).values().iterator();
+        return new Iterator<IBook>() {
+            private int record = nextLive(first);
+            private Added pending = overflow.hasNext() ? overflow.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return record < count || pending != null;
+            }
+
+            @Override
+            public IBook next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (pending != null && (record >= count || pending.book.getISBN().compareTo(decode(record, 0)) < 0)) {
+                    IBook book = pending.book;
+                    pending = overflow.hasNext() ? overflow.next() : null;
+                    return book;
+                }
+                IBook book = new MappedBook(record);
+                record = nextLive(record + 1);
+                return book;
+            }
+        };
+    }
+
+    private int nextLive(int index) {
+        while (index < count && !isLive(index)) {
+            index++;
+        }
+        return index;
+    }
+
+    private int indexOf(String isbn) {
+        int found = search(isbn);
+        return found >= 0 ? found : -1;
+    }
+
+    /**
+     * Binary-searches the records by ISBN bytes.
+     * @return The record index, or (-(insertion point) - 1) if the ISBN is not in the catalog.
+     */
+    private int search(String isbn) {
+        byte[] key = isbn.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareIsbn(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int compareIsbn(int index, byte[] key) {
+        int base = index * MappedCatalogWriter.RECORD_BYTES;
+        int offset = records.getInt(base);
+        int length = records.getShort(base + 4);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(heap.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String decode(int index, int fieldOffset) {
+        int base = index * MappedCatalogWriter.RECORD_BYTES + fieldOffset;
+        int offset = records.getInt(base);
+        int length = records.getShort(base + 4);
+        byte[] bytes = new byte[length];
+        heap.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A book added after opening, with the status it is counted under and its word index id.
+     */
+    private static final class Added {
+        final IBook book;
+        final BookStatus status;
+        final int id;
+
+        Added(IBook book, BookStatus status, int id) {
+            this.book = book;
+            this.status = status;
+            this.id = id;
+        }
+    }
+
+    /**
+     * The title and author word indexes backing fuzzy searches. Catalog records are indexed under their record
+     * index, so the postings hold no decoded ISBNs.
+     */
+    private static final class WordIndexes {
+        final FuzzyTokenIndex<Integer> titles = new FuzzyTokenIndex<>();
+        final FuzzyTokenIndex<Integer> authors = new FuzzyTokenIndex<>();
+
+        void add(int id, String title, String author) {
+            titles.add(id, title);
+            authors.add(id, author);
+        }
+
+        void remove(int id, String title, String author) {
+            titles.remove(id, title);
+            authors.remove(id, author);
+        }
+
+        /**
+         * Moves a replaced book's words to its replacement, if its title or author changed.
+         */
+        void replace(int id, IBook previous, IBook replacement) {
+            if (!previous.getTitle().equals(replacement.getTitle())) {
+                titles.remove(id, previous.getTitle());
+                titles.add(id, replacement.getTitle());
+            }
+            if (!previous.getAuthor().equals(replacement.getAuthor())) {
+                authors.remove(id, previous.getAuthor());
+                authors.add(id, replacement.getAuthor());
+            }
+        }
+    }
+
+    /**
+     * A flyweight view of one catalog record. Strings are decoded on each call; the status lives in the side array.
+     */
+    private final class MappedBook implements IBook {
+        private final int index;
+
+        MappedBook(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getTitle() {
+            return decode(index, 6);
+        }
+
+        @Override
+        public String getAuthor() {
+            return decode(index, 12);
+        }
+
+        @Override
+        public String getISBN() {
+            return decode(index, 0);
+        }
+
+        @Override
+        public int getPublicationYear() {
+            return records.getShort(index * MappedCatalogWriter.RECORD_BYTES + 18);
+        }
+
+        @Override
+        public BookStatus getStatus() {
+            return STATUSES[(byte) STATUS.getVolatile(statuses, index)];
+        }
+
+        @Override
+        public void setStatus(BookStatus status) {
+            if (status == null) {
+                throw new IllegalArgumentException("Book status cannot be null.");
+            }
+            setStatusAt(index, status);
+        }
+
+        @Override
+        public String toString() {
+            return "Book [Title=" + getTitle() + ", Author=" + getAuthor() + ", ISBN=" + getISBN() +
+                    ", PublicationYear=" + getPublicationYear() + ", Status=" + getStatus() + "]";
+        }
+
+        /**
+         * Two views are equal when they point at the same record of the same catalog, i.e. have the same ISBN.
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            MappedBook that = (MappedBook) obj;
+            return index == that.index && owner() == that.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return getISBN().hashCode();
+        }
+
+        private MappedBookRepository owner() {
+            return MappedBookRepository.this;
+        }
+    }
+}
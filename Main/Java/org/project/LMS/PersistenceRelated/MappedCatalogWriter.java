@@ -0,0 +1,147 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.IBook;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes the compact binary catalog format read by {@link MappedBookRepository}.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   magic:int, version:int, count:int, heapOffset:long
+ *   records  count x RECORD_BYTES, sorted by the UTF-8 bytes of the ISBN:
+ *            isbnOffset:int isbnLength:short titleOffset:int titleLength:short
+ *            authorOffset:int authorLength:short publicationYear:short
+ *   heap     the UTF-8 bytes of all strings; offsets above are relative to heapOffset
+ * </pre>
+ */
+public final class MappedCatalogWriter {
+    static final int MAGIC = 0x4C4D5343; // "LMSC"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 20;
+    static final int RECORD_BYTES = 20;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private MappedCatalogWriter() {
+    }
+
+    /**
+     * Writes the given books to a catalog file, replacing any existing file.
+     * Book statuses are not part of the format; every book starts AVAILABLE when the file is opened.
+     * @param file The catalog file to write.
+     * @param books The books to store; ISBNs must be unique.
+     */
+    public static void write(Path file, Collection<? extends IBook> books) {
+        if (file == null) {
+            throw new IllegalArgumentException("Catalog file can not be null.");
+        }
+        if (books == null) {
+            throw new IllegalArgumentException("Books can not be null.");
+        }
+        List<EncodedBook> encoded = new ArrayList<>(books.size());
+        for (IBook book : books) {
+            encoded.add(new EncodedBook(book));
+        }
+        encoded.sort((a, b) -> Arrays.compareUnsigned(a.isbn, b.isbn)); // The reader binary-searches on these bytes
+
+        long heapOffset = HEADER_BYTES + (long) encoded.size() * RECORD_BYTES;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(encoded.size()).putLong(heapOffset).flip();
+            writeFully(out, header, 0L);
+
+            ByteBuffer records = ByteBuffer.allocate(BUFFER_BYTES);
+            ByteBuffer heap = ByteBuffer.allocate(BUFFER_BYTES);
+            long recordPosition = HEADER_BYTES;
+            long heapPosition = heapOffset;
+            int heapUsed = 0;
+            byte[] previousIsbn = null;
+            for (EncodedBook book : encoded) {
+                if (previousIsbn != null && Arrays.equals(previousIsbn, book.isbn)) {
+                    throw new IllegalArgumentException("Duplicate ISBN in catalog: " + new String(book.isbn, StandardCharsets.UTF_8));
+                }
+                previousIsbn = book.isbn;
+                if (records.remaining() < RECORD_BYTES) {
+                    records.flip();
+                    recordPosition += writeFully(out, records, recordPosition);
+                    records.clear();
+                }
+                int isbnOffset = heapUsed;
+                int titleOffset = isbnOffset + book.isbn.length;
+                int authorOffset = titleOffset + book.title.length;
+                heapUsed = authorOffset + book.author.length;
+                if (heapUsed < 0) {
+                    throw new IllegalArgumentException("Catalog string heap exceeds 2 GB.");
+                }
+                records.putInt(isbnOffset).putShort((short) book.isbn.length)
+                        .putInt(titleOffset).putShort((short) book.title.length)
+                        .putInt(authorOffset).putShort((short) book.author.length)
+                        .putShort((short) book.publicationYear);
+                for (byte[] value : new byte[][]{book.isbn, book.title, book.author}) {
+                    if (heap.remaining() < value.length) {
+                        heap.flip();
+                        heapPosition += writeFully(out, heap, heapPosition);
+                        heap.clear();
+                    }
+                    if (value.length > heap.capacity()) {
+                        heapPosition += writeFully(out, ByteBuffer.wrap(value), heapPosition);
+                    } else {
+                        heap.put(value);
+                    }
+                }
+            }
+            records.flip();
+            writeFully(out, records, recordPosition);
+            heap.flip();
+            writeFully(out, heap, heapPosition);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write catalog " + file, e);
+        }
+    }
+
+    private static long writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static final class EncodedBook {
+        final byte[] isbn;
+        final byte[] title;
+        final byte[] author;
+        final int publicationYear;
+
+        EncodedBook(IBook book) {
+            this.isbn = encode(book.getISBN());
+            this.title = encode(book.getTitle());
+            this.author = encode(book.getAuthor());
+            if (book.getPublicationYear() > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Publication year out of range for catalog: " + book.getPublicationYear());
+            }
+            this.publicationYear = book.getPublicationYear();
+        }
+
+        private static byte[] encode(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Catalog strings are limited to " + Short.MAX_VALUE + " bytes.");
+            }
+            return bytes;
+        }
+    }
+}
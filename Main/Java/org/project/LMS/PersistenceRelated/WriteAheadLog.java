@@ -0,0 +1,404 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only, checksummed record log with snapshot support, written through NIO FileChannels.
+ *
+ * The log is split into generations ({@code <name>-<generation>.log}). A snapshot rotates the log to a
+ * new generation first and then records which generation it covers, so recovery loads the snapshot and
+ * replays only the newer generations. Records are expected to be idempotent upserts/deletes, which makes
+ * it harmless when an operation ends up both in the snapshot and in the replayed tail.
+ *
+ * Every record is framed as [length][CRC32][payload]; a torn or corrupt tail is cut off during recovery.
+ * Durability follows the configured {@link FsyncPolicy}; concurrent callers waiting for durability are
+ * served by a single fsync (group commit). A failed fsync leaves the state of the file unknown, so it is
+ * sticky: once one has failed, whether in a caller or in the INTERVAL flusher, every later
+ * {@link #commit(long)} and {@link #flush()} throws.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int READ_CHUNK_BYTES = 1 << 20;
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final Path directory;
+    private final String name;
+    private final FsyncPolicy policy;
+    private final int batchSize;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private volatile FileChannel channel;
+    private long generation;            // Guarded by appendLock
+    private volatile long appendedSeq;  // Sequence number of the last appended record
+    private volatile long durableSeq;   // Sequence number up to which records are known to be on disk
+    private volatile boolean closed;
+    private volatile IOException syncFailure; // The first failed fsync; the log is unusable from then on
+
+    /**
+     * Opens (or creates) a log in the given directory.
+     * @param directory The directory holding the log and snapshot files.
+     * @param name The base name of the files.
+     * @param policy When appended records are forced to disk.
+     * @param batchSize For PER_BATCH, the number of records per fsync.
+     * @param intervalMillis For INTERVAL, the time between fsyncs.
+     */
+    public WriteAheadLog(Path directory, String name, FsyncPolicy policy, int batchSize, long intervalMillis) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Log directory can not be null.");
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Log name can not be null or empty.");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Fsync policy can not be null.");
+        }
+        if (policy == FsyncPolicy.PER_BATCH && batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be a positive value.");
+        }
+        if (policy == FsyncPolicy.INTERVAL && intervalMillis <= 0) {
+            throw new IllegalArgumentException("Fsync interval must be a positive value.");
+        }
+        this.directory = directory;
+        this.name = name;
+        this.policy = policy;
+        this.batchSize = batchSize;
+        try {
+            Files.createDirectories(directory);
+            List<Long> generations = logGenerations();
+            this.generation = generations.isEmpty() ? 1L : generations.get(generations.size() - 1);
+            this.channel = openForAppend(generation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open write-ahead log " + name + " in " + directory, e);
+        }
+        if (policy == FsyncPolicy.INTERVAL) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            // sync records its failure before throwing; swallowing it here keeps the schedule alive
+            // and leaves the next commit to report it.
+            flusher.scheduleAtFixedRate(() -> {
+                try {
+                    sync(appendedSeq);
+                } catch (UncheckedIOException e) {
+                    // Already recorded in syncFailure
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Feeds the latest snapshot and then every log record written after it to the given handlers.
+     * Must be called before the first append. The buffers passed to the handlers are only valid during the call.
+     * @param snapshotHandler Receives the payload of each snapshot record.
+     * @param logHandler Receives the payload of each log record, in append order.
+     */
+    public void recover(Consumer<ByteBuffer> snapshotHandler, Consumer<ByteBuffer> logHandler) {
+        try {
+            long coveredGeneration = 0L;
+            Path snapshot = directory.resolve(name + SNAPSHOT_SUFFIX);
+            if (Files.exists(snapshot)) {
+                AtomicLong header = new AtomicLong(-1L); // The first record is the snapshot header
+                readRecords(snapshot, record -> {
+                    if (header.get() < 0) {
+                        header.set(record.getLong());
+                    } else {
+                        snapshotHandler.accept(record);
+                    }
+                }, false);
+                coveredGeneration = Math.max(0L, header.get());
+            }
+            for (long logGeneration : logGenerations()) {
+                if (logGeneration > coveredGeneration) {
+                    readRecords(logFile(logGeneration), logHandler, true);
+                }
+            }
+            // Truncation may have shortened the active file; keep appending at its real end.
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not recover write-ahead log " + name, e);
+        }
+    }
+
+    /**
+     * Appends a record without waiting for it to reach the disk.
+     * @param payload The encoded record.
+     * @return The sequence number of the record, to be passed to {@link #commit(long)}.
+     */
+    public long append(byte[] payload) {
+        ByteBuffer frame = frame(payload);
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log " + name + " is closed.");
+            }
+            try {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can not append to write-ahead log " + name, e);
+            }
+            appendedSeq = appendedSeq + 1;
+            return appendedSeq;
+        }
+    }
+
+    /**
+     * Applies the fsync policy to an appended record. For PER_OPERATION this blocks until the record is durable.
+     * Call it without holding locks other threads need, so that concurrent commits can share one fsync.
+     *
+     * Callers apply their change in memory before appending it, so when this throws the change is already
+     * visible but not durable; it is not rolled back. Every later commit throws as well, so nothing is
+     * reported durable from then on.
+     * @param seq The sequence number returned by {@link #append(byte[])}.
+     * @throws UncheckedIOException If this or an earlier fsync failed.
+     */
+    public void commit(long seq) {
+        checkSyncFailure();
+        switch (policy) {
+            case PER_OPERATION:
+                sync(seq);
+                break;
+            case PER_BATCH:
+                if (seq - durableSeq >= batchSize) {
+                    sync(seq);
+                }
+                break;
+            case INTERVAL:
+                break; // The background flusher takes care of it
+        }
+    }
+
+    /**
+     * Starts a new log generation, forcing the current one to disk first.
+     * The returned generation is the one a snapshot taken from now on covers.
+     * @return The generation that was just closed.
+     */
+    public long rotate() {
+        synchronized (appendLock) {
+            synchronized (syncLock) {
+                try {
+                    channel.force(false);
+                    durableSeq = appendedSeq;
+                    channel.close();
+                    long closedGeneration = generation;
+                    generation = generation + 1;
+                    channel = openForAppend(generation);
+                    return closedGeneration;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Can not rotate write-ahead log " + name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the snapshot and deletes the log generations it covers.
+     * @param coveredGeneration The generation returned by {@link #rotate()} before the state was captured.
+     * @param records The encoded state records.
+     */
+    public void writeSnapshot(long coveredGeneration, Iterable<byte[]> records) {
+        Path snapshot = directory.resolve(name + SNAPSHOT_SUFFIX);
+        Path temporary = directory.resolve(name + SNAPSHOT_SUFFIX + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, frame(ByteBuffer.allocate(Long.BYTES).putLong(coveredGeneration).array()));
+            for (byte[] record : records) {
+                writeFully(out, frame(record));
+            }
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write snapshot for " + name, e);
+        }
+        try {
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (long logGeneration : logGenerations()) {
+                if (logGeneration <= coveredGeneration) {
+                    Files.deleteIfExists(logFile(logGeneration));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not install snapshot for " + name, e);
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     * @throws UncheckedIOException If this or an earlier fsync failed.
+     */
+    public void flush() {
+        checkSyncFailure();
+        sync(appendedSeq);
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            synchronized (syncLock) {
+                try {
+                    channel.force(false);
+                    durableSeq = appendedSeq;
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Can not close write-ahead log " + name, e);
+                }
+            }
+        }
+    }
+
+    private void sync(long seq) {
+        if (durableSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSeq >= seq || closed) {
+                return; // Another caller's fsync already covered this record
+            }
+            checkSyncFailure();
+            long target = appendedSeq; // Everything appended up to now is covered by this fsync
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                syncFailure = e;
+                throw new UncheckedIOException("Can not fsync write-ahead log " + name, e);
+            }
+            durableSeq = target;
+        }
+    }
+
+    private void checkSyncFailure() {
+        IOException failure = syncFailure;
+        if (failure != null) {
+            throw new UncheckedIOException("An earlier fsync of write-ahead log " + name + " failed.", failure);
+        }
+    }
+
+    private void readRecords(Path file, Consumer<ByteBuffer> handler, boolean truncateCorruptTail) throws IOException {
+        // Only the truncating pass over the log needs write access; the file is streamed in chunks
+        // so its size is not bounded by a single buffer.
+        try (FileChannel in = truncateCorruptTail
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer data = ByteBuffer.allocate((int) Math.max(FRAME_HEADER_BYTES, Math.min(size, READ_CHUNK_BYTES)));
+            data.limit(0);
+            CRC32 crc = new CRC32();
+            long validEnd = 0L;
+            while (fill(in, data, FRAME_HEADER_BYTES)) {
+                int length = data.getInt(data.position());
+                int checksum = data.getInt(data.position() + Integer.BYTES);
+                if (length < 0 || length > size - validEnd - FRAME_HEADER_BYTES) {
+                    break; // Torn write at the tail
+                }
+                int frameBytes = FRAME_HEADER_BYTES + length;
+                if (data.capacity() < frameBytes) {
+                    data = ByteBuffer.allocate(frameBytes).put(data).flip();
+                }
+                if (!fill(in, data, frameBytes)) {
+                    break;
+                }
+                ByteBuffer payload = data.slice(data.position() + FRAME_HEADER_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                data.position(data.position() + frameBytes);
+                validEnd += frameBytes;
+                handler.accept(payload);
+            }
+            if (truncateCorruptTail && validEnd < size) {
+                in.truncate(validEnd);
+            }
+        }
+    }
+
+    /**
+     * Makes sure at least the given number of bytes are readable from the buffer, reading more from the file if needed.
+     * @return False if the file ends first.
+     */
+    private static boolean fill(FileChannel in, ByteBuffer data, int needed) throws IOException {
+        if (data.remaining() >= needed) {
+            return true;
+        }
+        data.compact();
+        while (data.position() < needed && in.read(data) >= 0) {
+            // Keep reading until the frame is complete or the file ends
+        }
+        data.flip();
+        return data.remaining() >= needed;
+    }
+
+    private ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private FileChannel openForAppend(long logGeneration) throws IOException {
+        return FileChannel.open(logFile(logGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path logFile(long logGeneration) {
+        return directory.resolve(name + "-" + logGeneration + LOG_SUFFIX);
+    }
+
+    private List<Long> logGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        String prefix = name + "-";
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(file -> file.startsWith(prefix) && file.endsWith(LOG_SUFFIX))
+                    .forEach(file -> {
+                        String number = file.substring(prefix.length(), file.length() - LOG_SUFFIX.length());
+                        try {
+                            generations.add(Long.parseLong(number));
+                        } catch (NumberFormatException e) {
+                            // Not one of our generations
+                        }
+                    });
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+}
@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
\ No newline at end of file
@@ -0,0 +1,328 @@
+package Main.Java.org.project.LMS.ServerRelated;
+
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.SearchType;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryService;
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small embedded HTTP front end for the lending service, built on the JDK's HttpServer.
+ * Every request runs on its own virtual thread when the runtime has them (Java 21 and later), so tens of
+ * thousands of kiosks can wait on lock stripes or I/O without tying up platform threads. On older runtimes
+ * requests run on a fixed pool of platform threads instead. Responses are JSON.
+ *
+ * Endpoints:
+ *   POST /checkout?isbn=...&amp;patron=...      200 if the book was lent, 409 if not
+ *   POST /return?isbn=...[&amp;patron=...]      200 if the book was returned, 409 if not; without a patron
+ *                                               the recorded borrower returns it
+ *   GET  /search?q=...[&amp;by=BY_TITLE][&amp;limit=20]  matching books, best first for fuzzy search types
+ *   GET  /books/{isbn}                         the book, or 404
+ *   GET  /books/{isbn}/borrower                the ID of the patron who has the book, or null
+ *   GET  /patrons/{id}                         the patron, or 404
+ * Missing or malformed parameters are answered with 400.
+ */
+public class LibraryHttpServer implements AutoCloseable {
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 1000;
+    private static final int BACKLOG = 16384; // Pending connections the kernel may queue for accept
+    private static final int PLATFORM_THREADS = Runtime.getRuntime().availableProcessors() * 32;
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final LibraryService service;
+    private final InetSocketAddress requestedAddress;
+    private HttpServer server;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+
+    /**
+     * @param service The service requests are served from.
+     * @param address The address to listen on; port 0 picks any free port.
+     */
+    public LibraryHttpServer(LibraryService service, InetSocketAddress address) {
+        if (service == null) {
+            throw new IllegalArgumentException("Library service can not be null.");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Server address can not be null.");
+        }
+        this.service = service;
+        this.requestedAddress = address;
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(requestedAddress, BACKLOG);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not start library server on " + requestedAddress + ": " + e.getMessage(), e);
+        }
+        executor = newVirtualThreadPerTaskExecutor();
+        virtualThreads = executor != null;
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(PLATFORM_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "library-server-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        server.setExecutor(executor);
+        server.createContext("/checkout", exchange -> handle(exchange, "POST", this::checkout));
+        server.createContext("/return", exchange -> handle(exchange, "POST", this::giveBack));
+        server.createContext("/search", exchange -> handle(exchange, "GET", this::search));
+        server.createContext("/books/", exchange -> handle(exchange, "GET", this::book));
+        server.createContext("/patrons/", exchange -> handle(exchange, "GET", this::patron));
+        server.start();
+    }
+
+    /**
+     * @return The port the server listens on, or -1 if it is not started.
+     */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * @return true if requests run on virtual threads, false if they run on the platform thread pool.
+     */
+    public synchronized boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    private Response checkout(HttpExchange exchange, Map<String, String> parameters) {
+        String isbn = required(parameters, "isbn");
+        String patronId = required(parameters, "patron");
+        return outcome(service.checkoutBook(isbn, patronId), isbn);
+    }
+
+    private Response giveBack(HttpExchange exchange, Map<String, String> parameters) {
+        String isbn = required(parameters, "isbn");
+        String patronId = parameters.get("patron");
+        return outcome(patronId == null ? service.returnBook(isbn) : service.returnBook(isbn, patronId), isbn);
+    }
+
+    private Response search(HttpExchange exchange, Map<String, String> parameters) {
+        String query = required(parameters, "q");
+        SearchType searchBy;
+        int limit;
+        try {
+            searchBy = SearchType.valueOf(parameters.getOrDefault("by", SearchType.BY_TITLE.name()));
+            limit = Integer.parseInt(parameters.getOrDefault("limit", String.valueOf(DEFAULT_SEARCH_LIMIT)));
+        } catch (IllegalArgumentException e) { // Also covers NumberFormatException
+            throw new IllegalArgumentException("Invalid search type or limit.", e);
+        }
+        if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+        }
+        List<IBook> books = service.searchBooks(query, searchBy, limit);
+        StringBuilder json = new StringBuilder(64 + books.size() * 128).append('[');
+        for (int i = 0; i < books.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendBook(json, books.get(i));
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    private Response book(HttpExchange exchange, Map<String, String> parameters) {
+        String path = exchange.getRequestURI().getPath().substring("/books/".length());
+        if (path.endsWith("/borrower")) {
+            String isbn = path.substring(0, path.length() - "/borrower".length());
+            StringBuilder json = new StringBuilder("{\"isbn\":");
+            appendString(json, isbn);
+            json.append(",\"patronId\":");
+            appendString(json, service.getCurrentBorrower(isbn));
+            return new Response(200, json.append('}').toString());
+        }
+        IBook book = path.isEmpty() ? null : service.findBook(path);
+        if (book == null) {
+            return notFound("Book", path);
+        }
+        StringBuilder json = new StringBuilder(128);
+        appendBook(json, book);
+        return new Response(200, json.toString());
+    }
+
+    private Response patron(HttpExchange exchange, Map<String, String> parameters) {
+        String patronId = exchange.getRequestURI().getPath().substring("/patrons/".length());
+        IPatron patron = patronId.isEmpty() ? null : service.findPatron(patronId);
+        if (patron == null) {
+            return notFound("Patron", patronId);
+        }
+        StringBuilder json = new StringBuilder("{\"patronId\":");
+        appendString(json, patron.getPatronId());
+        json.append(",\"name\":");
+        appendString(json, patron.getName());
+        json.append(",\"contact\":");
+        appendString(json, patron.getContactInfo());
+        json.append(",\"borrowedISBNs\":[");
+        List<IBook> borrowed = patron.getBorrowedBooks();
+        for (int i = 0; i < borrowed.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendString(json, borrowed.get(i).getISBN());
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    /**
+     * Runs one request: checks the method, parses the query string, and maps IllegalArgumentException,
+     * which the service throws for malformed input, to 400 Bad Request.
+     */
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream()); // Drain it so the connection can be reused
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                response = error(405, "Use " + method + ".");
+            } else {
+                response = handler.handle(exchange, parametersOf(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            response = error(500, "Internal error.");
+        }
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Returns Executors.newVirtualThreadPerTaskExecutor() if the runtime has it. The build targets Java 17,
+     * which has no virtual threads, so the factory is looked up reflectively.
+     * @return The executor, or null if virtual threads are not available.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> parametersOf(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter '" + name + "'.");
+        }
+        return value;
+    }
+
+    private static Response outcome(boolean succeeded, String isbn) {
+        StringBuilder json = new StringBuilder("{\"ok\":").append(succeeded).append(",\"isbn\":");
+        appendString(json, isbn);
+        return new Response(succeeded ? 200 : 409, json.append('}').toString());
+    }
+
+    private static Response notFound(String what, String id) {
+        return error(404, what + " " + id + " not found.");
+    }
+
+    private static Response error(int status, String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return new Response(status, json.append('}').toString());
+    }
+
+    private static void appendBook(StringBuilder json, IBook book) {
+        json.append("{\"isbn\":");
+        appendString(json, book.getISBN());
+        json.append(",\"title\":");
+        appendString(json, book.getTitle());
+        json.append(",\"author\":");
+        appendString(json, book.getAuthor());
+        json.append(",\"publicationYear\":").append(book.getPublicationYear());
+        json.append(",\"status\":\"").append(book.getStatus().name()).append("\"}");
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange, Map<String, String> parameters);
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.ServerRelated;
\ No newline at end of file
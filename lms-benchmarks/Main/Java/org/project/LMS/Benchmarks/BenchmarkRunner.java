@@ -0,0 +1,33 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the LMS benchmarks once per thread count with the GC profiler attached, so every result
+ * reports throughput, latency percentiles (SampleTime mode) and allocation rate (gc.alloc.rate.norm).
+ *
+ * Usage: java -jar lms-benchmarks/target/benchmarks.jar [benchmark-regex] [thread-counts]
+ * e.g.   java -jar benchmarks.jar "LendingBenchmark" 1,4,16
+ * For anything more specific, the regular JMH command line works too:
+ *        java -cp benchmarks.jar org.openjdk.jmh.Main -p catalogSize=10000 -t 8 -prof gc
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "Main.Java.org.project.LMS.Benchmarks.*";
+        String threadCounts = args.length > 1 ? args[1] : "1," + Runtime.getRuntime().availableProcessors();
+
+        for (String threads : threadCounts.split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the read paths of InMemoryBookRepository: point lookups, title/author/ISBN searches,
+ * full catalog copies, cursor pages and streamed scans, for several catalog sizes and observer setups.
+ * With shards above 0 the same paths run against a ShardedBookRepository of that many shards instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookRepositoryBenchmark {
+
+    // Every indexed book costs about 2.1 KB of heap (2.6 KB across 16 shards), so 1M books need about 2.5 GB.
+    // 10M books need a 32 GB heap: run them explicitly with -p catalogSize=10000000 -jvmArgsAppend -Xmx32g.
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"NONE", "NOOP", "LOGGER"})
+    public ObserverConfig observers;
+
+    @Param({"0", "4", "16"})
+    public int shards;
+
+    private IBookRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (shards == 0) {
+            InMemoryBookRepository inMemory = new InMemoryBookRepository();
+            CatalogFixture.fillBooks(inMemory, catalogSize);
+            observers.attachTo(inMemory); // Attached after loading so the fill is not logged
+            repository = inMemory;
+        } else {
+            ShardedBookRepository sharded = new ShardedBookRepository(shards, ForkJoinPool.commonPool());
+            CatalogFixture.fillBooks(sharded, catalogSize);
+            observers.attachTo(sharded);
+            repository = sharded;
+        }
+    }
+
+    @Benchmark
+    public IBook getBookByISBN() {
+        return repository.getBookByISBN(CatalogFixture.isbnOf(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    @Benchmark
+    public List<IBook> searchByTitle() {
+        return repository.searchBooks("Winter River", SearchType.BY_TITLE);
+    }
+
+    @Benchmark
+    public List<IBook> searchByAuthor() {
+        return repository.searchBooks("Orwell 12", SearchType.BY_AUTHOR);
+    }
+
+    @Benchmark
+    public List<IBook> fuzzySearchByTitle() {
+        return repository.searchBooks("Wintr Rivr", SearchType.FUZZY_TITLE, 10);
+    }
+
+    @Benchmark
+    public List<IBook> searchByISBN() {
+        return repository.searchBooks(CatalogFixture.isbnOf(ThreadLocalRandom.current().nextInt(catalogSize)), SearchType.BY_ISBN);
+    }
+
+    @Benchmark
+    public List<IBook> getAllBooks() {
+        return repository.getAllBooks();
+    }
+
+    @Benchmark
+    public List<IBook> page() {
+        return repository.page(CatalogFixture.isbnOf(ThreadLocalRandom.current().nextInt(catalogSize)), 100);
+    }
+
+    @Benchmark
+    public long streamAvailable() {
+        return repository.streamByStatus(BookStatus.AVAILABLE).count();
+    }
+}
@@ -0,0 +1,64 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import Main.Java.org.project.LMS.PatronRelated.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds deterministic catalogs and patron lists for the benchmarks.
+ * Titles and authors are drawn from small word lists so substring searches have realistic hit rates.
+ */
+public final class CatalogFixture {
+    private static final int FILL_CHUNK = 10_000;
+    private static final String[] TITLE_WORDS = {
+            "Great", "Silent", "Winter", "River", "Garden", "Shadow", "Empire", "Journey", "Secret", "Ocean",
+            "Mountain", "Letters", "Kingdom", "Night", "Summer", "Stranger", "Island", "Memory", "Light", "Fire"
+    };
+    private static final String[] AUTHOR_NAMES = {
+            "Fitzgerald", "Orwell", "Lee", "Austen", "Tolkien", "Morrison", "Hemingway", "Woolf", "Dickens", "Tolstoy",
+            "Achebe", "Murakami", "Atwood", "Borges", "Calvino", "Eliot", "Faulkner", "Garcia", "Ishiguro", "Kafka"
+    };
+
+    private CatalogFixture() {
+    }
+
+    public static String isbnOf(int index) {
+        return "978-" + String.format("%09d", index);
+    }
+
+    public static String patronIdOf(int index) {
+        return "P" + index;
+    }
+
+    public static IBook bookOf(int index) {
+        Random random = new Random(index);
+        String title = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + index;
+        String author = AUTHOR_NAMES[random.nextInt(AUTHOR_NAMES.length)] + " " + (index % 997);
+        return new ConcreteBook(title, author, isbnOf(index), 1900 + random.nextInt(125));
+    }
+
+    /**
+     * Loads the catalog through the bulk path, one validated batch of FILL_CHUNK books at a time,
+     * so filling a large catalog raises a few bulk events instead of one event per book.
+     */
+    public static void fillBooks(IBookRepository repository, int catalogSize) {
+        List<IBook> chunk = new ArrayList<>(Math.min(catalogSize, FILL_CHUNK));
+        for (int i = 0; i < catalogSize; i++) {
+            chunk.add(bookOf(i));
+            if (chunk.size() == FILL_CHUNK || i == catalogSize - 1) {
+                repository.addBooks(chunk);
+                chunk.clear();
+            }
+        }
+    }
+
+    public static void fillPatrons(IPatronRepository repository, int patronCount) {
+        for (int i = 0; i < patronCount; i++) {
+            repository.addPatron(new ConcretePatron(patronIdOf(i), "Patron " + i, "patron" + i + "@library.org"));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what event construction costs per repository write for different observer setups.
+ * Run it with the GC profiler (BenchmarkRunner attaches it, or pass -prof gc) and compare
+ * gc.alloc.rate.norm: with NONE or ERRORS_ONLY the BOOK_UPDATED and INFO events are never built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventAllocationBenchmark {
+
+    @Param({"NONE", "NOOP", "READ_ALL", "ERRORS_ONLY"})
+    public ObserverConfig observers;
+
+    private InMemoryBookRepository repository;
+    private IBook book;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new InMemoryBookRepository();
+        book = new ConcreteBook("The Great Gatsby", "F. Scott Fitzgerald", "978-0743273565", 1925);
+        repository.addBook(book);
+        observers.attachTo(repository);
+    }
+
+    /**
+     * One update and one ISBN search, each of which raises one event.
+     */
+    @Benchmark
+    public List<IBook> updateAndSearch() {
+        repository.updateBook(book);
+        return repository.searchBooks(book.getISBN(), SearchType.BY_ISBN);
+    }
+}
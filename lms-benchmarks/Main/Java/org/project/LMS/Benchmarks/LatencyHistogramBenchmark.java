@@ -0,0 +1,53 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.MetricsRelated.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what one histogram record adds to every instrumented operation. All threads record into the
+ * same histogram, as they do into the shared lending and search histograms, so a run with several threads
+ * (e.g. BenchmarkRunner's 1,N default or -t 8) shows the contended cost. A record should stay under 50 ns
+ * in both cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+    private LatencyHistogram histogram;
+
+    @State(Scope.Thread)
+    public static class Latencies {
+        private final long[] values = new long[1024];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // Spread over the buckets real operations hit, from tens of nanoseconds to milliseconds
+            Random random = new Random(42);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (long) Math.exp(3 + random.nextDouble() * 12);
+            }
+        }
+
+        long nextValue() {
+            return values[next++ & (values.length - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public void record(Latencies latencies) {
+        histogram.record(latencies.nextValue());
+    }
+}
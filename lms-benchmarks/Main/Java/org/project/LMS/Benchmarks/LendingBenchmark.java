@@ -0,0 +1,89 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import Main.Java.org.project.LMS.LendingManager.LibraryLendingManager;
+import Main.Java.org.project.LMS.LendingManager.ReturnRequest;
+import Main.Java.org.project.LMS.PatronRelated.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks LibraryLendingManager.checkoutBook and returnBook, and their batch forms.
+ * Each invocation checks a random book out to a random patron and returns it again, so the catalog
+ * stays in a steady state; the rejected-checkout path is measured separately against a book that is
+ * permanently lent. Use the thread count of the runner (-t) to measure contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LendingBenchmark {
+    private static final String LENT_ISBN = "978-lent";
+    private static final String LENT_TO = "P-holder";
+    private static final int BATCH_SIZE = 20;
+
+    // Every indexed book costs about 2.1 KB of heap (2.6 KB across 16 shards), so 1M books need about 2.5 GB.
+    // 10M books need a 32 GB heap: run them explicitly with -p catalogSize=10000000 -jvmArgsAppend -Xmx32g.
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"1000", "100000"})
+    public int patronCount;
+
+    @Param({"NONE", "NOOP", "LOGGER"})
+    public ObserverConfig observers;
+
+    private InMemoryBookRepository bookRepository;
+    private InMemoryPatronRepository patronRepository;
+    private LibraryLendingManager lendingManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookRepository = new InMemoryBookRepository();
+        patronRepository = new InMemoryPatronRepository();
+        CatalogFixture.fillBooks(bookRepository, catalogSize);
+        CatalogFixture.fillPatrons(patronRepository, patronCount);
+        bookRepository.addBook(new ConcreteBook("Always Lent", "Nobody", LENT_ISBN, 2000));
+        patronRepository.addPatron(new ConcretePatron(LENT_TO, "Holder", "holder@library.org"));
+
+        lendingManager = new LibraryLendingManager(bookRepository, patronRepository);
+        lendingManager.checkoutBook(LENT_ISBN, LENT_TO);
+        observers.attachTo(bookRepository, patronRepository, lendingManager);
+    }
+
+    @Benchmark
+    public boolean checkoutAndReturn() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String isbn = CatalogFixture.isbnOf(random.nextInt(catalogSize));
+        String patronId = CatalogFixture.patronIdOf(random.nextInt(patronCount));
+        // Under contention another thread may hold the book; only return what was actually lent.
+        return lendingManager.checkoutBook(isbn, patronId) && lendingManager.returnBook(isbn, patronId);
+    }
+
+    @Benchmark
+    public boolean checkoutUnavailable() {
+        String patronId = CatalogFixture.patronIdOf(ThreadLocalRandom.current().nextInt(patronCount));
+        return lendingManager.checkoutBook(LENT_ISBN, patronId);
+    }
+
+    @Benchmark
+    public boolean checkoutAndReturnBatch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(catalogSize - BATCH_SIZE);
+        String patronId = CatalogFixture.patronIdOf(random.nextInt(patronCount));
+        List<String> isbns = new ArrayList<>(BATCH_SIZE);
+        List<ReturnRequest> returns = new ArrayList<>(BATCH_SIZE);
+        for (int i = first; i < first + BATCH_SIZE; i++) {
+            String isbn = CatalogFixture.isbnOf(i);
+            isbns.add(isbn);
+            returns.add(new ReturnRequest(isbn, patronId));
+        }
+        return lendingManager.checkoutBooks(patronId, isbns) && lendingManager.returnBooks(returns);
+    }
+}
@@ -0,0 +1,54 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.ObserverRelated.ILibraryObserver;
+import Main.Java.org.project.LMS.ObserverRelated.ILibrarySubject;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import Main.Java.org.project.LMS.ObserverRelated.LoggerObserver;
+
+/**
+ * The observer setups the benchmarks are run against.
+ */
+public enum ObserverConfig {
+    NONE,        // No observer registered; event construction can be skipped entirely
+    NOOP,        // An observer that receives every event and ignores it
+    READ_ALL,    // An observer that formats the message of every event
+    ERRORS_ONLY, // An observer subscribed to ERROR and WARNING only, so other events are never built
+    LOGGER;      // The console LoggerObserver
+
+    /**
+     * Registers the observer for this configuration on the given subjects.
+     * @param subjects The subjects to attach to.
+     */
+    public void attachTo(ILibrarySubject... subjects) {
+        ILibraryObserver observer;
+        switch (this) {
+            case NOOP:
+                observer = event -> { };
+                break;
+            case READ_ALL:
+                observer = event -> event.getMessage();
+                break;
+            case ERRORS_ONLY:
+                observer = new ILibraryObserver() {
+                    @Override
+                    public void update(LibraryEvent event) {
+                        event.getMessage();
+                    }
+
+                    @Override
+                    public boolean isInterestedIn(LibraryEvent.EventType type) {
+                        return type == LibraryEvent.EventType.ERROR || type == LibraryEvent.EventType.WARNING;
+                    }
+                };
+                break;
+            case LOGGER:
+                observer = new LoggerObserver();
+                break;
+            default:
+                return;
+        }
+        for (ILibrarySubject subject : subjects) {
+            subject.addObserver(observer);
+        }
+    }
+}
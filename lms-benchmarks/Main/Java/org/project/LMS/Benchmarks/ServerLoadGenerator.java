@@ -0,0 +1,176 @@
+package Main.Java.org.project.LMS.Benchmarks;
+
+import Main.Java.org.project.LMS.BookRelated.*;
+import Main.Java.org.project.LMS.LendingManager.LibraryLendingManager;
+import Main.Java.org.project.LMS.MetricsRelated.HistogramSnapshot;
+import Main.Java.org.project.LMS.MetricsRelated.LatencyHistogram;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryService;
+import Main.Java.org.project.LMS.PatronRelated.*;
+import Main.Java.org.project.LMS.ServerRelated.LibraryHttpServer;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a {@link LibraryHttpServer} with many simulated kiosks and reports sustained requests per second
+ * and latency percentiles. Each kiosk is a closed loop: it sends a request, waits for the response and sends
+ * the next one, so the number of kiosks is the number of requests in flight. Kiosks are chained on the
+ * asynchronous HttpClient rather than given a thread each, so 10k+ of them fit in one JVM.
+ *
+ * The request mix is 70% title searches, 20% book lookups and 10% lending: a kiosk checks its own book out
+ * and returns it on its next lending turn. Latencies are recorded only after the warm-up.
+ *
+ * Usage: java -cp benchmarks.jar Main.Java.org.project.LMS.Benchmarks.ServerLoadGenerator
+ *            [kiosks] [duration-seconds] [warmup-seconds] [catalog-size] [http://host:port]
+ * e.g.   ... ServerLoadGenerator 10000 60 10 100000
+ * Without a URL an in-process server is started on a free loopback port. Client and server then share the
+ * machine, and every kiosk holds a connection at each end, so raise the open file limit (ulimit -n) to at
+ * least twice the kiosk count.
+ */
+public class ServerLoadGenerator {
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int kiosks;
+    private final int catalogSize;
+    private final boolean[] holdsBook; // Per kiosk; a kiosk's requests are chained, so one callback at a time touches it
+    private final LatencyHistogram latencies;
+    private final LongAdder completed;
+    private final LongAdder errors;
+    private final CountDownLatch finished;
+    private volatile long measureFromNanos;
+    private volatile long endNanos;
+
+    public ServerLoadGenerator(String baseUrl, int kiosks, int catalogSize) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.baseUrl = baseUrl;
+        this.kiosks = kiosks;
+        this.catalogSize = catalogSize;
+        this.holdsBook = new boolean[kiosks];
+        this.latencies = new LatencyHistogram();
+        this.completed = new LongAdder();
+        this.errors = new LongAdder();
+        this.finished = new CountDownLatch(kiosks);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int kiosks = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int warmupSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int catalogSize = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        String url = args.length > 4 ? args[4] : null;
+
+        LibraryHttpServer server = null;
+        if (url == null) {
+            InMemoryBookRepository bookRepository = new InMemoryBookRepository();
+            InMemoryPatronRepository patronRepository = new InMemoryPatronRepository();
+            CatalogFixture.fillBooks(bookRepository, catalogSize);
+            CatalogFixture.fillPatrons(patronRepository, kiosks);
+            LibraryLendingManager lendingManager = new LibraryLendingManager(bookRepository, patronRepository);
+            LibraryService service = new LibraryService(bookRepository, patronRepository, lendingManager,
+                    new ConcreteBookFactory(), new ConcretePatronFactory());
+            server = new LibraryHttpServer(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort();
+            System.out.println("Started in-process server on " + url + " with " + catalogSize + " books; requests run on "
+                    + (server.usesVirtualThreads() ? "virtual threads" : "a platform thread pool (virtual threads need Java 21)") + ".");
+        }
+        try {
+            new ServerLoadGenerator(url, kiosks, catalogSize).run(durationSeconds, warmupSeconds);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the kiosks for the warm-up plus the measured duration and prints the results.
+     */
+    public void run(int durationSeconds, int warmupSeconds) throws InterruptedException {
+        long start = System.nanoTime();
+        measureFromNanos = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (int kiosk = 0; kiosk < kiosks; kiosk++) {
+            next(kiosk);
+        }
+        finished.await();
+
+        HistogramSnapshot snapshot = latencies.snapshot();
+        double seconds = durationSeconds;
+        System.out.printf("Kiosks: %d, measured: %d s, requests: %d, errors: %d%n",
+                kiosks, durationSeconds, completed.sum(), errors.sum());
+        System.out.printf("Throughput: %.0f requests/s%n", completed.sum() / seconds);
+        System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                millis(snapshot.getValueAtPercentile(50)), millis(snapshot.getValueAtPercentile(99)),
+                millis(snapshot.getValueAtPercentile(99.9)), millis(snapshot.getMax()));
+    }
+
+    /**
+     * Sends the kiosk's next request and schedules the one after it when the response arrives.
+     */
+    private void next(int kiosk) {
+        if (System.nanoTime() >= endNanos) {
+            finished.countDown();
+            return;
+        }
+        HttpRequest request = requestFor(kiosk);
+        long start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (failure == null && response.statusCode() == 200 && request.method().equals("POST")) {
+                holdsBook[kiosk] = request.uri().getPath().equals("/checkout");
+            }
+            if (start >= measureFromNanos) {
+                // 409 is a normal answer (e.g. the book is out); only transport failures and 5xx count as errors.
+                if (failure == null && response.statusCode() < 500) {
+                    latencies.recordSince(start);
+                    completed.increment();
+                } else {
+                    errors.increment();
+                }
+            }
+            next(kiosk);
+        });
+    }
+
+    private HttpRequest requestFor(int kiosk) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        if (roll < 70) {
+            String query = CatalogFixture.bookOf(random.nextInt(catalogSize)).getTitle().split(" ")[0];
+            return get("/search?by=BY_TITLE&limit=10&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
+        }
+        if (roll < 90) {
+            return get("/books/" + CatalogFixture.isbnOf(random.nextInt(catalogSize)));
+        }
+        String isbn = CatalogFixture.isbnOf(kiosk % catalogSize);
+        String patronId = CatalogFixture.patronIdOf(kiosk);
+        return post((holdsBook[kiosk] ? "/return" : "/checkout") + "?isbn=" + isbn + "&patron=" + patronId);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
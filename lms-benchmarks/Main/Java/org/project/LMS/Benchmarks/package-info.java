@@ -0,0 +1 @@
+package Main.Java.org.project.LMS.Benchmarks;
\ No newline at end of file
@@ -0,0 +1,125 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cursor paging walks every book once in ISBN order, in one repository or merged across shards,
+ * and picks up where it left off when books change between pages.
+ */
+class BookPagingTest {
+    private static final int BOOK_COUNT = 25;
+
+    private static String isbn(int i) {
+        return String.format("ISBN-%03d", i);
+    }
+
+    private static List<String> isbns(List<IBook> books) {
+        return books.stream().map(IBook::getISBN).collect(Collectors.toList());
+    }
+
+    private static List<IBookRepository> repositories() {
+        List<IBookRepository> repositories = new ArrayList<>();
+        repositories.add(new InMemoryBookRepository());
+        for (int shardCount : new int[]{1, 3, 8}) {
+            repositories.add(new ShardedBookRepository(shardCount, ForkJoinPool.commonPool()));
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(11)); // Insertion order must not leak into the page order
+        for (IBookRepository books : repositories) {
+            for (int i : order) {
+                books.addBook(new ConcreteBook("Title " + i, "Author " + i, isbn(i), 2000));
+            }
+        }
+        return repositories;
+    }
+
+    @Test
+    void pagesWalkEveryBookOnceInIsbnOrder() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            expected.add(isbn(i));
+        }
+        for (IBookRepository books : repositories()) {
+            String name = books.getClass().getSimpleName();
+            List<String> first = isbns(books.page(null, 10));
+            List<String> second = isbns(books.page(first.get(9), 10));
+            List<String> third = isbns(books.page(second.get(9), 10));
+
+            assertEquals(expected.subList(0, 10), first, name);
+            assertEquals(expected.subList(10, 20), second, name);
+            assertEquals(expected.subList(20, 25), third, name);
+            assertTrue(books.page(third.get(4), 10).isEmpty(), name);
+            assertEquals(expected.subList(13, 16), isbns(books.page("ISBN-012x", 3)), name); // A cursor need not be a stored ISBN
+            assertEquals(expected, isbns(books.page(null, 100)), name);
+        }
+    }
+
+    @Test
+    void pagingContinuesAfterTheCursorWhenBooksChangeBetweenPages() {
+        for (IBookRepository books : repositories()) {
+            String name = books.getClass().getSimpleName();
+            List<String> first = isbns(books.page(null, 10));
+            String cursor = first.get(9);
+
+            assertTrue(books.removeBook(cursor)); // The cursor itself is gone
+            assertTrue(books.removeBook(isbn(10))); // So is the first book of the next page
+            books.removeBook(isbn(3)); // Behind the cursor, so it changes nothing ahead
+            books.addBook(new ConcreteBook("Late", "Author", "ISBN-005a", 2000)); // Behind the cursor as well
+            books.addBook(new ConcreteBook("Late", "Author", "ISBN-015a", 2000));
+
+            List<String> second = isbns(books.page(cursor, 10));
+            assertEquals(List.of(isbn(11), isbn(12), isbn(13), isbn(14), isbn(15), "ISBN-015a", isbn(16), isbn(17), isbn(18), isbn(19)),
+                    second, name);
+            assertEquals(List.of(isbn(20), isbn(21), isbn(22), isbn(23), isbn(24)), isbns(books.page(second.get(9), 10)), name);
+        }
+    }
+
+    @Test
+    void shardedPagesMergeTheSmallestIsbnsOfEveryShard() {
+        ShardedBookRepository sharded = new ShardedBookRepository(8, ForkJoinPool.commonPool());
+        InMemoryBookRepository single = new InMemoryBookRepository();
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            String isbn = "978-" + (1_000_000 + random.nextInt(9_000_000));
+            if (single.getBookByISBN(isbn) == null) {
+                sharded.addBook(new ConcreteBook("Title", "Author", isbn, 2000));
+                single.addBook(new ConcreteBook("Title", "Author", isbn, 2000));
+            }
+        }
+        for (int limit : new int[]{1, 7, 64}) {
+            String shardedCursor = null;
+            String singleCursor = null;
+            int walked = 0;
+            while (true) {
+                List<String> expected = isbns(single.page(singleCursor, limit));
+                assertEquals(expected, isbns(sharded.page(shardedCursor, limit)), "limit " + limit);
+                if (expected.isEmpty()) {
+                    break;
+                }
+                walked += expected.size();
+                singleCursor = expected.get(expected.size() - 1);
+                shardedCursor = singleCursor;
+            }
+            assertEquals(single.getAllBooks().size(), walked);
+        }
+    }
+
+    @Test
+    void pageLimitMustBePositive() {
+        for (IBookRepository books : repositories()) {
+            assertThrows(IllegalArgumentException.class, () -> books.page(null, 0));
+        }
+    }
+}
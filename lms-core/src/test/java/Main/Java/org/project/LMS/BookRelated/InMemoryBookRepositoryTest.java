@@ -0,0 +1,121 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Indexed and scanned title and author searches find exactly what a plain case-insensitive substring scan finds.
+ */
+class InMemoryBookRepositoryTest {
+    private static final String[] QUERIES = {
+            "e", "E", "th", "Th", "ob", "the", "THE", "tHe", "gatsby", "GREAT G", "rd g", "e g", "of the",
+            "ing", "tolkien", "R.R.", "mockingbird", "xyz", "zz", "a", "an"
+    };
+
+    private InMemoryBookRepository books;
+
+    @BeforeEach
+    void setUp() {
+        books = new InMemoryBookRepository();
+        books.addBook(new ConcreteBook("The Great Gatsby", "F. Scott Fitzgerald", "978-0743273565", 1925));
+        books.addBook(new ConcreteBook("To Kill a Mockingbird", "Harper Lee", "978-0061120084", 1960));
+        books.addBook(new ConcreteBook("THE LORD OF THE RINGS", "J.R.R. Tolkien", "978-0618640157", 1954));
+        books.addBook(new ConcreteBook("the hobbit", "j.r.r. tolkien", "978-0547928227", 1937));
+        books.addBook(new ConcreteBook("Great Expectations", "Charles Dickens", "978-0141439563", 1861));
+        books.addBook(new ConcreteBook("Gone Girl", "Gillian Flynn", "978-0307588371", 2012));
+    }
+
+    private static List<String> isbns(List<IBook> books) {
+        return books.stream().map(IBook::getISBN).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * The books a baseline scan finds: every book whose field, lower-cased, contains the lower-cased query.
+     */
+    private List<String> scan(String query, SearchType searchBy) {
+        String lowerCaseQuery = query.toLowerCase();
+        return isbns(books.getAllBooks().stream()
+                .filter(book -> (searchBy == SearchType.BY_TITLE ? book.getTitle() : book.getAuthor())
+                        .toLowerCase().contains(lowerCaseQuery))
+                .collect(Collectors.toList()));
+    }
+
+    private void assertSearchesMatchScan() {
+        for (SearchType searchBy : new SearchType[]{SearchType.BY_TITLE, SearchType.BY_AUTHOR}) {
+            for (String query : QUERIES) {
+                assertEquals(scan(query, searchBy), isbns(books.searchBooks(query, searchBy)), searchBy + " '" + query + "'");
+            }
+        }
+    }
+
+    @Test
+    void titleAndAuthorSearchesMatchAScan() {
+        assertSearchesMatchScan();
+        assertEquals(List.of("978-0547928227", "978-0618640157", "978-0743273565"), isbns(books.searchBooks("tHe", SearchType.BY_TITLE)));
+        assertEquals(List.of("978-0141439563", "978-0743273565"), isbns(books.searchBooks("great", SearchType.BY_TITLE)));
+        // A query spanning two words needs the trigrams across the space, not just those of each word
+        assertEquals(List.of("978-0743273565"), isbns(books.searchBooks("great g", SearchType.BY_TITLE)));
+        assertTrue(books.searchBooks("greatg", SearchType.BY_TITLE).isEmpty());
+    }
+
+    @Test
+    void searchesFollowUpdatesAndRemovals() {
+        books.updateBook(new ConcreteBook("The Silmarillion", "J.R.R. Tolkien", "978-0618640157", 1977));
+        assertTrue(books.removeBook("978-0743273565"));
+        books.addBook(new ConcreteBook("The Great Gatsby (Annotated)", "Someone Else", "978-0000000001", 2020));
+
+        assertSearchesMatchScan();
+        assertTrue(books.searchBooks("lord", SearchType.BY_TITLE).isEmpty());
+        assertEquals(List.of("978-0618640157"), isbns(books.searchBooks("silmar", SearchType.BY_TITLE)));
+        assertEquals(List.of("978-0000000001"), isbns(books.searchBooks("great gatsby", SearchType.BY_TITLE)));
+        assertTrue(books.searchBooks("fitzgerald", SearchType.BY_AUTHOR).isEmpty());
+        assertEquals(1, books.searchBooks("e", SearchType.BY_TITLE, 1).size());
+    }
+
+    @Test
+    void nonAsciiTitlesMatchLikeALowerCasedScan() {
+        books.addBook(new ConcreteBook("ΟΔΥΣΣΕΥΣ", "Όμηρος", "978-0000000010", 1900));      // Ends in a final sigma
+        books.addBook(new ConcreteBook("ΑΣ", "Nobody", "978-0000000011", 1900));
+        books.addBook(new ConcreteBook("İstanbul Hatırası", "Ahmet Ümit", "978-0000000012", 2010)); // İ lowers to two chars
+        books.addBook(new ConcreteBook("Die Straße", "Ǆemal Bijedić", "978-0000000013", 2000));
+        for (String query : new String[]{"ασ", "ας", "ς", "σ", "σσευς", "ΣΣΕΥΣ", "i̇st", "ist", "İST", "hatıra", "HATIRA",
+                "ß", "straße", "STRASSE", "ǆ", "ǅemal", "üm", "ÜMIT"}) {
+            assertEquals(scan(query, SearchType.BY_TITLE), isbns(books.searchBooks(query, SearchType.BY_TITLE)), "'" + query + "'");
+            assertEquals(scan(query, SearchType.BY_AUTHOR), isbns(books.searchBooks(query, SearchType.BY_AUTHOR)), "'" + query + "'");
+        }
+        assertEquals(List.of("978-0000000010"), isbns(books.searchBooks("ευς", SearchType.BY_TITLE)));
+        assertTrue(books.searchBooks("ασ", SearchType.BY_TITLE).isEmpty()); // "ΑΣ" lowers to "ας"
+    }
+
+    @Test
+    void parallelScansOfLargeCatalogsStopAtTheLimit() {
+        InMemoryBookRepository large = new InMemoryBookRepository();
+        for (int i = 0; i < 20_000; i++) { // Above the size at which scans run in parallel
+            String title = i % 4 == 0 ? "Needle " + i : "Hay " + i;
+            large.addBook(new ConcreteBook(title, "Author " + i, String.format("978-%010d", i), 2000));
+        }
+        large.addBook(new ConcreteBook("Check Digit", "Author X", "000723436X", 1999));
+
+        // Two-character queries can not use the trigram index, so these scan
+        List<IBook> all = large.searchBooks("ne", SearchType.BY_TITLE);
+        assertEquals(5_000, all.size());
+        assertEquals(5_000, new HashSet<>(all).size());
+        assertTrue(all.stream().allMatch(book -> book.getTitle().startsWith("Needle ")));
+        for (int limit : new int[]{1, 10, 4_999, 5_000, 6_000}) {
+            List<IBook> limited = large.searchBooks("NE", SearchType.BY_TITLE, limit);
+            assertEquals(Math.min(limit, 5_000), limited.size(), "limit " + limit);
+            assertEquals(limited.size(), new HashSet<>(limited).size());
+            assertTrue(limited.stream().allMatch(book -> book.getTitle().startsWith("Needle ")));
+        }
+        assertTrue(large.searchBooks("zq", SearchType.BY_TITLE).isEmpty());
+        // ISBNs with letters match ignoring case, which also scans
+        assertEquals(List.of("000723436X"), isbns(large.searchBooks("000723436x", SearchType.BY_ISBN)));
+        assertEquals(List.of("000723436X"), isbns(large.searchBooks("000723436x", SearchType.BY_ISBN, 1)));
+    }
+}
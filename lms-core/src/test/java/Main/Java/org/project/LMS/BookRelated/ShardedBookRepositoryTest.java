@@ -0,0 +1,79 @@
+package Main.Java.org.project.LMS.BookRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ISBN searches match ignoring case in every repository, whether they take the exact lookup or have to scan,
+ * and status counts summed across shards match a single repository.
+ */
+class ShardedBookRepositoryTest {
+
+    private static List<String> isbns(List<IBook> books) {
+        return books.stream().map(IBook::getISBN).collect(Collectors.toList());
+    }
+
+    private static void fill(IBookRepository books) {
+        for (int i = 0; i < 100; i++) {
+            books.addBook(new ConcreteBook("Title " + i, "Author " + i, "978-00000000" + (10 + i), 2000));
+        }
+        books.addBook(new ConcreteBook("Check Digit", "Author X", "000723436X", 1999));
+        books.addBook(new ConcreteBook("Lower Check Digit", "Author Y", "080442957x", 1999));
+    }
+
+    private static void assertIsbnSearches(IBookRepository books) {
+        assertEquals(List.of("978-0000000042"), isbns(books.searchBooks("978-0000000042", SearchType.BY_ISBN)));
+        assertEquals(List.of("000723436X"), isbns(books.searchBooks("000723436x", SearchType.BY_ISBN)));
+        assertEquals(List.of("000723436X"), isbns(books.searchBooks("000723436X", SearchType.BY_ISBN)));
+        assertEquals(List.of("080442957x"), isbns(books.searchBooks("080442957X", SearchType.BY_ISBN)));
+        assertTrue(books.searchBooks("978-0000000999", SearchType.BY_ISBN).isEmpty());
+    }
+
+    @Test
+    void isbnSearchOnOneRepositoryIgnoresCase() {
+        InMemoryBookRepository books = new InMemoryBookRepository();
+        fill(books);
+        assertIsbnSearches(books);
+    }
+
+    @Test
+    void isbnSearchFindsCaseVariantsInTheOwningShard() {
+        for (int shardCount : new int[]{1, 3, 8}) {
+            ShardedBookRepository books = new ShardedBookRepository(shardCount, ForkJoinPool.commonPool());
+            fill(books);
+            assertIsbnSearches(books);
+        }
+    }
+
+    @Test
+    void statusCountsAreSummedAcrossShards() {
+        BookStatus[] statuses = BookStatus.values();
+        InMemoryBookRepository single = new InMemoryBookRepository();
+        ShardedBookRepository sharded = new ShardedBookRepository(8, ForkJoinPool.commonPool());
+        fill(single);
+        fill(sharded);
+        for (IBookRepository books : List.of(single, sharded)) {
+            for (int i = 0; i < 100; i++) {
+                IBook book = books.getBookByISBN("978-00000000" + (10 + i));
+                book.setStatus(statuses[i % statuses.length]);
+                books.updateBook(book);
+            }
+            assertTrue(books.removeBook("978-0000000010")); // AVAILABLE, the status of i = 0
+            assertTrue(books.removeBook("978-0000000011")); // BORROWED
+        }
+
+        Map<BookStatus, Long> counts = sharded.countByStatus();
+        assertEquals(single.countByStatus(), counts);
+        assertEquals(Map.of(BookStatus.AVAILABLE, 26L, BookStatus.BORROWED, 24L, BookStatus.RESERVED, 25L, BookStatus.LOST, 25L), counts);
+        for (BookStatus status : statuses) {
+            assertEquals(counts.get(status), sharded.getBooksByStatus(status).size());
+            assertEquals(counts.get(status), sharded.streamByStatus(status).count());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingBookRepositoryTest {
+
+    /**
+     * Lets a second update of the same book run to completion right after the first one reached the backing
+     * repository, as a second thread could before the first one gets to the cache.
+     */
+    private static final class InterleavingRepository extends InMemoryBookRepository {
+        Runnable afterNextUpdate;
+
+        @Override
+        public void updateBook(IBook updatedBook) {
+            super.updateBook(updatedBook);
+            Runnable interleaved = afterNextUpdate;
+            afterNextUpdate = null;
+            if (interleaved != null) {
+                interleaved.run();
+            }
+        }
+    }
+
+    @Test
+    void lookupsAreCachedAndRemovalsInvalidate() {
+        InMemoryBookRepository backing = new InMemoryBookRepository();
+        backing.addBook(new ConcreteBook("Dune", "Frank Herbert", "978-0441013593", 1965));
+        CachingBookRepository books = new CachingBookRepository(backing, 10);
+
+        IBook first = books.getBookByISBN("978-0441013593");
+        assertSame(first, books.getBookByISBN("978-0441013593"));
+        assertNull(books.getBookByISBN("978-0000000000")); // Not found is not cached
+        assertEquals(1, books.getCachedBookCount());
+        assertEquals(1, books.getCacheStats().getHitCount());
+
+        assertTrue(books.removeBook("978-0441013593"));
+        assertNull(books.getBookByISBN("978-0441013593"));
+        assertEquals(0, books.getCachedBookCount());
+    }
+
+    @Test
+    void theCacheServesTheUpdateTheBackingRepositoryKept() {
+        InterleavingRepository backing = new InterleavingRepository();
+        backing.addBook(new ConcreteBook("Dune", "Frank Herbert", "978-0441013593", 1965));
+        CachingBookRepository books = new CachingBookRepository(backing, 10);
+        books.getBookByISBN("978-0441013593");
+
+        IBook older = new ConcreteBook("Dune (first edition)", "Frank Herbert", "978-0441013593", 1965);
+        IBook newer = new ConcreteBook("Dune (second edition)", "Frank Herbert", "978-0441013593", 1965);
+        backing.afterNextUpdate = () -> books.updateBook(newer);
+        books.updateBook(older); // Reaches the backing repository first, but finishes last
+
+        assertSame(newer, backing.getBookByISBN("978-0441013593"));
+        assertSame(newer, books.getBookByISBN("978-0441013593"));
+    }
+}
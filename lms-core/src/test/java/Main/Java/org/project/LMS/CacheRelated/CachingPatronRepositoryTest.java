@@ -0,0 +1,47 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatron;
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import Main.Java.org.project.LMS.PatronRelated.InMemoryPatronRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingPatronRepositoryTest {
+
+    /**
+     * Lets a second update of the same patron run to completion right after the first one reached the backing
+     * repository, as a second thread could before the first one gets to the cache.
+     */
+    private static final class InterleavingRepository extends InMemoryPatronRepository {
+        Runnable afterNextUpdate;
+
+        @Override
+        public void updatePatron(IPatron updatedPatron) {
+            super.updatePatron(updatedPatron);
+            Runnable interleaved = afterNextUpdate;
+            afterNextUpdate = null;
+            if (interleaved != null) {
+                interleaved.run();
+            }
+        }
+    }
+
+    @Test
+    void theCacheServesTheUpdateTheBackingRepositoryKept() {
+        InterleavingRepository backing = new InterleavingRepository();
+        backing.addPatron(new ConcretePatron("P1", "Ada Lovelace", "ada@example.org"));
+        CachingPatronRepository patrons = new CachingPatronRepository(backing, 10);
+        IPatron cached = patrons.getPatronById("P1");
+        assertSame(cached, patrons.getPatronById("P1"));
+
+        IPatron older = new ConcretePatron("P1", "Ada Lovelace", "ada@old.example.org");
+        IPatron newer = new ConcretePatron("P1", "Ada Lovelace", "ada@new.example.org");
+        backing.afterNextUpdate = () -> patrons.updatePatron(newer);
+        patrons.updatePatron(older); // Reaches the backing repository first, but finishes last
+
+        assertSame(newer, backing.getPatronById("P1"));
+        assertSame(newer, patrons.getPatronById("P1"));
+        assertEquals(2, patrons.getCacheStats().getLoadCount());
+    }
+}
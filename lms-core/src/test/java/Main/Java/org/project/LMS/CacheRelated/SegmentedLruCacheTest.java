@@ -0,0 +1,206 @@
+package Main.Java.org.project.LMS.CacheRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLruCacheTest {
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * A loader that blocks until released, returning the given value.
+     */
+    private static Function<String, String> blockingLoader(CountDownLatch release, String value, AtomicInteger calls) {
+        return key -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Starts a thread that looks the key up through the given loader and stores what it got.
+     */
+    private static Thread lookUp(SegmentedLruCache<String, String> cache, String key, Function<String, String> loader,
+                                 AtomicReference<String> result) {
+        Thread thread = new Thread(() -> result.set(cache.get(key, loader)));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void concurrentMissesOnOneKeyShareASingleLoad() throws Exception {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, String> loader = blockingLoader(release, "value", calls);
+        List<Thread> threads = new ArrayList<>();
+        List<AtomicReference<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            AtomicReference<String> result = new AtomicReference<>();
+            results.add(result);
+            threads.add(lookUp(cache, "key", loader, result));
+        }
+        awaitCondition(() -> cache.stats().getMissCount() == 8); // Every thread missed before the load finishes
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, calls.get());
+        for (AtomicReference<String> result : results) {
+            assertEquals("value", result.get());
+        }
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getLoadCount());
+        assertEquals(8, stats.getMissCount());
+        assertEquals(0, stats.getHitCount());
+        assertEquals("value", cache.getIfPresent("key"));
+    }
+
+    @Test
+    void anInvalidationDuringALoadIsNotOverwrittenByIt() throws Exception {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> result = new AtomicReference<>();
+        Thread loader = lookUp(cache, "key", blockingLoader(release, "stale", new AtomicInteger()), result);
+        awaitCondition(() -> cache.stats().getLoadCount() == 1);
+        cache.invalidate("key");
+        release.countDown();
+        loader.join();
+
+        assertEquals("stale", result.get()); // The caller still gets what it loaded
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(0, cache.size());
+        assertEquals("fresh", cache.get("key", key -> "fresh"));
+    }
+
+    @Test
+    void aPutDuringALoadIsNotOverwrittenByIt() throws Exception {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> result = new AtomicReference<>();
+        Thread loader = lookUp(cache, "key", blockingLoader(release, "stale", new AtomicInteger()), result);
+        awaitCondition(() -> cache.stats().getLoadCount() == 1);
+        cache.put("key", "written");
+        release.countDown();
+        loader.join();
+
+        assertEquals("written", cache.getIfPresent("key"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.weight());
+    }
+
+    @Test
+    void aScanDoesNotFlushEntriesHitTwice() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10); // 8 protected, the rest probation
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot-" + i, key -> key);
+            cache.get("hot-" + i, key -> key); // The second hit promotes it to the protected segment
+        }
+        cache.get("once", key -> key);
+        for (int i = 0; i < 100; i++) {
+            cache.get("scan-" + i, key -> key);
+        }
+
+        assertEquals(10, cache.size());
+        assertNull(cache.getIfPresent("once")); // Only ever in probation, so the scan pushed it out
+        for (int i = 0; i < 5; i++) {
+            assertEquals("hot-" + i, cache.getIfPresent("hot-" + i));
+        }
+        assertEquals(5 + 1 + 100 - 10, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    void protectedEntriesBeyondTheirShareAreDemotedAndEvictedFirst() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(4, value -> 1, 0.5); // 2 protected
+        for (String key : new String[]{"a", "b", "c"}) {
+            cache.get(key, k -> k);
+            cache.get(key, k -> k); // Promoting c demotes a, the least recently used protected entry
+        }
+        cache.get("d", k -> k);
+        cache.get("e", k -> k); // Over the bound: the probation tail goes first, and that is the demoted a
+
+        assertNull(cache.getIfPresent("a"));
+        for (String key : new String[]{"b", "c", "d", "e"}) {
+            assertEquals(key, cache.getIfPresent(key));
+        }
+    }
+
+    @Test
+    void evictionKeepsTheTotalWeightWithinTheBound() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals(8, cache.weight());
+        cache.put("c", "cccccc"); // 14 > 10, so the least recently added entry goes
+
+        assertEquals(10, cache.weight());
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(1, cache.stats().getEvictionCount());
+        assertEquals(4, cache.stats().getEvictionWeight());
+
+        cache.put("b", "bb"); // Replacing an entry swaps its weight
+        assertEquals(8, cache.weight());
+        cache.put("d", "dddddddddddd"); // Heavier than the whole cache: evicts everything, itself included
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.size());
+        assertEquals(4, cache.stats().getEvictionCount());
+        assertEquals(4 + 2 + 6 + 12, cache.stats().getEvictionWeight());
+    }
+
+    @Test
+    void statsCountEveryLookupExactly() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, String> loader = key -> {
+            loads.incrementAndGet();
+            return key.startsWith("missing") ? null : key;
+        };
+
+        cache.get("a", loader);                  // Miss and load
+        cache.get("a", loader);                  // Hit
+        cache.getIfPresent("a");                 // Hit
+        cache.getIfPresent("b");                 // Miss, no load
+        cache.get("missing", loader);            // Miss and load of nothing, which is not cached
+        cache.get("missing", loader);            // Miss and load again
+        assertThrows(IllegalStateException.class, () -> cache.get("failing", key -> {
+            throw new IllegalStateException("Backing store down");
+        }));                                     // Miss and failed load, not cached
+        cache.invalidate("a");
+        cache.get("a", loader);                  // Miss and load
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(6, stats.getMissCount());
+        assertEquals(5, stats.getLoadCount());
+        assertEquals(1, stats.getLoadFailureCount());
+        assertEquals(0, stats.getEvictionCount());
+        assertEquals(0, stats.getEvictionWeight());
+        assertEquals(8, stats.getRequestCount());
+        assertEquals(0.25, stats.getHitRate());
+        assertEquals(4, loads.get());
+        assertEquals(1, cache.size());
+    }
+}
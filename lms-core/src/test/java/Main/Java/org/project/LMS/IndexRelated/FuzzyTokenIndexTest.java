@@ -0,0 +1,62 @@
+package Main.Java.org.project.LMS.IndexRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyTokenIndexTest {
+
+    @Test
+    void removedEntriesLeaveTheVocabulary() {
+        FuzzyTokenIndex<String> index = new FuzzyTokenIndex<>();
+        index.add("1", "The Great Gatsby");
+        index.add("2", "Great Expectations");
+
+        assertEquals(List.of("1"), index.search("Gatsbey", 10));
+        assertEquals(2, index.search("great", 10).size());
+
+        index.remove("1", "The Great Gatsby");
+        assertTrue(index.search("Gatsby", 10).isEmpty());
+        assertEquals(List.of("2"), index.search("Graet", 10));
+        assertEquals(2, index.wordCount());
+
+        index.remove("2", "Great Expectations");
+        assertEquals(0, index.wordCount());
+    }
+
+    @Test
+    void aWordAddedWhileAnotherSharingItsBigramsIsRemovedStaysFindable() throws Exception {
+        // "cart" and "care" are both four letters and share the posting lists of their leading bigrams. Removing
+        // the last entry of "care" drops those lists while "cart" may be adding itself to them.
+        FuzzyTokenIndex<String> index = new FuzzyTokenIndex<>();
+        CyclicBarrier start = new CyclicBarrier(2);
+        for (int round = 0; round < 2_000; round++) {
+            String cart = "cart-" + round;
+            String care = "care-" + round;
+            index.add(care, "care");
+            Thread remover = new Thread(() -> {
+                await(start);
+                index.remove(care, "care");
+            });
+            remover.start();
+            await(start);
+            index.add(cart, "cart");
+            remover.join();
+
+            // A misspelling is only found through the bigram postings, not the exact vocabulary entry
+            assertEquals(List.of(cart), index.search("carts", 10), "cart lost its postings in round " + round);
+            index.remove(cart, "cart");
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package Main.Java.org.project.LMS.LedgerRelated;
+
+import Main.Java.org.project.LMS.ObserverRelated.LibraryEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerObserverTest {
+
+    private static LedgerObserver ledger(Path dir) {
+        return new LedgerObserver(dir, EnumSet.allOf(LibraryEvent.EventType.class), 4096, 1);
+    }
+
+    private static LibraryEvent patronAdded(String patronId) {
+        return LibraryEvent.lazy(LibraryEvent.EventType.PATRON_ADDED, () -> "Patron added.", "PatronID", patronId, "Name", patronId);
+    }
+
+    @Test
+    void anEventAppendedLateIsNotHiddenFromReplays(@TempDir Path dir) throws Exception {
+        LedgerObserver ledger = ledger(dir);
+        LibraryEvent raisedFirst = patronAdded("P1");
+        Thread.sleep(2);
+        LibraryEvent raisedSecond = patronAdded("P2");
+        Thread.sleep(2);
+        LibraryEvent raisedThird = patronAdded("P3");
+        ledger.update(raisedSecond); // Appended out of order, as with two racing threads
+        ledger.update(raisedFirst);
+        ledger.update(raisedThird);
+        ledger.close();
+
+        List<Long> stamps = new ArrayList<>();
+        LedgerReader.scanSegment(LedgerReader.segmentPath(dir, 0), (type, epochNanos, pairs, pairCount) -> stamps.add(epochNanos));
+        assertEquals(3, stamps.size());
+        for (int i = 1; i < stamps.size(); i++) {
+            assertTrue(stamps.get(i) >= stamps.get(i - 1), "Stamps decrease in append order: " + stamps);
+        }
+        // Every event stamped by a time is part of the state at that time
+        LedgerReader reader = new LedgerReader(dir);
+        for (long stamp : stamps) {
+            long expected = stamps.stream().filter(other -> other <= stamp).count();
+            assertEquals(expected, reader.stateAt(stamp).getEventCount());
+        }
+        assertEquals(3, reader.latestState().getEventCount());
+    }
+
+    @Test
+    void anUnreadableCheckpointIsCountedAndKept(@TempDir Path dir) throws IOException {
+        Files.write(LedgerReader.checkpointPath(dir, 7), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        LedgerObserver ledger = ledger(dir);
+        ledger.update(patronAdded("P1"));
+        ledger.close();
+
+        assertEquals(1, ledger.getCheckpointFailureCount());
+        assertInstanceOf(IOException.class, ledger.getLastFailure());
+        assertEquals(0, ledger.getDroppedEvents());
+        assertEquals(1, ledger.getAppendedEvents());
+    }
+}
@@ -0,0 +1,224 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatron;
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import Main.Java.org.project.LMS.PatronRelated.InMemoryPatronRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkout and return must each be one atomic transition, however many threads race on a book.
+ */
+class AtomicLendingTest {
+    private static final int THREADS = 8;
+
+    private InMemoryBookRepository books;
+    private InMemoryPatronRepository patrons;
+    private LibraryLendingManager lending;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        books = new InMemoryBookRepository();
+        patrons = new InMemoryPatronRepository();
+        lending = new LibraryLendingManager(books, patrons);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        lending.close();
+    }
+
+    @Test
+    void exactlyOnePatronWinsARacedCheckout() throws Exception {
+        books.addBook(new ConcreteBook("Dune", "Frank Herbert", "978-0441013593", 1965));
+        for (int i = 0; i < THREADS; i++) {
+            patrons.addPatron(new ConcretePatron("P" + i, "Patron " + i, "p" + i + "@library.org"));
+        }
+
+        for (int round = 0; round < 200; round++) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String patronId = "P" + i;
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    return lending.checkoutBook("978-0441013593", patronId);
+                }));
+            }
+            start.countDown();
+            String winner = null;
+            for (int i = 0; i < THREADS; i++) {
+                if (attempts.get(i).get()) {
+                    assertNull(winner, "Two patrons checked out the same book");
+                    winner = "P" + i;
+                }
+            }
+            assertNotNull(winner);
+            assertEquals(BookStatus.BORROWED, books.getBookByISBN("978-0441013593").getStatus());
+            assertEquals(winner, lending.getCurrentBorrower("978-0441013593"));
+            assertTrue(lending.returnBook("978-0441013593", winner));
+        }
+    }
+
+    @Test
+    void concurrentCheckoutsAndReturnsKeepBooksAndPatronsConsistent() throws Exception {
+        int bookCount = 16;
+        for (int i = 0; i < bookCount; i++) {
+            books.addBook(new ConcreteBook("Title " + i, "Author", "ISBN-" + i, 2000));
+        }
+        for (int i = 0; i < THREADS; i++) {
+            patrons.addPatron(new ConcretePatron("P" + i, "Patron " + i, "p" + i + "@library.org"));
+        }
+        AtomicInteger checkouts = new AtomicInteger();
+        AtomicInteger returns = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String patronId = "P" + t;
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 5_000; i++) {
+                    String isbn = "ISBN-" + random.nextInt(bookCount);
+                    if (random.nextBoolean()) {
+                        if (lending.checkoutBook(isbn, patronId)) {
+                            checkouts.incrementAndGet();
+                        }
+                    } else if (lending.returnBook(isbn, patronId)) {
+                        returns.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        int lent = 0;
+        for (int i = 0; i < bookCount; i++) {
+            String isbn = "ISBN-" + i;
+            IBook book = books.getBookByISBN(isbn);
+            List<String> holders = new ArrayList<>();
+            for (IPatron patron : patrons.getAllPatrons()) {
+                if (patron.hasBorrowed(isbn)) {
+                    holders.add(patron.getPatronId());
+                }
+            }
+            assertTrue(holders.size() <= 1, isbn + " is held by " + holders);
+            if (holders.isEmpty()) {
+                assertEquals(BookStatus.AVAILABLE, book.getStatus());
+                assertNull(lending.getCurrentBorrower(isbn));
+            } else {
+                lent++;
+                assertEquals(BookStatus.BORROWED, book.getStatus());
+                assertEquals(holders.get(0), lending.getCurrentBorrower(isbn));
+            }
+        }
+        assertEquals(checkouts.get() - returns.get(), lent);
+        assertEquals(lent, books.countByStatus().get(BookStatus.BORROWED));
+    }
+
+    @Test
+    void exactlyOneRacedReturnByIsbnSucceeds() throws Exception {
+        books.addBook(new ConcreteBook("Dune", "Frank Herbert", "978-0441013593", 1965));
+        patrons.addPatron(new ConcretePatron("P0", "Patron 0", "p0@library.org"));
+
+        for (int round = 0; round < 200; round++) {
+            assertTrue(lending.checkoutBook("978-0441013593", "P0"));
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    return lending.returnBook("978-0441013593");
+                }));
+            }
+            start.countDown();
+            int returned = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get()) {
+                    returned++;
+                }
+            }
+            assertEquals(1, returned);
+            assertNull(lending.getCurrentBorrower("978-0441013593"));
+            assertFalse(patrons.getPatronById("P0").hasBorrowed("978-0441013593"));
+            assertEquals(BookStatus.AVAILABLE, books.getBookByISBN("978-0441013593").getStatus());
+        }
+    }
+
+    @Test
+    void returnsByIsbnRacingCheckoutsKeepTheBorrowerIndexConsistent() throws Exception {
+        int bookCount = 16;
+        for (int i = 0; i < bookCount; i++) {
+            books.addBook(new ConcreteBook("Title " + i, "Author", "ISBN-" + i, 2000));
+        }
+        for (int i = 0; i < THREADS; i++) {
+            patrons.addPatron(new ConcretePatron("P" + i, "Patron " + i, "p" + i + "@library.org"));
+        }
+        AtomicInteger checkouts = new AtomicInteger();
+        AtomicInteger returns = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String patronId = "P" + t;
+            boolean returner = t % 2 == 0; // Half the threads only return, without knowing who borrowed the book
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 5_000; i++) {
+                    String isbn = "ISBN-" + random.nextInt(bookCount);
+                    if (returner) {
+                        if (lending.returnBook(isbn)) {
+                            returns.incrementAndGet();
+                        }
+                    } else if (lending.checkoutBook(isbn, patronId)) {
+                        checkouts.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        int lent = 0;
+        for (int i = 0; i < bookCount; i++) {
+            String isbn = "ISBN-" + i;
+            String borrower = lending.getCurrentBorrower(isbn);
+            List<String> holders = new ArrayList<>();
+            for (IPatron patron : patrons.getAllPatrons()) {
+                if (patron.hasBorrowed(isbn)) {
+                    holders.add(patron.getPatronId());
+                }
+            }
+            if (borrower == null) {
+                assertTrue(holders.isEmpty(), isbn + " is held by " + holders + " but has no borrower");
+                assertEquals(BookStatus.AVAILABLE, books.getBookByISBN(isbn).getStatus());
+            } else {
+                lent++;
+                assertEquals(List.of(borrower), holders);
+                assertEquals(BookStatus.BORROWED, books.getBookByISBN(isbn).getStatus());
+            }
+        }
+        assertTrue(returns.get() > 0);
+        assertEquals(checkouts.get() - returns.get(), lent);
+    }
+}
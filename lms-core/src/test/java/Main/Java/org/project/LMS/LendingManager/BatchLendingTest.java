@@ -0,0 +1,162 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.BookHolding;
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import Main.Java.org.project.LMS.BookRelated.InMemoryHoldingRepository;
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatron;
+import Main.Java.org.project.LMS.PatronRelated.IPatron;
+import Main.Java.org.project.LMS.PatronRelated.InMemoryPatronRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A batch checkout or return must apply every item or none, and overlapping batches locked in different
+ * orders must neither deadlock nor leave a patron with part of a batch.
+ */
+class BatchLendingTest {
+    private static final int THREADS = 8;
+    private static final String MULTI_COPY_ISBN = "ISBN-M";
+
+    private InMemoryBookRepository books;
+    private InMemoryPatronRepository patrons;
+    private BookHolding holding;
+    private LibraryLendingManager lending;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        books = new InMemoryBookRepository();
+        patrons = new InMemoryPatronRepository();
+        InMemoryHoldingRepository holdings = new InMemoryHoldingRepository();
+        lending = new LibraryLendingManager(books, patrons, holdings);
+        pool = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < 3; i++) {
+            books.addBook(new ConcreteBook("Title " + i, "Author", "ISBN-" + i, 2000));
+        }
+        books.addBook(new ConcreteBook("Shared Title", "Author", MULTI_COPY_ISBN, 2000));
+        holding = holdings.addCopies(MULTI_COPY_ISBN, 2);
+        for (int i = 0; i < THREADS; i++) {
+            patrons.addPatron(new ConcretePatron("P" + i, "Patron " + i, "p" + i + "@library.org"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        lending.close();
+    }
+
+    private boolean holdsAny(String patronId, List<String> bookISBNs) {
+        IPatron patron = patrons.getPatronById(patronId);
+        for (String bookISBN : bookISBNs) {
+            if (patron.hasBorrowed(bookISBN)) {
+                return true;
+            }
+        }
+        return holding.getCopyHeldBy(patronId) >= 0;
+    }
+
+    @Test
+    void aCheckoutWithOneUnavailableBookLendsNothing() {
+        assertTrue(lending.checkoutBook("ISBN-2", "P1"));
+
+        assertFalse(lending.checkoutBooks("P0", List.of("ISBN-0", MULTI_COPY_ISBN, "ISBN-2")));
+
+        assertFalse(holdsAny("P0", List.of("ISBN-0", MULTI_COPY_ISBN, "ISBN-2")));
+        assertEquals(BookStatus.AVAILABLE, books.getBookByISBN("ISBN-0").getStatus());
+        assertNull(lending.getCurrentBorrower("ISBN-0"));
+        assertEquals(2, holding.getAvailableCopies());
+        assertEquals("P1", lending.getCurrentBorrower("ISBN-2"));
+    }
+
+    @Test
+    void aCheckoutWithoutAFreeCopyGivesBackTheCopiesItClaimed() {
+        assertTrue(lending.checkoutBook(MULTI_COPY_ISBN, "P1"));
+        assertTrue(lending.checkoutBook(MULTI_COPY_ISBN, "P2"));
+
+        assertFalse(lending.checkoutBooks("P0", List.of("ISBN-0", MULTI_COPY_ISBN)));
+
+        assertFalse(holdsAny("P0", List.of("ISBN-0")));
+        assertEquals(BookStatus.AVAILABLE, books.getBookByISBN("ISBN-0").getStatus());
+        assertEquals(0, holding.getAvailableCopies());
+        assertEquals(BookStatus.BORROWED, books.getBookByISBN(MULTI_COPY_ISBN).getStatus());
+    }
+
+    @Test
+    void aReturnWithOneUnborrowedBookReturnsNothing() {
+        assertTrue(lending.checkoutBooks("P0", List.of("ISBN-0", MULTI_COPY_ISBN)));
+
+        assertFalse(lending.returnBooks(List.of(
+                new ReturnRequest("ISBN-0", "P0"),
+                new ReturnRequest(MULTI_COPY_ISBN, "P0"),
+                new ReturnRequest("ISBN-1", "P0"))));
+
+        IPatron patron = patrons.getPatronById("P0");
+        assertTrue(patron.hasBorrowed("ISBN-0"));
+        assertTrue(patron.hasBorrowed(MULTI_COPY_ISBN));
+        assertEquals(BookStatus.BORROWED, books.getBookByISBN("ISBN-0").getStatus());
+        assertEquals("P0", lending.getCurrentBorrower("ISBN-0"));
+        assertEquals(1, holding.getAvailableCopies());
+    }
+
+    @Test
+    void overlappingBatchesAreAllOrNothing() throws Exception {
+        List<String> catalog = List.of("ISBN-0", "ISBN-1", "ISBN-2", MULTI_COPY_ISBN);
+        AtomicInteger lent = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String patronId = "P" + t;
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    List<String> batch = new ArrayList<>(catalog);
+                    Collections.shuffle(batch, random);
+                    batch = batch.subList(0, 2 + random.nextInt(catalog.size() - 1)); // Random order locks in every order
+                    if (!lending.checkoutBooks(patronId, batch)) {
+                        assertFalse(holdsAny(patronId, catalog), patronId + " kept part of a rejected batch " + batch);
+                        continue;
+                    }
+                    lent.incrementAndGet();
+                    IPatron patron = patrons.getPatronById(patronId);
+                    for (String bookISBN : batch) {
+                        assertTrue(patron.hasBorrowed(bookISBN), patronId + " is missing " + bookISBN + " of " + batch);
+                    }
+                    List<ReturnRequest> returns = new ArrayList<>();
+                    for (String bookISBN : batch) {
+                        returns.add(new ReturnRequest(bookISBN, patronId));
+                    }
+                    assertTrue(lending.returnBooks(returns));
+                    assertFalse(holdsAny(patronId, catalog));
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS); // A lock order bug shows up as a deadlock here
+        }
+
+        assertTrue(lent.get() > 0);
+        for (String bookISBN : Arrays.asList("ISBN-0", "ISBN-1", "ISBN-2")) {
+            assertEquals(BookStatus.AVAILABLE, books.getBookByISBN(bookISBN).getStatus());
+            assertNull(lending.getCurrentBorrower(bookISBN));
+        }
+        assertEquals(2, holding.getAvailableCopies());
+        assertEquals(BookStatus.AVAILABLE, books.getBookByISBN(MULTI_COPY_ISBN).getStatus());
+    }
+}
@@ -0,0 +1,133 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatron;
+import Main.Java.org.project.LMS.PatronRelated.InMemoryPatronRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A returned book must go to the head of its hold queue, and a lapsed hold must pass it on exactly once,
+ * even while the holder races to check it out.
+ */
+class HoldTest {
+    private static final String ISBN = "978-0441013593";
+
+    private InMemoryBookRepository books;
+    private LibraryLendingManager lending;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        books = new InMemoryBookRepository();
+        InMemoryPatronRepository patrons = new InMemoryPatronRepository();
+        lending = new LibraryLendingManager(books, patrons);
+        pool = Executors.newFixedThreadPool(2);
+        books.addBook(new ConcreteBook("Dune", "Frank Herbert", ISBN, 1965));
+        for (int i = 0; i < 4; i++) {
+            patrons.addPatron(new ConcretePatron("P" + i, "Patron " + i, "p" + i + "@library.org"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        lending.close();
+    }
+
+    private IBook book() {
+        return books.getBookByISBN(ISBN);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void aReturnedBookIsHandedToTheHoldQueueInOrder() {
+        assertTrue(lending.checkoutBook(ISBN, "P0"));
+        assertTrue(lending.placeHold(ISBN, "P1"));
+        assertTrue(lending.placeHold(ISBN, "P2"));
+        assertFalse(lending.placeHold(ISBN, "P2"));
+        assertEquals(2, lending.getHoldQueueLength(ISBN));
+
+        assertTrue(lending.returnBook(ISBN, "P0"));
+        assertEquals(BookStatus.RESERVED, book().getStatus());
+        assertEquals("P1", lending.getActiveHold(ISBN).getPatronId());
+        assertEquals(1, lending.getHoldQueueLength(ISBN));
+        assertFalse(lending.checkoutBook(ISBN, "P2")); // Reserved for P1
+
+        assertTrue(lending.checkoutBook(ISBN, "P1"));
+        assertNull(lending.getActiveHold(ISBN));
+        assertTrue(lending.returnBook(ISBN, "P1"));
+        assertEquals("P2", lending.getActiveHold(ISBN).getPatronId());
+
+        assertTrue(lending.cancelHold(ISBN, "P2"));
+        assertEquals(BookStatus.AVAILABLE, book().getStatus());
+        assertNull(lending.getActiveHold(ISBN));
+    }
+
+    @Test
+    void aLapsedHoldPassesTheBookOnAndFinallyReleasesIt() throws Exception {
+        lending.setHoldDuration(150);
+        assertTrue(lending.checkoutBook(ISBN, "P0"));
+        assertTrue(lending.placeHold(ISBN, "P1"));
+        assertTrue(lending.placeHold(ISBN, "P2"));
+        assertTrue(lending.returnBook(ISBN, "P0"));
+        assertEquals("P1", lending.getActiveHold(ISBN).getPatronId());
+
+        awaitCondition(() -> lending.getActiveHold(ISBN) != null && lending.getActiveHold(ISBN).getPatronId().equals("P2"));
+        assertEquals(BookStatus.RESERVED, book().getStatus());
+        assertFalse(lending.checkoutBook(ISBN, "P1")); // P1's hold is gone
+
+        awaitCondition(() -> book().getStatus() == BookStatus.AVAILABLE);
+        assertNull(lending.getActiveHold(ISBN));
+        assertEquals(0, lending.getHoldQueueLength(ISBN));
+    }
+
+    @Test
+    void anExpiryRacingTheHoldersCheckoutHasExactlyOneOutcome() throws Exception {
+        lending.setHoldDuration(1);
+        for (int round = 0; round < 100; round++) {
+            assertTrue(lending.checkoutBook(ISBN, "P0"));
+            assertTrue(lending.placeHold(ISBN, "P1"));
+            assertTrue(lending.returnBook(ISBN, "P0"));
+
+            CountDownLatch start = new CountDownLatch(1);
+            Future<Boolean> checkout = pool.submit(() -> {
+                start.await();
+                return lending.checkoutBook(ISBN, "P1");
+            });
+            start.countDown();
+            if (checkout.get()) {
+                assertEquals(BookStatus.BORROWED, book().getStatus());
+                assertEquals("P1", lending.getCurrentBorrower(ISBN));
+                assertNull(lending.getActiveHold(ISBN));
+                assertTrue(lending.returnBook(ISBN, "P1"));
+            } else {
+                awaitCondition(() -> book().getStatus() == BookStatus.AVAILABLE);
+                assertNull(lending.getCurrentBorrower(ISBN));
+            }
+            assertEquals(BookStatus.AVAILABLE, book().getStatus());
+            assertNull(lending.getActiveHold(ISBN));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import Main.Java.org.project.LMS.BookRelated.ShardedBookRepository;
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatron;
+import Main.Java.org.project.LMS.PatronRelated.InMemoryPatronRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The status index and counters agree with the books' actual statuses after concurrent single and batch
+ * checkouts and returns, in one repository and summed across shards.
+ */
+class StatusCountTest {
+    private static final int THREADS = 8;
+    private static final int BOOK_COUNT = 24;
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private static Set<String> isbns(List<IBook> books) {
+        return books.stream().map(IBook::getISBN).collect(Collectors.toSet());
+    }
+
+    private void lendConcurrently(IBookRepository books) throws Exception {
+        InMemoryPatronRepository patrons = new InMemoryPatronRepository();
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            books.addBook(new ConcreteBook("Title " + i, "Author", "ISBN-" + i, 2000));
+        }
+        for (int i = 0; i < THREADS; i++) {
+            patrons.addPatron(new ConcretePatron("P" + i, "Patron " + i, "p" + i + "@library.org"));
+        }
+        try (LibraryLendingManager lending = new LibraryLendingManager(books, patrons)) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String patronId = "P" + t;
+                workers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 3_000; i++) {
+                        String isbn = "ISBN-" + random.nextInt(BOOK_COUNT);
+                        switch (random.nextInt(3)) {
+                            case 0 -> lending.checkoutBook(isbn, patronId);
+                            case 1 -> lending.returnBook(isbn, patronId);
+                            default -> {
+                                String other = "ISBN-" + random.nextInt(BOOK_COUNT);
+                                if (!other.equals(isbn) && lending.checkoutBooks(patronId, List.of(isbn, other))) {
+                                    assertTrue(lending.returnBooks(List.of(new ReturnRequest(other, patronId))));
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+    }
+
+    private static void assertIndexMatchesStatuses(IBookRepository books) {
+        long total = 0;
+        for (BookStatus status : BookStatus.values()) {
+            Set<String> actual = isbns(books.getAllBooks().stream()
+                    .filter(book -> book.getStatus() == status)
+                    .collect(Collectors.toList()));
+            assertEquals(actual.size(), books.countByStatus().get(status), status.name());
+            assertEquals(actual, isbns(books.getBooksByStatus(status)), status.name());
+            assertEquals(actual, books.streamByStatus(status).map(IBook::getISBN).collect(Collectors.toSet()), status.name());
+            total += books.countByStatus().get(status);
+        }
+        assertEquals(BOOK_COUNT, total);
+    }
+
+    @Test
+    void countsStayExactUnderConcurrentLending() throws Exception {
+        InMemoryBookRepository books = new InMemoryBookRepository();
+        lendConcurrently(books);
+        assertIndexMatchesStatuses(books);
+    }
+
+    @Test
+    void shardedCountsStayExactUnderConcurrentLending() throws Exception {
+        ShardedBookRepository books = new ShardedBookRepository(4, ForkJoinPool.commonPool());
+        lendConcurrently(books);
+        assertIndexMatchesStatuses(books);
+    }
+}
@@ -0,0 +1,69 @@
+package Main.Java.org.project.LMS.LendingManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+    // A revolution takes over ten seconds, so a timeout filed behind the visited bucket would time the test out.
+    private final TimerWheel wheel = new TimerWheel(10, 1024, "test-timer");
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void timeoutsScheduledFromManyThreadsFireWithinAFewTicks() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        CountDownLatch fired = new CountDownLatch(threads * perThread);
+        Thread[] schedulers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            schedulers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    wheel.schedule(fired::countDown, i % 3); // Mostly due in the tick being visited
+                }
+            });
+            schedulers[t].start();
+        }
+        for (Thread scheduler : schedulers) {
+            scheduler.join();
+        }
+        assertTrue(fired.await(2, TimeUnit.SECONDS), fired.getCount() + " timeouts did not fire");
+    }
+
+    @Test
+    void cancelledTimeoutsNeverRun() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout cancelled = wheel.schedule(runs::incrementAndGet, 30);
+        assertTrue(cancelled.cancel());
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 60);
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertTrue(cancelled.isCancelled());
+    }
+
+    @Test
+    void failingTasksAreReportedAndDoNotStopTheWheel() throws Exception {
+        List<RuntimeException> reported = new CopyOnWriteArrayList<>();
+        wheel.setFailureHandler(reported::add);
+        wheel.schedule(() -> {
+            throw new IllegalStateException("broken task");
+        }, 0);
+        CountDownLatch next = new CountDownLatch(1);
+        wheel.schedule(next::countDown, 20);
+
+        assertTrue(next.await(2, TimeUnit.SECONDS));
+        assertEquals(1, wheel.getTaskFailureCount());
+        assertEquals("broken task", reported.get(0).getMessage());
+    }
+}
@@ -0,0 +1,133 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private static void assertInBucket(long value) {
+        int bucket = LatencyHistogram.bucketOf(value);
+        long lower = LatencyHistogram.lowerBoundOf(bucket);
+        assertTrue(lower <= value && value < lower + LatencyHistogram.widthOf(bucket), "Value " + value + " outside bucket " + bucket);
+    }
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (int value = 0; value < LatencyHistogram.SUB_BUCKETS; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+            assertEquals(value, LatencyHistogram.lowerBoundOf(value));
+            assertEquals(1, LatencyHistogram.widthOf(value));
+        }
+        assertEquals(LatencyHistogram.SUB_BUCKETS, LatencyHistogram.bucketOf(16));
+        assertEquals(1, LatencyHistogram.widthOf(LatencyHistogram.bucketOf(31)));
+        assertEquals(2, LatencyHistogram.widthOf(LatencyHistogram.bucketOf(32)));
+    }
+
+    @Test
+    void bucketsTileTheRangeWithinASixteenthOfTheirLowerBound() {
+        for (int exponent = 4; exponent < LatencyHistogram.MAX_EXPONENT; exponent++) {
+            long power = 1L << exponent;
+            assertEquals(power, LatencyHistogram.lowerBoundOf(LatencyHistogram.bucketOf(power)));
+            assertInBucket(power - 1);
+            assertInBucket(power + 1);
+        }
+        for (int bucket = LatencyHistogram.SUB_BUCKETS; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            long lower = LatencyHistogram.lowerBoundOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lower));
+            if (bucket + 1 < LatencyHistogram.BUCKET_COUNT) {
+                assertEquals(lower + LatencyHistogram.widthOf(bucket), LatencyHistogram.lowerBoundOf(bucket + 1));
+            }
+            assertTrue(LatencyHistogram.widthOf(bucket) * 16 <= lower);
+        }
+        long cap = (1L << LatencyHistogram.MAX_EXPONENT) - 1;
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(cap));
+        assertInBucket(cap);
+    }
+
+    @Test
+    void recordingClampsNegativeAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals((1L << LatencyHistogram.MAX_EXPONENT) - 1, snapshot.getMax());
+        assertEquals((1L << LatencyHistogram.MAX_EXPONENT) - 1, snapshot.getSum());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        int top = LatencyHistogram.BUCKET_COUNT - 1;
+        assertEquals(LatencyHistogram.lowerBoundOf(top) + (LatencyHistogram.widthOf(top) - 1) / 2, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    void percentilesAreWithinASixteenthOfTheTrueValue() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long value = (long) Math.exp(random.nextDouble() * 29); // 1 ns to about an hour
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(1L << 43); // Keeps the maximum from clamping the reported value
+            long reported = histogram.snapshot().getValueAtPercentile(50);
+            assertTrue(Math.abs(reported - value) <= value * 0.0625, value + " reported as " + reported);
+        }
+
+        LatencyHistogram uniform = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            uniform.record(value);
+        }
+        HistogramSnapshot snapshot = uniform.snapshot();
+        for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9}) {
+            double expected = percentile * 1_000;
+            long reported = snapshot.getValueAtPercentile(percentile);
+            assertTrue(Math.abs(reported - expected) <= expected * 0.0625, "P" + percentile + " reported as " + reported);
+        }
+        assertEquals(100_000, snapshot.getMax());
+        assertEquals(100_000L * 100_001 / 2, snapshot.getSum());
+        assertEquals(50_000.5, snapshot.getMean());
+    }
+
+    @Test
+    void snapshotsMergeEveryStripe() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            long value = 100L * (t + 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    histogram.record(value);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(32_000, snapshot.getCount());
+        assertEquals(1_000L * 100 * (32 * 33 / 2), snapshot.getSum());
+        assertEquals(3_200, snapshot.getMax());
+        long median = snapshot.getValueAtPercentile(50); // 1,600 and 1,700 are the 16th and 17th of 32 equal groups
+        assertTrue(Math.abs(median - 1_600) <= 1_600 * 0.0625, "Median reported as " + median);
+    }
+
+    @Test
+    void stripeCountsMustBePowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(3));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(0));
+    }
+}
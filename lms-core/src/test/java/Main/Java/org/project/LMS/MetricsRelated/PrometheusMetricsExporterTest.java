@@ -0,0 +1,54 @@
+package Main.Java.org.project.LMS.MetricsRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusMetricsExporterTest {
+
+    @Test
+    void countersAreExportedWithEscapedHelpAndLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("lms_checkouts_total", "Checkouts\\renewals\nper branch", "branch", "Main \"Hall\"\\\nEast").add(3);
+        registry.counter("lms_checkouts_total", "Checkouts\\renewals\nper branch", "branch", "North").increment();
+
+        List<String> lines = PrometheusMetricsExporter.scrape(registry).lines().toList();
+
+        assertEquals("# HELP lms_checkouts_total Checkouts\\\\renewals\\nper branch", lines.get(0));
+        assertEquals("# TYPE lms_checkouts_total counter", lines.get(1));
+        assertTrue(lines.contains("lms_checkouts_total{branch=\"Main \\\"Hall\\\"\\\\\\nEast\"} 3"), lines.toString());
+        assertTrue(lines.contains("lms_checkouts_total{branch=\"North\"} 1"), lines.toString());
+        assertEquals(4, lines.size());
+    }
+
+    @Test
+    void histogramsAreExportedAsSummariesInSeconds() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("lms_a_total", "").increment();
+        LatencyHistogram histogram = registry.histogram("lms_request_seconds", "Request latency", "route", "/books");
+        histogram.record(1_000_000);
+        histogram.record(3_000_000);
+
+        List<String> lines = PrometheusMetricsExporter.scrape(registry).lines().toList();
+
+        assertEquals(List.of(
+                "# TYPE lms_a_total counter",
+                "lms_a_total 1",
+                "# HELP lms_request_seconds Request latency",
+                "# TYPE lms_request_seconds summary"), lines.subList(0, 4));
+        String[] quantiles = {"0.5", "0.9", "0.99", "0.999"};
+        for (int i = 0; i < quantiles.length; i++) {
+            String line = lines.get(4 + i);
+            String prefix = "lms_request_seconds{route=\"/books\",quantile=\"" + quantiles[i] + "\"} ";
+            assertTrue(line.startsWith(prefix), line);
+            double seconds = Double.parseDouble(line.substring(prefix.length()));
+            double expected = i == 0 ? 0.001 : 0.003;
+            assertEquals(expected, seconds, expected * 0.0625, line);
+        }
+        assertEquals("lms_request_seconds_sum{route=\"/books\"} 0.004", lines.get(8));
+        assertEquals("lms_request_seconds_count{route=\"/books\"} 2", lines.get(9));
+        assertEquals(10, lines.size());
+    }
+}
@@ -0,0 +1,126 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncEventDispatcherTest {
+
+    /**
+     * A subject with just enough plumbing to dispatch events to its observers.
+     */
+    private static final class Subject implements ILibrarySubject {
+        final List<ILibraryObserver> observers = new CopyOnWriteArrayList<>();
+        IEventDispatcher dispatcher;
+
+        @Override
+        public void addObserver(ILibraryObserver observer) {
+            observers.add(observer);
+        }
+
+        @Override
+        public void removeObserver(ILibraryObserver observer) {
+            observers.remove(observer);
+        }
+
+        @Override
+        public void notifyObservers(LibraryEvent event) {
+            dispatcher.dispatch(this, observers, event);
+        }
+
+        @Override
+        public void setEventDispatcher(IEventDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+    }
+
+    @Test
+    void everyEventDispatchedAroundCloseIsDeliveredExactlyOnce() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(16, 2, 8, AsyncEventDispatcher.BackpressurePolicy.BLOCK, 1);
+            AtomicLong delivered = new AtomicLong();
+            List<Subject> subjects = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Subject subject = new Subject();
+                subject.setEventDispatcher(dispatcher);
+                subject.addObserver(event -> delivered.incrementAndGet());
+                subjects.add(subject);
+            }
+            AtomicLong dispatched = new AtomicLong();
+            CountDownLatch running = new CountDownLatch(subjects.size());
+            List<Thread> producers = new ArrayList<>();
+            for (Subject subject : subjects) {
+                Thread producer = new Thread(() -> {
+                    running.countDown();
+                    for (int i = 0; i < 2_000; i++) {
+                        subject.notifyObservers(new LibraryEvent(LibraryEvent.EventType.INFO, "event " + i));
+                        dispatched.incrementAndGet();
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            running.await();
+            dispatcher.close(); // Races with the producers; none of their events may be lost
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            assertEquals(dispatched.get(), delivered.get());
+            assertEquals(0, dispatcher.getDroppedEventCount());
+        }
+    }
+
+    @Test
+    void observersAddedLaterDoNotReceiveEarlierEvents() throws Exception {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher();
+        Subject subject = new Subject();
+        subject.setEventDispatcher(dispatcher);
+        CountDownLatch release = new CountDownLatch(1);
+        subject.addObserver(event -> {
+            try {
+                release.await(); // Holds the consumer so the first event is still queued below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        subject.notifyObservers(new LibraryEvent(LibraryEvent.EventType.INFO, "before"));
+
+        List<String> late = new CopyOnWriteArrayList<>();
+        subject.addObserver(event -> late.add(event.getMessage()));
+        subject.notifyObservers(new LibraryEvent(LibraryEvent.EventType.INFO, "after"));
+        release.countDown();
+        dispatcher.close();
+
+        assertEquals(List.of("after"), late);
+    }
+
+    @Test
+    void failingObserversAreCountedAndReportedWithoutStoppingDelivery() {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher();
+        List<RuntimeException> reported = new CopyOnWriteArrayList<>();
+        dispatcher.setFailureHandler((observer, failure) -> reported.add(failure));
+        Subject subject = new Subject();
+        subject.setEventDispatcher(dispatcher);
+        AtomicInteger healthy = new AtomicInteger();
+        subject.addObserver(event -> {
+            throw new IllegalStateException("broken observer");
+        });
+        subject.addObserver(event -> healthy.incrementAndGet());
+        for (int i = 0; i < 10; i++) {
+            subject.notifyObservers(new LibraryEvent(LibraryEvent.EventType.INFO, "event " + i));
+        }
+        dispatcher.close();
+
+        assertEquals(10, healthy.get());
+        assertTrue(dispatcher.getObserverFailureCount() > 0);
+        assertEquals(dispatcher.getObserverFailureCount(), reported.size());
+        assertEquals("broken observer", reported.get(0).getMessage());
+    }
+}
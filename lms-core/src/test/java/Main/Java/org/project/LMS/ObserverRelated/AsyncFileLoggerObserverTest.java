@@ -0,0 +1,86 @@
+package Main.Java.org.project.LMS.ObserverRelated;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncFileLoggerObserverTest {
+
+    private static AsyncFileLoggerObserver logger(Path file, long maxFileBytes, int maxBackups) {
+        return new AsyncFileLoggerObserver(file, EnumSet.allOf(LibraryEvent.EventType.class), maxFileBytes, maxBackups, 5, 1 << 16);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void aFailedRolloverKeepsLoggingToTheCurrentFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("lms.log");
+        // A non-empty directory where the backup goes makes every rollover fail
+        Files.createDirectories(dir.resolve("lms.log.1"));
+        Files.writeString(dir.resolve("lms.log.1").resolve("blocker"), "x");
+        AsyncFileLoggerObserver logger = logger(file, 256, 1);
+        List<IOException> failures = new ArrayList<>();
+        logger.setFailureHandler(failures::add);
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 4; i++) {
+                logger.update(new LibraryEvent(LibraryEvent.EventType.INFO, "Event " + round + "-" + i));
+            }
+            long expected = (round + 1) * 4L;
+            awaitCondition(() -> logger.getWrittenEvents() == expected);
+        }
+        logger.close();
+
+        assertTrue(logger.getWriteFailureCount() > 0);
+        assertEquals(logger.getWriteFailureCount(), failures.size());
+        assertEquals(0, logger.getDroppedEvents());
+        assertEquals(20, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void everyEventOfferedAroundCloseIsWrittenOrCounted(@TempDir Path dir) throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AsyncFileLoggerObserver logger = logger(dir.resolve("round-" + round + ".log"), Long.MAX_VALUE, 0);
+            AtomicLong offered = new AtomicLong();
+            CountDownLatch running = new CountDownLatch(4);
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread producer = new Thread(() -> {
+                    running.countDown();
+                    for (int i = 0; i < 2_000; i++) {
+                        logger.update(new LibraryEvent(LibraryEvent.EventType.INFO, "Event " + i));
+                        offered.incrementAndGet();
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            running.await();
+            logger.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            assertEquals(offered.get(), logger.getWrittenEvents() + logger.getDroppedEvents());
+            assertEquals(logger.getWrittenEvents(), Files.readAllLines(dir.resolve("round-" + round + ".log")).size());
+        }
+    }
+}
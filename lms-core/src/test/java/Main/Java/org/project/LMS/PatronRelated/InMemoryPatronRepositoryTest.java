@@ -0,0 +1,119 @@
+package Main.Java.org.project.LMS.PatronRelated;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Indexed patron searches find exactly what a scan with {@link PatronSearchType#matches} finds, and follow
+ * renames and contact changes.
+ */
+class InMemoryPatronRepositoryTest {
+
+    private InMemoryPatronRepository patrons;
+
+    @BeforeEach
+    void setUp() {
+        patrons = new InMemoryPatronRepository();
+        patrons.addPatron(new ConcretePatron("P1", "John Smith", "john@example.com"));
+        patrons.addPatron(new ConcretePatron("P2", "Jane Smithers", "+1 (555) 010-2030"));
+        patrons.addPatron(new ConcretePatron("P3", "Mary Jane Watson", "mary@example.com"));
+        patrons.addPatron(new ConcretePatron("P4", "Ada Lovelace", "ada@example.com"));
+    }
+
+    private static List<String> ids(List<IPatron> patrons) {
+        return patrons.stream().map(IPatron::getPatronId).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * The patrons a scan over every patron finds, for comparison with the indexed search.
+     */
+    private List<String> scan(String query, PatronSearchType searchBy) {
+        return ids(patrons.getAllPatrons().stream().filter(p -> searchBy.matches(p, query)).collect(Collectors.toList()));
+    }
+
+    private void assertMatchesScan(String query, PatronSearchType searchBy) {
+        assertEquals(scan(query, searchBy), ids(patrons.searchPatrons(query, searchBy)), searchBy + " '" + query + "'");
+    }
+
+    @Test
+    void prefixSearchMatchesTheStartOfAnyNameWord() {
+        assertEquals(List.of("P1", "P2"), ids(patrons.searchPatrons("smi", PatronSearchType.BY_NAME_PREFIX)));
+        assertEquals(List.of("P2", "P3"), ids(patrons.searchPatrons("JANE", PatronSearchType.BY_NAME_PREFIX)));
+        assertEquals(List.of("P3"), ids(patrons.searchPatrons("jane wat", PatronSearchType.BY_NAME_PREFIX)));
+        assertEquals(List.of("P3"), ids(patrons.searchPatrons("mary jane", PatronSearchType.BY_NAME_PREFIX)));
+        assertTrue(patrons.searchPatrons("mith", PatronSearchType.BY_NAME_PREFIX).isEmpty()); // Not at a word start
+        for (String query : new String[]{"j", "jo", "john smith", "w", "lovelace", "x"}) {
+            assertMatchesScan(query, PatronSearchType.BY_NAME_PREFIX);
+        }
+    }
+
+    @Test
+    void substringSearchMatchesAScanForShortAndLongQueries() {
+        // One and two characters are below the trigram length and scan; longer queries use the trigram index.
+        for (String query : new String[]{"a", "J", "th", "e ", "smith", "ITH", "ne sm", "ry ja", "lovelace", "zzz"}) {
+            assertMatchesScan(query, PatronSearchType.BY_NAME);
+        }
+        assertEquals(List.of("P1", "P2"), ids(patrons.searchPatrons("mith", PatronSearchType.BY_NAME)));
+        assertEquals(List.of("P2", "P3"), ids(patrons.searchPatrons("ja", PatronSearchType.BY_NAME)));
+    }
+
+    @Test
+    void contactSearchNormalizesBothSides() {
+        assertEquals(List.of("P1"), ids(patrons.searchPatrons("  John@Example.COM ", PatronSearchType.BY_CONTACT)));
+        assertEquals(List.of("P2"), ids(patrons.searchPatrons("+15550102030", PatronSearchType.BY_CONTACT)));
+        assertEquals(List.of("P2"), ids(patrons.searchPatrons("+1 555-010-2030", PatronSearchType.BY_CONTACT)));
+        assertTrue(patrons.searchPatrons("15550102030", PatronSearchType.BY_CONTACT).isEmpty()); // The '+' is kept
+        assertEquals("+15550102030", PatronSearchType.normalizeContact("+1 (555) 010-2030"));
+        assertEquals("jane@example.com", PatronSearchType.normalizeContact(" Jane@Example.com"));
+    }
+
+    @Test
+    void aChangedContactIsFoundUnderItsNewValueOnceUpdated() {
+        IPatron john = patrons.getPatronById("P1");
+        john.setContactInfo("John.Smith@Example.org");
+
+        // Candidates are verified against the current contact, so the old one stops matching at once
+        assertTrue(patrons.searchPatrons("john@example.com", PatronSearchType.BY_CONTACT).isEmpty());
+        assertTrue(patrons.searchPatrons("john.smith@example.org", PatronSearchType.BY_CONTACT).isEmpty());
+
+        patrons.updatePatron(john);
+        assertEquals(List.of("P1"), ids(patrons.searchPatrons("john.smith@example.org", PatronSearchType.BY_CONTACT)));
+        assertTrue(patrons.searchPatrons("john@example.com", PatronSearchType.BY_CONTACT).isEmpty());
+    }
+
+    @Test
+    void aRenameMovesThePatronBetweenIndexKeysAndLeavesNoneBehind() {
+        patrons.updatePatron(new ConcretePatron("P4", "Grace Hopper", "grace@example.com"));
+
+        assertTrue(patrons.searchPatrons("love", PatronSearchType.BY_NAME_PREFIX).isEmpty());
+        assertTrue(patrons.searchPatrons("lovelace", PatronSearchType.BY_NAME).isEmpty());
+        assertTrue(patrons.searchPatrons("ada@example.com", PatronSearchType.BY_CONTACT).isEmpty());
+        assertEquals(List.of("P4"), ids(patrons.searchPatrons("hop", PatronSearchType.BY_NAME_PREFIX)));
+        assertEquals(List.of("P4"), ids(patrons.searchPatrons("race hop", PatronSearchType.BY_NAME)));
+        assertEquals(List.of("P4"), ids(patrons.searchPatrons("grace@example.com", PatronSearchType.BY_CONTACT)));
+
+        // The indexes hold exactly the keys of a repository that only ever saw the new name
+        InMemoryPatronRepository fresh = new InMemoryPatronRepository();
+        fresh.addPatron(new ConcretePatron("P1", "John Smith", "john@example.com"));
+        fresh.addPatron(new ConcretePatron("P2", "Jane Smithers", "+1 (555) 010-2030"));
+        fresh.addPatron(new ConcretePatron("P3", "Mary Jane Watson", "mary@example.com"));
+        fresh.addPatron(new ConcretePatron("P4", "Grace Hopper", "grace@example.com"));
+        assertEquals(fresh.indexKeyCount(), patrons.indexKeyCount());
+    }
+
+    @Test
+    void pagesWalkPatronsInIdOrderAndSeePatronsAddedAheadOfTheCursor() {
+        assertEquals(List.of("P1", "P2"), ids(patrons.page(null, 2)));
+
+        patrons.addPatron(new ConcretePatron("P0", "Zoe Zhang", "zoe@example.com")); // Behind the cursor
+        patrons.addPatron(new ConcretePatron("P25", "Ben Okafor", "ben@example.com"));
+        assertEquals(List.of("P25", "P3"), patrons.page("P2", 2).stream().map(IPatron::getPatronId).collect(Collectors.toList()));
+        assertEquals(List.of("P4"), ids(patrons.page("P3", 2)));
+        assertTrue(patrons.page("P4", 2).isEmpty());
+    }
+}
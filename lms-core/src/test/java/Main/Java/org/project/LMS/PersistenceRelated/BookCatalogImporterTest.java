@@ -0,0 +1,109 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBookFactory;
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.IBookRepository;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import Main.Java.org.project.LMS.BookRelated.SearchType;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCatalogImporterTest {
+    private static final String CATALOG = "title,author,isbn,publicationYear\n"
+            + "Dune,Frank Herbert,978-0441013593,1965\n"
+            + "Neuromancer,William Gibson,978-0441569595,1984\n"
+            + "Hyperion,Dan Simmons,978-0553283686,1989\n";
+
+    /**
+     * Adds a conflicting book right before the first batch, as a concurrent writer would after the importer's check.
+     */
+    private static final class RacingRepository extends InMemoryBookRepository {
+        private boolean raced;
+
+        @Override
+        public void addBooks(Collection<? extends IBook> newBooks) {
+            if (!raced) {
+                raced = true;
+                addBook(new ConcreteBook("Neuromancer", "Someone Else", "978-0441569595", 2000));
+            }
+            super.addBooks(newBooks);
+        }
+    }
+
+    /**
+     * A book that lets a concurrent writer add a conflicting book once the repository has stored it, i.e. after
+     * the repository checked the whole batch and while it is inserting it.
+     */
+    private static final class RacedBook extends ConcreteBook {
+        private final Runnable concurrentWriter;
+        private boolean raced;
+
+        RacedBook(String title, String author, String isbn, int year, Runnable concurrentWriter) {
+            super(title, author, isbn, year);
+            this.concurrentWriter = concurrentWriter;
+        }
+
+        @Override
+        public BookStatus getStatus() {
+            if (!raced) {
+                raced = true;
+                concurrentWriter.run();
+            }
+            return super.getStatus();
+        }
+    }
+
+    @Test
+    void importsEveryLineIntoAnEmptyRepository() {
+        InMemoryBookRepository books = new InMemoryBookRepository();
+        ImportResult result = new BookCatalogImporter(books, new ConcreteBookFactory())
+                .importFrom(new StringReader(CATALOG), CatalogFormat.CSV);
+
+        assertEquals(3, result.getImportedCount());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals(3, books.getAllBooks().size());
+    }
+
+    @Test
+    void aBatchRejectedByAConcurrentAddIsRetriedBookByBook() {
+        IBookRepository books = new RacingRepository();
+        ImportResult result = new BookCatalogImporter(books, new ConcreteBookFactory())
+                .importFrom(new StringReader(CATALOG), CatalogFormat.CSV);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(1, result.getRejectedCount());
+        List<String> rejections = result.getRejections();
+        assertEquals(1, rejections.size());
+        assertTrue(rejections.get(0).startsWith("line 3: "), rejections.get(0));
+        assertEquals("Someone Else", books.getBookByISBN("978-0441569595").getAuthor());
+        assertNotNull(books.getBookByISBN("978-0441013593"));
+        assertNotNull(books.getBookByISBN("978-0553283686"));
+    }
+
+    @Test
+    void aBookAddedWhileTheBatchIsInsertedRejectsTheBatchAndIsKept() {
+        InMemoryBookRepository books = new InMemoryBookRepository();
+        IBook concurrent = new ConcreteBook("Neuromancer", "Someone Else", "978-0441569595", 2000);
+        ConcreteBookFactory plain = new ConcreteBookFactory();
+        ImportResult result = new BookCatalogImporter(books, (title, author, isbn, year) -> isbn.equals("978-0441013593")
+                ? new RacedBook(title, author, isbn, year, () -> books.addBook(concurrent))
+                : plain.createBook(title, author, isbn, year))
+                .importFrom(new StringReader(CATALOG), CatalogFormat.CSV);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(1, result.getRejectedCount());
+        assertTrue(result.getRejections().get(0).startsWith("line 3: "), result.getRejections().get(0));
+        assertSame(concurrent, books.getBookByISBN("978-0441569595"));
+        // The rolled-back insert left nothing behind in the indexes
+        assertEquals(List.of(concurrent), books.searchBooks("neuromancer", SearchType.BY_TITLE));
+        assertEquals(3, books.page(null, 10).size());
+        assertEquals(3L, books.countByStatus().get(BookStatus.AVAILABLE));
+    }
+}
@@ -0,0 +1,154 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import Main.Java.org.project.LMS.BookRelated.SearchType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes on a mapped catalog go to the overflow map and the tombstones, and every read sees the merged catalog.
+ */
+class MappedBookRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private MappedBookRepository books;
+
+    @BeforeEach
+    void setUp() {
+        List<IBook> catalog = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            catalog.add(new ConcreteBook("Title " + i, "Author " + i, "ISBN-" + i + "0", 2000 + i));
+        }
+        catalog.add(new ConcreteBook("Check Digit", "Author X", "000723436X", 1999));
+        Path file = directory.resolve("catalog.bin");
+        MappedCatalogWriter.write(file, catalog);
+        books = new MappedBookRepository(file);
+    }
+
+    @AfterEach
+    void tearDown() {
+        books.close();
+    }
+
+    private static List<String> isbns(List<IBook> books) {
+        return books.stream().map(IBook::getISBN).collect(Collectors.toList());
+    }
+
+    @Test
+    void addedAndRemovedBooksAreMergedInIsbnOrder() {
+        books.addBook(new ConcreteBook("Added", "Someone", "ISBN-15", 2020));
+        assertTrue(books.removeBook("ISBN-20"));
+        assertFalse(books.removeBook("ISBN-20"));
+
+        assertEquals(11, books.size());
+        assertNull(books.getBookByISBN("ISBN-20"));
+        assertEquals("Added", books.getBookByISBN("ISBN-15").getTitle());
+        assertEquals(List.of("ISBN-10", "ISBN-15", "ISBN-30"), isbns(books.page("ISBN-00", 3)));
+        assertEquals(isbns(books.getAllBooks()), isbns(books.stream().collect(Collectors.toList())));
+        assertEquals(11, books.getAllBooks().size());
+        assertTrue(books.searchBooks("added", SearchType.BY_TITLE).stream().anyMatch(b -> b.getISBN().equals("ISBN-15")));
+    }
+
+    @Test
+    void duplicatesAreRejectedUntilTheCatalogRecordIsRemoved() {
+        assertThrows(IllegalArgumentException.class,
+                () -> books.addBook(new ConcreteBook("Copy", "Someone", "ISBN-10", 2020)));
+        assertTrue(books.removeBook("ISBN-10"));
+        books.addBook(new ConcreteBook("Replacement", "Someone", "ISBN-10", 2020));
+        assertEquals("Replacement", books.getBookByISBN("ISBN-10").getTitle());
+        assertThrows(IllegalArgumentException.class,
+                () -> books.addBook(new ConcreteBook("Copy", "Someone", "ISBN-10", 2020)));
+    }
+
+    @Test
+    void statusCountsFollowAddsUpdatesAndRemovals() {
+        IBook added = new ConcreteBook("Added", "Someone", "ISBN-15", 2020);
+        books.addBook(added);
+        added.setStatus(BookStatus.BORROWED); // Changed in place, as the lending manager does
+        books.updateBook(added);
+        IBook record = books.getBookByISBN("ISBN-00");
+        record.setStatus(BookStatus.BORROWED);
+        books.updateBook(record);
+        books.removeBook("ISBN-00");
+
+        assertEquals(1L, books.countByStatus().get(BookStatus.BORROWED));
+        assertEquals(10L, books.countByStatus().get(BookStatus.AVAILABLE));
+        assertEquals(List.of("ISBN-15"), isbns(books.streamByStatus(BookStatus.BORROWED).collect(Collectors.toList())));
+        assertThrows(IllegalArgumentException.class, () -> books.updateBook(record));
+    }
+
+    @Test
+    void fuzzySearchFollowsAddsRemovalsAndReplacements() {
+        assertEquals(List.of("000723436X"), isbns(books.searchBooks("Chek Digit", SearchType.FUZZY_TITLE, 5)));
+
+        books.addBook(new ConcreteBook("Neuromancer", "William Gibson", "ISBN-15", 1984));
+        assertEquals(List.of("ISBN-15"), isbns(books.searchBooks("Nueromancer", SearchType.FUZZY_TITLE, 5)));
+        assertEquals(List.of("ISBN-15"), isbns(books.searchBooks("Gibsen", SearchType.FUZZY_AUTHOR, 5)));
+
+        books.updateBook(new ConcreteBook("Count Zero", "William Gibson", "ISBN-15", 1986));
+        assertTrue(books.searchBooks("Neuromancer", SearchType.FUZZY_TITLE, 5).isEmpty());
+        assertEquals(List.of("ISBN-15"), isbns(books.searchBooks("Count Zer0", SearchType.FUZZY_TITLE, 5)));
+
+        assertTrue(books.removeBook("ISBN-15"));
+        assertTrue(books.removeBook("000723436X"));
+        assertTrue(books.searchBooks("Count Zero", SearchType.FUZZY_TITLE, 5).isEmpty());
+        assertTrue(books.searchBooks("Check Digit", SearchType.FUZZY_TITLE, 5).isEmpty());
+        assertTrue(books.searchBooks("Gibson", SearchType.FUZZY_AUTHOR, 5).isEmpty());
+    }
+
+    @Test
+    void fuzzySearchIndexesTheChangesMadeBeforeIt() {
+        books.addBook(new ConcreteBook("Neuromancer", "William Gibson", "ISBN-15", 1984));
+        assertTrue(books.removeBook("ISBN-30"));
+        books.updateBook(new ConcreteBook("Count Zero", "William Gibson", "ISBN-15", 1986));
+
+        assertEquals(List.of("ISBN-15"), isbns(books.searchBooks("Count Zer0", SearchType.FUZZY_TITLE, 5)));
+        assertTrue(books.searchBooks("Neuromancer", SearchType.FUZZY_TITLE, 5).isEmpty());
+        assertTrue(books.searchBooks("Author 3", SearchType.FUZZY_AUTHOR, 5).stream().noneMatch(b -> b.getISBN().equals("ISBN-30")));
+        assertEquals(List.of("ISBN-40"), isbns(books.searchBooks("Titel 4", SearchType.FUZZY_TITLE, 1)));
+    }
+
+    @Test
+    void openingDecodesNoRecord() throws IOException {
+        // Point the first record's title past the end of the string heap, so decoding it throws
+        Path file = directory.resolve("broken.bin");
+        MappedCatalogWriter.write(file, List.of(
+                new ConcreteBook("Title 1", "Author 1", "ISBN-1", 2001),
+                new ConcreteBook("Title 2", "Author 2", "ISBN-2", 2002)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), MappedCatalogWriter.HEADER_BYTES + 6);
+        }
+
+        try (MappedBookRepository broken = new MappedBookRepository(file)) {
+            assertEquals(2, broken.size());
+            assertEquals("Title 2", broken.getBookByISBN("ISBN-2").getTitle());
+            assertEquals(List.of("ISBN-2"), isbns(broken.searchBooks("ISBN-2", SearchType.BY_ISBN)));
+            // Only the first fuzzy search reads every record
+            assertThrows(IndexOutOfBoundsException.class, () -> broken.searchBooks("Title", SearchType.FUZZY_TITLE, 5));
+        }
+    }
+
+    @Test
+    void isbnSearchIgnoresCaseLikeTheOtherRepositories() {
+        assertEquals(List.of("000723436X"), isbns(books.searchBooks("000723436x", SearchType.BY_ISBN)));
+        assertEquals(List.of("ISBN-10"), isbns(books.searchBooks("isbn-10", SearchType.BY_ISBN)));
+        assertEquals(List.of("ISBN-10"), isbns(books.searchBooks("ISBN-10", SearchType.BY_ISBN)));
+    }
+}
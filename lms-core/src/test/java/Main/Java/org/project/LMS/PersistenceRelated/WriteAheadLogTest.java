@@ -0,0 +1,171 @@
+package Main.Java.org.project.LMS.PersistenceRelated;
+
+import Main.Java.org.project.LMS.BookRelated.BookStatus;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.IBook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recovery must restore exactly the records that were fully written, and cut off whatever follows them.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] record(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<String> recover(WriteAheadLog log, List<String> snapshot) {
+        List<String> records = new ArrayList<>();
+        log.recover(payload -> snapshot.add(text(payload)), payload -> records.add(text(payload)));
+        return records;
+    }
+
+    @Test
+    void recoversTheSnapshotAndTheLogTailAfterReopening() {
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            log.recover(payload -> fail("Fresh log has no snapshot"), payload -> fail("Fresh log has no records"));
+            log.commit(log.append(record("a")));
+            log.commit(log.append(record("b")));
+            long covered = log.rotate();
+            log.writeSnapshot(covered, List.of(record("a"), record("b")));
+            log.commit(log.append(record("c")));
+        }
+
+        List<String> snapshot = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            assertEquals(List.of("c"), recover(log, snapshot));
+            assertEquals(List.of("a", "b"), snapshot);
+        }
+    }
+
+    @Test
+    void recoversRecordsLargerThanOneReadChunk() {
+        String large = "x".repeat(3 << 20);
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            log.recover(payload -> { }, payload -> { });
+            log.commit(log.append(record("small")));
+            log.commit(log.append(record(large)));
+            log.commit(log.append(record("after")));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            assertEquals(List.of("small", large, "after"), recover(log, new ArrayList<>()));
+        }
+    }
+
+    @Test
+    void truncatesATornTailAndKeepsAppendingAfterTheLastValidRecord() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            log.recover(payload -> { }, payload -> { });
+            log.commit(log.append(record("first")));
+            log.commit(log.append(record("second")));
+        }
+        Path file = directory.resolve("test-1.log");
+        long validSize = Files.size(file);
+        // A frame header promising more bytes than were written, as left behind by a crash mid-append
+        ByteBuffer torn = ByteBuffer.allocate(12).putInt(100).putInt(0).put(new byte[] {1, 2, 3, 4});
+        Files.write(file, torn.array(), StandardOpenOption.APPEND);
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            assertEquals(List.of("first", "second"), recover(log, new ArrayList<>()));
+            assertEquals(validSize, Files.size(file));
+            log.commit(log.append(record("third")));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            assertEquals(List.of("first", "second", "third"), recover(log, new ArrayList<>()));
+        }
+    }
+
+    @Test
+    void stopsAtARecordWithABadChecksum() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            log.recover(payload -> { }, payload -> { });
+            log.commit(log.append(record("good")));
+            log.commit(log.append(record("flipped")));
+            log.commit(log.append(record("lost")));
+        }
+        Path file = directory.resolve("test-1.log");
+        byte[] bytes = Files.readAllBytes(file);
+        int flippedPayload = 8 + "good".length() + 8;
+        bytes[flippedPayload] ^= 0x7F;
+        Files.write(file, bytes);
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, "test", FsyncPolicy.PER_OPERATION, 1, 1)) {
+            assertEquals(List.of("good"), recover(log, new ArrayList<>()));
+            assertEquals(8 + "good".length(), Files.size(file));
+        }
+    }
+
+    @Test
+    void durableRepositoryRestoresConcurrentWritesAfterSnapshotAndReopen() throws Exception {
+        int writers = 4;
+        int booksPerWriter = 250;
+        try (DurableBookRepository books = new DurableBookRepository(directory, FsyncPolicy.PER_BATCH)) {
+            ExecutorService pool = Executors.newFixedThreadPool(writers);
+            try {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    int writer = w;
+                    tasks.add(pool.submit(() -> {
+                        for (int i = 0; i < booksPerWriter; i++) {
+                            String isbn = "ISBN-" + writer + "-" + i;
+                            books.addBook(new ConcreteBook("Title " + i, "Author " + writer, isbn, 2000));
+                            if (i % 3 == 0) {
+                                IBook lent = new ConcreteBook("Title " + i, "Author " + writer, isbn, 2000);
+                                lent.setStatus(BookStatus.BORROWED);
+                                books.updateBook(lent);
+                            }
+                            if (i % 5 == 0) {
+                                books.removeBook(isbn);
+                            }
+                            if (writer == 0 && i == booksPerWriter / 2) {
+                                books.snapshot(); // Writers keep going while the snapshot is taken
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        try (DurableBookRepository books = new DurableBookRepository(directory, FsyncPolicy.PER_BATCH)) {
+            for (int w = 0; w < writers; w++) {
+                for (int i = 0; i < booksPerWriter; i++) {
+                    IBook book = books.getBookByISBN("ISBN-" + w + "-" + i);
+                    if (i % 5 == 0) {
+                        assertNull(book);
+                    } else {
+                        assertNotNull(book);
+                        assertEquals(i % 3 == 0 ? BookStatus.BORROWED : BookStatus.AVAILABLE, book.getStatus());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package Main.Java.org.project.LMS.ServerRelated;
+
+import Main.Java.org.project.LMS.BookRelated.ConcreteBook;
+import Main.Java.org.project.LMS.BookRelated.ConcreteBookFactory;
+import Main.Java.org.project.LMS.BookRelated.InMemoryBookRepository;
+import Main.Java.org.project.LMS.LendingManager.LibraryLendingManager;
+import Main.Java.org.project.LMS.ObserverRelated.LibraryService;
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatron;
+import Main.Java.org.project.LMS.PatronRelated.ConcretePatronFactory;
+import Main.Java.org.project.LMS.PatronRelated.InMemoryPatronRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryHttpServerTest {
+
+    private LibraryLendingManager lending;
+    private LibraryHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryBookRepository books = new InMemoryBookRepository();
+        InMemoryPatronRepository patrons = new InMemoryPatronRepository();
+        books.addBook(new ConcreteBook("Dune", "Frank Herbert", "978-0441013593", 1965));
+        books.addBook(new ConcreteBook("The \"Quoted\" Title\\Path", "Tab\tNew\nLine\u0001", "978-0000000001", 2001));
+        patrons.addPatron(new ConcretePatron("P1", "Ada Lovelace", "ada@example.com"));
+        patrons.addPatron(new ConcretePatron("P2", "Grace Hopper", "grace@example.com"));
+        lending = new LibraryLendingManager(books, patrons);
+        LibraryService service = new LibraryService(books, patrons, lending, new ConcreteBookFactory(), new ConcretePatronFactory());
+        server = new LibraryHttpServer(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        lending.close();
+    }
+
+    private HttpResponse<String> send(String method, String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + pathAndQuery))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void checkoutAndReturnAnswer200Or409() throws Exception {
+        HttpResponse<String> checkout = send("POST", "/checkout?isbn=978-0441013593&patron=P1");
+        assertEquals(200, checkout.statusCode());
+        assertEquals("{\"ok\":true,\"isbn\":\"978-0441013593\"}", checkout.body());
+        assertTrue(checkout.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        assertEquals(409, send("POST", "/checkout?isbn=978-0441013593&patron=P2").statusCode());
+
+        assertEquals("{\"isbn\":\"978-0441013593\",\"patronId\":\"P1\"}", send("GET", "/books/978-0441013593/borrower").body());
+        HttpResponse<String> patron = send("GET", "/patrons/P1");
+        assertEquals(200, patron.statusCode());
+        assertEquals("{\"patronId\":\"P1\",\"name\":\"Ada Lovelace\",\"contact\":\"ada@example.com\",\"borrowedISBNs\":[\"978-0441013593\"]}",
+                patron.body());
+
+        assertEquals(409, send("POST", "/return?isbn=978-0441013593&patron=P2").statusCode()); // Not the borrower
+        assertEquals(200, send("POST", "/return?isbn=978-0441013593").statusCode());        // The recorded borrower returns it
+        assertEquals(409, send("POST", "/return?isbn=978-0441013593").statusCode());
+        assertEquals("{\"isbn\":\"978-0441013593\",\"patronId\":null}", send("GET", "/books/978-0441013593/borrower").body());
+    }
+
+    @Test
+    void badRequestsAreAnswered400() throws Exception {
+        assertEquals(400, send("POST", "/checkout?isbn=978-0441013593").statusCode());
+        assertEquals(400, send("POST", "/checkout?patron=P1&isbn=%20").statusCode());
+        assertEquals(400, send("POST", "/return").statusCode());
+        assertEquals(400, send("GET", "/search").statusCode());
+        assertEquals(400, send("GET", "/search?q=dune&limit=ten").statusCode());
+        assertEquals(400, send("GET", "/search?q=dune&limit=0").statusCode());
+        assertEquals(400, send("GET", "/search?q=dune&limit=" + (LibraryHttpServer.MAX_SEARCH_LIMIT + 1)).statusCode());
+        assertEquals(400, send("GET", "/search?q=dune&by=BY_COLOR").statusCode());
+        HttpResponse<String> missing = send("GET", "/search?q=dune&by=");
+        assertEquals(400, missing.statusCode());
+        assertTrue(missing.body().startsWith("{\"error\":"), missing.body());
+    }
+
+    @Test
+    void aWrongMethodIsAnswered405() throws Exception {
+        HttpResponse<String> response = send("GET", "/checkout?isbn=978-0441013593&patron=P1");
+        assertEquals(405, response.statusCode());
+        assertEquals("POST", response.headers().firstValue("Allow").orElse(null));
+        assertEquals(405, send("POST", "/search?q=dune").statusCode());
+        assertEquals(405, send("DELETE", "/books/978-0441013593").statusCode());
+        assertNull(lending.getCurrentBorrower("978-0441013593")); // Nothing was lent
+    }
+
+    @Test
+    void unknownBooksAndPatronsAreAnswered404() throws Exception {
+        assertEquals(404, send("GET", "/books/978-9999999999").statusCode());
+        assertEquals(404, send("GET", "/books/").statusCode());
+        assertEquals(404, send("GET", "/patrons/P9").statusCode());
+        assertEquals(404, send("GET", "/patrons/").statusCode());
+        assertEquals(200, send("GET", "/books/978-0441013593").statusCode());
+    }
+
+    @Test
+    void stringsAreEscapedInJson() throws Exception {
+        String expected = "{\"isbn\":\"978-0000000001\",\"title\":\"The \\\"Quoted\\\" Title\\\\Path\","
+                + "\"author\":\"Tab\\tNew\\nLine\\u0001\",\"publicationYear\":2001,\"status\":\"AVAILABLE\"}";
+        HttpResponse<String> book = send("GET", "/books/978-0000000001");
+        assertEquals(200, book.statusCode());
+        assertEquals(expected, book.body());
+        assertEquals("[" + expected + "]", send("GET", "/search?q=quoted&by=BY_TITLE&limit=5").body());
+        assertEquals("[]", send("GET", "/search?q=nothing+like+it").body());
+    }
+}